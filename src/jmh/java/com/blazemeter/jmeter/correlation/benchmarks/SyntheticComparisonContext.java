@@ -0,0 +1,44 @@
+package com.blazemeter.jmeter.correlation.benchmarks;
+
+import com.blazemeter.jmeter.correlation.core.automatic.Appearances;
+import com.blazemeter.jmeter.correlation.core.automatic.Configuration;
+import com.blazemeter.jmeter.correlation.core.suggestions.context.ComparisonContext;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.apache.jmeter.samplers.SampleResult;
+
+/**
+ * ComparisonContext that provides the maps and results of a {@link SyntheticRecording} instead of
+ * parsing them from trace files, so only the suggestions generation is measured.
+ */
+public class SyntheticComparisonContext extends ComparisonContext {
+
+  private final SyntheticRecording recording;
+
+  public SyntheticComparisonContext(SyntheticRecording recording, Configuration configuration) {
+    super(configuration);
+    this.recording = recording;
+  }
+
+  @Override
+  public List<SampleResult> getRecordingSampleResults() {
+    return recording.getResults();
+  }
+
+  @Override
+  public Stream<SampleResult> streamRecordingSampleResults() {
+    return recording.getResults().stream();
+  }
+
+  @Override
+  public Map<String, List<Appearances>> getRecordingMap() {
+    return recording.getRecordingMap();
+  }
+
+  @Override
+  public Map<String, List<Appearances>> getReplayMap() {
+    return recording.getReplayMap();
+  }
+
+}
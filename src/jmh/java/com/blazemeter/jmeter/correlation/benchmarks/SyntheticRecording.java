@@ -0,0 +1,180 @@
+package com.blazemeter.jmeter.correlation.benchmarks;
+
+import com.blazemeter.jmeter.correlation.core.automatic.Appearances;
+import com.blazemeter.jmeter.correlation.core.automatic.Sources;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.jmeter.protocol.http.sampler.HTTPSampleResult;
+import org.apache.jmeter.protocol.http.sampler.HTTPSamplerProxy;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.threads.JMeterVariables;
+
+/**
+ * Generates a recording with a configurable amount of samplers, where each sampler sends as
+ * arguments (and in a JSON body) the values returned in the JSON response of the previous one.
+ *
+ * <p>Each sampler receives {@code valuesPerSampler} dynamic values, nested {@code jsonDepth} levels
+ * inside the response, which is padded up to {@code bodySize} characters. A replay with different
+ * values for the same parameters is generated as well, so the recording can be used both for the
+ * correlation rules and for the automatic correlation suggestions.
+ */
+public class SyntheticRecording {
+
+  private static final String PARAM_PREFIX = "param_";
+  private static final String LEVEL_PREFIX = "level";
+
+  private final int valuesPerSampler;
+  private final int jsonDepth;
+  private final List<HTTPSamplerProxy> samplers = new ArrayList<>();
+  private final List<SampleResult> results = new ArrayList<>();
+  private final List<String> requestBodies = new ArrayList<>();
+  private final Map<String, List<Appearances>> recordingMap = new HashMap<>();
+  private final Map<String, List<Appearances>> replayMap = new HashMap<>();
+
+  public SyntheticRecording(int samplersCount, int valuesPerSampler, int bodySize,
+      int jsonDepth) {
+    this.valuesPerSampler = valuesPerSampler;
+    this.jsonDepth = jsonDepth;
+    for (int i = 0; i < samplersCount; i++) {
+      HTTPSamplerProxy sampler = buildSampler(i);
+      samplers.add(sampler);
+      requestBodies.add(i == 0 ? "{}" : buildJson(i - 1, "recorded", 0));
+      results.add(buildResult(sampler, buildJson(i, "recorded", bodySize)));
+      if (i > 0) {
+        addAppearances(recordingMap, sampler, i - 1, "recorded");
+        addAppearances(replayMap, sampler, i - 1, "replayed");
+      }
+    }
+  }
+
+  public static String getParamName(int valueIndex) {
+    return PARAM_PREFIX + valueIndex;
+  }
+
+  public static String getValue(int samplerIndex, int valueIndex, String phase) {
+    return phase + "_" + samplerIndex + "_" + valueIndex + "_a1b2c3d4e5f6";
+  }
+
+  /**
+   * Gets the JSONPath to the value with the given index in the request bodies.
+   *
+   * @param valueIndex index of the value in the request body
+   * @return the JSONPath of the value
+   */
+  public String getJsonPath(int valueIndex) {
+    StringBuilder ret = new StringBuilder("$");
+    for (int level = 0; level < jsonDepth; level++) {
+      ret.append('.').append(LEVEL_PREFIX).append(level);
+    }
+    return ret.append('.').append(getParamName(valueIndex)).toString();
+  }
+
+  /**
+   * Gets the regular expression that extracts, or replaces, the value with the given index in
+   * responses and requests bodies.
+   *
+   * @param valueIndex index of the value in the body
+   * @return the regular expression, with the value in its first group
+   */
+  public static String getRegex(int valueIndex) {
+    return "\"" + getParamName(valueIndex) + "\":\"([^\"]+)\"";
+  }
+
+  /**
+   * Builds the variables that would have been extracted after the response of the sampler with
+   * the given index, named as the parameters which contain them.
+   *
+   * @param samplerIndex index of the sampler whose response contains the values
+   * @return the variables with the values of the sampler
+   */
+  public JMeterVariables buildVariables(int samplerIndex) {
+    JMeterVariables ret = new JMeterVariables();
+    for (int k = 0; k < valuesPerSampler; k++) {
+      ret.put(getParamName(k), getValue(samplerIndex, k, "recorded"));
+    }
+    return ret;
+  }
+
+  private HTTPSamplerProxy buildSampler(int index) {
+    HTTPSamplerProxy ret = new HTTPSamplerProxy();
+    ret.setName("sampler-" + index);
+    ret.setMethod("POST");
+    ret.setProtocol("https");
+    ret.setDomain("synthetic.test");
+    ret.setPath("/page/" + index);
+    if (index > 0) {
+      for (int k = 0; k < valuesPerSampler; k++) {
+        ret.addArgument(getParamName(k), getValue(index - 1, k, "recorded"));
+      }
+    }
+    return ret;
+  }
+
+  private String buildJson(int samplerIndex, String phase, int minLength) {
+    StringBuilder values = new StringBuilder("{");
+    for (int k = 0; k < valuesPerSampler; k++) {
+      values.append('"').append(getParamName(k)).append("\":\"")
+          .append(getValue(samplerIndex, k, phase)).append("\",");
+    }
+    values.append("\"padding\":\"");
+    int paddingLength = minLength - values.length() - jsonDepth * (LEVEL_PREFIX.length() + 6);
+    for (int i = 0; i < paddingLength; i++) {
+      values.append((char) ('a' + i % 26));
+    }
+    values.append("\"}");
+    String ret = values.toString();
+    for (int level = jsonDepth - 1; level >= 0; level--) {
+      ret = "{\"" + LEVEL_PREFIX + level + "\":" + ret + "}";
+    }
+    return ret;
+  }
+
+  private static SampleResult buildResult(HTTPSamplerProxy sampler, String body) {
+    HTTPSampleResult ret = new HTTPSampleResult();
+    ret.setSampleLabel(sampler.getName());
+    ret.setHTTPMethod(sampler.getMethod());
+    ret.setResponseCodeOK();
+    ret.setContentType("application/json");
+    ret.setResponseHeaders("HTTP/1.1 200 OK\nContent-Type: application/json\n");
+    ret.setDataType(SampleResult.TEXT);
+    ret.setResponseData(body.getBytes(StandardCharsets.UTF_8));
+    ret.setDataEncoding(StandardCharsets.UTF_8.name());
+    ret.setSuccessful(true);
+    return ret;
+  }
+
+  private void addAppearances(Map<String, List<Appearances>> map, HTTPSamplerProxy sampler,
+      int samplerIndex, String phase) {
+    for (int k = 0; k < valuesPerSampler; k++) {
+      String name = getParamName(k);
+      Appearances appearance = new Appearances(getValue(samplerIndex, k, phase), name, sampler);
+      appearance.setSource(Sources.REQUEST_ARGUMENTS);
+      map.computeIfAbsent(name, n -> new ArrayList<>()).add(appearance);
+    }
+  }
+
+  public List<HTTPSamplerProxy> getSamplers() {
+    return Collections.unmodifiableList(samplers);
+  }
+
+  public List<SampleResult> getResults() {
+    return Collections.unmodifiableList(results);
+  }
+
+  public List<String> getRequestBodies() {
+    return Collections.unmodifiableList(requestBodies);
+  }
+
+  public Map<String, List<Appearances>> getRecordingMap() {
+    return recordingMap;
+  }
+
+  public Map<String, List<Appearances>> getReplayMap() {
+    return replayMap;
+  }
+
+}
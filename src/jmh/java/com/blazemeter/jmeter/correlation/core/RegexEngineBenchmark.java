@@ -0,0 +1,68 @@
+package com.blazemeter.jmeter.correlation.core;
+
+import java.util.concurrent.TimeUnit;
+import org.apache.oro.text.regex.MalformedPatternException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the {@link RegexEngine} finding all the matches of the kind of expressions generated
+ * by the automatic correlation (eg: <code>"token":"((?:[^"\\]|")*?)"</code>) in a big minified
+ * response, where most of the candidate positions are followed by long runs of chars accepted by
+ * the non greedy group.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RegexEngineBenchmark {
+
+  private static final String REGEX = "\"token\":\"((?:[^\"\\\\]|\")*?)\"";
+
+  @Param({"ORO", "LINEAR"})
+  private RegexEngine engine;
+
+  @Param({"65536", "1048576"})
+  private int bodySize;
+
+  private RegexPattern pattern;
+  private String body;
+
+  @Setup(Level.Trial)
+  public void setUp() throws MalformedPatternException {
+    pattern = engine.compile(REGEX);
+    StringBuilder builder = new StringBuilder(bodySize + 64);
+    int i = 0;
+    while (builder.length() < bodySize) {
+      // values without closing quote make the non greedy group scan until the next one
+      builder.append("{\"token\":\"").append(i).append("_abcdefghijklmnopqrstuvwxyz\\n");
+      if (i % 10 == 0) {
+        builder.append("\"},");
+      }
+      i++;
+    }
+    body = builder.toString();
+  }
+
+  @Benchmark
+  public void findMatches(Blackhole blackhole) {
+    RegexPattern.Matcher matcher = pattern.matcher(body);
+    while (matcher.find()) {
+      blackhole.consume(matcher.group(1));
+    }
+  }
+
+}
@@ -0,0 +1,88 @@
+package com.blazemeter.jmeter.correlation.core.extractors;
+
+import com.blazemeter.jmeter.correlation.benchmarks.SyntheticRecording;
+import com.blazemeter.jmeter.correlation.core.BaseCorrelationContext;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.jmeter.protocol.http.sampler.HTTPSamplerProxy;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.testelement.TestElement;
+import org.apache.jmeter.threads.JMeterVariables;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import us.abstracta.jmeter.javadsl.core.engines.JmeterEnvironment;
+
+/**
+ * Measures {@link RegexCorrelationExtractor#process} applying all the extractor rules to every
+ * response of a synthetic recording.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RegexCorrelationExtractorBenchmark {
+
+  @Param({"1", "10", "50"})
+  private int rules;
+
+  @Param({"100"})
+  private int samplers;
+
+  @Param({"1024", "65536"})
+  private int bodySize;
+
+  @Param({"3"})
+  private int jsonDepth;
+
+  @Param({"false", "true"})
+  private boolean linearRegex;
+
+  private SyntheticRecording recording;
+  private final List<RegexCorrelationExtractor<BaseCorrelationContext>> extractors =
+      new ArrayList<>();
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    new JmeterEnvironment();
+    recording = new SyntheticRecording(samplers, rules, bodySize, jsonDepth);
+    for (int i = 0; i < rules; i++) {
+      RegexCorrelationExtractor<BaseCorrelationContext> extractor =
+          new RegexCorrelationExtractor<>(SyntheticRecording.getRegex(i), 1, ResultField.BODY);
+      extractor.setVariableName(SyntheticRecording.getParamName(i));
+      extractor.setContext(new BaseCorrelationContext());
+      extractor.setLinearRegex(linearRegex);
+      extractors.add(extractor);
+    }
+  }
+
+  @Benchmark
+  public void process(Blackhole blackhole) {
+    JMeterVariables vars = new JMeterVariables();
+    List<HTTPSamplerProxy> recordedSamplers = recording.getSamplers();
+    List<SampleResult> results = recording.getResults();
+    for (int i = 0; i < results.size(); i++) {
+      List<TestElement> children = new ArrayList<>();
+      for (RegexCorrelationExtractor<BaseCorrelationContext> extractor : extractors) {
+        extractor.process(recordedSamplers.get(i), children, results.get(i), vars);
+      }
+      blackhole.consume(children);
+    }
+    blackhole.consume(vars);
+  }
+
+}
@@ -0,0 +1,79 @@
+package com.blazemeter.jmeter.correlation.core.replacements;
+
+import com.blazemeter.jmeter.correlation.benchmarks.SyntheticRecording;
+import com.blazemeter.jmeter.correlation.core.BaseCorrelationContext;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.jmeter.threads.JMeterVariables;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import us.abstracta.jmeter.javadsl.core.engines.JmeterEnvironment;
+
+/**
+ * Measures {@link JsonCorrelationReplacement#replaceString} applying all the replacement rules to
+ * every JSON request body of a synthetic recording.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonCorrelationReplacementBenchmark {
+
+  @Param({"1", "10", "50"})
+  private int rules;
+
+  @Param({"100"})
+  private int samplers;
+
+  @Param({"1", "5", "20"})
+  private int jsonDepth;
+
+  private SyntheticRecording recording;
+  private final List<JMeterVariables> variables = new ArrayList<>();
+  private final List<JsonCorrelationReplacement<BaseCorrelationContext>> replacements =
+      new ArrayList<>();
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    new JmeterEnvironment();
+    recording = new SyntheticRecording(samplers, rules, 0, jsonDepth);
+    for (int i = 0; i < samplers; i++) {
+      variables.add(recording.buildVariables(i == 0 ? 0 : i - 1));
+    }
+    for (int i = 0; i < rules; i++) {
+      JsonCorrelationReplacement<BaseCorrelationContext> replacement =
+          new JsonCorrelationReplacement<>(recording.getJsonPath(i));
+      replacement.setVariableName(SyntheticRecording.getParamName(i));
+      replacement.setContext(new BaseCorrelationContext());
+      replacements.add(replacement);
+    }
+  }
+
+  @Benchmark
+  public void replaceString(Blackhole blackhole) {
+    List<String> bodies = recording.getRequestBodies();
+    for (int i = 0; i < bodies.size(); i++) {
+      String body = bodies.get(i);
+      for (JsonCorrelationReplacement<BaseCorrelationContext> replacement : replacements) {
+        body = replacement.replaceString(body, variables.get(i));
+      }
+      blackhole.consume(body);
+    }
+  }
+
+}
@@ -0,0 +1,85 @@
+package com.blazemeter.jmeter.correlation.core.replacements;
+
+import com.blazemeter.jmeter.correlation.benchmarks.SyntheticRecording;
+import com.blazemeter.jmeter.correlation.core.BaseCorrelationContext;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.jmeter.threads.JMeterVariables;
+import org.apache.oro.text.regex.MalformedPatternException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import us.abstracta.jmeter.javadsl.core.engines.JmeterEnvironment;
+
+/**
+ * Measures {@link RegexCorrelationReplacement#replaceWithRegex} applying all the replacement rules
+ * to every request body of a synthetic recording.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RegexCorrelationReplacementBenchmark {
+
+  @Param({"1", "10", "50"})
+  private int rules;
+
+  @Param({"100"})
+  private int samplers;
+
+  @Param({"3"})
+  private int jsonDepth;
+
+  @Param({"false", "true"})
+  private boolean linearRegex;
+
+  private SyntheticRecording recording;
+  private final List<JMeterVariables> variables = new ArrayList<>();
+  private final List<RegexCorrelationReplacement<BaseCorrelationContext>> replacements =
+      new ArrayList<>();
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    new JmeterEnvironment();
+    recording = new SyntheticRecording(samplers, rules, 0, jsonDepth);
+    for (int i = 0; i < samplers; i++) {
+      variables.add(recording.buildVariables(i == 0 ? 0 : i - 1));
+    }
+    for (int i = 0; i < rules; i++) {
+      RegexCorrelationReplacement<BaseCorrelationContext> replacement =
+          new RegexCorrelationReplacement<>(SyntheticRecording.getRegex(i));
+      replacement.setVariableName(SyntheticRecording.getParamName(i));
+      replacement.setContext(new BaseCorrelationContext());
+      replacement.setLinearRegex(linearRegex);
+      replacements.add(replacement);
+    }
+  }
+
+  @Benchmark
+  public void replaceWithRegex(Blackhole blackhole) throws MalformedPatternException {
+    List<String> bodies = recording.getRequestBodies();
+    for (int i = 0; i < bodies.size(); i++) {
+      String body = bodies.get(i);
+      for (RegexCorrelationReplacement<BaseCorrelationContext> replacement : replacements) {
+        body = replacement.replaceWithRegex(body, replacement.regex,
+            replacement.getVariableName(), variables.get(i));
+      }
+      blackhole.consume(body);
+    }
+  }
+
+}
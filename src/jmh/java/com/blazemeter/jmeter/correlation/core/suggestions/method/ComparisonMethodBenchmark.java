@@ -0,0 +1,67 @@
+package com.blazemeter.jmeter.correlation.core.suggestions.method;
+
+import com.blazemeter.jmeter.correlation.benchmarks.SyntheticComparisonContext;
+import com.blazemeter.jmeter.correlation.benchmarks.SyntheticRecording;
+import com.blazemeter.jmeter.correlation.core.automatic.Configuration;
+import com.blazemeter.jmeter.correlation.core.automatic.CorrelationSuggestion;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import us.abstracta.jmeter.javadsl.core.engines.JmeterEnvironment;
+
+/**
+ * Measures {@link ComparisonMethod#generateSuggestions} for a synthetic recording and replay,
+ * with the suggestions parallelism set to the given value.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ComparisonMethodBenchmark {
+
+  @Param({"50", "200"})
+  private int samplers;
+
+  @Param({"5"})
+  private int valuesPerSampler;
+
+  @Param({"1024", "65536"})
+  private int bodySize;
+
+  @Param({"3"})
+  private int jsonDepth;
+
+  @Param({"1", "4"})
+  private int parallelism;
+
+  private SyntheticComparisonContext context;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    new JmeterEnvironment();
+    Configuration configuration = new Configuration();
+    configuration.setSuggestionsParallelism(parallelism);
+    context = new SyntheticComparisonContext(
+        new SyntheticRecording(samplers, valuesPerSampler, bodySize, jsonDepth), configuration);
+  }
+
+  @Benchmark
+  public List<CorrelationSuggestion> generateSuggestions() {
+    return new ComparisonMethod().generateSuggestions(context);
+  }
+
+}
@@ -0,0 +1,58 @@
+package com.blazemeter.jmeter.correlation.core.suggestions.method;
+
+import com.blazemeter.jmeter.correlation.benchmarks.SyntheticComparisonContext;
+import com.blazemeter.jmeter.correlation.benchmarks.SyntheticRecording;
+import com.blazemeter.jmeter.correlation.core.automatic.Configuration;
+import com.blazemeter.jmeter.correlation.core.automatic.DynamicElement;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import us.abstracta.jmeter.javadsl.core.engines.JmeterEnvironment;
+
+/**
+ * Measures {@link DynamicElementHandler#getDynamicElements} comparing the recording and replay
+ * appearances of a synthetic recording.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DynamicElementHandlerBenchmark {
+
+  @Param({"100", "1000"})
+  private int samplers;
+
+  @Param({"5", "20"})
+  private int valuesPerSampler;
+
+  private SyntheticRecording recording;
+  private DynamicElementHandler handler;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    new JmeterEnvironment();
+    recording = new SyntheticRecording(samplers, valuesPerSampler, 0, 1);
+    handler = new DynamicElementHandler(
+        new SyntheticComparisonContext(recording, new Configuration()));
+  }
+
+  @Benchmark
+  public List<DynamicElement> getDynamicElements() {
+    return handler.getDynamicElements(recording.getRecordingMap(), recording.getReplayMap());
+  }
+
+}
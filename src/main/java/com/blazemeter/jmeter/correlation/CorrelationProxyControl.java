@@ -7,14 +7,23 @@ import com.blazemeter.jmeter.correlation.core.CorrelationEngine;
 import com.blazemeter.jmeter.correlation.core.CorrelationRule;
 import com.blazemeter.jmeter.correlation.core.InvalidRulePartElementException;
 import com.blazemeter.jmeter.correlation.core.RulesGroup;
+import com.blazemeter.jmeter.correlation.core.analysis.AnalysisReporter;
 import com.blazemeter.jmeter.correlation.core.automatic.CorrelationHistory;
+import com.blazemeter.jmeter.correlation.core.automatic.ExtractorsConsolidator;
 import com.blazemeter.jmeter.correlation.core.automatic.FileManagementUtils;
 import com.blazemeter.jmeter.correlation.core.automatic.JMeterElementUtils;
+import com.blazemeter.jmeter.correlation.core.automatic.PostProcessorsOptimizer;
+import com.blazemeter.jmeter.correlation.core.automatic.ResponseBodyStore;
 import com.blazemeter.jmeter.correlation.core.automatic.ResultFileParser;
+import com.blazemeter.jmeter.correlation.core.automatic.StoredSampleResult;
+import com.blazemeter.jmeter.correlation.core.metrics.CorrelationRulesMetrics;
+import com.blazemeter.jmeter.correlation.core.metrics.RulesCircuitBreaker;
 import com.blazemeter.jmeter.correlation.core.proxy.ComparableCookie;
+import com.blazemeter.jmeter.correlation.core.proxy.CookiePreProcessor;
 import com.blazemeter.jmeter.correlation.core.proxy.CorrelationProxy;
-import com.blazemeter.jmeter.correlation.core.proxy.Jsr223PreProcessorFactory;
+import com.blazemeter.jmeter.correlation.core.proxy.PendingProxiesBuffer;
 import com.blazemeter.jmeter.correlation.core.proxy.PendingProxy;
+import com.blazemeter.jmeter.correlation.core.proxy.ProxyDeliveryWorker;
 import com.blazemeter.jmeter.correlation.core.proxy.ReflectionUtils;
 import com.blazemeter.jmeter.correlation.core.templates.ConfigurationException;
 import com.blazemeter.jmeter.correlation.core.templates.CorrelationTemplateDependency;
@@ -28,6 +37,7 @@ import com.blazemeter.jmeter.correlation.core.templates.Template;
 import com.blazemeter.jmeter.correlation.core.templates.Template.Builder;
 import com.blazemeter.jmeter.correlation.core.templates.repository.RepositoryManager;
 import com.blazemeter.jmeter.correlation.core.templates.repository.TemplateProperties;
+import com.blazemeter.jmeter.correlation.gui.CookiePreProcessorGui;
 import com.blazemeter.jmeter.correlation.gui.CorrelationComponentsRegistry;
 import com.blazemeter.jmeter.correlation.gui.CorrelationRuleTestElement;
 import com.blazemeter.jmeter.correlation.gui.CorrelationRulesTestElement;
@@ -46,8 +56,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -55,12 +63,12 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import javax.swing.SwingUtilities;
 import org.apache.jmeter.gui.GuiPackage;
 import org.apache.jmeter.gui.tree.JMeterTreeNode;
-import org.apache.jmeter.modifiers.JSR223PreProcessor;
 import org.apache.jmeter.protocol.http.control.RecordingController;
 import org.apache.jmeter.protocol.http.proxy.Daemon;
 import org.apache.jmeter.protocol.http.proxy.ProxyControl;
@@ -109,18 +117,28 @@ public class CorrelationProxyControl extends ProxyControl implements
   private static final String PROXY_REDIRECT_DISABLING_NAME = "proxy.redirect.disabling";
   private static final String CORRELATION_PROXY_REDIRECT_DISABLING_NAME =
       "correlation.proxy.redirect.disabling";
-  // this is used to deliver samples in order, check CorrelationProxy.
-  private final LinkedHashMap<Object, PendingProxy> pendingProxies = new LinkedHashMap<>();
+  private static final long DELIVERY_STOP_TIMEOUT_MILLIS = 60000;
+  private static final String PENDING_REQUEST_TIMEOUT_PROPERTY =
+      "correlation.recorder.pending_request_timeout";
+  private static final long DEFAULT_PENDING_REQUEST_TIMEOUT_MILLIS = 30000;
+  // this is used to deliver samples in order, check CorrelationProxy and ProxyDeliveryWorker.
+  private transient PendingProxiesBuffer pendingProxies = buildPendingProxiesBuffer();
+  private final Map<Object, PendingProxy> proxiesByThread = new ConcurrentHashMap<>();
+  private transient ProxyDeliveryWorker deliveryWorker =
+      new ProxyDeliveryWorker(this::deliverPendingCompletedRequests);
   private final Set<ComparableCookie> lastComparableCookies = new LinkedHashSet<>();
   private transient CorrelationComponentsRegistry componentsRegistry;
   private transient CorrelationTemplatesRepositoriesConfiguration templateRepositoryConfig;
   private transient LocalConfiguration localConfiguration;
   private transient CorrelationEngine correlationEngine;
-  private JMeterTreeNode target = null;
-  private List<SampleResult> samples = new ArrayList<>();
+  private volatile JMeterTreeNode target = null;
+  private List<SampleResult> samples = Collections.synchronizedList(new ArrayList<>());
+  // when enabled, keeps the bodies of the recorded samples out of the heap
+  private transient volatile ResponseBodyStore bodyStore;
   private Method putSamplesIntoModel;
   private CorrelationHistory history;
   private Runnable onStopRecordingMethod;
+  private transient Consumer<String> onRuleSuspendedMethod;
   private String originalDisablingValue = null;
 
   @SuppressWarnings("checkstyle:RedundantModifier")
@@ -190,8 +208,21 @@ public class CorrelationProxyControl extends ProxyControl implements
     JMeterElementUtils.setupResultCollectors(this);
     lastComparableCookies.clear();
     correlationEngine.reset();
+    CorrelationRulesMetrics rulesMetrics = getCorrelationRulesMetrics();
+    if (rulesMetrics != null) {
+      rulesMetrics.registerMBeans();
+    }
+    AnalysisReporter.clearSuspendedRules();
+    correlationEngine.setCircuitBreaker(
+        RulesCircuitBreaker.createIfEnabled(rulesMetrics, this::onRuleSuspended));
     pendingProxies.clear();
+    proxiesByThread.clear();
     samples.clear();
+    if (bodyStore != null) {
+      bodyStore.close();
+    }
+    bodyStore = ResponseBodyStore.createIfEnabled();
+    deliveryWorker.start();
 
     try {
       initKeyStore();
@@ -292,58 +323,68 @@ public class CorrelationProxyControl extends ProxyControl implements
     return (CorrelationRulesTestElement) getProperty(CORRELATION_RULES).getObjectValue();
   }
 
+  /*
+   Proxies only register here the sampler, children and result to deliver. The correlation and the
+   actual delivery happen in the ProxyDeliveryWorker thread, so proxies are never blocked by the
+   correlation of other requests.
+   */
   @Override
-  public synchronized void deliverSampler(HTTPSamplerBase sampler, TestElement[] testElements,
+  public void deliverSampler(HTTPSamplerBase sampler, TestElement[] testElements,
       SampleResult result) {
-    if (pendingProxies.containsKey(Thread.currentThread())) {
-      pendingProxies.get(Thread.currentThread()).update(sampler, testElements, result);
+    PendingProxy pendingProxy = proxiesByThread.get(Thread.currentThread());
+    if (pendingProxy != null) {
+      pendingProxy.update(sampler, testElements, result);
     } else {
       LOG.error("Unexpected error. Proxy not found! {}", Thread.currentThread());
-      LOG.error(pendingProxies.keySet().toString());
+      LOG.error(proxiesByThread.keySet().toString());
     }
   }
 
-  public synchronized void startedProxy(Thread proxy) {
-    pendingProxies.put(proxy, new PendingProxy(getTarget()));
+  public void startedProxy(Thread proxy) {
+    proxiesByThread.put(proxy, pendingProxies.register(getTarget()));
   }
 
-  public synchronized void endedProxy(Thread proxy) {
-    PendingProxy pendingProxy = pendingProxies.get(proxy);
+  public void endedProxy(Thread proxy) {
+    PendingProxy pendingProxy = proxiesByThread.remove(proxy);
     /*
     this may happen if proxy had an issue parsing request or some other case where getOutputStream
     is not invoked for used clientSocket
      */
-    if (pendingProxy == null) {
-      deliverPendingCompletedRequests();
-      return;
-    }
-    /*
-     When result is null then the request is not recorded. This is to keep logic from JMeter
-     recorder.
-     */
-    if (pendingProxy.getResult() == null) {
-      pendingProxies.remove(proxy);
-    } else {
-      pendingProxy.setComplete(true);
+    if (pendingProxy != null) {
+      /*
+       When result is null then the request is not recorded. This is to keep logic from JMeter
+       recorder.
+       */
+      if (pendingProxy.getResult() == null) {
+        pendingProxies.discard(pendingProxy);
+      } else {
+        pendingProxies.complete(pendingProxy);
+      }
     }
-    deliverPendingCompletedRequests();
+    deliveryWorker.requestDelivery();
+  }
+
+  private static PendingProxiesBuffer buildPendingProxiesBuffer() {
+    return new PendingProxiesBuffer(JMeterUtils.getPropDefault(PENDING_REQUEST_TIMEOUT_PROPERTY,
+        DEFAULT_PENDING_REQUEST_TIMEOUT_MILLIS));
   }
 
   private void deliverPendingCompletedRequests() {
-    Iterator<PendingProxy> it = pendingProxies.values().iterator();
-    while (it.hasNext()) {
-      PendingProxy proxy = it.next();
-      if (!proxy.isComplete()) {
-        continue;
-      }
+    PendingProxy proxy = pendingProxies.pollCompleted();
+    while (proxy != null) {
       deliverCompletedProxy(proxy);
-      it.remove();
+      proxy = pendingProxies.pollCompleted();
+    }
+    // the request holding back the rest is skipped on timeout even if no other request completes
+    long headTimeoutMillis = pendingProxies.getMillisUntilHeadTimeout();
+    if (headTimeoutMillis >= 0) {
+      deliveryWorker.requestDeliveryAfter(headTimeoutMillis);
     }
   }
 
   private void deliverCompletedProxy(PendingProxy proxy) {
     if (proxy.getSampler() != null && filter(proxy.getSampler(), proxy.getResult())) {
-      this.samples.add(proxy.getResult());
+      this.samples.add(StoredSampleResult.wrap(proxy.getResult(), bodyStore));
       this.target = proxy.getTarget();
       List<TestElement> children = new ArrayList<>(Arrays.asList(proxy.getTestElements()));
       correlationEngine.process(proxy.getSampler(), children, proxy.getResult(),
@@ -471,17 +512,13 @@ public class CorrelationProxyControl extends ProxyControl implements
     lastComparableCookies.add(comparableCookie);
   }
 
-  private JSR223PreProcessor buildCookiePreProcessor(ComparableCookie comparableCookie) {
-    return Jsr223PreProcessorFactory.fromNameAndScript("Set cookie - " + comparableCookie.getName(),
-        String.format("import org.apache.jmeter.protocol.http.control.*\n\n"
-                + "// we use this instead of sampler.url to avoid premature resolution of url "
-                + "parameters and allow other pre processors to affect rest of url\n"
-                + "def url = sampler.path.startsWith('http://') || "
-                + "sampler.path.startsWith('https://') ? new URL(sampler.path) : "
-                + "new URL(sampler.protocol + '://' + sampler.domain)\n"
-                + "sampler.getCookieManager().add(new Cookie('%s', '%s', url.host, '', "
-                + "sampler.isSecure(url), 0))",
-            comparableCookie.getName(), comparableCookie.getValue()));
+  private CookiePreProcessor buildCookiePreProcessor(ComparableCookie comparableCookie) {
+    CookiePreProcessor ret = new CookiePreProcessor(comparableCookie.getName(),
+        comparableCookie.getValue());
+    ret.setProperty(TestElement.GUI_CLASS, CookiePreProcessorGui.class.getName());
+    ret.setProperty(TestElement.TEST_CLASS, CookiePreProcessor.class.getName());
+    ret.setName("Set cookie - " + comparableCookie.getName());
+    return ret;
   }
 
   private void addResponseHeaders(SampleResult result) {
@@ -841,13 +878,15 @@ public class CorrelationProxyControl extends ProxyControl implements
   }
 
   @VisibleForTesting
-  protected LinkedHashMap<Object, PendingProxy> getPendingProxies() {
-    return pendingProxies;
+  protected Map<Long, PendingProxy> getPendingProxies() {
+    return pendingProxies.getPendingProxies();
   }
 
   private void readObject(ObjectInputStream inputStream)
       throws IOException, ClassNotFoundException {
     inputStream.defaultReadObject();
+    pendingProxies = buildPendingProxiesBuffer();
+    deliveryWorker = new ProxyDeliveryWorker(this::deliverPendingCompletedRequests);
     correlationEngine = new CorrelationEngine();
     componentsRegistry = CorrelationComponentsRegistry.getInstance();
     localConfiguration = new LocalConfiguration(getTemplateDirectoryPath());
@@ -875,8 +914,50 @@ public class CorrelationProxyControl extends ProxyControl implements
   }
 
   @Override
-  public synchronized void stopProxy() {
+  public void stopProxy() {
     super.stopProxy();
+    /*
+     The delivery of pending samplers requires the lock of this instance (check
+     ProxyControl.deliverSampler), so we wait for it before acquiring the lock.
+     */
+    deliveryWorker.stop(DELIVERY_STOP_TIMEOUT_MILLIS);
+    /*
+     Proxies still in progress will never be recorded now, so we don't make the completed ones
+     after them wait anymore.
+     */
+    pendingProxies.drainCompleted().forEach(this::deliverCompletedProxy);
+    saveRulesMetrics();
+    onRecordingStopped();
+  }
+
+  private void saveRulesMetrics() {
+    CorrelationRulesMetrics rulesMetrics = getCorrelationRulesMetrics();
+    if (rulesMetrics == null) {
+      return;
+    }
+    rulesMetrics.unregisterMBeans();
+    if (rulesMetrics.getMetrics().isEmpty()) {
+      return;
+    }
+    String filePath = FileManagementUtils.getRulesMetricsFileName();
+    try {
+      rulesMetrics.saveCsv(filePath);
+      LOG.info("Correlation rules metrics saved to {}", filePath);
+    } catch (IOException e) {
+      LOG.warn("Could not save the correlation rules metrics to {}", filePath, e);
+    }
+  }
+
+  /**
+   * Gets the execution metrics of the correlation rules applied while recording.
+   *
+   * @return the metrics of the rules, or null when they are disabled
+   */
+  public CorrelationRulesMetrics getCorrelationRulesMetrics() {
+    return correlationEngine.getMetrics();
+  }
+
+  private synchronized void onRecordingStopped() {
     if (originalDisablingValue != null) {
       JMeterUtils.getJMeterProperties().put(PROXY_REDIRECT_DISABLING_NAME,
           originalDisablingValue);
@@ -894,6 +975,8 @@ public class CorrelationProxyControl extends ProxyControl implements
 
     LOG.info("Samples recorded: {}", getSamples().size());
 
+    optimizeRecordedPostProcessors();
+
     history.addOriginalRecordingStep(JMeterElementUtils.saveTestPlanSnapshot(),
         ResultFileParser.saveToFile(getSamples()));
 
@@ -904,6 +987,22 @@ public class CorrelationProxyControl extends ProxyControl implements
     SwingUtilities.invokeLater(onStopRecordingMethod);
   }
 
+  private void optimizeRecordedPostProcessors() {
+    // recorded elements are only added to a tree model when running with GUI
+    if (JMeterElementUtils.isNonGui()) {
+      return;
+    }
+    ExtractorsConsolidator consolidator = ExtractorsConsolidator.createIfEnabled();
+    if (consolidator != null) {
+      LOG.info("Removed {} redundant extractors",
+          consolidator.consolidate(JMeterElementUtils.getTreeModel()));
+    }
+    PostProcessorsOptimizer optimizer = PostProcessorsOptimizer.createIfEnabled();
+    if (optimizer != null) {
+      LOG.info("{}", optimizer.optimize(JMeterElementUtils.getTreeModel(), getSamples()));
+    }
+  }
+
   public void setCorrelationHistory(CorrelationHistory history) {
     this.history = history;
   }
@@ -919,6 +1018,16 @@ public class CorrelationProxyControl extends ProxyControl implements
     this.onStopRecordingMethod = onStopRecordingMethod;
   }
 
+  public void setOnRuleSuspendedMethod(Consumer<String> onRuleSuspendedMethod) {
+    this.onRuleSuspendedMethod = onRuleSuspendedMethod;
+  }
+
+  private void onRuleSuspended(String message) {
+    if (onRuleSuspendedMethod != null) {
+      SwingUtilities.invokeLater(() -> onRuleSuspendedMethod.accept(message));
+    }
+  }
+
   public void enableCorrelation(Boolean enableCorrelation) {
     this.correlationEngine.setEnabled(enableCorrelation);
   }
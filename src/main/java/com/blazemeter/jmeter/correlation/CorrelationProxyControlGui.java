@@ -17,6 +17,7 @@ import com.blazemeter.jmeter.correlation.core.templates.repository.RepositoryMan
 import com.blazemeter.jmeter.correlation.core.templates.repository.TemplateProperties;
 import com.blazemeter.jmeter.correlation.gui.CorrelationComponentsRegistry;
 import com.blazemeter.jmeter.correlation.gui.RulesContainer;
+import com.blazemeter.jmeter.correlation.gui.RulesMetricsPanel;
 import com.blazemeter.jmeter.correlation.gui.automatic.CorrelationWizard;
 import com.google.common.annotations.VisibleForTesting;
 import java.awt.BorderLayout;
@@ -49,6 +50,7 @@ public class CorrelationProxyControlGui extends ProxyControlGui
 
   private static final Logger LOG = LoggerFactory.getLogger(CorrelationProxyControlGui.class);
   private final RulesContainer rulesContainer;
+  private RulesMetricsPanel rulesMetricsPanel;
   private CorrelationProxyControl model;
   private CorrelationHistory history;
   private CorrelationWizard wizard;
@@ -61,6 +63,9 @@ public class CorrelationProxyControlGui extends ProxyControlGui
     JTabbedPane correlationPane = findTabbedPane();
     rulesContainer = new RulesContainer(this, () -> modifyTestElement(model));
     Objects.requireNonNull(correlationPane).add("Correlation", rulesContainer);
+    rulesMetricsPanel = new RulesMetricsPanel(
+        () -> model != null ? model.getCorrelationRulesMetrics() : null);
+    correlationPane.add("Rules Metrics", rulesMetricsPanel);
     add(new BlazemeterLabsLogo("https://blazemeter.github.io/CorrelationRecorder/"), BorderLayout.SOUTH);
 
     wizard = new CorrelationWizard();
@@ -129,6 +134,14 @@ public class CorrelationProxyControlGui extends ProxyControlGui
     super.actionPerformed(action);
   }
 
+  private void showSuspendedRuleWarning(String message) {
+    if (rulesMetricsPanel != null) {
+      rulesMetricsPanel.refresh();
+    }
+    JOptionPane.showMessageDialog(this, message, "Correlation rule suspended",
+        JOptionPane.WARNING_MESSAGE);
+  }
+
   private JTabbedPane findTabbedPane() {
     LinkedList<Component> queue = new LinkedList<>(Arrays.asList(this.getComponents()));
     while (!queue.isEmpty()) {
@@ -163,6 +176,7 @@ public class CorrelationProxyControlGui extends ProxyControlGui
         updateHistory(history);
         wizard.requestPermissionToReplay();
       });
+      model.setOnRuleSuspendedMethod(this::showSuspendedRuleWarning);
     }
   }
 
@@ -190,12 +204,16 @@ public class CorrelationProxyControlGui extends ProxyControlGui
 
       CorrelationComponentsRegistry.getInstance().reset();
       rulesContainer.configure(correlationProxyControl);
+      if (rulesMetricsPanel != null) {
+        rulesMetricsPanel.refresh();
+      }
       model.setOnStopRecordingMethod(() -> {
         if (history != null) {
           updateHistory(history);
         }
         wizard.requestPermissionToReplay();
       });
+      model.setOnRuleSuspendedMethod(this::showSuspendedRuleWarning);
     }
     super.configure(el);
   }
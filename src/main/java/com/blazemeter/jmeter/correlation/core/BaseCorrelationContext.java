@@ -1,12 +1,30 @@
 package com.blazemeter.jmeter.correlation.core;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.threads.JMeterVariables;
 
 public class BaseCorrelationContext implements CorrelationContext {
 
+  private static final String MULTIVALUED_SEPARATOR = "#";
+  private static final String MATCH_SEPARATOR = "_";
+  private static final String MATCH_COUNT_SUFFIX = "_matchNr";
+
   private final Map<String, Integer> variablesCount = new HashMap<>();
+  /*
+   Names of the variables generated for each reference variable name (eg: var, var#2, var_1 or
+   var#2_1 for var), indexed by the values stored in them, so replacements can find the variable
+   holding a value without probing every variable generated for the reference variable.
+   */
+  private final Map<String, Map<String, Set<String>>> variablesByValue = new HashMap<>();
+  // value currently indexed for each generated variable, by reference variable name
+  private final Map<String, Map<String, String>> indexedValues = new HashMap<>();
+  private Set<String> nonIndexedVariables = Collections.emptySet();
 
   public Integer getNextVariableNr(String variableName) {
     return variablesCount.compute(variableName, (k, v) -> v != null ? v + 1 : 1);
@@ -16,9 +34,139 @@ public class BaseCorrelationContext implements CorrelationContext {
     return variablesCount.getOrDefault(variableName, 0);
   }
 
+  /**
+   * Registers the value stored by an extractor in a variable generated for a reference variable
+   * name, so {@link #findVariableWithValue(String, String, JMeterVariables)} can find it.
+   *
+   * <p>The value previously indexed for the generated variable (if any) is removed from the
+   * index, so it only keeps the current value of each variable.
+   *
+   * @param variableName the reference variable name of the extractor
+   * @param generatedName the name of the variable where the value is stored (eg: var#2_1)
+   * @param value the value stored in the variable, or null if the variable was removed
+   */
+  public void indexVariableValue(String variableName, String generatedName, String value) {
+    if (generatedName.endsWith(MATCH_COUNT_SUFFIX)) {
+      return;
+    }
+    Map<String, String> variableValues = indexedValues.computeIfAbsent(variableName,
+        k -> new HashMap<>());
+    String previousValue = value != null ? variableValues.put(generatedName, value)
+        : variableValues.remove(generatedName);
+    Map<String, Set<String>> variables = variablesByValue.computeIfAbsent(variableName,
+        k -> new HashMap<>());
+    if (previousValue != null && !previousValue.equals(value)) {
+      Set<String> previousVariables = variables.get(previousValue);
+      if (previousVariables != null) {
+        previousVariables.remove(generatedName);
+        if (previousVariables.isEmpty()) {
+          variables.remove(previousValue);
+        }
+      }
+    }
+    if (value != null) {
+      variables.computeIfAbsent(value, k -> new LinkedHashSet<>()).add(generatedName);
+    }
+  }
+
+  /**
+   * Sets the reference variable names whose values are stored (by some extractor) without being
+   * indexed, so their variables are never looked up through the indexed values.
+   *
+   * @param nonIndexedVariables the reference variable names with non indexed values
+   */
+  public void setNonIndexedVariables(Set<String> nonIndexedVariables) {
+    this.nonIndexedVariables = new HashSet<>(nonIndexedVariables);
+  }
+
+  /**
+   * Checks if the values of the variables generated for the reference variable name are indexed,
+   * in which case {@link #findVariableWithValue(String, String, JMeterVariables)} can be used
+   * instead of checking each of the generated variables.
+   *
+   * <p>This is only the case when all the extractors storing values in the variables index them
+   * (check {@link #setNonIndexedVariables(Set)}), since otherwise the index might miss values.
+   *
+   * @param variableName the reference variable name
+   * @return true if any value was indexed for the reference variable name since the last reset,
+   * and no extractor stores values for it without indexing them
+   */
+  public boolean isValueIndexed(String variableName) {
+    return !nonIndexedVariables.contains(variableName)
+        && variablesByValue.containsKey(variableName);
+  }
+
+  /**
+   * Finds the variable generated for the reference variable name which currently holds the value.
+   *
+   * <p>The candidates are checked against the given variables, since they may have been updated
+   * after being indexed, and when several variables hold the value, the first one in generation
+   * order is returned (var, var_1, ..., var#1, var#1_1, ...), which is the same one found when
+   * checking each generated variable in order.
+   *
+   * @param variableName the reference variable name
+   * @param value the value to look for
+   * @param vars the variables where the values are stored
+   * @return the name of the variable holding the value, or null if none does
+   */
+  public String findVariableWithValue(String variableName, String value, JMeterVariables vars) {
+    Map<String, Set<String>> variables = variablesByValue.get(variableName);
+    Set<String> candidates = variables != null ? variables.get(value) : null;
+    if (candidates == null) {
+      return null;
+    }
+    String ret = null;
+    long retOrder = Long.MAX_VALUE;
+    for (String candidate : candidates) {
+      long order = getVariableOrder(variableName, candidate, value, vars);
+      if (order >= 0 && order < retOrder) {
+        ret = candidate;
+        retOrder = order;
+      }
+    }
+    return ret;
+  }
+
+  /*
+   Gets the position of the variable in generation order, or -1 if the variable doesn't currently
+   hold the value, or it is not used due to the existence (or absence) of its match count.
+   */
+  private long getVariableOrder(String variableName, String candidate, String value,
+      JMeterVariables vars) {
+    if (!value.equals(vars.get(candidate))) {
+      return -1;
+    }
+    String suffix = candidate.substring(variableName.length());
+    int matchSeparator = suffix.lastIndexOf(MATCH_SEPARATOR);
+    String baseSuffix = matchSeparator >= 0 ? suffix.substring(0, matchSeparator) : suffix;
+    int varNr = baseSuffix.isEmpty() ? 0
+        : baseSuffix.startsWith(MULTIVALUED_SEPARATOR) ? parseNumber(baseSuffix.substring(1))
+        : -1;
+    int match = matchSeparator >= 0 ? parseNumber(suffix.substring(matchSeparator + 1)) : 0;
+    if (varNr < 0 || match < 0 || varNr > getVariableCount(variableName)) {
+      return -1;
+    }
+    String matchCount = vars.get(variableName + baseSuffix + MATCH_COUNT_SUFFIX);
+    if (match == 0 ? matchCount != null
+        : matchCount == null || match > parseNumber(matchCount)) {
+      return -1;
+    }
+    return ((long) varNr << 32) + match;
+  }
+
+  private static int parseNumber(String value) {
+    try {
+      return Integer.parseInt(value);
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
   @Override
   public void reset() {
     variablesCount.clear();
+    variablesByValue.clear();
+    indexedValues.clear();
   }
 
   @Override
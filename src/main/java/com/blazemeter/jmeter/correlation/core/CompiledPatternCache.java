@@ -0,0 +1,110 @@
+package com.blazemeter.jmeter.correlation.core;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.oro.text.regex.MalformedPatternException;
+import org.apache.oro.text.regex.Pattern;
+import org.apache.oro.text.regex.Perl5Compiler;
+
+/**
+ * Keeps the compiled patterns used by a single Correlation Rule part, so the regular expressions
+ * are compiled once instead of on every evaluated string.
+ *
+ * <p>The owner of the cache is responsible for calling {@link #invalidate()} whenever its
+ * regular expressions change (eg: when updated from the GUI or from a template).
+ */
+public class CompiledPatternCache {
+
+  /*
+   Rule parts usually use a single expression, this limit only protects us from custom extensions
+   that build their expressions dynamically from the processed values.
+   */
+  private static final int MAX_CACHED_PATTERNS = 64;
+
+  private final Map<String, Pattern> patterns = new ConcurrentHashMap<>();
+  private final Map<String, RegexPattern> linearPatterns = new ConcurrentHashMap<>();
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * Returns the compiled version of the regular expression, compiling and storing it if it was not
+   * already cached.
+   *
+   * <p>Patterns are compiled with {@link Perl5Compiler#READ_ONLY_MASK} so they can be safely
+   * shared between threads.
+   *
+   * @param regex regular expression to compile
+   * @return the compiled pattern
+   * @throws MalformedPatternException when the regular expression is not valid
+   */
+  public Pattern getPattern(String regex) throws MalformedPatternException {
+    Pattern pattern = patterns.get(regex);
+    if (pattern != null) {
+      hits.incrementAndGet();
+      return pattern;
+    }
+    misses.incrementAndGet();
+    pattern = new Perl5Compiler().compile(regex, Perl5Compiler.READ_ONLY_MASK);
+    if (patterns.size() >= MAX_CACHED_PATTERNS) {
+      patterns.clear();
+    }
+    patterns.put(regex, pattern);
+    return pattern;
+  }
+
+  /**
+   * Returns the regular expression compiled by the given engine, compiling and storing it if it
+   * was not already cached.
+   *
+   * @param regex regular expression to compile
+   * @param engine engine to evaluate the regular expression with
+   * @return the compiled pattern
+   * @throws MalformedPatternException when the regular expression is not valid
+   */
+  public RegexPattern getPattern(String regex, RegexEngine engine)
+      throws MalformedPatternException {
+    if (engine == RegexEngine.ORO) {
+      return RegexEngine.wrap(getPattern(regex));
+    }
+    RegexPattern pattern = linearPatterns.get(regex);
+    if (pattern != null) {
+      hits.incrementAndGet();
+      return pattern;
+    }
+    misses.incrementAndGet();
+    pattern = engine.compile(regex);
+    if (linearPatterns.size() >= MAX_CACHED_PATTERNS) {
+      linearPatterns.clear();
+    }
+    linearPatterns.put(regex, pattern);
+    return pattern;
+  }
+
+  public void invalidate() {
+    patterns.clear();
+    linearPatterns.clear();
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  public void resetStatistics() {
+    hits.set(0);
+    misses.set(0);
+  }
+
+  @Override
+  public String toString() {
+    return "CompiledPatternCache{" +
+        "hits=" + hits +
+        ", misses=" + misses +
+        ", cached=" + (patterns.size() + linearPatterns.size()) +
+        '}';
+  }
+}
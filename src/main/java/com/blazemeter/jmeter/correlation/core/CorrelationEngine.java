@@ -1,13 +1,28 @@
 package com.blazemeter.jmeter.correlation.core;
 
+import com.blazemeter.jmeter.correlation.core.extractors.CorrelationExtractor;
+import com.blazemeter.jmeter.correlation.core.extractors.ResultFieldCache;
+import com.blazemeter.jmeter.correlation.core.metrics.CorrelationRulesMetrics;
+import com.blazemeter.jmeter.correlation.core.metrics.RuleExecution;
+import com.blazemeter.jmeter.correlation.core.metrics.RulesCircuitBreaker;
+import com.blazemeter.jmeter.correlation.core.replacements.CorrelationReplacement;
+import com.blazemeter.jmeter.correlation.core.replacements.CorrelationReplacementsBatch;
 import com.blazemeter.jmeter.correlation.gui.CorrelationComponentsRegistry;
 import com.helger.commons.annotation.VisibleForTesting;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.apache.jmeter.config.ConfigTestElement;
 import org.apache.jmeter.protocol.http.sampler.HTTPSamplerBase;
 import org.apache.jmeter.samplers.SampleResult;
 import org.apache.jmeter.testelement.TestElement;
+import org.apache.jmeter.testelement.property.JMeterProperty;
+import org.apache.jmeter.testelement.property.MultiProperty;
+import org.apache.jmeter.testelement.property.PropertyIterator;
 import org.apache.jmeter.threads.JMeterContextService;
 import org.apache.jmeter.threads.JMeterVariables;
 import org.apache.jmeter.util.JMeterUtils;
@@ -18,13 +33,20 @@ import org.slf4j.LoggerFactory;
 public class CorrelationEngine {
 
   private static final Logger LOG = LoggerFactory.getLogger(CorrelationEngine.class);
+  private static final String PREFILTER_ENABLED_PROPERTY = "correlation.engine.prefilter";
   private final List<CorrelationContext> initializedContexts = new ArrayList<>();
   private JMeterVariables vars = new JMeterVariables();
   private final List<CorrelationRule> rules;
   private boolean isEnabled = false;
+  private boolean prefilterEnabled;
+  private RulesPrefilter prefilter;
+  private final CorrelationRulesMetrics metrics;
+  private RulesCircuitBreaker circuitBreaker;
 
   public CorrelationEngine() {
     rules = new ArrayList<>();
+    metrics = CorrelationRulesMetrics.createIfEnabled();
+    prefilterEnabled = JMeterUtils.getPropDefault(PREFILTER_ENABLED_PROPERTY, false);
     JMeterContextService.getContext().setVariables(vars);
   }
 
@@ -39,6 +61,83 @@ public class CorrelationEngine {
               updateCorrelationContext(r.getCorrelationReplacement(), registry);
               rules.add(r);
             }));
+    updateNonIndexedVariables();
+    updatePrefilter();
+    if (metrics != null) {
+      metrics.setRules(rules);
+    }
+    if (circuitBreaker != null) {
+      circuitBreaker.setRules(rules);
+    }
+  }
+
+  /*
+   Replacements can only find variables by the values indexed in the context when all the values
+   stored for the variable name are indexed, so names stored by any other extractor are excluded.
+   */
+  private void updateNonIndexedVariables() {
+    Set<String> nonIndexedVariables = rules.stream()
+        .map(CorrelationRule::getCorrelationExtractor)
+        .filter(e -> e != null && !e.indexesStoredValues())
+        .map(CorrelationExtractor::getVariableName)
+        .collect(Collectors.toSet());
+    initializedContexts.stream()
+        .filter(BaseCorrelationContext.class::isInstance)
+        .forEach(c -> ((BaseCorrelationContext) c).setNonIndexedVariables(nonIndexedVariables));
+  }
+
+  private void updatePrefilter() {
+    prefilter = prefilterEnabled ? new RulesPrefilter(rules) : null;
+  }
+
+  /**
+   * Enables or disables the prefilter of extractors.
+   *
+   * <p>When enabled, each response is scanned once looking for the literals required by all the
+   * extractors, and only the extractors whose literals are found are processed. Check
+   * {@link RulesPrefilter} for more details.
+   *
+   * @param prefilterEnabled true to enable the prefilter, false otherwise
+   */
+  public synchronized void setPrefilterEnabled(boolean prefilterEnabled) {
+    this.prefilterEnabled = prefilterEnabled;
+    updatePrefilter();
+  }
+
+  public boolean isPrefilterEnabled() {
+    return prefilterEnabled;
+  }
+
+  /**
+   * Gets the execution metrics of the extractors and replacements of the rules.
+   *
+   * @return the metrics of the rules, or null when they are disabled (check
+   * {@link CorrelationRulesMetrics#ENABLED_PROPERTY})
+   */
+  public CorrelationRulesMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Sets the circuit breaker which suspends the rules exceeding their time budget.
+   *
+   * <p>The circuit breaker must use the metrics of this engine (check {@link #getMetrics()}).
+   *
+   * @param circuitBreaker the circuit breaker, or null to always apply all the enabled rules
+   */
+  public synchronized void setCircuitBreaker(RulesCircuitBreaker circuitBreaker) {
+    this.circuitBreaker = circuitBreaker;
+    if (circuitBreaker != null) {
+      circuitBreaker.setRules(rules);
+    }
+  }
+
+  private boolean isRuleActive(CorrelationRule rule) {
+    return rule.isEnabled() && (circuitBreaker == null || !circuitBreaker.isSuspended(rule));
+  }
+
+  private RuleExecution newExecution(Object rulePart) {
+    return metrics != null ? metrics.newExecution(rulePart) : RuleExecution.DISABLED;
   }
 
   private void updateCorrelationContext(CorrelationRulePartTestElement rulePartTestElement,
@@ -68,6 +167,12 @@ public class CorrelationEngine {
     vars = new JMeterVariables();
     JMeterContextService.getContext().setVariables(vars);
     initializedContexts.forEach(CorrelationContext::reset);
+    if (metrics != null) {
+      metrics.reset();
+    }
+    if (circuitBreaker != null) {
+      circuitBreaker.reset();
+    }
   }
 
   public synchronized void process(HTTPSamplerBase sampler, List<TestElement> children,
@@ -86,46 +191,120 @@ public class CorrelationEngine {
     }
 
     JMeterContextService.getContext().setVariables(vars);
+    // each field of the result is decoded only once, no matter how many extractors use it
+    if (result != null) {
+      ResultFieldCache.open(result);
+    }
+    if (circuitBreaker != null) {
+      circuitBreaker.startSample();
+    }
+    try {
+      applyReplacements(sampler, children, result);
+      initializedContexts.forEach(c -> c.update(result));
+      applyExtractors(sampler, children, result, responseFilter);
+    } finally {
+      ResultFieldCache.release();
+      if (circuitBreaker != null) {
+        circuitBreaker.finishSample(sampler.getName());
+      }
+    }
+  }
+
+  private void applyExtractors(HTTPSamplerBase sampler, List<TestElement> children,
+      SampleResult result, String responseFilter) {
+    if (!isContentTypeAllowed(result, responseFilter)) {
+      return;
+    }
+    Set<CorrelationExtractor<?>> skippableExtractors = prefilter != null && result != null
+        ? prefilter.findSkippableExtractors(result) : Collections.emptySet();
     // Using for instead of streams to avoid ConcurrentModificationException
     for (CorrelationRule rule : rules) {
       if (Thread.currentThread().isInterrupted()) {
         break;
       }
-      if (rule.isEnabled() && rule.getCorrelationReplacement() != null) {
+      if (isRuleActive(rule) && rule.getCorrelationExtractor() != null
+          && !skippableExtractors.contains(rule.getCorrelationExtractor())) {
+        RuleExecution execution = newExecution(rule.getCorrelationExtractor());
+        execution.resume();
         try {
-          rule.getCorrelationReplacement().process(sampler, children, result, vars);
+          rule.getCorrelationExtractor().process(sampler, children, result, vars);
         } catch (RuntimeException e) {
-          LOG.warn("Error applying the following replacement {} in the request {}", rule,
+          LOG.warn("Error applying the following extractor {} in the request {}", rule,
               sampler.getName(), e);
-          LOG.debug("Request URL: {}\nRequest Headers:\n{}\nRequest Body:\n{}\n",
-              result.getUrlAsString(), result.getRequestHeaders(),
-              result.getDataEncodingWithDefault());
+          LOG.debug("Response URL: {}\nResponse Headers:\n{}\nResponse Body:\n{}\n",
+              result.getUrlAsString(), result.getResponseHeaders(),
+              result.getResponseDataAsString());
+        } finally {
+          execution.finish();
         }
       }
     }
+  }
 
-    initializedContexts.forEach(c -> c.update(result));
-
-    if (isContentTypeAllowed(result, responseFilter)) {
-      // Using for instead of streams to avoid ConcurrentModificationException
-      for (CorrelationRule rule : rules) {
-        if (Thread.currentThread().isInterrupted()) {
-          break;
-        }
-        if (rule.isEnabled() && rule.getCorrelationExtractor() != null) {
-          try {
-            rule.getCorrelationExtractor().process(sampler, children, result, vars);
-
-          } catch (RuntimeException e) {
-            LOG.warn("Error applying the following extractor {} in the request {}", rule,
-                sampler.getName(), e);
-            LOG.debug("Response URL: {}\nResponse Headers:\n{}\nResponse Body:\n{}\n",
-                result.getUrlAsString(), result.getResponseHeaders(),
-                result.getResponseDataAsString());
-          }
+  /*
+   Consecutive replacements which only replace the values of the properties are applied together,
+   in a single traversal of the sampler properties (check CorrelationReplacementsBatch), while the
+   ones with a custom process are applied by themselves, keeping the order of the rules.
+   */
+  private void applyReplacements(HTTPSamplerBase sampler, List<TestElement> children,
+      SampleResult result) {
+    List<CorrelationReplacement<?>> batched = new ArrayList<>();
+    // Using for instead of streams to avoid ConcurrentModificationException
+    for (CorrelationRule rule : rules) {
+      if (Thread.currentThread().isInterrupted()) {
+        return;
+      }
+      CorrelationReplacement<?> replacement = rule.getCorrelationReplacement();
+      if (!isRuleActive(rule) || replacement == null) {
+        continue;
+      }
+      if (CorrelationReplacementsBatch.isBatchable(replacement)) {
+        batched.add(replacement);
+        continue;
+      }
+      applyBatchedReplacements(batched, sampler, children, result);
+      RuleExecution execution = newExecution(replacement);
+      PropertiesDigest before = execution.isEnabled()
+          ? new PropertiesDigest(sampler, children) : null;
+      execution.resume();
+      try {
+        replacement.process(sampler, children, result, vars);
+      } catch (RuntimeException e) {
+        LOG.warn("Error applying the following replacement {} in the request {}", rule,
+            sampler.getName(), e);
+        LOG.debug("Request URL: {}\nRequest Headers:\n{}\nRequest Body:\n{}\n",
+            result.getUrlAsString(), result.getRequestHeaders(),
+            result.getDataEncodingWithDefault());
+      } finally {
+        execution.pause();
+        if (before != null) {
+          recordCustomReplacement(execution, before, new PropertiesDigest(sampler, children));
         }
+        execution.finish();
       }
     }
+    applyBatchedReplacements(batched, sampler, children, result);
+  }
+
+  /*
+   Replacements with a custom process can't be measured while they process each property, as the
+   batched ones are, so all the properties they may replace are counted as scanned, and the
+   replacement matched when any of them (or the children of the sampler) changed.
+   */
+  private static void recordCustomReplacement(RuleExecution execution, PropertiesDigest before,
+      PropertiesDigest after) {
+    execution.addScannedCharacters(before.length);
+    if (!before.equals(after)) {
+      execution.markMatched();
+    }
+  }
+
+  private void applyBatchedReplacements(List<CorrelationReplacement<?>> batched,
+      HTTPSamplerBase sampler, List<TestElement> children, SampleResult result) {
+    if (!batched.isEmpty()) {
+      new CorrelationReplacementsBatch(batched, metrics).process(sampler, children, result, vars);
+      batched.clear();
+    }
   }
 
   public void setEnabled(boolean enable) {
@@ -186,4 +365,58 @@ public class CorrelationEngine {
   public void setVars(JMeterVariables vars) {
     this.vars = vars;
   }
+  /*
+   Length and hash of the string values of the properties of a sampler and its config elements
+   (the ones processed by the replacements), and the number of children of the sampler.
+   */
+  private static final class PropertiesDigest {
+
+    private final int childrenCount;
+    private long length;
+    private int hash = 1;
+
+    private PropertiesDigest(HTTPSamplerBase sampler, List<TestElement> children) {
+      childrenCount = children.size();
+      add(sampler.propertyIterator());
+      for (TestElement child : children) {
+        if (child instanceof ConfigTestElement) {
+          add(child.propertyIterator());
+        }
+      }
+    }
+
+    private void add(PropertyIterator properties) {
+      while (properties.hasNext()) {
+        JMeterProperty property = properties.next();
+        if (property instanceof MultiProperty) {
+          add(((MultiProperty) property).iterator());
+        } else {
+          String value = property.getStringValue();
+          if (value != null) {
+            length += value.length();
+            hash = 31 * hash + value.hashCode();
+          }
+        }
+      }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof PropertiesDigest)) {
+        return false;
+      }
+      PropertiesDigest that = (PropertiesDigest) o;
+      return childrenCount == that.childrenCount && length == that.length && hash == that.hash;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(childrenCount, length, hash);
+    }
+
+  }
+
 }
@@ -0,0 +1,196 @@
+package com.blazemeter.jmeter.correlation.core;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Finds the appearances of several literals in a text by scanning it only once.
+ *
+ * <p>Implements the Aho-Corasick automaton: all the literals are loaded into a trie whose nodes
+ * are linked to the longest proper suffix also present in the trie, so the text can be consumed
+ * char by char without going back, regardless of the amount of literals.
+ *
+ * <p>Once built, instances are immutable and can be shared between threads.
+ *
+ * @see <a href="https://en.wikipedia.org/wiki/Aho%E2%80%93Corasick_algorithm">Aho-Corasick
+ * algorithm</a>
+ */
+public class MultiLiteralMatcher {
+
+  private static final int[] NO_OUTPUTS = new int[0];
+
+  private final List<String> literals;
+  private final Node root = new Node();
+
+  /**
+   * Builds the matcher for the given literals. Each literal is identified by its position in the
+   * collection iteration order, which is the index reported on every match.
+   *
+   * @param literals non empty strings to search for
+   * @throws IllegalArgumentException when any of the literals is null or empty
+   */
+  public MultiLiteralMatcher(Collection<String> literals) {
+    this.literals = Collections.unmodifiableList(new ArrayList<>(literals));
+    for (int i = 0; i < this.literals.size(); i++) {
+      addLiteral(this.literals.get(i), i);
+    }
+    buildFailureLinks();
+  }
+
+  private void addLiteral(String literal, int index) {
+    if (literal == null || literal.isEmpty()) {
+      throw new IllegalArgumentException("Literals to match can't be null nor empty");
+    }
+    Node node = root;
+    for (int i = 0; i < literal.length(); i++) {
+      char c = literal.charAt(i);
+      Node child = node.getChild(c);
+      node = child != null ? child : node.addChild(c);
+    }
+    node.outputs = appendOutput(node.outputs, index);
+  }
+
+  private static int[] appendOutput(int[] outputs, int index) {
+    int[] ret = Arrays.copyOf(outputs, outputs.length + 1);
+    ret[outputs.length] = index;
+    return ret;
+  }
+
+  private void buildFailureLinks() {
+    Queue<Node> pending = new ArrayDeque<>();
+    root.failure = root;
+    for (Node child : root.children) {
+      child.failure = root;
+      pending.add(child);
+    }
+    while (!pending.isEmpty()) {
+      Node node = pending.poll();
+      for (int i = 0; i < node.keys.length; i++) {
+        char c = node.keys[i];
+        Node child = node.children[i];
+        Node failure = node.failure;
+        while (failure != root && failure.getChild(c) == null) {
+          failure = failure.failure;
+        }
+        Node failureChild = failure.getChild(c);
+        child.failure = failureChild != null && failureChild != child ? failureChild : root;
+        if (child.failure.outputs.length > 0) {
+          int[] merged = Arrays.copyOf(child.outputs,
+              child.outputs.length + child.failure.outputs.length);
+          System.arraycopy(child.failure.outputs, 0, merged, child.outputs.length,
+              child.failure.outputs.length);
+          child.outputs = merged;
+        }
+        pending.add(child);
+      }
+    }
+  }
+
+  public int size() {
+    return literals.size();
+  }
+
+  public String getLiteral(int index) {
+    return literals.get(index);
+  }
+
+  /**
+   * Scans the text reporting every appearance of every literal, including overlapping ones.
+   *
+   * @param text text to scan
+   * @param listener receives the index of the matched literal and the offset where the match
+   * starts in the text
+   */
+  public void findAll(CharSequence text, MatchListener listener) {
+    if (text == null) {
+      return;
+    }
+    Node state = root;
+    for (int i = 0; i < text.length(); i++) {
+      state = next(state, text.charAt(i));
+      for (int index : state.outputs) {
+        listener.onMatch(index, i - literals.get(index).length() + 1);
+      }
+    }
+  }
+
+  /**
+   * Scans the text to find which of the literals appear in it at least once.
+   *
+   * <p>The scan stops as soon as all the literals have been found.
+   *
+   * @param text text to scan
+   * @return the set of indexes of the literals found in the text
+   */
+  public BitSet findPresent(CharSequence text) {
+    BitSet found = new BitSet(literals.size());
+    if (text == null || literals.isEmpty()) {
+      return found;
+    }
+    int pendingLiterals = literals.size();
+    Node state = root;
+    for (int i = 0; i < text.length() && pendingLiterals > 0; i++) {
+      state = next(state, text.charAt(i));
+      for (int index : state.outputs) {
+        if (!found.get(index)) {
+          found.set(index);
+          pendingLiterals--;
+        }
+      }
+    }
+    return found;
+  }
+
+  private Node next(Node state, char c) {
+    Node child = state.getChild(c);
+    while (child == null && state != root) {
+      state = state.failure;
+      child = state.getChild(c);
+    }
+    return child != null ? child : root;
+  }
+
+  /**
+   * Receives the matches found while scanning a text.
+   */
+  @FunctionalInterface
+  public interface MatchListener {
+
+    void onMatch(int literalIndex, int startOffset);
+
+  }
+
+  private static final class Node {
+
+    private char[] keys = new char[0];
+    private Node[] children = new Node[0];
+    private Node failure;
+    private int[] outputs = NO_OUTPUTS;
+
+    private Node getChild(char c) {
+      for (int i = 0; i < keys.length; i++) {
+        if (keys[i] == c) {
+          return children[i];
+        }
+      }
+      return null;
+    }
+
+    private Node addChild(char c) {
+      Node child = new Node();
+      keys = Arrays.copyOf(keys, keys.length + 1);
+      keys[keys.length - 1] = c;
+      children = Arrays.copyOf(children, children.length + 1);
+      children[children.length - 1] = child;
+      return child;
+    }
+
+  }
+
+}
@@ -0,0 +1,164 @@
+package com.blazemeter.jmeter.correlation.core;
+
+import com.google.re2j.PatternSyntaxException;
+import org.apache.oro.text.regex.MalformedPatternException;
+import org.apache.oro.text.regex.MatchResult;
+import org.apache.oro.text.regex.Pattern;
+import org.apache.oro.text.regex.PatternMatcherInput;
+import org.apache.oro.text.regex.Perl5Compiler;
+import org.apache.oro.text.regex.Perl5Matcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Engines available to evaluate the regular expressions of the Correlation Rules during the
+ * recording.
+ *
+ * <p>{@link #ORO} is the backtracking engine used by JMeter, and the default one, since it is
+ * the one that the generated post processors use during replay. {@link #LINEAR} is an automaton
+ * based engine (RE2) which evaluates the expressions in linear time on the size of the input,
+ * avoiding the catastrophic backtracking that some expressions (eg: <code>((?:[^"]|")*?)</code>)
+ * have on big responses. Since it doesn't support back references nor lookarounds, expressions
+ * using them are evaluated with {@link #ORO} instead.
+ */
+public enum RegexEngine {
+
+  ORO {
+    @Override
+    public RegexPattern compile(String regex) throws MalformedPatternException {
+      return new OroPattern(new Perl5Compiler().compile(regex, Perl5Compiler.READ_ONLY_MASK));
+    }
+  },
+  LINEAR {
+    @Override
+    public RegexPattern compile(String regex) throws MalformedPatternException {
+      try {
+        return new LinearPattern(com.google.re2j.Pattern.compile(regex));
+      } catch (PatternSyntaxException e) {
+        LOG.debug("Regex {} is not supported by the linear engine, using ORO instead. {}", regex,
+            e.getMessage());
+        return ORO.compile(regex);
+      }
+    }
+  };
+
+  private static final Logger LOG = LoggerFactory.getLogger(RegexEngine.class);
+
+  /**
+   * Compiles the regular expression to be evaluated by this engine.
+   *
+   * @param regex Perl5 regular expression to compile
+   * @return the compiled pattern
+   * @throws MalformedPatternException when the regular expression is not valid
+   */
+  public abstract RegexPattern compile(String regex) throws MalformedPatternException;
+
+  public static RegexEngine fromLinearFlag(boolean linear) {
+    return linear ? LINEAR : ORO;
+  }
+
+  /**
+   * Wraps a pattern already compiled by ORO, eg: one obtained from the JMeter patterns cache.
+   *
+   * @param pattern ORO compiled pattern
+   * @return the pattern to be used through the {@link RegexPattern} abstraction
+   */
+  public static RegexPattern wrap(Pattern pattern) {
+    return new OroPattern(pattern);
+  }
+
+  private static class OroPattern implements RegexPattern {
+
+    private final Pattern pattern;
+
+    private OroPattern(Pattern pattern) {
+      this.pattern = pattern;
+    }
+
+    @Override
+    public Matcher matcher(String input) {
+      // a new matcher is used, since the ones provided by JMeterUtils are shared by the thread
+      Perl5Matcher matcher = new Perl5Matcher();
+      PatternMatcherInput matcherInput = new PatternMatcherInput(input);
+      return new Matcher() {
+
+        private MatchResult match;
+
+        @Override
+        public boolean find() {
+          if (!matcher.contains(matcherInput, pattern)) {
+            match = null;
+            return false;
+          }
+          match = matcher.getMatch();
+          return true;
+        }
+
+        @Override
+        public String group(int group) {
+          return match.group(group);
+        }
+
+        @Override
+        public int start(int group) {
+          return match.beginOffset(group);
+        }
+
+        @Override
+        public int end(int group) {
+          return match.endOffset(group);
+        }
+      };
+    }
+
+    @Override
+    public RegexEngine getEngine() {
+      return ORO;
+    }
+
+  }
+
+  private static class LinearPattern implements RegexPattern {
+
+    private final com.google.re2j.Pattern pattern;
+
+    private LinearPattern(com.google.re2j.Pattern pattern) {
+      this.pattern = pattern;
+    }
+
+    @Override
+    public Matcher matcher(String input) {
+      com.google.re2j.Matcher matcher = pattern.matcher(input);
+      return new Matcher() {
+
+        @Override
+        public boolean find() {
+          return matcher.find();
+        }
+
+        // as ORO does, groups not defined by the expression are reported as not matched
+        @Override
+        public String group(int group) {
+          return group <= matcher.groupCount() ? matcher.group(group) : null;
+        }
+
+        @Override
+        public int start(int group) {
+          return group <= matcher.groupCount() ? matcher.start(group) : -1;
+        }
+
+        @Override
+        public int end(int group) {
+          return group <= matcher.groupCount() ? matcher.end(group) : -1;
+        }
+      };
+    }
+
+    @Override
+    public RegexEngine getEngine() {
+      return LINEAR;
+    }
+
+  }
+
+}
@@ -0,0 +1,67 @@
+package com.blazemeter.jmeter.correlation.core;
+
+/**
+ * Regular expression compiled by a {@link RegexEngine}, which allows to find its matches in a
+ * string regardless of the engine used to evaluate it.
+ *
+ * <p>Compiled patterns are immutable and can be shared between threads, while the matchers
+ * obtained from them can only be used by one thread.
+ */
+public interface RegexPattern {
+
+  /**
+   * Creates a matcher to find the appearances of the pattern in the input.
+   *
+   * @param input string to look for matches in
+   * @return a matcher positioned at the beginning of the input
+   */
+  Matcher matcher(String input);
+
+  /**
+   * Gets the engine which evaluates the pattern. May differ from the requested one when the
+   * expression uses constructs not supported by it (check {@link RegexEngine#LINEAR}).
+   *
+   * @return the engine used to evaluate the pattern
+   */
+  RegexEngine getEngine();
+
+  /**
+   * Iterates over the matches of a {@link RegexPattern} in an input.
+   */
+  interface Matcher {
+
+    /**
+     * Finds the next match of the pattern, starting where the previous one ended.
+     *
+     * @return true if a match was found, false otherwise
+     */
+    boolean find();
+
+    /**
+     * Gets the value captured by a group in the current match.
+     *
+     * @param group number of the group in the regular expression (0 for the whole match)
+     * @return the value captured by the group in the current match, or null if the group didn't
+     * participate in it
+     */
+    String group(int group);
+
+    /**
+     * Gets the position where a group starts in the current match.
+     *
+     * @param group number of the group in the regular expression (0 for the whole match)
+     * @return the offset in the input where the group starts in the current match
+     */
+    int start(int group);
+
+    /**
+     * Gets the position where a group ends in the current match.
+     *
+     * @param group number of the group in the regular expression (0 for the whole match)
+     * @return the offset in the input after the last char of the group in the current match
+     */
+    int end(int group);
+
+  }
+
+}
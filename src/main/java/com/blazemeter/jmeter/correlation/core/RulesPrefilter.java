@@ -0,0 +1,263 @@
+package com.blazemeter.jmeter.correlation.core;
+
+import com.blazemeter.jmeter.correlation.core.extractors.CorrelationExtractor;
+import com.blazemeter.jmeter.correlation.core.extractors.JsonCorrelationExtractor;
+import com.blazemeter.jmeter.correlation.core.extractors.RegexCorrelationExtractor;
+import com.blazemeter.jmeter.correlation.core.extractors.ResultField;
+import com.google.common.annotations.VisibleForTesting;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.apache.jmeter.samplers.SampleResult;
+
+/**
+ * Index of the literals that the responses must contain for the Correlation Extractors to have a
+ * chance to match.
+ *
+ * <p>When built, every extractor whose expression requires a literal (eg: the <code>name="</code>
+ * in <code>name="(.+?)"</code>, or the key <code>token</code> in <code>$.data.token</code>) is
+ * indexed by its target field. Then, for each response, every target field is scanned only once
+ * with a {@link MultiLiteralMatcher}, and the extractors whose literal was not found are reported
+ * as skippable, since they can't match anything in that response.
+ *
+ * <p>Only the built in Regex and JSON extractors, not multivalued, are indexed. Custom extensions
+ * (even the ones extending the built in extractors) and multivalued extractors, which register
+ * variables even when nothing matches, are always processed.
+ */
+public class RulesPrefilter {
+
+  /*
+   Escaped chars which represent a class of chars or a zero-width assertion. Any other alphanumeric
+   escape (\x, \c, back references, etc) makes the regex to be considered without literals.
+   */
+  private static final String SINGLE_CHAR_ESCAPES = "dDwWsSbBAZzGnrtfea";
+  private static final Pattern JSON_PATH_KEY_PATTERN = Pattern.compile(
+      "(?:\\.|\\[\\s*['\"])([A-Za-z0-9_$-]+)(?=['\"]\\s*]|\\.|\\[|$)");
+
+  private final Map<ResultField, MultiLiteralMatcher> fieldMatchers =
+      new EnumMap<>(ResultField.class);
+  private final Map<CorrelationExtractor<?>, IndexedExtractor> indexedExtractors =
+      new IdentityHashMap<>();
+
+  public RulesPrefilter(List<CorrelationRule> rules) {
+    Map<ResultField, Map<String, Integer>> literalsByField = new EnumMap<>(ResultField.class);
+    for (CorrelationRule rule : rules) {
+      CorrelationExtractor<?> extractor = rule.getCorrelationExtractor();
+      if (extractor == null || extractor.getTarget() == null) {
+        continue;
+      }
+      String literal = findRequiredLiteral(extractor);
+      if (literal == null) {
+        continue;
+      }
+      Map<String, Integer> fieldLiterals = literalsByField
+          .computeIfAbsent(extractor.getTarget(), f -> new LinkedHashMap<>());
+      int literalIndex = fieldLiterals.computeIfAbsent(literal, l -> fieldLiterals.size());
+      indexedExtractors.put(extractor, new IndexedExtractor(extractor.getTarget(), literalIndex));
+    }
+    literalsByField.forEach((field, literals) -> fieldMatchers
+        .put(field, new MultiLiteralMatcher(literals.keySet())));
+  }
+
+  private static String findRequiredLiteral(CorrelationExtractor<?> extractor) {
+    if (extractor.getClass() == RegexCorrelationExtractor.class) {
+      RegexCorrelationExtractor<?> regexExtractor = (RegexCorrelationExtractor<?>) extractor;
+      return regexExtractor.isMultiValued() ? null
+          : findRegexRequiredLiteral(regexExtractor.getRegex());
+    } else if (extractor.getClass() == JsonCorrelationExtractor.class) {
+      JsonCorrelationExtractor<?> jsonExtractor = (JsonCorrelationExtractor<?>) extractor;
+      return jsonExtractor.isMultiValued() ? null
+          : findJsonPathRequiredKey(jsonExtractor.getPath());
+    }
+    return null;
+  }
+
+  /**
+   * Gets the longest literal that any text matched by the regular expression must contain.
+   *
+   * <p>The analysis is conservative: only the literals outside of groups are considered, and
+   * expressions with alternations, inline modifiers or escapes that can't be easily interpreted
+   * are considered to have no required literal.
+   *
+   * @param regex Perl5 regular expression to analyze
+   * @return the longest required literal or null if there is none
+   */
+  @VisibleForTesting
+  static String findRegexRequiredLiteral(String regex) {
+    if (regex == null || regex.isEmpty() || regex.indexOf('|') >= 0
+        || regex.matches("(?s).*\\(\\?[imsx-].*")) {
+      return null;
+    }
+    String longest = "";
+    StringBuilder current = new StringBuilder();
+    int depth = 0;
+    int i = 0;
+    while (i < regex.length()) {
+      char c = regex.charAt(i);
+      if (c == '\\') {
+        if (i + 1 >= regex.length()) {
+          return null;
+        }
+        char escaped = regex.charAt(i + 1);
+        if (Character.isLetterOrDigit(escaped)) {
+          if (SINGLE_CHAR_ESCAPES.indexOf(escaped) < 0) {
+            return null;
+          }
+          longest = longestOf(longest, current);
+          i += 2;
+          continue;
+        }
+        i += 2;
+        if (depth == 0) {
+          longest = appendLiteral(regex, i, escaped, current, longest);
+        }
+      } else if (c == '[') {
+        i = skipCharClass(regex, i);
+        if (i < 0) {
+          return null;
+        }
+        longest = longestOf(longest, current);
+      } else if (c == '{') {
+        int end = regex.indexOf('}', i);
+        i = end < 0 ? regex.length() : end + 1;
+        longest = longestOf(longest, current);
+      } else if (c == '(' || c == ')') {
+        depth += c == '(' ? 1 : -1;
+        i++;
+        longest = longestOf(longest, current);
+      } else if (".^$?*+".indexOf(c) >= 0) {
+        i++;
+        longest = longestOf(longest, current);
+      } else {
+        i++;
+        if (depth == 0) {
+          longest = appendLiteral(regex, i, c, current, longest);
+        }
+      }
+    }
+    longest = longestOf(longest, current);
+    return longest.isEmpty() ? null : longest;
+  }
+
+  private static String appendLiteral(String regex, int nextPos, char literal,
+      StringBuilder current, String longest) {
+    char next = nextPos < regex.length() ? regex.charAt(nextPos) : 0;
+    if (next == '?' || next == '*' || next == '{') {
+      // the literal is optional, so the run of required literals ends before it
+      return longestOf(longest, current);
+    }
+    current.append(literal);
+    return next == '+' ? longestOf(longest, current) : longest;
+  }
+
+  private static String longestOf(String longest, StringBuilder current) {
+    String ret = current.length() > longest.length() ? current.toString() : longest;
+    current.setLength(0);
+    return ret;
+  }
+
+  private static int skipCharClass(String regex, int start) {
+    int i = start + 1;
+    if (i < regex.length() && regex.charAt(i) == '^') {
+      i++;
+    }
+    if (i < regex.length() && regex.charAt(i) == ']') {
+      i++;
+    }
+    while (i < regex.length()) {
+      char c = regex.charAt(i);
+      if (c == '\\') {
+        i += 2;
+      } else if (c == ']') {
+        return i + 1;
+      } else {
+        i++;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Gets the longest key that a JSON document must contain for the JSONPath to match something.
+   *
+   * <p>Only the simple keys of the path (the ones navigated with dot or bracket notation) are
+   * considered, and paths with filters or functions are considered to have no required key.
+   *
+   * @param jsonPath JSONPath expression to analyze
+   * @return the longest required key or null if there is none
+   */
+  @VisibleForTesting
+  static String findJsonPathRequiredKey(String jsonPath) {
+    if (jsonPath == null || jsonPath.isEmpty() || jsonPath.contains("(")) {
+      return null;
+    }
+    String longest = null;
+    Matcher matcher = JSON_PATH_KEY_PATTERN.matcher(jsonPath);
+    while (matcher.find()) {
+      String key = matcher.group(1);
+      if (longest == null || key.length() > longest.length()) {
+        longest = key;
+      }
+    }
+    return longest;
+  }
+
+  /**
+   * Scans the response and gets the extractors that can't match anything in it.
+   *
+   * @param result response to scan
+   * @return the extractors that can be skipped for the response
+   */
+  public Set<CorrelationExtractor<?>> findSkippableExtractors(SampleResult result) {
+    Set<CorrelationExtractor<?>> ret = Collections.newSetFromMap(new IdentityHashMap<>());
+    if (indexedExtractors.isEmpty()) {
+      return ret;
+    }
+    Map<ResultField, BitSet> found = new EnumMap<>(ResultField.class);
+    fieldMatchers.forEach((field, matcher) -> found.put(field,
+        matcher.findPresent(field.getField(result))));
+    indexedExtractors.forEach((extractor, indexed) -> {
+      if (!found.get(indexed.field).get(indexed.literalIndex)) {
+        ret.add(extractor);
+      }
+    });
+    return ret;
+  }
+
+  public boolean isEmpty() {
+    return indexedExtractors.isEmpty();
+  }
+
+  @VisibleForTesting
+  List<String> getIndexedLiterals(ResultField field) {
+    List<String> ret = new ArrayList<>();
+    MultiLiteralMatcher matcher = fieldMatchers.get(field);
+    if (matcher != null) {
+      for (int i = 0; i < matcher.size(); i++) {
+        ret.add(matcher.getLiteral(i));
+      }
+    }
+    return ret;
+  }
+
+  private static final class IndexedExtractor {
+
+    private final ResultField field;
+    private final int literalIndex;
+
+    private IndexedExtractor(ResultField field, int literalIndex) {
+      this.field = field;
+      this.literalIndex = literalIndex;
+    }
+
+  }
+
+}
@@ -9,7 +9,9 @@ import com.blazemeter.jmeter.correlation.core.extractors.CorrelationExtractor;
 import com.blazemeter.jmeter.correlation.core.replacements.CorrelationReplacement;
 import com.helger.commons.annotation.VisibleForTesting;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -29,6 +31,8 @@ public class AnalysisReporter {
   private static int globalSequence = 0;
   private static boolean isCollectingReports = true;
   private static boolean canCorrelate = true;
+  private static final Map<CorrelationRule, String> suspendedRules =
+      Collections.synchronizedMap(new LinkedHashMap<>());
 
   private AnalysisReporter() {
 
@@ -194,6 +198,37 @@ public class AnalysisReporter {
     return canCorrelate;
   }
 
+  /**
+   * Reports a rule that was suspended while recording, so it is no longer applied to the
+   * following requests.
+   *
+   * <p>Suspended rules are reported even when reports are not being collected, since they are
+   * not applied to the rest of the recording, and are kept until
+   * {@link #clearSuspendedRules()} is invoked.
+   *
+   * @param rule the suspended rule
+   * @param reason description of why the rule was suspended
+   */
+  public static void reportSuspendedRule(CorrelationRule rule, String reason) {
+    suspendedRules.put(rule, reason);
+  }
+
+  /**
+   * Gets the reasons why each rule was suspended while recording, in the order they were
+   * suspended.
+   *
+   * @return the reason of each suspended rule
+   */
+  public static List<String> getSuspendedRules() {
+    synchronized (suspendedRules) {
+      return new ArrayList<>(suspendedRules.values());
+    }
+  }
+
+  public static void clearSuspendedRules() {
+    suspendedRules.clear();
+  }
+
   public CorrelationRuleReport getRuleReport(CorrelationRule rule) {
     Report extractorReport =
         getReport(VariablePartElement.getFrom(rule.getCorrelationExtractor()));
@@ -262,7 +297,7 @@ public class AnalysisReporter {
   @VisibleForTesting
   public String getReportAsString() {
     if (!isCollectingReports) {
-      return NO_REPORT;
+      return NO_REPORT + getSuspendedRulesReport();
     }
 
     StringBuilder sb = new StringBuilder();
@@ -274,7 +309,7 @@ public class AnalysisReporter {
     if (reports.isEmpty()) {
       sb.append(getIndentation(1))
           .append("No rules were applied successfully. Review them and try again.");
-      return sb.toString();
+      return sb.append(getSuspendedRulesReport()).toString();
     }
     sb.append(getIndentation(1)).append("Details by rule part:").append(separator);
     for (Entry<VariablePartElement, Report> map : reports.entrySet()) {
@@ -293,6 +328,20 @@ public class AnalysisReporter {
             .append("- ").append(entry.getReportString()).append(separator);
       }
     }
+    return sb.append(getSuspendedRulesReport()).toString();
+  }
+
+  private String getSuspendedRulesReport() {
+    List<String> suspended = getSuspendedRules();
+    if (suspended.isEmpty()) {
+      return "";
+    }
+    StringBuilder sb = new StringBuilder();
+    String separator = System.lineSeparator();
+    sb.append(separator).append("Suspended rules while recording:").append(separator);
+    for (String reason : suspended) {
+      sb.append(getIndentation(1)).append("- ").append(reason).append(separator);
+    }
     return sb.toString();
   }
 
@@ -4,8 +4,10 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 import org.apache.jmeter.testelement.TestElement;
 
@@ -15,6 +17,13 @@ public class Appearances {
   private String value;
   private String source;
   private final List<TestElement> list = new ArrayList<>();
+  /*
+   Names of the elements in the list, to check if an element already uses the value without
+   iterating the list. They are collected again when the list is modified from outside (eg: when
+   deserialized).
+   */
+  private final transient Set<String> usageNames = new HashSet<>();
+  private transient int indexedUsages;
 
   public Appearances() {
     // Added for JSON deserialization
@@ -46,6 +55,40 @@ public class Appearances {
     return list;
   }
 
+  /**
+   * Adds an element to the ones using the value.
+   *
+   * @param usage the element using the value
+   */
+  public void addUsage(TestElement usage) {
+    updateUsageNames();
+    list.add(usage);
+    usageNames.add(usage.getName());
+    indexedUsages++;
+  }
+
+  /**
+   * Checks if any of the elements using the value has the given name.
+   *
+   * @param elementName the name of the element
+   * @return true if an element with the name uses the value, false otherwise
+   */
+  public boolean isUsedBy(String elementName) {
+    updateUsageNames();
+    return usageNames.contains(elementName);
+  }
+
+  private void updateUsageNames() {
+    if (indexedUsages == list.size()) {
+      return;
+    }
+    usageNames.clear();
+    list.stream()
+        .filter(Objects::nonNull)
+        .forEach(usage -> usageNames.add(usage.getName()));
+    indexedUsages = list.size();
+  }
+
   @Override
   public String toString() {
     return "Appearances {" +
@@ -0,0 +1,99 @@
+package com.blazemeter.jmeter.correlation.core.automatic;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Map of the appearances of the parameters of a recording, by parameter name, which also indexes
+ * the appearances of each parameter by value.
+ *
+ * <p>This allows {@link JMeterElementUtils#addToMap} to find the appearances of a value without
+ * scanning all the ones of the parameter, which makes building the map of recordings with
+ * parameters repeated in every request (eg: <code>_csrf</code> or <code>ViewState</code>) linear
+ * instead of quadratic.
+ *
+ * <p>Appearances should be added through {@link #addAppearance(String, Appearances)}. Lists
+ * modified through any other way are indexed again the next time they are looked up.
+ */
+public class AppearancesMap extends HashMap<String, List<Appearances>> {
+
+  private final transient Map<String, ValuesIndex> indexes = new HashMap<>();
+
+  /**
+   * Gets the appearances of the parameter with the given value, in the order they were added.
+   *
+   * @param key name of the parameter
+   * @param value value of the parameter
+   * @return the appearances of the parameter with the value, or an empty list if there is none
+   */
+  public List<Appearances> getAppearancesWithValue(String key, String value) {
+    ValuesIndex index = getIndex(key);
+    return index != null ? index.getAppearances(value) : Collections.emptyList();
+  }
+
+  /**
+   * Adds the appearance to the ones of the parameter.
+   *
+   * @param key name of the parameter
+   * @param appearance appearance to add
+   */
+  public void addAppearance(String key, Appearances appearance) {
+    if (get(key) == null) {
+      put(key, new ArrayList<>());
+    }
+    ValuesIndex index = getIndex(key);
+    index.appearances.add(appearance);
+    index.add(appearance);
+  }
+
+  private ValuesIndex getIndex(String key) {
+    List<Appearances> appearances = get(key);
+    if (appearances == null) {
+      indexes.remove(key);
+      return null;
+    }
+    ValuesIndex index = indexes.get(key);
+    if (index == null || !index.isIndexing(appearances)) {
+      index = new ValuesIndex(appearances);
+      indexes.put(key, index);
+    }
+    return index;
+  }
+
+  @Override
+  public void clear() {
+    super.clear();
+    indexes.clear();
+  }
+
+  private static class ValuesIndex {
+
+    private final List<Appearances> appearances;
+    private final Map<String, List<Appearances>> appearancesByValue = new HashMap<>();
+    private int indexedCount;
+
+    private ValuesIndex(List<Appearances> appearances) {
+      this.appearances = appearances;
+      appearances.forEach(this::add);
+    }
+
+    private boolean isIndexing(List<Appearances> appearances) {
+      return this.appearances == appearances && appearances.size() == indexedCount;
+    }
+
+    private void add(Appearances appearance) {
+      appearancesByValue.computeIfAbsent(appearance.getValue(), v -> new ArrayList<>(1))
+          .add(appearance);
+      indexedCount++;
+    }
+
+    private List<Appearances> getAppearances(String value) {
+      return appearancesByValue.getOrDefault(value, Collections.emptyList());
+    }
+
+  }
+
+}
@@ -0,0 +1,386 @@
+package com.blazemeter.jmeter.correlation.core.automatic;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.apache.jmeter.testelement.TestElement;
+import org.apache.jmeter.util.JMeterUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * On disk cache of the appearance maps extracted from trace files.
+ *
+ * <p>Maps are stored in a compressed binary file named after the checksum of the content of the
+ * trace, the {@link Configuration#getExtractionFingerprint() fingerprint} of the configuration
+ * used to extract them and the versions of the plugin and JMeter. This way, analyzing the same
+ * trace again with the same configuration (eg: in each iteration of the correlation wizard) loads
+ * the previously extracted map instead of parsing the trace again, while any change in the trace,
+ * in the configuration or in the code extracting the map makes the map to be extracted again.
+ *
+ * <p>Files not used for longer than {@link #MAX_AGE_PROPERTY} days are removed, and the least
+ * recently used ones are removed while the cache exceeds {@link #MAX_SIZE_PROPERTY} MB, and only
+ * the classes expected in the maps (JMeter test elements and their properties) are deserialized
+ * when loading them.
+ *
+ * <p>Any error reading or writing the cache is logged and the map is extracted from the trace, so
+ * the cache never prevents the analysis.
+ */
+public class AppearancesMapCache {
+
+  public static final String ENABLED_PROPERTY = "correlation.appearances_cache.enabled";
+  public static final String DIRECTORY_PROPERTY = "correlation.appearances_cache.directory";
+  public static final String MAX_SIZE_PROPERTY = "correlation.appearances_cache.max_size";
+  public static final String MAX_AGE_PROPERTY = "correlation.appearances_cache.max_age";
+  private static final Logger LOG = LoggerFactory.getLogger(AppearancesMapCache.class);
+  private static final String DEFAULT_FOLDER = "AppearancesCache";
+  private static final String FILE_PREFIX = "appearances-";
+  private static final String FILE_EXTENSION = ".bin";
+  private static final int FORMAT_VERSION = 1;
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final long DEFAULT_MAX_SIZE_MB = 512;
+  private static final long DEFAULT_MAX_AGE_DAYS = 30;
+  private static final String IMPLEMENTATION_VERSION = findImplementationVersion();
+  private static final List<String> ALLOWED_PACKAGES = Arrays.asList("org.apache.jmeter.",
+      "org.apache.jorphan.");
+  private static final Set<String> ALLOWED_CLASSES = new HashSet<>(Arrays.asList(
+      "java.lang.String", "java.lang.Number", "java.lang.Boolean", "java.lang.Byte",
+      "java.lang.Character", "java.lang.Short", "java.lang.Integer", "java.lang.Long",
+      "java.lang.Float", "java.lang.Double", "java.lang.Enum", "java.util.ArrayList",
+      "java.util.LinkedList", "java.util.HashMap", "java.util.LinkedHashMap", "java.util.TreeMap",
+      "java.util.HashSet", "java.util.LinkedHashSet", "java.util.concurrent.ConcurrentHashMap",
+      "java.util.concurrent.ConcurrentHashMap$Segment",
+      "java.util.concurrent.locks.ReentrantLock", "java.util.concurrent.locks.ReentrantLock$Sync",
+      "java.util.concurrent.locks.ReentrantLock$NonfairSync",
+      "java.util.concurrent.locks.AbstractQueuedSynchronizer",
+      "java.util.concurrent.locks.AbstractOwnableSynchronizer"));
+
+  private final Path directory;
+  private final long maxSizeBytes;
+  private final long maxAgeMillis;
+
+  public AppearancesMapCache(Path directory) {
+    this(directory, DEFAULT_MAX_SIZE_MB * 1024 * 1024,
+        TimeUnit.DAYS.toMillis(DEFAULT_MAX_AGE_DAYS));
+  }
+
+  /**
+   * Creates a cache which evicts the cached maps by size and age.
+   *
+   * @param directory the folder where the maps are cached
+   * @param maxSizeBytes the max size of all the cached maps, or 0 to not limit it
+   * @param maxAgeMillis the max time since a cached map was last used, or 0 to not limit it
+   */
+  public AppearancesMapCache(Path directory, long maxSizeBytes, long maxAgeMillis) {
+    this.directory = directory;
+    this.maxSizeBytes = maxSizeBytes;
+    this.maxAgeMillis = maxAgeMillis;
+  }
+
+  /**
+   * Creates a cache if it is enabled through the {@link #ENABLED_PROPERTY} JMeter property.
+   *
+   * <p>Cached maps are stored in the folder set in the {@link #DIRECTORY_PROPERTY} JMeter property,
+   * or in the <code>AppearancesCache</code> folder of the JMeter bin folder by default, and are
+   * evicted according to the {@link #MAX_SIZE_PROPERTY} (in MB) and {@link #MAX_AGE_PROPERTY} (in
+   * days) JMeter properties.
+   *
+   * @return the cache, or null if it is not enabled
+   */
+  public static AppearancesMapCache createIfEnabled() {
+    if (!JMeterUtils.getPropDefault(ENABLED_PROPERTY, false)) {
+      return null;
+    }
+    String directory = JMeterUtils.getProperty(DIRECTORY_PROPERTY);
+    return new AppearancesMapCache(directory != null && !directory.trim().isEmpty()
+        ? Paths.get(directory.trim())
+        : Paths.get(JMeterUtils.getJMeterBinDir(), DEFAULT_FOLDER),
+        JMeterUtils.getPropDefault(MAX_SIZE_PROPERTY, DEFAULT_MAX_SIZE_MB) * 1024 * 1024,
+        TimeUnit.DAYS.toMillis(JMeterUtils.getPropDefault(MAX_AGE_PROPERTY,
+            DEFAULT_MAX_AGE_DAYS)));
+  }
+
+  /*
+   The manifest of the plugin jar doesn't include its version, so the name (which includes the
+   version), size and modification time of the jar are used instead, which also change when a
+   snapshot is rebuilt.
+   */
+  private static String findImplementationVersion() {
+    String version = AppearancesMapCache.class.getPackage().getImplementationVersion();
+    if (version != null) {
+      return version;
+    }
+    try {
+      CodeSource codeSource = AppearancesMapCache.class.getProtectionDomain().getCodeSource();
+      File location = codeSource != null ? new File(codeSource.getLocation().toURI()) : null;
+      if (location != null && location.isFile()) {
+        return location.getName() + ":" + location.length() + ":" + location.lastModified();
+      }
+    } catch (URISyntaxException | RuntimeException e) {
+      LOG.debug("Could not find the plugin jar for the appearances cache key", e);
+    }
+    return "development";
+  }
+
+  /**
+   * Gets the appearance map of a trace file, extracting it only if there is no map cached for the
+   * content of the file and the configuration.
+   *
+   * @param filepath the path to the trace file
+   * @param configuration the configuration used to extract the map
+   * @param extraction the extraction of the map from the trace file, used when it is not cached
+   * @return the appearance map of the trace file
+   */
+  public Map<String, List<Appearances>> getAppearanceMap(String filepath,
+      Configuration configuration,
+      Function<String, Map<String, List<Appearances>>> extraction) {
+    Path cacheFile;
+    try {
+      cacheFile = directory.resolve(FILE_PREFIX + buildKey(Paths.get(filepath), configuration)
+          + FILE_EXTENSION);
+    } catch (IOException e) {
+      LOG.warn("Could not calculate the checksum of {}. Appearances will not be cached.",
+          filepath, e);
+      return extraction.apply(filepath);
+    }
+    if (Files.isRegularFile(cacheFile)) {
+      try {
+        Map<String, List<Appearances>> ret = read(cacheFile);
+        // the modification time is used as last access time for the eviction
+        Files.setLastModifiedTime(cacheFile, FileTime.fromMillis(System.currentTimeMillis()));
+        LOG.debug("Loaded appearances of {} from {}", filepath, cacheFile);
+        return ret;
+      } catch (IOException | ClassNotFoundException | ClassCastException e) {
+        LOG.warn("Could not load cached appearances from {}. They will be extracted again.",
+            cacheFile, e);
+      }
+    }
+    Map<String, List<Appearances>> ret = extraction.apply(filepath);
+    try {
+      write(ret, cacheFile);
+      LOG.debug("Cached appearances of {} in {}", filepath, cacheFile);
+    } catch (IOException e) {
+      LOG.warn("Could not cache appearances of {} in {}", filepath, cacheFile, e);
+    }
+    evict(cacheFile);
+    return ret;
+  }
+
+  /*
+   Removes the cached maps not used for longer than the max age, and then the least recently used
+   ones while the cache exceeds the max size, except the given one, which was just used.
+   */
+  private void evict(Path usedFile) {
+    if (maxSizeBytes <= 0 && maxAgeMillis <= 0) {
+      return;
+    }
+    List<Path> files;
+    try (Stream<Path> stream = Files.list(directory)) {
+      files = stream
+          .filter(f -> isCacheFile(f) && !f.equals(usedFile))
+          .sorted(Comparator.comparingLong(AppearancesMapCache::getLastModifiedMillis))
+          .collect(Collectors.toList());
+    } catch (IOException e) {
+      LOG.warn("Could not list cached appearances in {}", directory, e);
+      return;
+    }
+    long now = System.currentTimeMillis();
+    long totalSize = getSize(usedFile);
+    for (Path file : files) {
+      totalSize += getSize(file);
+    }
+    for (Path file : files) {
+      boolean expired = maxAgeMillis > 0 && now - getLastModifiedMillis(file) > maxAgeMillis;
+      if (!expired && (maxSizeBytes <= 0 || totalSize <= maxSizeBytes)) {
+        continue;
+      }
+      long size = getSize(file);
+      try {
+        Files.deleteIfExists(file);
+        totalSize -= size;
+        LOG.debug("Removed cached appearances {}", file);
+      } catch (IOException e) {
+        LOG.warn("Could not remove cached appearances {}", file, e);
+      }
+    }
+  }
+
+  private static boolean isCacheFile(Path file) {
+    String name = file.getFileName().toString();
+    return name.startsWith(FILE_PREFIX) && name.endsWith(FILE_EXTENSION);
+  }
+
+  private static long getLastModifiedMillis(Path file) {
+    try {
+      return Files.getLastModifiedTime(file).toMillis();
+    } catch (IOException e) {
+      return 0;
+    }
+  }
+
+  private static long getSize(Path file) {
+    try {
+      return Files.size(file);
+    } catch (IOException e) {
+      return 0;
+    }
+  }
+
+  private static String buildKey(Path file, Configuration configuration) throws IOException {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      // every JVM is required to support SHA-256
+      throw new IllegalStateException(e);
+    }
+    digest.update(configuration.getExtractionFingerprint().getBytes(StandardCharsets.UTF_8));
+    digest.update((IMPLEMENTATION_VERSION + "|" + JMeterUtils.getJMeterVersion() + "|"
+        + FORMAT_VERSION).getBytes(StandardCharsets.UTF_8));
+    byte[] buffer = new byte[BUFFER_SIZE];
+    try (InputStream input = Files.newInputStream(file)) {
+      int read;
+      while ((read = input.read(buffer)) != -1) {
+        digest.update(buffer, 0, read);
+      }
+    }
+    StringBuilder ret = new StringBuilder();
+    for (byte b : digest.digest()) {
+      ret.append(String.format("%02x", b));
+    }
+    return ret.toString();
+  }
+
+  /*
+   Usages are written as serialized test elements, so the ones shared by several appearances
+   (eg: the sampler where many values are used) are written once and shared again when read.
+   */
+  private static void write(Map<String, List<Appearances>> appearanceMap, Path cacheFile)
+      throws IOException {
+    Files.createDirectories(directory(cacheFile));
+    Path tmpFile = Files.createTempFile(directory(cacheFile), FILE_PREFIX, ".tmp");
+    try {
+      try (ObjectOutputStream output = new ObjectOutputStream(new BufferedOutputStream(
+          new GZIPOutputStream(Files.newOutputStream(tmpFile)), BUFFER_SIZE))) {
+        output.writeInt(FORMAT_VERSION);
+        output.writeInt(appearanceMap.size());
+        for (Map.Entry<String, List<Appearances>> entry : appearanceMap.entrySet()) {
+          output.writeObject(entry.getKey());
+          output.writeInt(entry.getValue().size());
+          for (Appearances appearance : entry.getValue()) {
+            writeAppearance(appearance, output);
+          }
+        }
+      }
+      Files.move(tmpFile, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(tmpFile);
+    }
+  }
+
+  private static Path directory(Path cacheFile) {
+    return cacheFile.toAbsolutePath().getParent();
+  }
+
+  private static void writeAppearance(Appearances appearance, ObjectOutputStream output)
+      throws IOException {
+    output.writeObject(appearance.getName());
+    output.writeObject(appearance.getValue());
+    output.writeObject(appearance.getSource());
+    output.writeInt(appearance.getList().size());
+    for (TestElement usage : appearance.getList()) {
+      output.writeObject(usage);
+    }
+  }
+
+  private static AppearancesMap read(Path cacheFile) throws IOException, ClassNotFoundException {
+    try (ObjectInputStream input = new FilteredObjectInputStream(new BufferedInputStream(
+        new GZIPInputStream(Files.newInputStream(cacheFile)), BUFFER_SIZE))) {
+      int version = input.readInt();
+      if (version != FORMAT_VERSION) {
+        throw new IOException("Unsupported cache format version " + version);
+      }
+      AppearancesMap ret = new AppearancesMap();
+      int keys = input.readInt();
+      for (int i = 0; i < keys; i++) {
+        String key = (String) input.readObject();
+        int appearances = input.readInt();
+        if (appearances == 0) {
+          ret.put(key, new ArrayList<>());
+        }
+        for (int j = 0; j < appearances; j++) {
+          ret.addAppearance(key, readAppearance(input));
+        }
+      }
+      return ret;
+    }
+  }
+
+  private static Appearances readAppearance(ObjectInputStream input)
+      throws IOException, ClassNotFoundException {
+    Appearances ret = new Appearances();
+    ret.setName((String) input.readObject());
+    ret.setValue((String) input.readObject());
+    ret.setSource((String) input.readObject());
+    int usages = input.readInt();
+    for (int i = 0; i < usages; i++) {
+      ret.getList().add((TestElement) input.readObject());
+    }
+    return ret;
+  }
+
+  /*
+   Only resolves the classes expected in the cached maps, so a tampered cache file can't
+   instantiate any other serializable class in the classpath (eg: deserialization gadgets).
+   */
+  private static class FilteredObjectInputStream extends ObjectInputStream {
+
+    private FilteredObjectInputStream(InputStream input) throws IOException {
+      super(input);
+    }
+
+    @Override
+    protected Class<?> resolveClass(ObjectStreamClass desc)
+        throws IOException, ClassNotFoundException {
+      String className = desc.getName();
+      String elementClassName = className.replaceFirst("^\\[+L(.*);$", "$1");
+      boolean primitiveArray = className.startsWith("[") && elementClassName.equals(className);
+      if (!primitiveArray && !ALLOWED_CLASSES.contains(elementClassName)
+          && ALLOWED_PACKAGES.stream().noneMatch(elementClassName::startsWith)) {
+        throw new InvalidClassException(className, "Unexpected class in cached appearances");
+      }
+      return super.resolveClass(desc);
+    }
+
+  }
+
+}
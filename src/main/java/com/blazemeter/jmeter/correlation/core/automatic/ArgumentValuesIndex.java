@@ -0,0 +1,141 @@
+package com.blazemeter.jmeter.correlation.core.automatic;
+
+import com.blazemeter.jmeter.correlation.core.MultiLiteralMatcher;
+import com.blazemeter.jmeter.correlation.core.automatic.extraction.location.ExtractionStrategy;
+import com.blazemeter.jmeter.correlation.core.automatic.extraction.location.LocationType;
+import com.blazemeter.jmeter.correlation.core.automatic.replacement.method.ReplacementString;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.jmeter.samplers.SampleResult;
+
+/**
+ * Index of the values of several arguments, used to find where each of them appears in a response
+ * by scanning the response only once.
+ *
+ * <p>All the forms of the values (as they are, URL decoded and URL encoded, as defined in
+ * {@link ReplacementString}) are computed when the index is built, and then the content of each
+ * {@link ExtractionStrategy} is scanned once for all of them with a {@link MultiLiteralMatcher},
+ * instead of searching every form of every value in the whole content.
+ *
+ * <p>The locations found are the same as the ones found by
+ * {@link ResponseAnalyzer#identifyArgumentLocation(SampleResult, String)} for each value, with the
+ * only difference that the forms which can't be computed for a value (eg: URL decoding a value
+ * with an invalid escape) are ignored instead of failing.
+ */
+public class ArgumentValuesIndex {
+
+  private static final int NO_LITERAL = -1;
+  private static final ReplacementString[] FORMS = ReplacementString.values();
+
+  private final List<ExtractionStrategy> strategies;
+  private final Map<String, int[]> valuesForms = new LinkedHashMap<>();
+  private final List<String> literals;
+  private final MultiLiteralMatcher matcher;
+
+  public ArgumentValuesIndex(List<ExtractionStrategy> strategies, Collection<String> values) {
+    this.strategies = strategies;
+    Map<String, Integer> literalsIndexes = new LinkedHashMap<>();
+    for (String value : values) {
+      if (value == null || valuesForms.containsKey(value)) {
+        continue;
+      }
+      int[] forms = new int[FORMS.length];
+      for (int i = 0; i < FORMS.length; i++) {
+        String form = applyForm(FORMS[i], value);
+        forms[i] = form == null ? NO_LITERAL
+            : literalsIndexes.computeIfAbsent(form, l -> literalsIndexes.size());
+      }
+      valuesForms.put(value, forms);
+    }
+    literals = new ArrayList<>(literalsIndexes.keySet());
+    // empty values are contained in any content, so there is no need to search for them
+    matcher = new MultiLiteralMatcher(literals.stream()
+        .filter(l -> !l.isEmpty())
+        .collect(Collectors.toList()));
+  }
+
+  private static String applyForm(ReplacementString form, String value) {
+    try {
+      return form.applyFunction(value);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Finds all the locations of the indexed values in the response.
+   *
+   * <p>For each location, the first form of the value contained in it is reported, and the
+   * locations are listed in the same order as the strategies (which is the order of preference
+   * when choosing where to extract a value from).
+   *
+   * @param response The response to analyze
+   * @return The locations, and the form in which each value appears, of every value found in the
+   * response. Values not present in the response are not included.
+   */
+  public Map<String, List<Pair<LocationType, String>>> findLocations(SampleResult response) {
+    Map<String, List<Pair<LocationType, String>>> ret = new LinkedHashMap<>();
+    String lastContent = null;
+    BitSet lastFound = null;
+    for (ExtractionStrategy strategy : strategies) {
+      String content = strategy.getSearchableContent(response);
+      // different strategies may search in the same content, so we avoid scanning it again
+      BitSet found = content.equals(lastContent) ? lastFound : findLiterals(content);
+      valuesForms.forEach((value, forms) -> {
+        String form = findFirstForm(forms, found);
+        if (form != null) {
+          ret.computeIfAbsent(value, v -> new ArrayList<>())
+              .add(Pair.of(strategy.getLocationType(), form));
+        }
+      });
+      lastContent = content;
+      lastFound = found;
+    }
+    return ret;
+  }
+
+  private BitSet findLiterals(String content) {
+    BitSet searchableFound = matcher.findPresent(content);
+    BitSet ret = new BitSet(literals.size());
+    int searchableIndex = 0;
+    for (int i = 0; i < literals.size(); i++) {
+      if (literals.get(i).isEmpty()) {
+        ret.set(i);
+      } else if (searchableFound.get(searchableIndex++)) {
+        ret.set(i);
+      }
+    }
+    return ret;
+  }
+
+  private String findFirstForm(int[] forms, BitSet found) {
+    for (int literalIndex : forms) {
+      if (literalIndex != NO_LITERAL && found.get(literalIndex)) {
+        return literals.get(literalIndex);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Gets the preferred location of a value from the ones found with
+   * {@link #findLocations(SampleResult)}.
+   *
+   * @param locations The locations found in a response
+   * @param value The value to get the location for
+   * @return The first location of the value, or {@link LocationType#UNKNOWN} if the value was not
+   * found
+   */
+  public static Pair<LocationType, String> getFirstLocation(
+      Map<String, List<Pair<LocationType, String>>> locations, String value) {
+    List<Pair<LocationType, String>> valueLocations = locations.get(value);
+    return valueLocations == null ? Pair.of(LocationType.UNKNOWN, "") : valueLocations.get(0);
+  }
+
+}
@@ -59,6 +59,7 @@ public class Configuration {
   private int minLength;
   private final int contextLength;
   private int maxNumberOfAppearances;
+  private int suggestionsParallelism;
   private boolean ignoreBooleanValues;
   private final List<String> ignoredDomains;
   private final List<String> ignoredHeaders;
@@ -77,6 +78,9 @@ public class Configuration {
     this.ignoreBooleanValues
         = JMeterUtils.getPropDefault("correlation.configuration.ignore_boolean_values",
         IGNORE_BOOLEAN_VALUES);
+    this.suggestionsParallelism = JMeterUtils.getPropDefault(
+        "correlation.configuration.suggestions_parallelism",
+        Runtime.getRuntime().availableProcessors());
     this.ignoredDomains = getDefaultListValues("correlation.configuration.ignored_domains",
         DEFAULT_IGNORED_DOMAINS);
     this.ignoredHeaders = getDefaultListValues("correlation.configuration.ignored_headers",
@@ -95,6 +99,7 @@ public class Configuration {
     LOG.trace("Context length: {}", contextLength);
     LOG.trace("Max number of appearances: {}", maxNumberOfAppearances);
     LOG.trace("Ignore boolean values: {}", ignoreBooleanValues);
+    LOG.trace("Suggestions parallelism: {}", suggestionsParallelism);
     LOG.trace("Ignored domains: {}", ignoredDomains);
     LOG.trace("Ignored headers: {}", ignoredHeaders);
     LOG.trace("Ignored files: {}", ignoredFiles);
@@ -163,6 +168,18 @@ public class Configuration {
     this.maxNumberOfAppearances = maxNumberOfAppearances;
   }
 
+  /**
+   * Gets the amount of threads used to generate the suggestions of the dynamic elements. Values
+   * lower than 2 make the suggestions to be generated sequentially in the calling thread.
+   */
+  public int getSuggestionsParallelism() {
+    return suggestionsParallelism;
+  }
+
+  public void setSuggestionsParallelism(int suggestionsParallelism) {
+    this.suggestionsParallelism = suggestionsParallelism;
+  }
+
   public void addRequestedParameters(List<String> requestedParameters) {
     this.requestedParameters.addAll(requestedParameters);
   }
@@ -211,6 +228,23 @@ public class Configuration {
             String.valueOf(allow));
   }
 
+  /**
+   * Gets a description of the settings that affect the extraction of the appearances of the
+   * parameters. Two configurations with the same fingerprint extract the same appearances from the
+   * same trace, so it can be used to identify previously extracted ones.
+   */
+  public String getExtractionFingerprint() {
+    return "minLength=" + minLength
+        + ", contextLength=" + contextLength
+        + ", maxNumberOfAppearances=" + maxNumberOfAppearances
+        + ", ignoreBooleanValues=" + ignoreBooleanValues
+        + ", ignoredDomains=" + ignoredDomains
+        + ", ignoredHeaders=" + ignoredHeaders
+        + ", ignoredFiles=" + ignoredFiles
+        + ", ignoredParameters=" + ignoredParameters
+        + ", requestedParameters=" + requestedParameters;
+  }
+
   @Override
   public String toString() {
     return "Configuration {"
@@ -218,6 +252,7 @@ public class Configuration {
         + ", contextLength=" + contextLength
         + ", maxNumberOfAppearances=" + maxNumberOfAppearances
         + ", ignoreBooleanValues=" + ignoreBooleanValues
+        + ", suggestionsParallelism=" + suggestionsParallelism
         + ", ignoredDomains=" + ignoredDomains
         + ", ignoredHeaders=" + ignoredHeaders
         + ", ignoredFiles=" + ignoredFiles
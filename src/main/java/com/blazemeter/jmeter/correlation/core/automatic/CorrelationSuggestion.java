@@ -1,11 +1,15 @@
 package com.blazemeter.jmeter.correlation.core.automatic;
 
 import com.blazemeter.jmeter.correlation.core.CorrelationRule;
+import com.blazemeter.jmeter.correlation.core.CorrelationRulePartTestElement;
 import com.blazemeter.jmeter.correlation.core.extractors.CorrelationExtractor;
+import com.blazemeter.jmeter.correlation.core.replacements.CorrelationReplacement;
 import com.blazemeter.jmeter.correlation.core.templates.Template;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -23,8 +27,14 @@ public class CorrelationSuggestion {
   private final List<SampleResult> appearances = new ArrayList<>();
   private final List<TestElement> usages = new ArrayList<>();
   private final List<ExtractionSuggestion> extractionSuggestions = new ArrayList<>();
-  private final List<String> extractionSuggestionsString = new ArrayList<>();
   private final List<ReplacementSuggestion> replacementSuggestions = new ArrayList<>();
+  /*
+   Canonical identities of the added suggestions, to check if a candidate is repeated without
+   comparing it with each one of the suggestions.
+   */
+  private final Set<List<Object>> extractionSuggestionKeys = new HashSet<>();
+  private final Map<TestElement, Set<List<Object>>> replacementSuggestionKeys =
+      new IdentityHashMap<>();
   private String method = "Replay";
 
   private Template source;
@@ -92,11 +102,61 @@ public class CorrelationSuggestion {
 
   public void addExtractionSuggestion(ExtractionSuggestion extractionSuggestion) {
     extractionSuggestions.add(extractionSuggestion);
-    extractionSuggestionsString.add(extractionSuggestion.toString());
+    extractionSuggestionKeys.add(buildKey(extractionSuggestion));
+  }
+
+  /*
+   Identifies the extraction suggestions by the same fields shown by ExtractionSuggestion
+   toString, using the class and parameters of the extractor instead of its string representation.
+   */
+  private static List<Object> buildKey(ExtractionSuggestion suggestion) {
+    return Arrays.asList(suggestion.getName(), suggestion.getValue(), suggestion.getSource(),
+        suggestion.getSampleResult() != null ? suggestion.getSampleResult().getSampleLabel()
+            : suggestion.getSampler().getName(),
+        buildKey(suggestion.getExtractor()));
+  }
+
+  private static List<Object> buildKey(CorrelationRulePartTestElement<?> rulePart) {
+    if (rulePart == null) {
+      return null;
+    }
+    String variableName = rulePart instanceof CorrelationExtractor
+        ? ((CorrelationExtractor<?>) rulePart).getVariableName()
+        : ((CorrelationReplacement<?>) rulePart).getVariableName();
+    return Arrays.asList(rulePart.getClass(), variableName, rulePart.getParams());
+  }
+
+  /**
+   * Checks if an equivalent extraction suggestion was already added, this is, one with the same
+   * name, value, source and origin, and an extractor of the same class with the same parameters.
+   *
+   * @param extractionSuggestion the candidate extraction suggestion
+   * @return true if an equivalent extraction suggestion was already added, false otherwise
+   */
+  public boolean hasExtractionSuggestion(ExtractionSuggestion extractionSuggestion) {
+    return extractionSuggestionKeys.contains(buildKey(extractionSuggestion));
   }
 
   public void addReplacementSuggestion(ReplacementSuggestion replacementSuggestion) {
     replacementSuggestions.add(replacementSuggestion);
+    replacementSuggestionKeys
+        .computeIfAbsent(replacementSuggestion.getUsage(), u -> new HashSet<>())
+        .add(buildKey(replacementSuggestion.getReplacementSuggestion()));
+  }
+
+  /**
+   * Checks if a replacement of the same class with the same parameters was already suggested for
+   * the given element.
+   *
+   * @param replacement the candidate replacement
+   * @param usage the element where the replacement would be applied
+   * @return true if an equivalent replacement was already suggested for the element, false
+   *     otherwise
+   */
+  public boolean hasReplacementSuggestion(CorrelationReplacement<?> replacement,
+      TestElement usage) {
+    Set<List<Object>> keys = replacementSuggestionKeys.get(usage);
+    return keys != null && keys.contains(buildKey(replacement));
   }
 
   public List<ExtractionSuggestion> getExtractionSuggestions() {
@@ -104,7 +164,9 @@ public class CorrelationSuggestion {
   }
 
   public List<String> getExtractionSuggestionsString() {
-    return extractionSuggestionsString;
+    return extractionSuggestions.stream()
+        .map(ExtractionSuggestion::toString)
+        .collect(Collectors.toList());
   }
 
   public List<ReplacementSuggestion> getReplacementSuggestions() {
@@ -50,6 +50,7 @@ public class CustomResultCollector extends ResultCollector {
   private static class CustomSummariser extends Summariser {
     private final List<SampleResult> results = new ArrayList<>();
     private final List<SampleResult> errors = new ArrayList<>();
+    private ResponseBodyStore bodyStore;
 
     CustomSummariser(String name) {
       super(name);
@@ -70,6 +71,10 @@ public class CustomResultCollector extends ResultCollector {
       super.testStarted(host);
       results.clear();
       errors.clear();
+      if (bodyStore != null) {
+        bodyStore.close();
+      }
+      bodyStore = ResponseBodyStore.createIfEnabled();
     }
 
     @Override
@@ -85,7 +90,7 @@ public class CustomResultCollector extends ResultCollector {
     @Override
     public void sampleOccurred(SampleEvent e) {
       super.sampleOccurred(e);
-      SampleResult result = e.getResult();
+      SampleResult result = StoredSampleResult.wrap(e.getResult(), bodyStore);
       System.out.println(results.size() + " ) "
           + (result.isSuccessful() ? "(S)" : "(F)")
           + " - Result: " + result.getSampleLabel());
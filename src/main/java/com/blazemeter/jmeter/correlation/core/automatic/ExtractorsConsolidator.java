@@ -0,0 +1,289 @@
+package com.blazemeter.jmeter.correlation.core.automatic;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.apache.jmeter.control.Controller;
+import org.apache.jmeter.control.GenericController;
+import org.apache.jmeter.control.TransactionController;
+import org.apache.jmeter.extractor.BoundaryExtractor;
+import org.apache.jmeter.extractor.RegexExtractor;
+import org.apache.jmeter.extractor.json.jsonpath.JSONPostProcessor;
+import org.apache.jmeter.gui.tree.JMeterTreeModel;
+import org.apache.jmeter.gui.tree.JMeterTreeNode;
+import org.apache.jmeter.protocol.http.control.RecordingController;
+import org.apache.jmeter.protocol.http.sampler.HTTPSamplerBase;
+import org.apache.jmeter.testelement.TestElement;
+import org.apache.jmeter.testelement.property.JMeterProperty;
+import org.apache.jmeter.testelement.property.MultiProperty;
+import org.apache.jmeter.testelement.property.PropertyIterator;
+import org.apache.jmeter.threads.AbstractThreadGroup;
+import org.apache.jmeter.util.JMeterUtils;
+
+/**
+ * Removes the generated extractors which values are never used, because another extractor of the
+ * same variable is always executed after them and before any usage of the variable.
+ *
+ * <p>Correlation rules add an extractor to each response where they find a value, so a value
+ * which is echoed in many responses ends up with an extractor in each of them, all of them
+ * executed in each iteration. Using the order of the samplers in the test plan (which is the order
+ * of the recorded requests), only the extractors of the last sampler before each usage of the
+ * variable are kept.
+ *
+ * <p>Only usages as plain variable references (eg: <code>${name}</code> or
+ * <code>${name_1}</code>) can be placed in the order of the samplers. When the name of a variable
+ * appears anywhere else (eg: in scripts, functions, the input of a ForEach Controller or the scope
+ * of another extractor), when it is used by an element out of any sampler (eg: a config element of
+ * a thread group), or when any of its extractors or usages is inside a controller that may skip or
+ * repeat samplers (eg: Loop, If or While controllers), the order can't be determined, and all its
+ * extractors are kept.
+ */
+public class ExtractorsConsolidator {
+
+  public static final String ENABLED_PROPERTY = "correlation.extractors.consolidate";
+  private static final String REGEX_EXTRACTOR_PREFIX = "RegExp - ";
+  private static final String JSON_EXTRACTOR_PREFIX = "JSON Path - ";
+  private static final String BOUNDARY_EXTRACTOR_PREFIX = "Boundary - ";
+  private static final String VARIABLE_REFERENCE_START = "${";
+  private static final int NO_SAMPLER = -1;
+
+  /**
+   * Creates a consolidator unless it is disabled through the {@link #ENABLED_PROPERTY} JMeter
+   * property.
+   *
+   * @return the consolidator, or null if it is disabled
+   */
+  public static ExtractorsConsolidator createIfEnabled() {
+    return JMeterUtils.getPropDefault(ENABLED_PROPERTY, false) ? new ExtractorsConsolidator()
+        : null;
+  }
+
+  /**
+   * Removes the redundant generated extractors of the samplers in a tree model.
+   *
+   * @param model the model containing the test plan to consolidate
+   * @return the number of removed extractors
+   */
+  public int consolidate(JMeterTreeModel model) {
+    return consolidate((JMeterTreeNode) model.getRoot(), model::removeNodeFromParent);
+  }
+
+  /**
+   * Removes the redundant generated extractors of the samplers under a tree node.
+   *
+   * @param root the node containing the samplers, in the order they are executed
+   * @param nodeRemover removes the given extractor node from the tree
+   * @return the number of removed extractors
+   */
+  public int consolidate(JMeterTreeNode root, Consumer<JMeterTreeNode> nodeRemover) {
+    Map<String, List<ExtractorPlacement>> extractorsByRefName = new LinkedHashMap<>();
+    List<ElementUsages> elementsUsages = new ArrayList<>();
+    collectElements(root, NO_SAMPLER, false, new int[] {0}, extractorsByRefName,
+        elementsUsages);
+    int ret = 0;
+    for (Map.Entry<String, List<ExtractorPlacement>> extractors :
+        extractorsByRefName.entrySet()) {
+      Set<Integer> keptSamplers = findKeptSamplers(extractors.getKey(), extractors.getValue(),
+          elementsUsages);
+      if (keptSamplers == null) {
+        continue;
+      }
+      for (ExtractorPlacement extractor : extractors.getValue()) {
+        if (!keptSamplers.contains(extractor.samplerIndex)) {
+          nodeRemover.accept(extractor.node);
+          ret++;
+        }
+      }
+    }
+    return ret;
+  }
+
+  private static void collectElements(JMeterTreeNode node, int samplerIndex,
+      boolean inFlowControl, int[] nextSampler,
+      Map<String, List<ExtractorPlacement>> extractorsByRefName,
+      List<ElementUsages> elementsUsages) {
+    boolean isSampler = false;
+    if (node.getUserObject() instanceof TestElement) {
+      TestElement element = node.getTestElement();
+      if (element instanceof HTTPSamplerBase) {
+        isSampler = true;
+        samplerIndex = nextSampler[0]++;
+      }
+      String generatedRefName = samplerIndex != NO_SAMPLER && !isSampler
+          ? getGeneratedRefName(element) : null;
+      if (generatedRefName != null) {
+        extractorsByRefName.computeIfAbsent(generatedRefName, k -> new ArrayList<>())
+            .add(new ExtractorPlacement(node, samplerIndex, inFlowControl));
+      } else {
+        StringBuilder text = new StringBuilder();
+        appendPropertiesText(element.propertyIterator(), text);
+        elementsUsages.add(new ElementUsages(text.toString(), samplerIndex, isSampler,
+            inFlowControl));
+      }
+      inFlowControl = inFlowControl || isFlowControl(element);
+    }
+    for (int i = 0; i < node.getChildCount(); i++) {
+      collectElements((JMeterTreeNode) node.getChildAt(i), samplerIndex, inFlowControl,
+          nextSampler, extractorsByRefName, elementsUsages);
+    }
+  }
+
+  /*
+   Only controllers which execute their children once, in order, keep the order of the samplers
+   in the test plan. Thread groups repeat the whole iteration, which keeps it as well.
+   */
+  private static boolean isFlowControl(TestElement element) {
+    return element instanceof Controller && !(element instanceof AbstractThreadGroup)
+        && element.getClass() != GenericController.class
+        && !(element instanceof RecordingController)
+        && !(element instanceof TransactionController);
+  }
+
+  private static String getGeneratedRefName(TestElement element) {
+    String name = element.getName();
+    if (element instanceof RegexExtractor && name.startsWith(REGEX_EXTRACTOR_PREFIX)) {
+      return ((RegexExtractor) element).getRefName();
+    } else if (element instanceof BoundaryExtractor
+        && name.startsWith(BOUNDARY_EXTRACTOR_PREFIX)) {
+      return ((BoundaryExtractor) element).getRefName();
+    } else if (element instanceof JSONPostProcessor && name.startsWith(JSON_EXTRACTOR_PREFIX)
+        && !((JSONPostProcessor) element).getRefNames().contains(";")) {
+      return ((JSONPostProcessor) element).getRefNames();
+    }
+    return null;
+  }
+
+  private static void appendPropertiesText(PropertyIterator properties, StringBuilder text) {
+    while (properties.hasNext()) {
+      JMeterProperty property = properties.next();
+      if (property instanceof MultiProperty) {
+        appendPropertiesText(((MultiProperty) property).iterator(), text);
+      } else {
+        text.append(property.getStringValue()).append('\n');
+      }
+    }
+  }
+
+  /*
+   Samplers are used before their post processors are executed, so they need the extractors of
+   previous samplers, while the rest of the elements in a sampler (which may be post processors)
+   can also use the ones of their own sampler, and both are kept for them.
+   */
+  private static Set<Integer> findKeptSamplers(String refName,
+      List<ExtractorPlacement> extractors, List<ElementUsages> elementsUsages) {
+    if (extractors.stream().anyMatch(e -> e.inFlowControl)) {
+      return null;
+    }
+    Set<Integer> ret = new HashSet<>();
+    for (ElementUsages element : elementsUsages) {
+      Usage usage = element.findUsage(refName);
+      if (usage == Usage.NONE) {
+        continue;
+      }
+      if (usage == Usage.UNKNOWN || element.samplerIndex == NO_SAMPLER
+          || element.inFlowControl) {
+        return null;
+      }
+      addLastExtractorBefore(element.samplerIndex, extractors, ret);
+      if (!element.isSampler) {
+        addLastExtractorBefore(element.samplerIndex + 1, extractors, ret);
+      }
+    }
+    return ret;
+  }
+
+  private static void addLastExtractorBefore(int samplerIndex,
+      List<ExtractorPlacement> extractors, Set<Integer> keptSamplers) {
+    int lastSampler = NO_SAMPLER;
+    for (ExtractorPlacement extractor : extractors) {
+      if (extractor.samplerIndex < samplerIndex) {
+        lastSampler = Math.max(lastSampler, extractor.samplerIndex);
+      }
+    }
+    if (lastSampler != NO_SAMPLER) {
+      keptSamplers.add(lastSampler);
+    }
+  }
+
+  private static final class ExtractorPlacement {
+
+    private final JMeterTreeNode node;
+    private final int samplerIndex;
+    private final boolean inFlowControl;
+
+    private ExtractorPlacement(JMeterTreeNode node, int samplerIndex, boolean inFlowControl) {
+      this.node = node;
+      this.samplerIndex = samplerIndex;
+      this.inFlowControl = inFlowControl;
+    }
+
+  }
+
+  private enum Usage {
+    NONE, REFERENCE, UNKNOWN
+  }
+
+  private static final class ElementUsages {
+
+    private final String text;
+    private final int samplerIndex;
+    private final boolean isSampler;
+    private final boolean inFlowControl;
+
+    private ElementUsages(String text, int samplerIndex, boolean isSampler,
+        boolean inFlowControl) {
+      this.text = text;
+      this.samplerIndex = samplerIndex;
+      this.isSampler = isSampler;
+      this.inFlowControl = inFlowControl;
+    }
+
+    /*
+     Besides the variable itself, any suffixed variable (eg: refName_1 or refName_matchNr) is
+     considered a usage, since they are set by the same extractors. Any appearance of the name
+     which is not a plain variable reference may be a usage through its name (eg: vars.get,
+     __V, ForEach input or extractor scope), so it is reported as unknown.
+     */
+    private Usage findUsage(String refName) {
+      Usage ret = Usage.NONE;
+      int index = text.indexOf(refName);
+      while (index >= 0) {
+        int end = index + refName.length();
+        if ((index == 0 || !isNamePart(text.charAt(index - 1)))
+            && (end == text.length() || text.charAt(end) == '_'
+            || !isNamePart(text.charAt(end)))) {
+          if (!isVariableReference(index, end)) {
+            return Usage.UNKNOWN;
+          }
+          ret = Usage.REFERENCE;
+        }
+        index = text.indexOf(refName, end);
+      }
+      return ret;
+    }
+
+    private static boolean isNamePart(char character) {
+      return Character.isLetterOrDigit(character) || character == '_' || character == '#';
+    }
+
+    private boolean isVariableReference(int start, int end) {
+      if (!text.startsWith(VARIABLE_REFERENCE_START, start - VARIABLE_REFERENCE_START.length())) {
+        return false;
+      }
+      int index = end;
+      if (index < text.length() && text.charAt(index) == '_') {
+        index++;
+        while (index < text.length() && isNamePart(text.charAt(index))) {
+          index++;
+        }
+      }
+      return index < text.length() && text.charAt(index) == '}';
+    }
+
+  }
+
+}
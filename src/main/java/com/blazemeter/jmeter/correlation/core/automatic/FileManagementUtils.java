@@ -31,6 +31,8 @@ public class FileManagementUtils {
       = "correlation.record.filename.format";
   private static final String HISTORY_FILENAME_PROPERTY_NAME
       = "correlation.history.filename.format";
+  private static final String RULES_METRICS_FILENAME_PROPERTY_NAME
+      = "correlation.rules_metrics.filename.format";
   private static final String RECORDING_FOLDER = "Recording";
   private static final String REPLAY_FOLDER = "Replay";
   private static final String HISTORY_FOLDER = "History";
@@ -93,6 +95,11 @@ public class FileManagementUtils {
         getPathInBin(RECORDING_FOLDER) + File.separator + "recording-%s.jtl"));
   }
 
+  public static String getRulesMetricsFileName() {
+    return applyFormat(JMeterUtils.getPropDefault(RULES_METRICS_FILENAME_PROPERTY_NAME,
+        getPathInBin(RECORDING_FOLDER) + File.separator + "rules-metrics-%s.csv"));
+  }
+
   public static void makeHistoryFolder() {
     makeFolderAtBin(HISTORY_FOLDER);
   }
@@ -2,6 +2,7 @@ package com.blazemeter.jmeter.correlation.core.automatic;
 
 import com.blazemeter.jmeter.correlation.CorrelationProxyControl;
 import com.helger.commons.annotation.VisibleForTesting;
+import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.InvalidPathException;
 import com.jayway.jsonpath.JsonPath;
 import java.awt.BorderLayout;
@@ -18,6 +19,7 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -28,6 +30,7 @@ import java.util.Set;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javax.swing.JDialog;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
@@ -236,6 +239,16 @@ public class JMeterElementUtils {
     return new ResultFileParser().loadFromFile(file, true);
   }
 
+  public static Stream<SampleResult> streamSampleResultsFiltered(String filePath) {
+    File file = new File(filePath);
+    if (!file.exists()) {
+      LOG.warn("File {} does not exist", filePath);
+      return Stream.empty();
+    }
+
+    return new ResultFileParser().streamFromFile(file, true);
+  }
+
   private boolean isIgnoredParameter(String key) {
     return configuration.getIgnoredParameters().contains(key.toLowerCase().trim());
   }
@@ -245,18 +258,27 @@ public class JMeterElementUtils {
   }
 
   public static boolean isJson(String value) {
+    return parseJson(value) != null;
+  }
+
+  /**
+   * Parses the value as a JSON document, which can be used to read and update its values through
+   * JSONPath expressions.
+   *
+   * @param value the value to parse.
+   * @return the parsed document, or null if the value is not a JSON object or array.
+   */
+  public static DocumentContext parseJson(String value) {
     boolean startJson = StringUtils.startsWithAny(
         StringUtils.trim(StringUtils.truncate(value, 100)), "{", "[");
     if (value.isEmpty() || !startJson) {
-      return false;
+      return null;
     }
-    boolean isJson = true;
     try {
-      JsonPath.parse(value);
+      return JsonPath.parse(value);
     } catch (Exception ex) {
-      isJson = false;
+      return null;
     }
-    return isJson;
   }
 
   public static boolean isXml(String xml) {
@@ -584,41 +606,40 @@ public class JMeterElementUtils {
 
     // Avoid comparing case-sensitive keys
     String cleanedKey = key.trim();
-    // Add if we don't have the parameter yet
-    List<Appearances> appearancesList = parametersMap.get(cleanedKey);
-    Appearances appearance = new Appearances(value, cleanedKey, sampler);
-    appearance.setSource(source);
-    if (appearancesList == null || appearancesList.isEmpty()) {
-      appearancesList = new ArrayList<>();
-    }
-
-    for (Appearances appearances : appearancesList) {
-      if (!appearances.getValue().equals(value)) {
-        continue;
-      }
-
+    for (Appearances appearances : getAppearancesWithValue(parametersMap, cleanedKey, value)) {
       // We need to be careful here: if the value appears more than once,
       // we need to add it, so we can
       // generate multivalued extractors
-      List<TestElement> usages = appearances.getList();
-      Optional<TestElement> isRepeated = usages.stream()
-          .filter(app -> app.getName().equals(sampler.getName()))
-          .findFirst();
-
-      if (isRepeated.isPresent()) {
+      if (appearances.isUsedBy(sampler.getName())) {
         return;
       }
 
       // If the value and the source are the same, but the sampler is different, we add it to the
       if (appearances.getSource().equals(source)) {
-        usages.add(sampler);
+        appearances.addUsage(sampler);
         return;
       }
     }
 
-    appearancesList.add(appearance);
-    parametersMap.put(cleanedKey, appearancesList);
-    LOG.debug("Value detected:" + value + " key:" + key + " source:" + source);
+    Appearances appearance = new Appearances(value, cleanedKey, sampler);
+    appearance.setSource(source);
+    if (parametersMap instanceof AppearancesMap) {
+      ((AppearancesMap) parametersMap).addAppearance(cleanedKey, appearance);
+    } else {
+      parametersMap.computeIfAbsent(cleanedKey, k -> new ArrayList<>()).add(appearance);
+    }
+    LOG.debug("Value detected:{} key:{} source:{}", value, key, source);
+  }
+
+  private static List<Appearances> getAppearancesWithValue(
+      Map<String, List<Appearances>> parametersMap, String key, String value) {
+    if (parametersMap instanceof AppearancesMap) {
+      return ((AppearancesMap) parametersMap).getAppearancesWithValue(key, value);
+    }
+    List<Appearances> appearancesList = parametersMap.get(key);
+    return appearancesList == null ? Collections.emptyList() : appearancesList.stream()
+        .filter(appearances -> appearances.getValue().equals(value))
+        .collect(Collectors.toList());
   }
 
   /**
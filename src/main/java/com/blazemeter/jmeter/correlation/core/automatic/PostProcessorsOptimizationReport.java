@@ -0,0 +1,115 @@
+package com.blazemeter.jmeter.correlation.core.automatic;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of {@link PostProcessorsOptimizer#optimize}, with the rewritten post processors and the
+ * estimated CPU time saved by them in each iteration of the test plan.
+ */
+public class PostProcessorsOptimizationReport {
+
+  private final List<Optimization> optimizations = new ArrayList<>();
+  private int analyzedPostProcessors;
+
+  public void addAnalyzedPostProcessor() {
+    analyzedPostProcessors++;
+  }
+
+  public void addOptimization(Optimization optimization) {
+    optimizations.add(optimization);
+  }
+
+  public int getAnalyzedPostProcessors() {
+    return analyzedPostProcessors;
+  }
+
+  public List<Optimization> getOptimizations() {
+    return Collections.unmodifiableList(optimizations);
+  }
+
+  /**
+   * Gets the CPU time saved in each iteration by the optimizations which could be measured.
+   *
+   * @return the sum, in nanoseconds, of the difference between the time it takes the original and
+   *     the optimized post processors to process their recorded response
+   */
+  public long getEstimatedSavedNanosPerIteration() {
+    return optimizations.stream()
+        .filter(Optimization::isMeasured)
+        .mapToLong(Optimization::getSavedNanos)
+        .sum();
+  }
+
+  public long getMeasuredOptimizationsCount() {
+    return optimizations.stream()
+        .filter(Optimization::isMeasured)
+        .count();
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder ret = new StringBuilder()
+        .append("Optimized ").append(optimizations.size()).append(" of ")
+        .append(analyzedPostProcessors).append(" generated post processors. ")
+        .append(String.format("Estimated CPU time saved per iteration: %.1f µs",
+            getEstimatedSavedNanosPerIteration() / 1000.0))
+        .append(" (measured on ").append(getMeasuredOptimizationsCount())
+        .append(" recorded responses)");
+    for (Optimization optimization : optimizations) {
+      ret.append(System.lineSeparator()).append(" - ").append(optimization);
+    }
+    return ret.toString();
+  }
+
+  public static class Optimization {
+
+    private static final long NOT_MEASURED = -1;
+    private final String samplerName;
+    private final String postProcessorName;
+    private final List<String> changes;
+    private long originalNanos = NOT_MEASURED;
+    private long optimizedNanos = NOT_MEASURED;
+
+    public Optimization(String samplerName, String postProcessorName, List<String> changes) {
+      this.samplerName = samplerName;
+      this.postProcessorName = postProcessorName;
+      this.changes = changes;
+    }
+
+    public String getSamplerName() {
+      return samplerName;
+    }
+
+    public String getPostProcessorName() {
+      return postProcessorName;
+    }
+
+    public List<String> getChanges() {
+      return changes;
+    }
+
+    public void setMeasuredNanos(long originalNanos, long optimizedNanos) {
+      this.originalNanos = originalNanos;
+      this.optimizedNanos = optimizedNanos;
+    }
+
+    public boolean isMeasured() {
+      return originalNanos != NOT_MEASURED;
+    }
+
+    public long getSavedNanos() {
+      return isMeasured() ? originalNanos - optimizedNanos : 0;
+    }
+
+    @Override
+    public String toString() {
+      return samplerName + " > " + postProcessorName + ": " + String.join(", ", changes)
+          + (isMeasured() ? String.format(" (%.1f µs -> %.1f µs)", originalNanos / 1000.0,
+          optimizedNanos / 1000.0) : " (not measured)");
+    }
+
+  }
+
+}
@@ -0,0 +1,448 @@
+package com.blazemeter.jmeter.correlation.core.automatic;
+
+import com.blazemeter.jmeter.correlation.core.automatic.PostProcessorsOptimizationReport.Optimization;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import org.apache.jmeter.extractor.BoundaryExtractor;
+import org.apache.jmeter.extractor.RegexExtractor;
+import org.apache.jmeter.extractor.gui.BoundaryExtractorGui;
+import org.apache.jmeter.extractor.json.jsonpath.JSONPostProcessor;
+import org.apache.jmeter.gui.tree.JMeterTreeModel;
+import org.apache.jmeter.gui.tree.JMeterTreeNode;
+import org.apache.jmeter.processor.PostProcessor;
+import org.apache.jmeter.protocol.http.sampler.HTTPSamplerBase;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.testelement.AbstractScopedTestElement;
+import org.apache.jmeter.testelement.TestElement;
+import org.apache.jmeter.testelement.property.JMeterProperty;
+import org.apache.jmeter.testelement.property.MultiProperty;
+import org.apache.jmeter.testelement.property.PropertyIterator;
+import org.apache.jmeter.threads.JMeterContext;
+import org.apache.jmeter.threads.JMeterContextService;
+import org.apache.jmeter.threads.JMeterVariables;
+import org.apache.jmeter.util.JMeterUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Rewrites the post processors generated by the correlation rules to cheaper equivalent ones.
+ *
+ * <p>Generated extractors apply to the main sample and its sub samples, extract all the matches
+ * of multi valued rules and, for regexes, use a regular expression even when the value is between
+ * two literal boundaries. Each of these is paid in every iteration of the test plan, so this class
+ * rewrites each generated {@link RegexExtractor} and {@link JSONPostProcessor} when:
+ * <ul>
+ *   <li>It extracts all the matches (match number -1) but only one of them is used by the rest of
+ *   the test plan: the extractor is changed to only extract that match, in the same variable.</li>
+ *   <li>It applies to sub samples, but its sampler doesn't follow redirects nor downloads embedded
+ *   resources, so there are never sub samples: the extractor is changed to the main sample.</li>
+ *   <li>It is a regex extractor with a regex made of literal boundaries around a <code>(.+?)</code>
+ *   group: it is replaced with a {@link BoundaryExtractor}. Unlike the regex, boundaries also
+ *   match empty and multi line values, so the replacement is only done when there is a recorded
+ *   response for the sampler and both extract the same values from it.</li>
+ * </ul>
+ *
+ * <p>When there is a recorded response for the sampler, the time the original and optimized
+ * post processors take to process it is measured to estimate the CPU time saved per iteration.
+ */
+public class PostProcessorsOptimizer {
+
+  public static final String ENABLED_PROPERTY = "correlation.post_processors.optimize";
+  private static final Logger LOG = LoggerFactory.getLogger(PostProcessorsOptimizer.class);
+  private static final String REGEX_EXTRACTOR_PREFIX = "RegExp - ";
+  private static final String JSON_EXTRACTOR_PREFIX = "JSON Path - ";
+  private static final String BOUNDARY_EXTRACTOR_PREFIX = "Boundary - ";
+  private static final String REGEX_USE_FIELD_PROPERTY = "RegexExtractor.useHeaders";
+  private static final String SIMPLE_CAPTURE = "(.+?)";
+  private static final String FIRST_GROUP_TEMPLATE = "$1$";
+  private static final String ALL_MATCHES = "-1";
+  private static final String REGEX_META_CHARACTERS = "\\^$.|?*+()[]{}";
+  private static final Pattern MATCH_INDEX = Pattern.compile("\\d{1,9}");
+  private static final Pattern MATCH_GROUP = Pattern.compile("(\\d+_)?g\\d*");
+  private static final int MEASURED_RUNS = 10;
+
+  /**
+   * Creates an optimizer if it is enabled through the {@link #ENABLED_PROPERTY} JMeter property.
+   *
+   * @return the optimizer, or null if it is disabled
+   */
+  public static PostProcessorsOptimizer createIfEnabled() {
+    return JMeterUtils.getPropDefault(ENABLED_PROPERTY, false) ? new PostProcessorsOptimizer()
+        : null;
+  }
+
+  /**
+   * Optimizes the generated post processors of the HTTP samplers in a tree model.
+   *
+   * @param model the model containing the test plan to optimize
+   * @param recordedResults the results of the recording, used to verify and measure the
+   *                        optimizations of the samplers with the same name
+   * @return the report of the optimized post processors
+   */
+  public PostProcessorsOptimizationReport optimize(JMeterTreeModel model,
+      List<SampleResult> recordedResults) {
+    return optimize((JMeterTreeNode) model.getRoot(), recordedResults, model::nodeChanged);
+  }
+
+  /**
+   * Optimizes the generated post processors of the HTTP samplers under a tree node.
+   *
+   * <p>Optimized post processors are replaced in their nodes, without adding nor removing nodes.
+   *
+   * @param root the node containing the samplers to optimize
+   * @param recordedResults the results of the recording, used to verify and measure the
+   *                        optimizations of the samplers with the same name
+   * @param nodeChangeListener notified with each node which post processor is replaced
+   * @return the report of the optimized post processors
+   */
+  public PostProcessorsOptimizationReport optimize(JMeterTreeNode root,
+      List<SampleResult> recordedResults, Consumer<JMeterTreeNode> nodeChangeListener) {
+    Map<String, SampleResult> resultsByLabel = new HashMap<>();
+    recordedResults.forEach(r -> resultsByLabel.putIfAbsent(r.getSampleLabel(), r));
+    Map<TestElement, String> elementsTexts = new IdentityHashMap<>();
+    collectElementsTexts(root, elementsTexts);
+    PostProcessorsOptimizationReport report = new PostProcessorsOptimizationReport();
+    for (JMeterTreeNode samplerNode : findSamplerNodes(root)) {
+      HTTPSamplerBase sampler = (HTTPSamplerBase) samplerNode.getTestElement();
+      SampleResult result = resultsByLabel.get(sampler.getName());
+      for (int i = 0; i < samplerNode.getChildCount(); i++) {
+        JMeterTreeNode child = (JMeterTreeNode) samplerNode.getChildAt(i);
+        if (!isGeneratedPostProcessor(child.getTestElement())) {
+          continue;
+        }
+        report.addAnalyzedPostProcessor();
+        AbstractScopedTestElement original = (AbstractScopedTestElement) child.getTestElement();
+        List<String> changes = new ArrayList<>();
+        AbstractScopedTestElement optimized = optimize(original, sampler, result, elementsTexts,
+            changes);
+        if (changes.isEmpty()) {
+          continue;
+        }
+        Optimization optimization = new Optimization(sampler.getName(), original.getName(),
+            changes);
+        if (result != null) {
+          optimization.setMeasuredNanos(measureProcessingNanos(original, result),
+              measureProcessingNanos(optimized, result));
+        }
+        child.setUserObject(optimized);
+        nodeChangeListener.accept(child);
+        report.addOptimization(optimization);
+      }
+    }
+    return report;
+  }
+
+  private static void collectElementsTexts(JMeterTreeNode node,
+      Map<TestElement, String> elementsTexts) {
+    if (node.getUserObject() instanceof TestElement) {
+      StringBuilder text = new StringBuilder();
+      appendPropertiesText(node.getTestElement().propertyIterator(), text);
+      elementsTexts.put(node.getTestElement(), text.toString());
+    }
+    for (int i = 0; i < node.getChildCount(); i++) {
+      collectElementsTexts((JMeterTreeNode) node.getChildAt(i), elementsTexts);
+    }
+  }
+
+  private static void appendPropertiesText(PropertyIterator properties, StringBuilder text) {
+    while (properties.hasNext()) {
+      JMeterProperty property = properties.next();
+      if (property instanceof MultiProperty) {
+        appendPropertiesText(((MultiProperty) property).iterator(), text);
+      } else {
+        text.append(property.getStringValue()).append('\n');
+      }
+    }
+  }
+
+  private static List<JMeterTreeNode> findSamplerNodes(JMeterTreeNode node) {
+    List<JMeterTreeNode> ret = new ArrayList<>();
+    if (node.getUserObject() instanceof HTTPSamplerBase) {
+      ret.add(node);
+    }
+    for (int i = 0; i < node.getChildCount(); i++) {
+      ret.addAll(findSamplerNodes((JMeterTreeNode) node.getChildAt(i)));
+    }
+    return ret;
+  }
+
+  private static boolean isGeneratedPostProcessor(TestElement element) {
+    return (element instanceof RegexExtractor
+        && element.getName().startsWith(REGEX_EXTRACTOR_PREFIX))
+        || (element instanceof JSONPostProcessor
+        && element.getName().startsWith(JSON_EXTRACTOR_PREFIX)
+        && !((JSONPostProcessor) element).getRefNames().contains(";"));
+  }
+
+  private AbstractScopedTestElement optimize(AbstractScopedTestElement original,
+      HTTPSamplerBase sampler, SampleResult result, Map<TestElement, String> elementsTexts,
+      List<String> changes) {
+    AbstractScopedTestElement ret = (AbstractScopedTestElement) original.clone();
+    VariableUsages usages = findUsages(getRefName(ret), original, elementsTexts);
+    if (ALL_MATCHES.equals(getMatchNumber(ret)) && usages.getOnlyUsedMatch() != null) {
+      int usedMatch = usages.getOnlyUsedMatch();
+      setRefNameAndMatch(ret, getRefName(ret) + "_" + usedMatch, usedMatch);
+      changes.add("match number " + usedMatch);
+    }
+    if (ret.isScopeAll() && !sampler.getFollowRedirects() && !sampler.isImageParser()) {
+      ret.setScopeParent();
+      changes.add("main sample scope");
+    }
+    if (ret instanceof RegexExtractor && !usages.usesGroups) {
+      BoundaryExtractor boundaryExtractor = buildBoundaryExtractor((RegexExtractor) ret);
+      if (boundaryExtractor != null && result != null
+          && extractVariables(ret, result).equals(extractVariables(boundaryExtractor, result))) {
+        ret = boundaryExtractor;
+        changes.add("boundary extractor");
+      }
+    }
+    return ret;
+  }
+
+  private static String getMatchNumber(TestElement element) {
+    return element instanceof RegexExtractor
+        ? String.valueOf(((RegexExtractor) element).getMatchNumber())
+        : ((JSONPostProcessor) element).getMatchNumbers();
+  }
+
+  private static String getRefName(TestElement element) {
+    if (element instanceof RegexExtractor) {
+      return ((RegexExtractor) element).getRefName();
+    } else if (element instanceof BoundaryExtractor) {
+      return ((BoundaryExtractor) element).getRefName();
+    } else {
+      return ((JSONPostProcessor) element).getRefNames();
+    }
+  }
+
+  private static void setRefNameAndMatch(TestElement element, String refName, int matchNumber) {
+    if (element instanceof RegexExtractor) {
+      RegexExtractor regexExtractor = (RegexExtractor) element;
+      regexExtractor.setRefName(refName);
+      regexExtractor.setMatchNumber(matchNumber);
+    } else {
+      JSONPostProcessor jsonPostProcessor = (JSONPostProcessor) element;
+      jsonPostProcessor.setRefNames(refName);
+      jsonPostProcessor.setMatchNumbers(String.valueOf(matchNumber));
+    }
+  }
+
+  /*
+   Finds how the variables of an extractor are used by the rest of the elements, looking for the
+   variable name (not being part of a longer name) and its suffixes in their properties.
+   */
+  private static VariableUsages findUsages(String refName, TestElement extractor,
+      Map<TestElement, String> elementsTexts) {
+    VariableUsages ret = new VariableUsages();
+    for (Map.Entry<TestElement, String> elementText : elementsTexts.entrySet()) {
+      if (elementText.getKey() == extractor) {
+        continue;
+      }
+      String text = elementText.getValue();
+      int index = text.indexOf(refName);
+      while (index >= 0) {
+        int end = index + refName.length();
+        if (index == 0 || !isIdentifierPart(text.charAt(index - 1))) {
+          if (end == text.length() || !isIdentifierPart(text.charAt(end))) {
+            ret.usesAllMatches = true;
+          } else if (text.charAt(end) == '_') {
+            String suffix = readIdentifier(text, end + 1);
+            int suffixEnd = end + 1 + suffix.length();
+            // a suffix completed by another variable or function (eg: ${__V(token_${i})}) may
+            // refer to any match
+            if (suffixEnd < text.length() && text.charAt(suffixEnd) == '$') {
+              ret.usesAllMatches = true;
+            } else {
+              ret.addSuffix(suffix);
+            }
+          }
+        }
+        index = text.indexOf(refName, end);
+      }
+    }
+    return ret;
+  }
+
+  private static boolean isIdentifierPart(char character) {
+    return Character.isLetterOrDigit(character) || character == '_';
+  }
+
+  private static String readIdentifier(String text, int start) {
+    int end = start;
+    while (end < text.length() && isIdentifierPart(text.charAt(end))) {
+      end++;
+    }
+    return text.substring(start, end);
+  }
+
+  private static BoundaryExtractor buildBoundaryExtractor(RegexExtractor regexExtractor) {
+    if (!FIRST_GROUP_TEMPLATE.equals(regexExtractor.getTemplate())) {
+      return null;
+    }
+    String regex = regexExtractor.getRegex();
+    int captureIndex = regex.indexOf(SIMPLE_CAPTURE);
+    if (captureIndex < 0 || regex.indexOf(SIMPLE_CAPTURE, captureIndex + 1) >= 0) {
+      return null;
+    }
+    String leftBoundary = unquoteLiteral(regex.substring(0, captureIndex));
+    String rightBoundary = unquoteLiteral(regex.substring(captureIndex + SIMPLE_CAPTURE.length()));
+    if (leftBoundary == null || leftBoundary.isEmpty() || rightBoundary == null
+        || rightBoundary.isEmpty()) {
+      return null;
+    }
+    BoundaryExtractor ret = new BoundaryExtractor();
+    ret.setProperty(TestElement.GUI_CLASS, BoundaryExtractorGui.class.getName());
+    ret.setName(BOUNDARY_EXTRACTOR_PREFIX
+        + regexExtractor.getName().substring(REGEX_EXTRACTOR_PREFIX.length()));
+    ret.setComment(regexExtractor.getComment());
+    ret.setEnabled(regexExtractor.isEnabled());
+    ret.setRefName(regexExtractor.getRefName());
+    ret.setLeftBoundary(leftBoundary);
+    ret.setRightBoundary(rightBoundary);
+    ret.setMatchNumber(regexExtractor.getMatchNumber());
+    ret.setDefaultValue(regexExtractor.getDefaultValue());
+    ret.setDefaultEmptyValue(regexExtractor.isEmptyDefaultValue());
+    // both extractors use the same values to identify the field to extract from
+    ret.setUseField(regexExtractor.getPropertyAsString(REGEX_USE_FIELD_PROPERTY));
+    copyScope(regexExtractor, ret);
+    return ret;
+  }
+
+  /*
+   Gets the literal text matched by a regex made only of literal and escaped characters (as
+   generated by Perl5Compiler.quotemeta), or null if the regex contains any other construct.
+   */
+  private static String unquoteLiteral(String regex) {
+    StringBuilder ret = new StringBuilder();
+    for (int i = 0; i < regex.length(); i++) {
+      char character = regex.charAt(i);
+      if (character == '\\') {
+        if (++i == regex.length()) {
+          return null;
+        }
+        char escaped = regex.charAt(i);
+        if (escaped == 'n') {
+          ret.append('\n');
+        } else if (escaped == 'r') {
+          ret.append('\r');
+        } else if (escaped == 't') {
+          ret.append('\t');
+        } else if (Character.isLetterOrDigit(escaped)) {
+          return null;
+        } else {
+          ret.append(escaped);
+        }
+      } else if (REGEX_META_CHARACTERS.indexOf(character) >= 0) {
+        return null;
+      } else {
+        ret.append(character);
+      }
+    }
+    return ret.toString();
+  }
+
+  private static void copyScope(AbstractScopedTestElement source,
+      AbstractScopedTestElement target) {
+    if (source.isScopeParent()) {
+      target.setScopeParent();
+    } else if (source.isScopeChildren()) {
+      target.setScopeChildren();
+    } else if (source.isScopeVariable()) {
+      target.setScopeVariable(source.getVariableName());
+    } else {
+      target.setScopeAll();
+    }
+  }
+
+  /*
+   Group variables (refName_gN) are not included since they are only set by regex extractors, and
+   are not replaced by boundary extractors when they are used.
+   */
+  private static Map<String, Object> extractVariables(TestElement postProcessor,
+      SampleResult result) {
+    JMeterContext context = JMeterContextService.getContext();
+    SampleResult previousResult = context.getPreviousResult();
+    JMeterVariables previousVariables = context.getVariables();
+    try {
+      context.setPreviousResult(result);
+      JMeterVariables variables = new JMeterVariables();
+      context.setVariables(variables);
+      ((PostProcessor) postProcessor).process();
+      Pattern groupVariable = Pattern.compile(Pattern.quote(getRefName(postProcessor))
+          + "(_\\d+)?_g\\d*");
+      Map<String, Object> ret = new HashMap<>();
+      variables.entrySet().stream()
+          .filter(e -> !groupVariable.matcher(e.getKey()).matches())
+          .forEach(e -> ret.put(e.getKey(), e.getValue()));
+      return ret;
+    } catch (RuntimeException e) {
+      LOG.warn("Error processing {} with recorded response of {}", postProcessor.getName(),
+          result.getSampleLabel(), e);
+      return Collections.singletonMap(postProcessor.getName(), Objects.toString(e));
+    } finally {
+      context.setPreviousResult(previousResult);
+      context.setVariables(previousVariables);
+    }
+  }
+
+  private static long measureProcessingNanos(TestElement postProcessor, SampleResult result) {
+    JMeterContext context = JMeterContextService.getContext();
+    SampleResult previousResult = context.getPreviousResult();
+    JMeterVariables previousVariables = context.getVariables();
+    try {
+      context.setPreviousResult(result);
+      long total = 0;
+      // first run is not measured to avoid counting initialization costs (eg: compiling regexes)
+      for (int i = 0; i <= MEASURED_RUNS; i++) {
+        context.setVariables(new JMeterVariables());
+        long start = System.nanoTime();
+        ((PostProcessor) postProcessor).process();
+        if (i > 0) {
+          total += System.nanoTime() - start;
+        }
+      }
+      return total / MEASURED_RUNS;
+    } finally {
+      context.setPreviousResult(previousResult);
+      context.setVariables(previousVariables);
+    }
+  }
+
+  private static class VariableUsages {
+
+    private final Set<Integer> usedMatches = new TreeSet<>();
+    private boolean usesAllMatches;
+    private boolean usesGroups;
+
+    private void addSuffix(String suffix) {
+      if (MATCH_INDEX.matcher(suffix).matches()) {
+        usedMatches.add(Integer.parseInt(suffix));
+      } else if (MATCH_GROUP.matcher(suffix).matches()) {
+        usesGroups = true;
+      } else {
+        usesAllMatches = true;
+      }
+    }
+
+    /*
+     Any use of the variable itself, its number of matches, its groups, the concatenation of all
+     its matches or a suffix which can't be resolved (eg: empty, when it is built dynamically)
+     requires all the matches to be extracted.
+     */
+    private Integer getOnlyUsedMatch() {
+      return !usesAllMatches && !usesGroups && usedMatches.size() == 1
+          && usedMatches.iterator().next() > 0 ? usedMatches.iterator().next() : null;
+    }
+
+  }
+
+}
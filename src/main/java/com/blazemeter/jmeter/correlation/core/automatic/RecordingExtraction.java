@@ -42,7 +42,7 @@ public class RecordingExtraction implements AppearancesExtraction {
 
   public RecordingExtraction(Configuration configuration) {
     this.utils = new JMeterElementUtils(configuration);
-    this.appearanceMap = new HashMap<>();
+    this.appearanceMap = new AppearancesMap();
   }
 
   public RecordingExtraction(Configuration configuration, Map<String, List<Appearances>> map) {
@@ -7,6 +7,7 @@ import com.blazemeter.jmeter.correlation.core.automatic.extraction.location.Extr
 import com.blazemeter.jmeter.correlation.core.automatic.extraction.location.HeaderExtractionStrategy;
 import com.blazemeter.jmeter.correlation.core.automatic.extraction.location.LocationType;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import org.apache.commons.lang3.tuple.Pair;
@@ -46,6 +47,21 @@ public class ResponseAnalyzer {
     return Pair.of(LocationType.UNKNOWN, "");
   }
 
+  /**
+   * Indexed variant of {@link #identifyArgumentLocation(SampleResult, String)}, to be used when
+   * several values have to be located in several responses.
+   * <p>
+   * The returned index precomputes all the forms of the values once, and then allows identifying
+   * the locations of all of them in a response scanning each part of the response only once.
+   *
+   * @param values The values to search in the responses
+   * @return The index to identify the location of the values in each response
+   * @see ArgumentValuesIndex
+   */
+  public ArgumentValuesIndex indexArgumentValues(Collection<String> values) {
+    return new ArgumentValuesIndex(strategies, values);
+  }
+
   /**
    * Given a {@link SampleResult} and a {@link LocationType}, identifies the structure of the
    * value in the response. The structure can be {@link StructureType#JSON}, {@link
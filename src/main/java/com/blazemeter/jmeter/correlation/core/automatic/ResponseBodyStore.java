@@ -0,0 +1,277 @@
+package com.blazemeter.jmeter.correlation.core.automatic;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.apache.jmeter.util.JMeterUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append only store of response bodies, kept in a memory mapped file instead of the heap.
+ *
+ * <p>Bodies are appended to a temporary file which is mapped in segments, so the OS decides which
+ * parts of it are kept in memory, and each body is read back (copied to the heap) only when it is
+ * requested. This allows keeping the results of long recordings or replays without requiring a
+ * heap big enough for all their responses.
+ *
+ * <p>Closing the store doesn't invalidate the {@link StoredSampleResult}s created with it: it
+ * only rejects new bodies, and the file is kept mapped until all the results created with it are
+ * garbage collected, when it is unmapped and removed. So a store can be closed as soon as a new
+ * recording or replay starts, even if the results of the previous one are still being analyzed,
+ * without copying their bodies back to the heap. The file is removed when the JVM exits if it
+ * could not be removed before.
+ */
+public class ResponseBodyStore implements Closeable {
+
+  public static final String ENABLED_PROPERTY = "correlation.body_store.enabled";
+  private static final Logger LOG = LoggerFactory.getLogger(ResponseBodyStore.class);
+  private static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+  private static final ReferenceQueue<StoredSampleResult> COLLECTED_RESULTS =
+      new ReferenceQueue<>();
+
+  private final Path file;
+  private final FileChannel channel;
+  private final int segmentSize;
+  private final List<MappedByteBuffer> segments = new ArrayList<>();
+  private final Set<Reference<StoredSampleResult>> results = new HashSet<>();
+  private long size;
+  private boolean closing;
+  private boolean closed;
+
+  /*
+   A single daemon thread releases the results of all the stores as they are collected (like
+   java.lang.ref.Cleaner, which is not available in Java 8), so a closed store is removed as soon
+   as its last result is collected, even if no other method of the store is invoked.
+   */
+  static {
+    Thread releaser = new Thread(ResponseBodyStore::releaseCollectedResults,
+        "correlation-body-store-releaser");
+    releaser.setDaemon(true);
+    releaser.start();
+  }
+
+  public ResponseBodyStore() throws IOException {
+    this(DEFAULT_SEGMENT_SIZE);
+  }
+
+  public ResponseBodyStore(int segmentSize) throws IOException {
+    this.segmentSize = segmentSize;
+    file = Files.createTempFile("correlation-bodies", ".bin");
+    file.toFile().deleteOnExit();
+    channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+  }
+
+  /**
+   * Creates a new store if it is enabled through the {@link #ENABLED_PROPERTY} JMeter property.
+   *
+   * @return the created store, or null if it is not enabled or could not be created
+   */
+  public static ResponseBodyStore createIfEnabled() {
+    if (!JMeterUtils.getPropDefault(ENABLED_PROPERTY, false)) {
+      return null;
+    }
+    try {
+      return new ResponseBodyStore();
+    } catch (IOException e) {
+      LOG.warn("Could not create the response body store. Bodies will be kept in memory.", e);
+      return null;
+    }
+  }
+
+  /**
+   * Appends a body at the end of the store.
+   *
+   * @param data the body to store
+   * @return the offset in the store where the body starts
+   */
+  public synchronized long append(byte[] data) {
+    if (closing) {
+      throw new IllegalStateException("Response body store " + file + " is closed");
+    }
+    long offset = size;
+    int written = 0;
+    while (written < data.length) {
+      ByteBuffer segment = getSegment(size);
+      int count = Math.min(data.length - written, segment.remaining());
+      segment.put(data, written, count);
+      written += count;
+      size += count;
+    }
+    return offset;
+  }
+
+  /**
+   * Reads a previously appended body.
+   *
+   * @param offset the offset returned when the body was appended
+   * @param length the length of the body
+   * @return a copy of the body
+   */
+  public synchronized byte[] read(long offset, int length) {
+    checkNotClosed();
+    if (offset + length > size) {
+      throw new IllegalArgumentException(
+          "Body at " + offset + " with length " + length + " exceeds store size " + size);
+    }
+    byte[] ret = new byte[length];
+    int read = 0;
+    while (read < length) {
+      ByteBuffer segment = getSegment(offset + read);
+      int count = Math.min(length - read, segment.remaining());
+      segment.get(ret, read, count);
+      read += count;
+    }
+    return ret;
+  }
+
+  /*
+   Gets a view of the segment containing the position, positioned there. Views are used so
+   positions of concurrent reads and writes don't interfere with each other.
+   */
+  private ByteBuffer getSegment(long position) {
+    int index = (int) (position / segmentSize);
+    while (segments.size() <= index) {
+      try {
+        segments.add(channel.map(MapMode.READ_WRITE, (long) segments.size() * segmentSize,
+            segmentSize));
+      } catch (IOException e) {
+        throw new UncheckedIOException("Could not map response body store " + file, e);
+      }
+    }
+    ByteBuffer ret = segments.get(index).duplicate();
+    ret.position((int) (position % segmentSize));
+    return ret;
+  }
+
+  /*
+   Keeps track of the results using the store, so the file is kept until all of them are
+   collected. Results are weakly referenced to not prevent them from being collected.
+   */
+  synchronized void register(StoredSampleResult result) {
+    checkNotClosed();
+    results.add(new ResultReference(result, this));
+  }
+
+  private static void releaseCollectedResults() {
+    while (true) {
+      try {
+        ResultReference collected = (ResultReference) COLLECTED_RESULTS.remove();
+        collected.store.release(collected);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (RuntimeException e) {
+        LOG.warn("Could not release collected result of response body store", e);
+      }
+    }
+  }
+
+  private synchronized void release(ResultReference collected) {
+    results.remove(collected);
+    if (closing && results.isEmpty()) {
+      delete();
+    }
+  }
+
+  private void checkNotClosed() {
+    if (closed) {
+      throw new IllegalStateException("Response body store " + file + " is closed");
+    }
+  }
+
+  public synchronized long getSize() {
+    return size;
+  }
+
+  public File getFile() {
+    return file.toFile();
+  }
+
+  /**
+   * Closes the store, rejecting any new body. The file is unmapped and removed right away if no
+   * result created with the store is in use, otherwise once the last of them is collected.
+   */
+  @Override
+  public synchronized void close() {
+    if (closing) {
+      return;
+    }
+    closing = true;
+    if (results.isEmpty()) {
+      delete();
+    } else {
+      LOG.debug("Keeping response body store {} until its {} results are collected", file,
+          results.size());
+    }
+  }
+
+  private void delete() {
+    closed = true;
+    segments.forEach(ResponseBodyStore::unmap);
+    segments.clear();
+    try {
+      channel.close();
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      LOG.debug("Could not remove response body store {}. It will be removed on exit.", file, e);
+    }
+  }
+
+  /*
+   Mapped buffers are only unmapped when garbage collected, which keeps the file locked (it can't
+   be removed in Windows) and the mapping reserved until then, so they are explicitly released
+   through the JDK internal cleaners (Unsafe.invokeCleaner in Java 9+, DirectBuffer.cleaner in
+   Java 8). No view of the buffer may be used after this.
+   */
+  private static void unmap(MappedByteBuffer buffer) {
+    try {
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      try {
+        Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        Field unsafeField = unsafeClass.getDeclaredField("theUnsafe");
+        unsafeField.setAccessible(true);
+        invokeCleaner.invoke(unsafeField.get(null), buffer);
+      } catch (NoSuchMethodException e) {
+        Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+        cleanerMethod.setAccessible(true);
+        Object cleaner = cleanerMethod.invoke(buffer);
+        if (cleaner != null) {
+          cleaner.getClass().getMethod("clean").invoke(cleaner);
+        }
+      }
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      LOG.debug("Could not unmap response body store segment. It will be released when collected.",
+          e);
+    }
+  }
+
+  private static class ResultReference extends WeakReference<StoredSampleResult> {
+
+    private final ResponseBodyStore store;
+
+    private ResultReference(StoredSampleResult result, ResponseBodyStore store) {
+      super(result, COLLECTED_RESULTS);
+      this.store = store;
+    }
+
+  }
+
+}
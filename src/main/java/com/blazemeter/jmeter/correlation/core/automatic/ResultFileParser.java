@@ -5,7 +5,11 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import org.apache.jmeter.protocol.http.sampler.HTTPSampleResult;
 import org.apache.jmeter.reporters.ResultCollector;
 import org.apache.jmeter.samplers.SampleEvent;
@@ -36,7 +40,7 @@ public class ResultFileParser {
    */
   public List<SampleResult> loadFromFile(File file, boolean shouldFilter) {
     try {
-      Collection<SampleResult> results = new ArrayList<>();
+      List<SampleResult> results = new ArrayList<>();
       ResultCollector collector = new ResultCollector();
       collector.setFilename(file.getAbsolutePath());
       JMeterElementUtils utils = new JMeterElementUtils(configuration);
@@ -45,13 +49,33 @@ public class ResultFileParser {
 
       collector.setListener(visualizer);
       collector.loadExistingFile();
-      return new ArrayList<>(results);
+      return results;
     } catch (Exception e) {
       LOG.error("Error while loading the result from the file {} ", file.getAbsolutePath(), e);
     }
     return new ArrayList<>();
   }
 
+  /**
+   * Streams the SampleResults of a jtl file while it is being parsed, instead of loading all of
+   * them in memory. If shouldFilter is true, the results are filtered during the parse using the
+   * provided configuration.
+   * <p>
+   * The returned stream must be closed (eg: using a try-with-resources) to stop the parsing when
+   * the stream is not consumed until the end.
+   *
+   * @param file         the file to load the results from
+   * @param shouldFilter whether the results should be filtered or not
+   * @return the results of the file, in the same order as they are in the file
+   * @see StreamingResultsReader
+   */
+  public Stream<SampleResult> streamFromFile(File file, boolean shouldFilter) {
+    StreamingResultsReader reader = new StreamingResultsReader(file, shouldFilter, configuration);
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(reader,
+            Spliterator.ORDERED | Spliterator.NONNULL), false)
+        .onClose(reader::close);
+  }
+
   private CustomVisualizer getVisualizer(boolean shouldFilter, JMeterElementUtils utils,
                                    Collection<SampleResult> results) {
     return new CustomVisualizer(shouldFilter, utils, results);
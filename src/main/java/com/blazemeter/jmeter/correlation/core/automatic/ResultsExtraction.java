@@ -15,11 +15,13 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.StringTokenizer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.http.entity.ContentType;
@@ -281,11 +283,11 @@ public class ResultsExtraction implements AppearancesExtraction {
 
   @Override
   public Map<String, List<Appearances>> extractAppearanceMap(String filepath) {
-    appearanceMap = new HashMap<>();
+    appearanceMap = new AppearancesMap();
     resultFileParser = getResultFileParser();
-    List<SampleResult> results = resultFileParser.loadFromFile(new File(filepath), true);
-
-    extractAppearancesFromResults(results);
+    try (Stream<SampleResult> results = resultFileParser.streamFromFile(new File(filepath), true)) {
+      extractAppearancesFromResults(results);
+    }
     resultFileParser = null;
     return appearanceMap;
   }
@@ -294,9 +296,11 @@ public class ResultsExtraction implements AppearancesExtraction {
     return resultFileParser == null ? new ResultFileParser(configuration) : resultFileParser;
   }
 
-  private void extractAppearancesFromResults(List<SampleResult> results) {
+  private void extractAppearancesFromResults(Stream<SampleResult> results) {
     RecordingExtraction samplersExtractor = new RecordingExtraction(configuration, appearanceMap);
-    for (SampleResult result : results) {
+    Iterator<SampleResult> it = results.iterator();
+    while (it.hasNext()) {
+      SampleResult result = it.next();
       if (result instanceof HTTPSampleResult) {
         try {
           HTTPSampleResult httpSampleResult = (HTTPSampleResult) result;
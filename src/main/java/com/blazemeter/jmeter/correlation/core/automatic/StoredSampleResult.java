@@ -0,0 +1,108 @@
+package com.blazemeter.jmeter.correlation.core.automatic;
+
+import java.io.UnsupportedEncodingException;
+import java.lang.ref.SoftReference;
+import org.apache.jmeter.protocol.http.sampler.HTTPSampleResult;
+import org.apache.jmeter.samplers.SampleResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Copy of an HTTPSampleResult whose response body is kept in a {@link ResponseBodyStore} instead
+ * of the heap, and is only read back when requested.
+ *
+ * <p>The last read body is softly cached, so consecutive reads (eg: each extractor evaluated on
+ * the same response) don't copy it again while there is enough memory. The body can still be read
+ * after the store is closed, since the store keeps its file until all its results are collected.
+ * A regular HTTPSampleResult with the body is serialized in place of this result.
+ */
+public class StoredSampleResult extends HTTPSampleResult {
+
+  private static final Logger LOG = LoggerFactory.getLogger(StoredSampleResult.class);
+  private static final byte[] EMPTY_BODY = new byte[0];
+
+  private final transient ResponseBodyStore store;
+  private transient SoftReference<byte[]> cachedBody;
+  private long bodyOffset;
+  private int bodyLength;
+
+  public StoredSampleResult(HTTPSampleResult result, ResponseBodyStore store) {
+    super(result);
+    this.store = store;
+    storeBody(result.getResponseData());
+    store.register(this);
+  }
+
+  /**
+   * Wraps the result in a StoredSampleResult when a store is provided and the result is an
+   * HTTPSampleResult, which are the only results used in the correlation analysis.
+   *
+   * @param result the result to wrap
+   * @param store the store where to keep the body, or null if bodies should be kept in memory
+   * @return the wrapped result, or the same result if it can't be wrapped
+   */
+  public static SampleResult wrap(SampleResult result, ResponseBodyStore store) {
+    if (store == null || !(result instanceof HTTPSampleResult)
+        || result instanceof StoredSampleResult) {
+      return result;
+    }
+    try {
+      return new StoredSampleResult((HTTPSampleResult) result, store);
+    } catch (RuntimeException e) {
+      LOG.warn("Could not store body of {}. Keeping it in memory.", result.getSampleLabel(), e);
+      return result;
+    }
+  }
+
+  private synchronized void storeBody(byte[] body) {
+    byte[] data = body == null ? EMPTY_BODY : body;
+    bodyOffset = store.append(data);
+    bodyLength = data.length;
+    cachedBody = null;
+    super.setResponseData(EMPTY_BODY);
+  }
+
+  @Override
+  public void setResponseData(byte[] response) {
+    // the copy constructor sets the body before the store is available
+    if (store == null) {
+      super.setResponseData(response);
+    } else {
+      storeBody(response);
+    }
+  }
+
+  @Override
+  public synchronized byte[] getResponseData() {
+    if (store == null) {
+      return super.getResponseData();
+    }
+    byte[] ret = cachedBody != null ? cachedBody.get() : null;
+    if (ret == null) {
+      ret = store.read(bodyOffset, bodyLength);
+      cachedBody = new SoftReference<>(ret);
+    }
+    return ret;
+  }
+
+  /*
+   The store is not serialized, so a regular result with the body is serialized instead.
+   */
+  private Object writeReplace() {
+    HTTPSampleResult ret = new HTTPSampleResult(this);
+    ret.setResponseData(getResponseData());
+    return ret;
+  }
+
+  @Override
+  public String getResponseDataAsString() {
+    byte[] data = getResponseData();
+    try {
+      return new String(data, getDataEncodingWithDefault());
+    } catch (UnsupportedEncodingException e) {
+      LOG.warn("Using platform default as {} caused {}", getDataEncodingWithDefault(), e);
+      return new String(data);
+    }
+  }
+
+}
@@ -0,0 +1,251 @@
+package com.blazemeter.jmeter.correlation.core.automatic;
+
+import com.blazemeter.jmeter.correlation.core.automatic.ResultFileParser.CustomVisualizer;
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.AbstractCollection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import org.apache.jmeter.reporters.ResultCollector;
+import org.apache.jmeter.reporters.ResultCollectorHelper;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.save.CSVSaveService;
+import org.apache.jmeter.save.SaveService;
+import org.apache.jorphan.util.JMeterError;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Iterates over the SampleResults of a jtl file while the file is being parsed, so only a few of
+ * them are kept in memory at any time, regardless of the size of the file.
+ *
+ * <p>The file is parsed by JMeter's {@link ResultCollector} in a dedicated thread, which hands the
+ * results (already filtered by the {@link CustomVisualizer}) through a bounded queue, so the
+ * parsing is paused while the consumer is busy processing the previous results.
+ *
+ * <p>Unlike {@link ResultCollector#loadExistingFile()}, errors found while parsing the file are
+ * not just logged (nor shown in a dialog): they are rethrown to the consumer from
+ * {@link #hasNext()}, so a corrupted file is not silently taken as a shorter one.
+ *
+ * <p>Instances must be closed if they are not iterated until the end, to stop the parsing thread.
+ */
+public class StreamingResultsReader implements Iterator<SampleResult>, Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(StreamingResultsReader.class);
+  private static final int QUEUE_CAPACITY = 16;
+  private static final Object END_OF_FILE = new Object();
+
+  private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+  private final Thread parser;
+  private Object next;
+  private volatile boolean closed;
+
+  public StreamingResultsReader(File file, boolean shouldFilter, Configuration configuration) {
+    parser = new Thread(() -> parse(file, shouldFilter, configuration),
+        "correlation-results-reader");
+    parser.setDaemon(true);
+    parser.start();
+  }
+
+  private void parse(File file, boolean shouldFilter, Configuration configuration) {
+    try {
+      ResultCollector collector = new ResultCollector();
+      collector.setFilename(file.getAbsolutePath());
+      CustomVisualizer visualizer = new CustomVisualizer(shouldFilter,
+          new JMeterElementUtils(configuration), new QueueCollection());
+      configuration.isDebugModeEnabled().ifPresent(visualizer::setDebugEnabled);
+      collector.setListener(visualizer);
+      loadFile(file, collector, visualizer);
+    } catch (IOException | RuntimeException e) {
+      reportFailure(file, e);
+    } catch (JMeterError e) {
+      // JMeterError is an Error, so it is wrapped to be rethrown as any other parsing failure
+      reportFailure(file, new IllegalStateException(e.getMessage(), e));
+    } finally {
+      offerEndOfFile();
+    }
+  }
+
+  /*
+   Same as ResultCollector.loadExistingFile, but propagating the errors instead of reporting them
+   in a dialog, and stopping the parse of XML files as soon as the reader is closed.
+   */
+  private void loadFile(File file, ResultCollector collector, CustomVisualizer visualizer)
+      throws IOException {
+    if (!file.exists()) {
+      throw new IOException("File " + file.getAbsolutePath() + " does not exist");
+    }
+    String firstLine;
+    try (BufferedReader reader = Files.newBufferedReader(file.toPath(),
+        StandardCharsets.UTF_8)) {
+      firstLine = reader.readLine();
+    }
+    if (firstLine == null) {
+      LOG.warn("{} is empty", file.getAbsolutePath());
+    } else if (firstLine.startsWith("<?xml ")) {
+      try (InputStream input = new ClosableInputStream(
+          new BufferedInputStream(new FileInputStream(file)))) {
+        SaveService.loadTestResults(input, new ResultCollectorHelper(collector, visualizer));
+      }
+    } else {
+      CSVSaveService.processSamples(file.getAbsolutePath(), visualizer, collector);
+    }
+  }
+
+  private void reportFailure(File file, Exception failure) {
+    if (!closed) {
+      LOG.error("Error while loading the result from the file {} ", file.getAbsolutePath(),
+          failure);
+      offerFailure(failure);
+    }
+  }
+
+  private void offerFailure(Exception failure) {
+    try {
+      queue.put(new ParseFailure(failure));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void offerEndOfFile() {
+    try {
+      queue.put(END_OF_FILE);
+    } catch (InterruptedException e) {
+      // the reader was closed, so there is no need to keep the pending results
+      queue.clear();
+      queue.offer(END_OF_FILE);
+    }
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (next == null) {
+      try {
+        next = queue.take();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        close();
+        next = END_OF_FILE;
+      }
+    }
+    if (next instanceof ParseFailure) {
+      Exception failure = ((ParseFailure) next).failure;
+      next = END_OF_FILE;
+      throw failure instanceof IOException
+          ? new UncheckedIOException((IOException) failure)
+          : new IllegalStateException("Error while loading the results", failure);
+    }
+    return next != END_OF_FILE;
+  }
+
+  @Override
+  public SampleResult next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    SampleResult ret = (SampleResult) next;
+    next = null;
+    return ret;
+  }
+
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    parser.interrupt();
+    queue.clear();
+  }
+
+  private static class ParseFailure {
+
+    private final Exception failure;
+
+    private ParseFailure(Exception failure) {
+      this.failure = failure;
+    }
+
+  }
+
+  /*
+   Collection where the CustomVisualizer adds the results, which blocks the parsing until there is
+   room in the queue. Once the reader is closed, the results are just discarded, since nobody is
+   going to consume them.
+   */
+  private class QueueCollection extends AbstractCollection<SampleResult> {
+
+    @Override
+    public boolean add(SampleResult result) {
+      if (closed) {
+        return false;
+      }
+      try {
+        queue.put(result);
+        return true;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    }
+
+    @Override
+    public Iterator<SampleResult> iterator() {
+      return queue.stream()
+          .filter(SampleResult.class::isInstance)
+          .map(SampleResult.class::cast)
+          .iterator();
+    }
+
+    @Override
+    public int size() {
+      return (int) queue.stream()
+          .filter(SampleResult.class::isInstance)
+          .count();
+    }
+
+  }
+
+  /*
+   Input stream which stops providing content once the reader is closed, so the parser doesn't keep
+   reading the rest of the file.
+   */
+  private class ClosableInputStream extends FilterInputStream {
+
+    private ClosableInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      checkNotClosed();
+      return super.read();
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      checkNotClosed();
+      return super.read(b, off, len);
+    }
+
+    private void checkNotClosed() throws IOException {
+      if (closed) {
+        throw new IOException("Results reader closed");
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,120 @@
+package com.blazemeter.jmeter.correlation.core.automatic;
+
+import com.blazemeter.jmeter.correlation.core.automatic.extraction.location.LocationType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.jmeter.samplers.SampleResult;
+
+/**
+ * Inverted index from the candidate values (and their encoded forms) to the responses where they
+ * appear.
+ *
+ * <p>The index is built scanning each response only once for all the values (check
+ * {@link ArgumentValuesIndex}), so finding the responses where a value appears doesn't require
+ * going through all the responses again for every dynamic element.
+ */
+public class ValueOccurrenceIndex {
+
+  private int resultsCount;
+  private final Map<String, List<ResultOccurrences>> occurrences = new HashMap<>();
+
+  /**
+   * Builds the index scanning the results once.
+   * <p>
+   * Only the results containing any of the values are referenced by the index, so the results can
+   * be provided lazily (eg: while they are parsed from a file) to keep the rest of them out of
+   * memory.
+   *
+   * @param analyzer The analyzer used to locate the values in the results
+   * @param results The results to index, in the order they were recorded
+   * @param values The values to search in the results
+   */
+  public ValueOccurrenceIndex(ResponseAnalyzer analyzer, Iterable<SampleResult> results,
+      Collection<String> values) {
+    ArgumentValuesIndex valuesIndex = analyzer.indexArgumentValues(values);
+    for (SampleResult result : results) {
+      int resultIndex = resultsCount++;
+      valuesIndex.findLocations(result).forEach((value, locations) -> {
+        Map<String, List<Pair<LocationType, String>>> valueLocations = new HashMap<>();
+        valueLocations.put(value, locations);
+        occurrences.computeIfAbsent(value, v -> new ArrayList<>())
+            .add(new ResultOccurrences(resultIndex, result, valueLocations));
+      });
+    }
+  }
+
+  /**
+   * Gets the responses where the value appears.
+   *
+   * @param value The value to search
+   * @return The occurrences of the value, in the same order as the indexed responses
+   */
+  public List<ResultOccurrences> getOccurrences(String value) {
+    return occurrences.getOrDefault(value, Collections.emptyList());
+  }
+
+  /**
+   * Gets the responses where any of the values appear, merging the locations of all the values
+   * found in each response.
+   *
+   * @param values The values to search
+   * @return The occurrences of the values, in the same order as the indexed responses
+   */
+  public List<ResultOccurrences> findOccurrences(Collection<String> values) {
+    Map<Integer, ResultOccurrences> ret = new TreeMap<>();
+    for (String value : new LinkedHashSet<>(values)) {
+      for (ResultOccurrences occurrence : getOccurrences(value)) {
+        ret.computeIfAbsent(occurrence.resultIndex,
+                i -> new ResultOccurrences(i, occurrence.result, new HashMap<>()))
+            .locations.putAll(occurrence.locations);
+      }
+    }
+    return new ArrayList<>(ret.values());
+  }
+
+  public int getResultsCount() {
+    return resultsCount;
+  }
+
+  /**
+   * Locations of the values found in a single response.
+   */
+  public static class ResultOccurrences {
+
+    private final int resultIndex;
+    private final SampleResult result;
+    private final Map<String, List<Pair<LocationType, String>>> locations;
+
+    private ResultOccurrences(int resultIndex, SampleResult result,
+        Map<String, List<Pair<LocationType, String>>> locations) {
+      this.resultIndex = resultIndex;
+      this.result = result;
+      this.locations = locations;
+    }
+
+    public int getResultIndex() {
+      return resultIndex;
+    }
+
+    public SampleResult getResult() {
+      return result;
+    }
+
+    /**
+     * @return The locations of each value in the response, as returned by
+     * {@link ArgumentValuesIndex#findLocations(SampleResult)}
+     */
+    public Map<String, List<Pair<LocationType, String>>> getLocations() {
+      return locations;
+    }
+
+  }
+
+}
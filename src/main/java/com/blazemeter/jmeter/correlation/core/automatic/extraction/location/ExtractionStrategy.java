@@ -7,7 +7,20 @@ import org.apache.jmeter.samplers.SampleResult;
 
 public interface ExtractionStrategy {
 
-  Pair<LocationType, String> identifyLocationInResponse(SampleResult response, String value);
+  LocationType getLocationType();
+
+  /**
+   * Gets the part of the response where this strategy looks for the values.
+   *
+   * @param response The response to get the content from
+   * @return The content where the values are searched
+   */
+  String getSearchableContent(SampleResult response);
+
+  default Pair<LocationType, String> identifyLocationInResponse(SampleResult response,
+      String value) {
+    return getLocationAndValue(getSearchableContent(response), value, getLocationType());
+  }
 
   static Pair<LocationType, String> getLocationAndValue(String content, String value,
                                                         LocationType location) {
@@ -1,18 +1,18 @@
 package com.blazemeter.jmeter.correlation.core.automatic.extraction.location;
 
-import org.apache.commons.lang3.tuple.Pair;
 import org.apache.jmeter.samplers.SampleResult;
 
 public class HeaderExtractionStrategy implements ExtractionStrategy {
 
   @Override
-  public Pair<LocationType, String> identifyLocationInResponse(SampleResult response,
-      String value) {
+  public LocationType getLocationType() {
+    return LocationType.HEADER;
+  }
+
+  @Override
+  public String getSearchableContent(SampleResult response) {
     // Logic to determine if the argument is in the headers
-    String headersWithoutSetCookies =
-        getCleanedResponseHeaders(String.valueOf(response.getResponseHeaders()));
-    return ExtractionStrategy.getLocationAndValue(headersWithoutSetCookies, value,
-        LocationType.HEADER);
+    return getCleanedResponseHeaders(String.valueOf(response.getResponseHeaders()));
   }
 
   private static String getCleanedResponseHeaders(String responseHeadersRaw) {
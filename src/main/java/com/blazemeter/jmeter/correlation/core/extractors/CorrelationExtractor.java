@@ -1,9 +1,11 @@
 package com.blazemeter.jmeter.correlation.core.extractors;
 
+import com.blazemeter.jmeter.correlation.core.BaseCorrelationContext;
 import com.blazemeter.jmeter.correlation.core.CorrelationContext;
 import com.blazemeter.jmeter.correlation.core.CorrelationRulePartTestElement;
 import com.blazemeter.jmeter.correlation.core.DescriptionContent;
 import com.blazemeter.jmeter.correlation.core.analysis.AnalysisReporter;
+import com.blazemeter.jmeter.correlation.core.metrics.RuleExecution;
 import com.blazemeter.jmeter.correlation.core.templates.CorrelationRuleSerializationPropertyFilter;
 import com.blazemeter.jmeter.correlation.gui.CorrelationRuleTestElement;
 import com.fasterxml.jackson.annotation.JsonFilter;
@@ -167,6 +169,37 @@ public abstract class CorrelationExtractor<T extends CorrelationContext> extends
     return new ArrayList<>();
   }
 
+  /**
+   * Checks if all the values stored by the extractor are stored through
+   * {@link #putVariable(JMeterVariables, String, String)}, and so indexed in the context.
+   *
+   * <p>Replacements only look for variables through the indexed values when all the extractors
+   * storing them index their values, since values stored in any other way (eg: custom extractors
+   * using {@link JMeterVariables#put(String, String)}) would not be found. Extractors must
+   * override this method only when that's the case.
+   *
+   * @return true if all the stored values are indexed, false otherwise
+   */
+  public boolean indexesStoredValues() {
+    return false;
+  }
+
+  /**
+   * Stores the value extracted in a variable, and registers it in the context (when it's a
+   * {@link BaseCorrelationContext}) so replacements can find the variable by its value.
+   *
+   * @param vars stored variables shared between requests during recording
+   * @param varName name of the variable generated from the variable name of the extractor
+   * @param value the value to store
+   */
+  protected void putVariable(JMeterVariables vars, String varName, String value) {
+    vars.put(varName, value);
+    RuleExecution.recordStoredValue();
+    if (context instanceof BaseCorrelationContext) {
+      ((BaseCorrelationContext) context).indexVariableValue(variableName, varName, value);
+    }
+  }
+
   protected void clearJMeterVariables(JMeterVariables vars) {
     Set<Map.Entry<String, Object>> entries = new HashSet<>(vars.entrySet());
     entries.forEach(e -> {
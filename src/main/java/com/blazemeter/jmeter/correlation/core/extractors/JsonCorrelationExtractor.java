@@ -89,6 +89,12 @@ public class JsonCorrelationExtractor<T extends BaseCorrelationContext> extends
     this.jsonpath = path;
   }
 
+  @Override
+  public boolean indexesStoredValues() {
+    // extending classes may put values in other ways, so they have to declare it on their own
+    return getClass() == JsonCorrelationExtractor.class;
+  }
+
   @Override
   public String getDisplayName() {
     return "JSON";
@@ -193,7 +199,7 @@ public class JsonCorrelationExtractor<T extends BaseCorrelationContext> extends
         matchedVariableChildPP = matchedVariable + "_matchNr";
         int matchNr = 1;
         for (String match : matches) {
-          vars.put(varName + "_" + matchNr, match);
+          putVariable(vars, varName + "_" + matchNr, match);
           matchNr++;
         }
       }
@@ -276,7 +282,7 @@ public class JsonCorrelationExtractor<T extends BaseCorrelationContext> extends
     if (AnalysisReporter.canCorrelate()) {
       currentSamplersChild.add(postProcessor);
     }
-    currentVars.put(variableName, match);
+    putVariable(currentVars, variableName, match);
   }
 
   private String generateVariableName() {
@@ -287,6 +293,10 @@ public class JsonCorrelationExtractor<T extends BaseCorrelationContext> extends
     this.multiValued = multiValued;
   }
 
+  public boolean isMultiValued() {
+    return multiValued;
+  }
+
   @Override
   public List<AbstractTestElement> createPostProcessors(String variableName, int i) {
     List<AbstractTestElement> extractors = new ArrayList<>();
@@ -1,11 +1,13 @@
 package com.blazemeter.jmeter.correlation.core.extractors;
 
 import com.blazemeter.jmeter.correlation.core.BaseCorrelationContext;
+import com.blazemeter.jmeter.correlation.core.CompiledPatternCache;
 import com.blazemeter.jmeter.correlation.core.CorrelationContext;
 import com.blazemeter.jmeter.correlation.core.ParameterDefinition;
 import com.blazemeter.jmeter.correlation.core.ParameterDefinition.CheckBoxParameterDefinition;
 import com.blazemeter.jmeter.correlation.core.ParameterDefinition.ComboParameterDefinition;
 import com.blazemeter.jmeter.correlation.core.ParameterDefinition.TextParameterDefinition;
+import com.blazemeter.jmeter.correlation.core.RegexEngine;
 import com.blazemeter.jmeter.correlation.core.RegexMatcher;
 import com.blazemeter.jmeter.correlation.core.analysis.AnalysisReporter;
 import com.blazemeter.jmeter.correlation.gui.CorrelationRuleTestElement;
@@ -21,6 +23,7 @@ import org.apache.jmeter.samplers.SampleResult;
 import org.apache.jmeter.testelement.AbstractTestElement;
 import org.apache.jmeter.testelement.TestElement;
 import org.apache.jmeter.threads.JMeterVariables;
+import org.apache.oro.text.regex.MalformedPatternException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -45,6 +48,9 @@ public class RegexCorrelationExtractor<T extends BaseCorrelationContext> extends
   protected static final String DEFAULT_MATCH_NUMBER_NAME = "match number";
   protected static final String MULTIVALUED_DESCRIPTION = "Multivalued";
   protected static final boolean DEFAULT_MULTIVALUED = false;
+  protected static final String LINEAR_REGEX_NAME = EXTRACTOR_PREFIX + "linearRegex";
+  protected static final String LINEAR_REGEX_DESCRIPTION = "Linear-time matching";
+  protected static final boolean DEFAULT_LINEAR_REGEX = false;
 
   private static final Logger LOG = LoggerFactory.getLogger(RegexCorrelationExtractor.class);
   private static final String REGEX_EXTRACTOR_GUI_CLASS = RegexExtractorGui.class.getName();
@@ -53,8 +59,10 @@ public class RegexCorrelationExtractor<T extends BaseCorrelationContext> extends
   protected String regex;
   protected int matchNr;
   protected int groupNr;
+  protected boolean linearRegex;
   private transient JMeterVariables currentVars;
   private transient List<TestElement> currentSamplersChild;
+  private final transient CompiledPatternCache patternCache = new CompiledPatternCache();
 
   /**
    * Default constructor added in order to satisfy the JSON conversion.
@@ -125,11 +133,24 @@ public class RegexCorrelationExtractor<T extends BaseCorrelationContext> extends
     return testElem.getPropertyAsBoolean(MULTIVALUED_NAME, DEFAULT_MULTIVALUED);
   }
 
+  private boolean isLinearRegex(CorrelationRuleTestElement testElem) {
+    return testElem.getPropertyAsBoolean(LINEAR_REGEX_NAME, DEFAULT_LINEAR_REGEX);
+  }
+
+  /*
+   Subclasses may store values without indexing them, so they have to explicitly declare they
+   index all of them.
+   */
+  @Override
+  public boolean indexesStoredValues() {
+    return getClass() == RegexCorrelationExtractor.class;
+  }
+
   @Override
   public List<String> getParams() {
     return Arrays
         .asList(regex, Integer.toString(matchNr), Integer.toString(groupNr), target.name(),
-            Boolean.toString(multiValued));
+            Boolean.toString(multiValued), Boolean.toString(linearRegex));
   }
 
   @Override
@@ -142,6 +163,8 @@ public class RegexCorrelationExtractor<T extends BaseCorrelationContext> extends
     target = params.size() > 3 && !params.get(3).isEmpty() ? ResultField.valueOf(params.get(3))
         : DEFAULT_TARGET_VALUE;
     multiValued = params.size() >= 4 && Boolean.parseBoolean(params.get(4));
+    linearRegex = params.size() > 5 ? Boolean.parseBoolean(params.get(5)) : DEFAULT_LINEAR_REGEX;
+    patternCache.invalidate();
   }
 
   @Override
@@ -160,7 +183,9 @@ public class RegexCorrelationExtractor<T extends BaseCorrelationContext> extends
         new ComboParameterDefinition(TARGET_FIELD_NAME, TARGET_FIELD_DESCRIPTION,
             ResultField.BODY.name(), ResultField.getNamesToCodesMapping(), true),
         new CheckBoxParameterDefinition(MULTIVALUED_NAME, MULTIVALUED_DESCRIPTION,
-            DEFAULT_MULTIVALUED, true));
+            DEFAULT_MULTIVALUED, true),
+        new CheckBoxParameterDefinition(LINEAR_REGEX_NAME, LINEAR_REGEX_DESCRIPTION,
+            DEFAULT_LINEAR_REGEX, true));
   }
 
   @Override
@@ -172,6 +197,7 @@ public class RegexCorrelationExtractor<T extends BaseCorrelationContext> extends
     testElem.setProperty(TARGET_FIELD_NAME,
         target != null ? target.name() : ResultField.BODY.name());
     testElem.setProperty(MULTIVALUED_NAME, multiValued);
+    testElem.setProperty(LINEAR_REGEX_NAME, linearRegex);
   }
 
   protected void setGroupNr(int groupNr) {
@@ -205,7 +231,10 @@ public class RegexCorrelationExtractor<T extends BaseCorrelationContext> extends
     this.currentVars = vars;
     this.currentSamplersChild = children;
 
-    RegexMatcher regexMatcher = new RegexMatcher(regex, groupNr);
+    RegexMatcher regexMatcher = buildRegexMatcher();
+    if (regexMatcher == null) {
+      return;
+    }
     if (matchNr >= 0) {
       String field = target.getField(result);
       String match = regexMatcher.findMatch(field, matchNr);
@@ -235,7 +264,7 @@ public class RegexCorrelationExtractor<T extends BaseCorrelationContext> extends
 
         int matchNr = 1;
         for (String match : matches) {
-          vars.put(varName + "_" + matchNr, match);
+          putVariable(vars, varName + "_" + matchNr, match);
           matchNr++;
         }
       }
@@ -243,12 +272,28 @@ public class RegexCorrelationExtractor<T extends BaseCorrelationContext> extends
 
   }
 
+  /*
+   The post processors use ORO during replay, so it is used by default while recording too, and the
+   linear engine only when the rule opts into it.
+   */
+  private RegexMatcher buildRegexMatcher() {
+    if (!linearRegex) {
+      return new RegexMatcher(regex, groupNr);
+    }
+    try {
+      return new RegexMatcher(patternCache.getPattern(regex, RegexEngine.LINEAR), groupNr);
+    } catch (MalformedPatternException e) {
+      LOG.warn("Malformed pattern: {}", regex, e);
+      return null;
+    }
+  }
+
   private void addVarAndChildPostProcessor(String match, String variableName,
                                            RegexExtractor postProcessor) {
     if (AnalysisReporter.canCorrelate()) {
       currentSamplersChild.add(postProcessor);
     }
-    currentVars.put(variableName, match);
+    putVariable(currentVars, variableName, match);
   }
 
   private String generateVariableName() {
@@ -284,6 +329,8 @@ public class RegexCorrelationExtractor<T extends BaseCorrelationContext> extends
     matchNr = getMatchNumber(testElem);
     groupNr = getGroupNumber(testElem);
     multiValued = isMultiValued(testElem);
+    linearRegex = isLinearRegex(testElem);
+    patternCache.invalidate();
   }
 
   /**
@@ -301,6 +348,7 @@ public class RegexCorrelationExtractor<T extends BaseCorrelationContext> extends
         ", matchNr=" + matchNr +
         ", groupNr=" + groupNr +
         ", multiValued=" + multiValued +
+        ", linearRegex=" + linearRegex +
         '}';
   }
 
@@ -316,12 +364,13 @@ public class RegexCorrelationExtractor<T extends BaseCorrelationContext> extends
     return matchNr == that.matchNr &&
         groupNr == that.groupNr &&
         Objects.equals(regex, that.regex) &&
-        multiValued == that.multiValued;
+        multiValued == that.multiValued &&
+        linearRegex == that.linearRegex;
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(regex, matchNr, groupNr, multiValued);
+    return Objects.hash(regex, matchNr, groupNr, multiValued, linearRegex);
   }
 
   @Override
@@ -333,6 +382,23 @@ public class RegexCorrelationExtractor<T extends BaseCorrelationContext> extends
     this.multiValued = multiValued;
   }
 
+  public boolean isMultiValued() {
+    return multiValued;
+  }
+
+  public String getRegex() {
+    return regex;
+  }
+
+  public void setLinearRegex(boolean linearRegex) {
+    this.linearRegex = linearRegex;
+    patternCache.invalidate();
+  }
+
+  public boolean isLinearRegex() {
+    return linearRegex;
+  }
+
   @Override
   public List<AbstractTestElement> createPostProcessors(String variableName, int i) {
     RegexExtractor regexExtractor = new RegexExtractor();
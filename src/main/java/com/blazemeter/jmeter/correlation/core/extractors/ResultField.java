@@ -46,7 +46,7 @@ public enum ResultField {
   }
 
   public String getField(SampleResult r) {
-    return getFieldFunction.apply(r);
+    return ResultFieldCache.getField(this, r, getFieldFunction);
   }
 
   public String getCode() {
@@ -0,0 +1,59 @@
+package com.blazemeter.jmeter.correlation.core.extractors;
+
+import com.blazemeter.jmeter.correlation.core.metrics.RuleExecution;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Function;
+import org.apache.jmeter.samplers.SampleResult;
+
+/**
+ * Cache of the fields obtained from the sample result being processed by the current thread.
+ *
+ * <p>Getting some fields (eg: {@link ResultField#BODY_UNESCAPED} or
+ * {@link ResultField#BODY_AS_A_DOCUMENT}) requires decoding, unescaping or parsing the whole
+ * response, so while the cache is open for a sample result, {@link ResultField#getField} gets each
+ * field at most once, regardless of how many extractors target it.
+ *
+ * <p>The cache must be released once the sample result is processed, so the decoded fields are not
+ * kept in memory. Sample results other than the one the cache was opened for are not cached.
+ */
+public final class ResultFieldCache {
+
+  private static final ThreadLocal<ResultFieldCache> CURRENT = new ThreadLocal<>();
+
+  private final SampleResult result;
+  private final Map<ResultField, String> fields = new EnumMap<>(ResultField.class);
+
+  private ResultFieldCache(SampleResult result) {
+    this.result = result;
+  }
+
+  /**
+   * Opens the cache of the current thread for the given sample result, replacing any previously
+   * opened one.
+   *
+   * @param result the sample result whose fields are cached
+   */
+  public static void open(SampleResult result) {
+    CURRENT.set(new ResultFieldCache(result));
+  }
+
+  /**
+   * Releases the cache of the current thread, and all the fields stored in it.
+   */
+  public static void release() {
+    CURRENT.remove();
+  }
+
+  static String getField(ResultField field, SampleResult result,
+      Function<SampleResult, String> getFieldFunction) {
+    ResultFieldCache cache = CURRENT.get();
+    String ret = cache == null || cache.result != result ? getFieldFunction.apply(result)
+        : cache.fields.computeIfAbsent(field, f -> getFieldFunction.apply(result));
+    if (ret != null) {
+      RuleExecution.recordScannedCharacters(ret.length());
+    }
+    return ret;
+  }
+
+}
@@ -0,0 +1,230 @@
+package com.blazemeter.jmeter.correlation.core.metrics;
+
+import com.blazemeter.jmeter.correlation.core.CorrelationRule;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.apache.jmeter.util.JMeterUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Execution metrics of the extractors and replacements of the rules of a correlation engine.
+ *
+ * <p>Each extractor and replacement of the rules has its own {@link RulePartMetrics}, which are
+ * updated through the {@link RuleExecution} obtained from {@link #newExecution(Object)}, and can
+ * be exposed as JMX MBeans (check {@link #registerMBeans()}) or dumped to a CSV file (check
+ * {@link #saveCsv(String)}).
+ */
+public class CorrelationRulesMetrics {
+
+  public static final String ENABLED_PROPERTY = "correlation.engine.metrics";
+  private static final Logger LOG = LoggerFactory.getLogger(CorrelationRulesMetrics.class);
+  private static final String MBEANS_DOMAIN = "com.blazemeter.jmeter.correlation";
+  private static final String EXTRACTOR_PART = "Extractor";
+  private static final String REPLACEMENT_PART = "Replacement";
+  private static final AtomicInteger INSTANCES_COUNT = new AtomicInteger();
+  private static final String[] CSV_HEADERS = {"Rule", "Part", "Type", "Invocations", "Matches",
+      "Stored values", "Total time (ms)", "Average time (us)", "Max time (us)",
+      "Scanned characters", "Suspended"};
+  private static final String LATENCY_HEADER_PREFIX = "Latency ";
+
+  private final int instanceId = INSTANCES_COUNT.incrementAndGet();
+  private volatile Map<Object, RulePartMetrics> metricsByRulePart = new IdentityHashMap<>();
+  private volatile List<RulePartMetrics> metrics = Collections.emptyList();
+  private final List<ObjectName> registeredMBeans = new ArrayList<>();
+  private boolean mbeansRegistered;
+
+  /**
+   * Creates the metrics of the rules, if they are enabled by the
+   * {@value #ENABLED_PROPERTY} property.
+   *
+   * @return the metrics, or null when they are disabled
+   */
+  public static CorrelationRulesMetrics createIfEnabled() {
+    return JMeterUtils.getPropDefault(ENABLED_PROPERTY, true) ? new CorrelationRulesMetrics()
+        : null;
+  }
+
+  /**
+   * Sets the rules whose extractors and replacements are measured, discarding the metrics of the
+   * previous ones.
+   *
+   * @param rules the rules applied by the correlation engine
+   */
+  public synchronized void setRules(List<CorrelationRule> rules) {
+    Map<Object, RulePartMetrics> newMetricsByRulePart = new IdentityHashMap<>();
+    List<RulePartMetrics> newMetrics = new ArrayList<>();
+    for (CorrelationRule rule : rules) {
+      addRulePart(rule, rule.getCorrelationExtractor(), EXTRACTOR_PART, newMetricsByRulePart,
+          newMetrics);
+      addRulePart(rule, rule.getCorrelationReplacement(), REPLACEMENT_PART, newMetricsByRulePart,
+          newMetrics);
+    }
+    metricsByRulePart = newMetricsByRulePart;
+    metrics = Collections.unmodifiableList(newMetrics);
+    if (mbeansRegistered) {
+      unregisterMBeans();
+      registerMBeans();
+    }
+  }
+
+  private static void addRulePart(CorrelationRule rule, Object rulePart, String part,
+      Map<Object, RulePartMetrics> metricsByRulePart, List<RulePartMetrics> metrics) {
+    if (rulePart == null || metricsByRulePart.containsKey(rulePart)) {
+      return;
+    }
+    RulePartMetrics partMetrics = new RulePartMetrics(rule.getReferenceName(), part,
+        rulePart.getClass().getSimpleName());
+    metricsByRulePart.put(rulePart, partMetrics);
+    metrics.add(partMetrics);
+  }
+
+  /**
+   * Creates a paused execution of the given extractor or replacement.
+   *
+   * @param rulePart the extractor or replacement to execute
+   * @return the execution to resume while the rule part is processing a sample, or
+   * {@link RuleExecution#DISABLED} when the rule part doesn't belong to the measured rules
+   */
+  public RuleExecution newExecution(Object rulePart) {
+    RulePartMetrics partMetrics = metricsByRulePart.get(rulePart);
+    return partMetrics != null ? new RuleExecution(partMetrics) : RuleExecution.DISABLED;
+  }
+
+  /**
+   * Gets the metrics of the given extractor or replacement.
+   *
+   * @param rulePart the extractor or replacement to get the metrics for
+   * @return the metrics of the rule part, or null when it doesn't belong to the measured rules
+   */
+  public RulePartMetrics getMetrics(Object rulePart) {
+    return metricsByRulePart.get(rulePart);
+  }
+
+  /**
+   * Gets the metrics of the extractors and replacements, in the order of the rules.
+   *
+   * @return the metrics of each rule part
+   */
+  public List<RulePartMetrics> getMetrics() {
+    return metrics;
+  }
+
+  public void reset() {
+    metrics.forEach(RulePartMetrics::reset);
+  }
+
+  /**
+   * Writes the metrics of each rule part as a CSV row, followed by the count of invocations in each
+   * range of the latency histogram (check {@link RulePartMetrics#getLatencyRanges()}).
+   *
+   * @param writer the writer where to write the CSV content
+   * @throws IOException when the content can't be written
+   */
+  public void writeCsv(Writer writer) throws IOException {
+    writer.write(String.join(",", CSV_HEADERS));
+    for (String range : RulePartMetrics.getLatencyRanges()) {
+      writer.write("," + LATENCY_HEADER_PREFIX + range);
+    }
+    writer.write(System.lineSeparator());
+    for (RulePartMetrics partMetrics : metrics) {
+      long invocations = partMetrics.getInvocations();
+      writer.write(String.join(",",
+          escapeCsv(partMetrics.getRule()),
+          partMetrics.getPart(),
+          partMetrics.getType(),
+          String.valueOf(invocations),
+          String.valueOf(partMetrics.getMatches()),
+          String.valueOf(partMetrics.getStoredValues()),
+          String.valueOf(partMetrics.getTotalNanos() / 1_000_000),
+          String.valueOf(invocations == 0 ? 0 : partMetrics.getTotalNanos() / invocations / 1000),
+          String.valueOf(partMetrics.getMaxNanos() / 1000),
+          String.valueOf(partMetrics.getScannedCharacters()),
+          String.valueOf(partMetrics.isSuspended())));
+      for (long count : partMetrics.getLatencyHistogram()) {
+        writer.write("," + count);
+      }
+      writer.write(System.lineSeparator());
+    }
+  }
+
+  private static String escapeCsv(String value) {
+    if (value == null) {
+      return "";
+    }
+    return value.contains(",") || value.contains("\"") || value.contains("\n")
+        ? "\"" + value.replace("\"", "\"\"") + "\"" : value;
+  }
+
+  /**
+   * Saves the metrics in a CSV file, creating its parent folders if needed.
+   *
+   * @param filePath the path of the file to save the metrics to
+   * @throws IOException when the file can't be written
+   */
+  public void saveCsv(String filePath) throws IOException {
+    File file = new File(filePath);
+    File parent = file.getParentFile();
+    if (parent != null && !parent.exists() && !parent.mkdirs()) {
+      throw new IOException("Could not create the folder " + parent);
+    }
+    try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+      writeCsv(writer);
+    }
+  }
+
+  /**
+   * Registers the metrics of each rule part as an MBean in the platform MBean server, so they can
+   * be monitored with any JMX client (eg: JConsole or VisualVM).
+   *
+   * <p>The MBeans are kept in sync with the rules until {@link #unregisterMBeans()} is invoked.
+   */
+  public synchronized void registerMBeans() {
+    if (mbeansRegistered) {
+      return;
+    }
+    mbeansRegistered = true;
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    for (int i = 0; i < metrics.size(); i++) {
+      RulePartMetrics partMetrics = metrics.get(i);
+      try {
+        ObjectName name = new ObjectName(MBEANS_DOMAIN + ":type=CorrelationRuleMetrics,engine="
+            + instanceId + ",index=" + i + ",rule="
+            + ObjectName.quote(String.valueOf(partMetrics.getRule())) + ",part="
+            + partMetrics.getPart());
+        server.registerMBean(partMetrics, name);
+        registeredMBeans.add(name);
+      } catch (JMException e) {
+        LOG.warn("Could not register the metrics of the rule {} as an MBean",
+            partMetrics.getRule(), e);
+      }
+    }
+  }
+
+  public synchronized void unregisterMBeans() {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    for (ObjectName name : registeredMBeans) {
+      try {
+        server.unregisterMBean(name);
+      } catch (JMException e) {
+        LOG.warn("Could not unregister the MBean {}", name, e);
+      }
+    }
+    registeredMBeans.clear();
+    mbeansRegistered = false;
+  }
+
+}
@@ -0,0 +1,102 @@
+package com.blazemeter.jmeter.correlation.core.metrics;
+
+/**
+ * Measures the execution of a rule part over a sample, to record it in its
+ * {@link RulePartMetrics} when finished.
+ *
+ * <p>An execution can be paused and resumed, so the time of a rule part whose work is interleaved
+ * with the one of other rule parts (eg: batched replacements) is measured properly. While an
+ * execution is running, the characters scanned from the sample fields and the values stored in
+ * variables by the current thread are attributed to it (check
+ * {@link #recordScannedCharacters(int)} and {@link #recordStoredValue()}).
+ */
+public final class RuleExecution {
+
+  /**
+   * Execution which measures nothing, used when metrics are disabled.
+   */
+  public static final RuleExecution DISABLED = new RuleExecution(null);
+  private static final ThreadLocal<RuleExecution> CURRENT = new ThreadLocal<>();
+
+  private final RulePartMetrics metrics;
+  private long startNanos;
+  private long elapsedNanos;
+  private long scannedCharacters;
+  private long storedValues;
+  private boolean matched;
+  private boolean running;
+
+  RuleExecution(RulePartMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  /**
+   * Records the characters of a sample field read by the execution running in the current thread,
+   * if any.
+   *
+   * @param characters the number of characters of the field
+   */
+  public static void recordScannedCharacters(int characters) {
+    RuleExecution execution = CURRENT.get();
+    if (execution != null) {
+      execution.scannedCharacters += characters;
+    }
+  }
+
+  /**
+   * Records a value stored in a variable by the execution running in the current thread, if any.
+   */
+  public static void recordStoredValue() {
+    RuleExecution execution = CURRENT.get();
+    if (execution != null) {
+      execution.storedValues++;
+    }
+  }
+
+  public void resume() {
+    if (metrics == null || running) {
+      return;
+    }
+    running = true;
+    CURRENT.set(this);
+    startNanos = System.nanoTime();
+  }
+
+  public void pause() {
+    if (!running) {
+      return;
+    }
+    elapsedNanos += System.nanoTime() - startNanos;
+    running = false;
+    CURRENT.remove();
+  }
+
+  public boolean isEnabled() {
+    return metrics != null;
+  }
+
+  public void addScannedCharacters(long characters) {
+    if (metrics != null) {
+      scannedCharacters += characters;
+    }
+  }
+
+  public void markMatched() {
+    if (metrics != null) {
+      matched = true;
+    }
+  }
+
+  /**
+   * Pauses the execution and records it in the metrics of its rule part.
+   *
+   * <p>Executions which stored any value are considered to have matched.
+   */
+  public void finish() {
+    pause();
+    if (metrics != null) {
+      metrics.record(elapsedNanos, scannedCharacters, storedValues, matched || storedValues > 0);
+    }
+  }
+
+}
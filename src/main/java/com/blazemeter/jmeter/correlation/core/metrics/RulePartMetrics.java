@@ -0,0 +1,157 @@
+package com.blazemeter.jmeter.correlation.core.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Execution metrics of the extractor or the replacement of a correlation rule.
+ *
+ * <p>Metrics are updated by the thread processing the samples, and can be read at any time from
+ * other ones (eg: through JMX or the GUI), so they are kept in concurrent counters.
+ */
+public class RulePartMetrics implements RulePartMetricsMXBean {
+
+  private static final long[] HISTOGRAM_LIMITS_NANOS = {10_000L, 100_000L, 1_000_000L,
+      10_000_000L, 100_000_000L, 1_000_000_000L};
+  private static final String[] HISTOGRAM_RANGES = {"<10us", "<100us", "<1ms", "<10ms",
+      "<100ms", "<1s", ">=1s"};
+
+  private final String rule;
+  private final String part;
+  private final String type;
+  private final LongAdder invocations = new LongAdder();
+  private final LongAdder matches = new LongAdder();
+  private final LongAdder storedValues = new LongAdder();
+  private final LongAdder totalNanos = new LongAdder();
+  private final LongAdder scannedCharacters = new LongAdder();
+  private final AtomicLong maxNanos = new AtomicLong();
+  private final AtomicLongArray histogram = new AtomicLongArray(HISTOGRAM_RANGES.length);
+  private volatile boolean suspended;
+
+  public RulePartMetrics(String rule, String part, String type) {
+    this.rule = rule;
+    this.part = part;
+    this.type = type;
+  }
+
+  /**
+   * Records an invocation of the rule part.
+   *
+   * @param nanos the time spent in the invocation
+   * @param scannedCharacters the characters of the sample fields read in the invocation
+   * @param storedValues the number of variables stored in the invocation
+   * @param matched whether the rule part found any value to extract or replace
+   */
+  public void record(long nanos, long scannedCharacters, long storedValues, boolean matched) {
+    invocations.increment();
+    if (matched) {
+      matches.increment();
+    }
+    this.storedValues.add(storedValues);
+    this.scannedCharacters.add(scannedCharacters);
+    totalNanos.add(nanos);
+    maxNanos.accumulateAndGet(nanos, Math::max);
+    histogram.incrementAndGet(getHistogramIndex(nanos));
+  }
+
+  private static int getHistogramIndex(long nanos) {
+    int ret = 0;
+    while (ret < HISTOGRAM_LIMITS_NANOS.length && nanos >= HISTOGRAM_LIMITS_NANOS[ret]) {
+      ret++;
+    }
+    return ret;
+  }
+
+  @Override
+  public String getRule() {
+    return rule;
+  }
+
+  @Override
+  public String getPart() {
+    return part;
+  }
+
+  @Override
+  public String getType() {
+    return type;
+  }
+
+  @Override
+  public long getInvocations() {
+    return invocations.sum();
+  }
+
+  @Override
+  public long getMatches() {
+    return matches.sum();
+  }
+
+  @Override
+  public long getStoredValues() {
+    return storedValues.sum();
+  }
+
+  @Override
+  public long getTotalNanos() {
+    return totalNanos.sum();
+  }
+
+  @Override
+  public long getMaxNanos() {
+    return maxNanos.get();
+  }
+
+  @Override
+  public long getScannedCharacters() {
+    return scannedCharacters.sum();
+  }
+
+  @Override
+  public long[] getLatencyHistogram() {
+    long[] ret = new long[histogram.length()];
+    for (int i = 0; i < ret.length; i++) {
+      ret[i] = histogram.get(i);
+    }
+    return ret;
+  }
+
+  @Override
+  public String[] getLatencyHistogramRanges() {
+    return getLatencyRanges();
+  }
+
+  /**
+   * Gets the latency ranges of the histogram of every rule part.
+   *
+   * @return the description of each range, in the same order as the counts of
+   * {@link #getLatencyHistogram()}
+   */
+  public static String[] getLatencyRanges() {
+    return HISTOGRAM_RANGES.clone();
+  }
+
+  @Override
+  public boolean isSuspended() {
+    return suspended;
+  }
+
+  public void setSuspended(boolean suspended) {
+    this.suspended = suspended;
+  }
+
+  @Override
+  public void reset() {
+    invocations.reset();
+    matches.reset();
+    storedValues.reset();
+    totalNanos.reset();
+    scannedCharacters.reset();
+    maxNanos.set(0);
+    for (int i = 0; i < histogram.length(); i++) {
+      histogram.set(i, 0);
+    }
+  }
+
+}
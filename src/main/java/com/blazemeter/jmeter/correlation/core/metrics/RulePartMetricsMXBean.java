@@ -0,0 +1,40 @@
+package com.blazemeter.jmeter.correlation.core.metrics;
+
+/**
+ * Management interface of the execution metrics of the extractor or the replacement of a
+ * correlation rule, exposed through JMX.
+ */
+public interface RulePartMetricsMXBean {
+
+  String getRule();
+
+  String getPart();
+
+  String getType();
+
+  long getInvocations();
+
+  long getMatches();
+
+  long getStoredValues();
+
+  long getTotalNanos();
+
+  long getMaxNanos();
+
+  long getScannedCharacters();
+
+  /**
+   * Gets the number of invocations in each latency range.
+   *
+   * @return the count of invocations of each range in {@link #getLatencyHistogramRanges()}
+   */
+  long[] getLatencyHistogram();
+
+  String[] getLatencyHistogramRanges();
+
+  boolean isSuspended();
+
+  void reset();
+
+}
@@ -0,0 +1,201 @@
+package com.blazemeter.jmeter.correlation.core.metrics;
+
+import com.blazemeter.jmeter.correlation.core.CorrelationRule;
+import com.blazemeter.jmeter.correlation.core.analysis.AnalysisReporter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.apache.jmeter.util.JMeterUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Suspends the correlation rules which repeatedly exceed a time budget while processing a sample.
+ *
+ * <p>The time spent by each rule in a sample is the time spent by its extractor and its
+ * replacement, as measured by {@link CorrelationRulesMetrics}. Once a rule exceeds the budget in
+ * the configured number of samples, it is suspended: it is not applied to any other sample until
+ * the breaker is reset, the rule is reported to the {@link AnalysisReporter} and the listener of
+ * suspended rules is notified. This keeps the recording responsive when a rule is too expensive
+ * (eg: a regex with catastrophic backtracking), and the recording can still be correlated later,
+ * offline, with all the rules.
+ */
+public class RulesCircuitBreaker {
+
+  public static final String TIME_BUDGET_PROPERTY = "correlation.engine.rule_time_budget";
+  public static final String MAX_EXCEEDED_PROPERTY =
+      "correlation.engine.rule_time_budget.max_exceeded";
+  private static final Logger LOG = LoggerFactory.getLogger(RulesCircuitBreaker.class);
+  private static final long DEFAULT_TIME_BUDGET_MILLIS = 1000;
+  private static final int DEFAULT_MAX_EXCEEDED = 3;
+
+  private final CorrelationRulesMetrics metrics;
+  private final long timeBudgetNanos;
+  private final int maxExceeded;
+  private final Consumer<String> suspendedRuleListener;
+  private Map<CorrelationRule, RuleBudget> budgets = new IdentityHashMap<>();
+  private final Set<CorrelationRule> suspendedRules =
+      Collections.newSetFromMap(new IdentityHashMap<>());
+
+  public RulesCircuitBreaker(CorrelationRulesMetrics metrics, long timeBudgetMillis,
+      int maxExceeded, Consumer<String> suspendedRuleListener) {
+    this.metrics = metrics;
+    this.timeBudgetNanos = TimeUnit.MILLISECONDS.toNanos(timeBudgetMillis);
+    this.maxExceeded = maxExceeded;
+    this.suspendedRuleListener = suspendedRuleListener;
+  }
+
+  /**
+   * Creates a circuit breaker configured by the {@value #TIME_BUDGET_PROPERTY} (in milliseconds)
+   * and {@value #MAX_EXCEEDED_PROPERTY} properties.
+   *
+   * @param metrics the metrics used to measure the time spent by each rule
+   * @param suspendedRuleListener notified with a description of each suspended rule
+   * @return the circuit breaker, or null when the time budget is disabled (not positive) or the
+   * metrics are not available
+   */
+  public static RulesCircuitBreaker createIfEnabled(CorrelationRulesMetrics metrics,
+      Consumer<String> suspendedRuleListener) {
+    long timeBudgetMillis = JMeterUtils.getPropDefault(TIME_BUDGET_PROPERTY,
+        DEFAULT_TIME_BUDGET_MILLIS);
+    if (timeBudgetMillis <= 0) {
+      return null;
+    }
+    if (metrics == null) {
+      LOG.warn("Correlation rules time budget requires {}=true. Rules will not be suspended.",
+          CorrelationRulesMetrics.ENABLED_PROPERTY);
+      return null;
+    }
+    int maxExceeded = JMeterUtils.getPropDefault(MAX_EXCEEDED_PROPERTY, DEFAULT_MAX_EXCEEDED);
+    LOG.info("Suspending correlation rules exceeding {} ms per sample {} times",
+        timeBudgetMillis, maxExceeded);
+    return new RulesCircuitBreaker(metrics, timeBudgetMillis, maxExceeded,
+        suspendedRuleListener);
+  }
+
+  /**
+   * Sets the rules to control, resuming any suspended rule.
+   *
+   * <p>The rules must have already been set in the metrics, so the metrics of their parts are
+   * available.
+   *
+   * @param rules the rules applied by the correlation engine
+   */
+  public synchronized void setRules(List<CorrelationRule> rules) {
+    reset();
+    budgets = new IdentityHashMap<>();
+    for (CorrelationRule rule : rules) {
+      List<RulePartMetrics> partsMetrics = new ArrayList<>();
+      addPartMetrics(rule.getCorrelationExtractor(), partsMetrics);
+      addPartMetrics(rule.getCorrelationReplacement(), partsMetrics);
+      if (!partsMetrics.isEmpty()) {
+        budgets.put(rule, new RuleBudget(partsMetrics));
+      }
+    }
+  }
+
+  private void addPartMetrics(Object rulePart, List<RulePartMetrics> partsMetrics) {
+    RulePartMetrics partMetrics = rulePart != null ? metrics.getMetrics(rulePart) : null;
+    if (partMetrics != null) {
+      partsMetrics.add(partMetrics);
+    }
+  }
+
+  public synchronized boolean isSuspended(CorrelationRule rule) {
+    return suspendedRules.contains(rule);
+  }
+
+  /**
+   * Marks the start of the processing of a sample, so the time spent by each rule in it can be
+   * computed when it finishes.
+   */
+  public synchronized void startSample() {
+    budgets.values().forEach(RuleBudget::startSample);
+  }
+
+  /**
+   * Checks the time spent by each rule in the sample processed since the last
+   * {@link #startSample()}, suspending the ones which exceeded the budget too many times.
+   *
+   * @param sampleName the name of the processed sample, used to describe suspended rules
+   */
+  public void finishSample(String sampleName) {
+    List<String> suspensions = new ArrayList<>();
+    synchronized (this) {
+      for (Map.Entry<CorrelationRule, RuleBudget> entry : budgets.entrySet()) {
+        CorrelationRule rule = entry.getKey();
+        RuleBudget budget = entry.getValue();
+        long elapsedNanos = budget.getSampleElapsedNanos();
+        if (suspendedRules.contains(rule) || elapsedNanos <= timeBudgetNanos
+            || ++budget.exceededCount < maxExceeded) {
+          continue;
+        }
+        suspendedRules.add(rule);
+        budget.setSuspended(true);
+        String message = String.format("Correlation rule '%s' was suspended for the rest of the "
+                + "recording, since it exceeded the time budget of %d ms per sample %d times "
+                + "(last time in '%s', taking %d ms).", rule.getReferenceName(),
+            TimeUnit.NANOSECONDS.toMillis(timeBudgetNanos), budget.exceededCount, sampleName,
+            TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        AnalysisReporter.reportSuspendedRule(rule, message);
+        suspensions.add(message);
+      }
+    }
+    // listeners are notified out of the lock, since they may take some time (eg: GUI updates)
+    for (String message : suspensions) {
+      LOG.warn(message);
+      if (suspendedRuleListener != null) {
+        suspendedRuleListener.accept(message);
+      }
+    }
+  }
+
+  /**
+   * Resumes all the suspended rules and clears the count of times each rule exceeded the budget.
+   */
+  public synchronized void reset() {
+    suspendedRules.clear();
+    budgets.values().forEach(b -> {
+      b.exceededCount = 0;
+      b.setSuspended(false);
+    });
+  }
+
+  private static class RuleBudget {
+
+    private final List<RulePartMetrics> partsMetrics;
+    private long sampleStartNanos;
+    private int exceededCount;
+
+    private RuleBudget(List<RulePartMetrics> partsMetrics) {
+      this.partsMetrics = partsMetrics;
+    }
+
+    private long getTotalNanos() {
+      long ret = 0;
+      for (RulePartMetrics partMetrics : partsMetrics) {
+        ret += partMetrics.getTotalNanos();
+      }
+      return ret;
+    }
+
+    private void startSample() {
+      sampleStartNanos = getTotalNanos();
+    }
+
+    private long getSampleElapsedNanos() {
+      return getTotalNanos() - sampleStartNanos;
+    }
+
+    private void setSuspended(boolean suspended) {
+      partsMetrics.forEach(m -> m.setSuspended(suspended));
+    }
+
+  }
+
+}
@@ -0,0 +1,85 @@
+package com.blazemeter.jmeter.correlation.core.proxy;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import org.apache.jmeter.processor.PreProcessor;
+import org.apache.jmeter.protocol.http.control.Cookie;
+import org.apache.jmeter.protocol.http.control.CookieManager;
+import org.apache.jmeter.protocol.http.sampler.HTTPSamplerBase;
+import org.apache.jmeter.samplers.Sampler;
+import org.apache.jmeter.testelement.AbstractTestElement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pre processor which adds a cookie to the cookie manager of the HTTP sampler where it applies,
+ * for the host of the sampler.
+ *
+ * <p>It is added by the recorder for the cookies that are sent in a request without being set by
+ * any previous response (eg: the ones set by JavaScript in the browser), and does the same as a
+ * JSR223 script would do, but without requiring to compile and evaluate a script for each cookie.
+ */
+public class CookiePreProcessor extends AbstractTestElement implements PreProcessor {
+
+  public static final String COOKIE_NAME_PROPERTY = "CookiePreProcessor.cookieName";
+  public static final String COOKIE_VALUE_PROPERTY = "CookiePreProcessor.cookieValue";
+  private static final Logger LOG = LoggerFactory.getLogger(CookiePreProcessor.class);
+
+  public CookiePreProcessor() {
+  }
+
+  public CookiePreProcessor(String cookieName, String cookieValue) {
+    setCookieName(cookieName);
+    setCookieValue(cookieValue);
+  }
+
+  public String getCookieName() {
+    return getPropertyAsString(COOKIE_NAME_PROPERTY);
+  }
+
+  public void setCookieName(String cookieName) {
+    setProperty(COOKIE_NAME_PROPERTY, cookieName);
+  }
+
+  public String getCookieValue() {
+    return getPropertyAsString(COOKIE_VALUE_PROPERTY);
+  }
+
+  public void setCookieValue(String cookieValue) {
+    setProperty(COOKIE_VALUE_PROPERTY, cookieValue);
+  }
+
+  @Override
+  public void process() {
+    Sampler sampler = getThreadContext().getCurrentSampler();
+    if (!(sampler instanceof HTTPSamplerBase)) {
+      return;
+    }
+    HTTPSamplerBase httpSampler = (HTTPSamplerBase) sampler;
+    CookieManager cookieManager = httpSampler.getCookieManager();
+    if (cookieManager == null) {
+      LOG.warn("No cookie manager found for {}. Cookie {} will not be set.",
+          httpSampler.getName(), getCookieName());
+      return;
+    }
+    try {
+      URL url = getUrl(httpSampler);
+      cookieManager.add(new Cookie(getCookieName(), getCookieValue(), url.getHost(), "",
+          HTTPSamplerBase.isSecure(url), 0));
+    } catch (MalformedURLException e) {
+      LOG.warn("Could not get URL of {}. Cookie {} will not be set.", httpSampler.getName(),
+          getCookieName(), e);
+    }
+  }
+
+  /*
+   We use this instead of sampler URL to avoid premature resolution of url parameters and allow
+   other pre processors to affect rest of url.
+   */
+  private static URL getUrl(HTTPSamplerBase sampler) throws MalformedURLException {
+    String path = sampler.getPath();
+    return path.startsWith("http://") || path.startsWith("https://") ? new URL(path)
+        : new URL(sampler.getProtocol() + "://" + sampler.getDomain());
+  }
+
+}
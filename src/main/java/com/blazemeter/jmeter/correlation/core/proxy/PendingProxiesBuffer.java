@@ -0,0 +1,190 @@
+package com.blazemeter.jmeter.correlation.core.proxy;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.apache.jmeter.gui.tree.JMeterTreeNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/*
+This class keeps the proxies that are attending requests in the order they were started, so their
+samplers are delivered in the same order as the browser sent the requests.
+
+Each proxy gets a sequence number when it starts, which is the index of its slot. Delivery only
+advances a "delivered up to" cursor while the proxy at the head is complete, so the work needed for
+each request is constant, no matter how many proxies are still pending (eg: hundreds of keep-alive
+connections opened by a single page application), and a completed proxy is never delivered before
+a previous one which is still in progress.
+
+Since a single request which takes too long (eg: a hung or long polling request) would hold back
+all the following ones, when a pending timeout is set the head proxy is skipped once it's pending
+for longer than that, and it's delivered as soon as it completes, after the ones already delivered.
+
+Registering, completing and discarding proxies can be done concurrently by the proxy threads, and
+polling is expected to be done by a single consumer (the ProxyDeliveryWorker). All of them are
+synchronized, so a slot is never visible to the cursor before its proxy is in it, and a skipped
+proxy is never lost when it completes while being skipped.
+ */
+public class PendingProxiesBuffer {
+
+  private static final Logger LOG = LoggerFactory.getLogger(PendingProxiesBuffer.class);
+
+  /*
+   Placeholder for discarded proxies (the ones which don't record anything), so the cursor can move
+   past them without delivering anything.
+   */
+  private static final PendingProxy DISCARDED = new PendingProxy(null, -1);
+
+  private final Map<Long, PendingProxy> slots = new ConcurrentHashMap<>();
+  private final Set<PendingProxy> skipped = new HashSet<>();
+  private final Queue<PendingProxy> lateCompleted = new ArrayDeque<>();
+  private final long pendingTimeoutNanos;
+  private final LongSupplier nanoClock;
+  private long nextSequence;
+  private long deliveredUpTo;
+
+  static {
+    DISCARDED.setComplete(true);
+  }
+
+  public PendingProxiesBuffer() {
+    this(0);
+  }
+
+  /**
+   * Creates a buffer which doesn't make completed proxies wait for a previous one pending for more
+   * than the given time.
+   *
+   * @param pendingTimeoutMillis the max time a proxy can hold back the following ones, or 0 to
+   * always deliver the proxies in the order they were registered
+   */
+  public PendingProxiesBuffer(long pendingTimeoutMillis) {
+    this(pendingTimeoutMillis, System::nanoTime);
+  }
+
+  public PendingProxiesBuffer(long pendingTimeoutMillis, LongSupplier nanoClock) {
+    this.pendingTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(pendingTimeoutMillis);
+    this.nanoClock = nanoClock;
+  }
+
+  public synchronized PendingProxy register(JMeterTreeNode target) {
+    PendingProxy proxy = new PendingProxy(target, nextSequence++, nanoClock.getAsLong());
+    slots.put(proxy.getSequence(), proxy);
+    return proxy;
+  }
+
+  public synchronized void complete(PendingProxy proxy) {
+    proxy.setComplete(true);
+    if (skipped.remove(proxy)) {
+      lateCompleted.add(proxy);
+    }
+  }
+
+  public synchronized void discard(PendingProxy proxy) {
+    if (!skipped.remove(proxy)) {
+      slots.replace(proxy.getSequence(), proxy, DISCARDED);
+    }
+  }
+
+  /**
+   * Takes the proxy at the head of the buffer, if it is already complete.
+   *
+   * <p>Skipped proxies which already completed are taken before the head, and the head is skipped
+   * when it is pending for longer than the pending timeout.
+   *
+   * @return the next proxy to deliver, or null if the head proxy is still in progress or there are
+   * no pending proxies
+   */
+  public synchronized PendingProxy pollCompleted() {
+    if (!lateCompleted.isEmpty()) {
+      return lateCompleted.poll();
+    }
+    PendingProxy head = slots.get(deliveredUpTo);
+    while (head != null && (head.isComplete() || isTimedOut(head))) {
+      slots.remove(deliveredUpTo);
+      deliveredUpTo++;
+      if (!head.isComplete()) {
+        LOG.warn("Request #{} is pending for more than {} ms. Delivering the following ones "
+                + "without waiting for it.", head.getSequence(),
+            TimeUnit.NANOSECONDS.toMillis(pendingTimeoutNanos));
+        skipped.add(head);
+      } else if (head != DISCARDED) {
+        return head;
+      }
+      head = slots.get(deliveredUpTo);
+    }
+    return null;
+  }
+
+  private boolean isTimedOut(PendingProxy proxy) {
+    return pendingTimeoutNanos > 0
+        && nanoClock.getAsLong() - proxy.getRegisteredNanos() >= pendingTimeoutNanos;
+  }
+
+  /**
+   * Gets the time until the proxy at the head of the buffer is skipped, if it doesn't complete
+   * before.
+   *
+   * @return the milliseconds until the head is skipped, or -1 if there is no pending timeout or no
+   * proxy in progress at the head
+   */
+  public synchronized long getMillisUntilHeadTimeout() {
+    PendingProxy head = slots.get(deliveredUpTo);
+    if (pendingTimeoutNanos <= 0 || head == null || head.isComplete()) {
+      return -1;
+    }
+    long elapsedNanos = nanoClock.getAsLong() - head.getRegisteredNanos();
+    return TimeUnit.NANOSECONDS.toMillis(Math.max(0, pendingTimeoutNanos - elapsedNanos));
+  }
+
+  /**
+   * Takes all the completed proxies, in order, dropping the ones still in progress.
+   *
+   * <p>This is meant to be used when the recording stops, when no more proxies will complete, so
+   * completed proxies are not kept waiting for a previous one which will never finish.
+   *
+   * @return the completed proxies in the order they were registered, after the skipped ones which
+   * already completed
+   */
+  public synchronized List<PendingProxy> drainCompleted() {
+    List<PendingProxy> ret = new ArrayList<>(lateCompleted);
+    lateCompleted.clear();
+    skipped.clear();
+    for (; deliveredUpTo < nextSequence; deliveredUpTo++) {
+      PendingProxy proxy = slots.remove(deliveredUpTo);
+      if (proxy != null && proxy != DISCARDED && proxy.isComplete()) {
+        ret.add(proxy);
+      }
+    }
+    return ret;
+  }
+
+  public synchronized void clear() {
+    slots.clear();
+    skipped.clear();
+    lateCompleted.clear();
+    deliveredUpTo = nextSequence;
+  }
+
+  public synchronized int size() {
+    return slots.size() + skipped.size() + lateCompleted.size();
+  }
+
+  public synchronized boolean isEmpty() {
+    return size() == 0;
+  }
+
+  public Map<Long, PendingProxy> getPendingProxies() {
+    return Collections.unmodifiableMap(slots);
+  }
+
+}
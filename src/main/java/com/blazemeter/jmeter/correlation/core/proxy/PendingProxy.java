@@ -8,13 +8,29 @@ import org.apache.jmeter.testelement.TestElement;
 public class PendingProxy {
 
   private final JMeterTreeNode target;
+  private final long sequence;
+  private final long registeredNanos;
   private HTTPSamplerBase sampler;
   private TestElement[] testElements;
   private SampleResult result;
-  private boolean complete;
+  /*
+   Set by the proxy thread once the sampler, children and result are updated, and read by the
+   delivery thread before accessing them.
+   */
+  private volatile boolean complete;
 
   public PendingProxy(JMeterTreeNode target) {
+    this(target, 0);
+  }
+
+  public PendingProxy(JMeterTreeNode target, long sequence) {
+    this(target, sequence, System.nanoTime());
+  }
+
+  public PendingProxy(JMeterTreeNode target, long sequence, long registeredNanos) {
     this.target = target;
+    this.sequence = sequence;
+    this.registeredNanos = registeredNanos;
   }
 
   public void update(HTTPSamplerBase sampler, TestElement[] testElements,
@@ -40,6 +56,14 @@ public class PendingProxy {
     return sampler;
   }
 
+  public long getSequence() {
+    return sequence;
+  }
+
+  public long getRegisteredNanos() {
+    return registeredNanos;
+  }
+
   public JMeterTreeNode getTarget() {
     return target;
   }
@@ -0,0 +1,136 @@
+package com.blazemeter.jmeter.correlation.core.proxy;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/*
+This class allow us to correlate and deliver recorded samplers without blocking the proxies.
+
+Proxies only register their pending samplers and request a delivery, which is executed by a single
+dedicated thread. Since there is only one consumer of the pending samplers, deliveries happen in
+the same order as they are taken from the pending ones, and the correlation of a sampler never
+stalls the proxies which are still attending the browser requests.
+
+Delivery requests are coalesced: if a delivery is already scheduled, new requests are ignored since
+the scheduled one will also deliver the samplers registered before it starts.
+
+Deliveries can also be requested after some time (eg: to skip a pending request which takes too
+long, even if no other request completes meanwhile). Only one of them is scheduled at a time.
+
+When the worker is not started (or was already stopped) deliveries are executed in the thread that
+requests them, as it was done before this class existed, and delayed deliveries are ignored.
+ */
+public class ProxyDeliveryWorker {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ProxyDeliveryWorker.class);
+  private static final String THREAD_NAME = "correlation-recorder-delivery";
+
+  private final Runnable deliveryTask;
+  private final AtomicBoolean deliveryRequested = new AtomicBoolean();
+  private final Object deliveryLock = new Object();
+  private volatile ScheduledThreadPoolExecutor executor;
+  private ScheduledFuture<?> delayedDelivery;
+
+  public ProxyDeliveryWorker(Runnable deliveryTask) {
+    this.deliveryTask = deliveryTask;
+  }
+
+  public synchronized void start() {
+    if (executor == null) {
+      executor = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread thread = new Thread(r, THREAD_NAME);
+        thread.setDaemon(true);
+        return thread;
+      });
+      // so stopping the worker doesn't wait for delayed deliveries
+      executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+  }
+
+  public boolean isStarted() {
+    return executor != null;
+  }
+
+  public void requestDelivery() {
+    if (!deliveryRequested.compareAndSet(false, true)) {
+      return;
+    }
+    ScheduledThreadPoolExecutor current = executor;
+    if (current == null) {
+      deliver();
+      return;
+    }
+    try {
+      current.execute(this::deliver);
+    } catch (RejectedExecutionException e) {
+      deliver();
+    }
+  }
+
+  /**
+   * Requests a delivery after the given time, unless there is already a delayed delivery
+   * scheduled.
+   *
+   * @param delayMillis the time to wait before requesting the delivery
+   */
+  public synchronized void requestDeliveryAfter(long delayMillis) {
+    if (executor == null || (delayedDelivery != null && !delayedDelivery.isDone())) {
+      return;
+    }
+    try {
+      delayedDelivery = executor.schedule(this::requestDelivery, delayMillis,
+          TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      LOG.debug("Could not schedule delivery of recorded samplers", e);
+    }
+  }
+
+  private void deliver() {
+    synchronized (deliveryLock) {
+      deliveryRequested.set(false);
+      try {
+        deliveryTask.run();
+      } catch (RuntimeException e) {
+        LOG.error("Error while delivering recorded samplers", e);
+      }
+    }
+  }
+
+  /**
+   * Stops the worker, waiting for the already requested deliveries to finish.
+   *
+   * <p>A last delivery is executed before stopping, so every completed sampler is delivered.
+   * Deliveries requested after this method is invoked are executed in the requesting thread.
+   *
+   * @param timeoutMillis max time to wait for the pending deliveries
+   */
+  public void stop(long timeoutMillis) {
+    ScheduledThreadPoolExecutor current;
+    synchronized (this) {
+      current = executor;
+      executor = null;
+      delayedDelivery = null;
+    }
+    if (current == null) {
+      return;
+    }
+    current.execute(this::deliver);
+    current.shutdown();
+    try {
+      if (!current.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+        LOG.warn("Pending samplers delivery didn't finish after {} ms. Interrupting it.",
+            timeoutMillis);
+        current.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      current.shutdownNow();
+    }
+  }
+
+}
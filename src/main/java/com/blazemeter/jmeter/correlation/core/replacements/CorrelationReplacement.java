@@ -1,5 +1,6 @@
 package com.blazemeter.jmeter.correlation.core.replacements;
 
+import com.blazemeter.jmeter.correlation.core.BaseCorrelationContext;
 import com.blazemeter.jmeter.correlation.core.CorrelationContext;
 import com.blazemeter.jmeter.correlation.core.CorrelationRulePartTestElement;
 import com.blazemeter.jmeter.correlation.core.DescriptionContent;
@@ -8,25 +9,14 @@ import com.blazemeter.jmeter.correlation.gui.CorrelationRuleTestElement;
 import com.fasterxml.jackson.annotation.JsonFilter;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.annotation.JsonTypeInfo.Id;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.LinkedList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.function.Function;
-import org.apache.jmeter.config.Argument;
-import org.apache.jmeter.config.ConfigTestElement;
 import org.apache.jmeter.engine.util.CompoundVariable;
-import org.apache.jmeter.protocol.http.control.Header;
 import org.apache.jmeter.protocol.http.sampler.HTTPSamplerBase;
 import org.apache.jmeter.samplers.SampleResult;
 import org.apache.jmeter.testelement.TestElement;
-import org.apache.jmeter.testelement.property.JMeterProperty;
-import org.apache.jmeter.testelement.property.MultiProperty;
-import org.apache.jmeter.testelement.property.NumberProperty;
-import org.apache.jmeter.testelement.property.PropertyIterator;
-import org.apache.jmeter.testelement.property.StringProperty;
-import org.apache.jmeter.testelement.property.TestElementProperty;
 import org.apache.jmeter.threads.JMeterVariables;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -125,100 +115,23 @@ public abstract class CorrelationReplacement<T extends CorrelationContext> exten
    */
   public void process(HTTPSamplerBase sampler, List<TestElement> children, SampleResult result,
                       JMeterVariables vars) {
-    replaceTestElementProperties(sampler, vars);
-    for (TestElement child : children) {
-      if (child instanceof ConfigTestElement) {
-        replaceTestElementProperties(child, vars);
-      }
-    }
+    new CorrelationReplacementsBatch(Collections.singletonList(this))
+        .process(sampler, children, result, vars);
   }
 
   /**
-   * Method that performs recursive calls to replace the arguments of the TestElement provided.
+   * Prepares the Correlation Replacement to process the properties of a sampler.
    *
-   * <p>This method works applying replacement, in a recursive way, to parameter and headers
-   * assignments, inside the TestElement. If one value exists in the JMeterVariables for the
-   * Reference Variable Name, and does match the condition configured for this Correlation
-   * Replacement, the value will be replaced in the String as <code>${referenceVariableName}</code>,
-   * as many times as the logic in the condition allows it.
+   * <p>Overwrite it, instead of {@link #process}, when the replacement needs to check its
+   * configuration or keep information about the processed sampler, so it can still be applied
+   * along with the rest of the replacements in a single traversal of the sampler properties
+   * (check {@link CorrelationReplacementsBatch}).
    *
-   * @param el   test element to check and match the properties
-   * @param vars stored variables from the recording
+   * @param sampler recorded sampler containing the information of the request
+   * @return true if the replacement has to be applied over the sampler, false otherwise
    */
-  private void replaceTestElementProperties(TestElement el, JMeterVariables vars) {
-    List<JMeterProperty> props = new LinkedList<>();
-    PropertyIterator propertyIterator = el.propertyIterator();
-    boolean propChanged = false;
-    while (propertyIterator.hasNext()) {
-      JMeterProperty orgProp = propertyIterator.next();
-      JMeterProperty val = replaceProperty(orgProp, vars);
-      if (!val.equals(orgProp) && !propChanged) {
-        propChanged = true;
-      }
-      props.add(val);
-    }
-    // Only when some property change
-    if (propChanged) {
-      el.clear();
-      for (JMeterProperty jmp : props) {
-        el.setProperty(jmp);
-      }
-    }
-  }
-
-  private JMeterProperty replaceProperty(JMeterProperty prop, JMeterVariables vars) {
-    if (prop instanceof StringProperty) {
-      // Must not convert TestElement.gui_class etc
-      if (!prop.getName().equals(TestElement.GUI_CLASS)
-          && !prop.getName().equals(TestElement.TEST_CLASS)) {
-        prop = replaceSimpleProp(prop, vars);
-      }
-    } else if (prop instanceof NumberProperty) {
-      prop = replaceSimpleProp(prop, vars);
-    } else if (prop instanceof MultiProperty) {
-      if (prop instanceof TestElementProperty) {
-        TestElementProperty testElementProperty = (TestElementProperty) prop;
-        if (testElementProperty.getObjectValue() instanceof Argument) {
-          replaceArgument((Argument) testElementProperty.getObjectValue(), vars);
-          return prop;
-        } else if (testElementProperty.getObjectValue() instanceof Header) {
-          replaceHeader((Header) testElementProperty.getObjectValue(), vars);
-          return prop;
-        }
-      }
-      MultiProperty multiVal = (MultiProperty) prop;
-      PropertyIterator propertyIterator = multiVal.iterator();
-      Collection<JMeterProperty> newValues = new ArrayList<>();
-      boolean propChanged = false;
-      while (propertyIterator.hasNext()) {
-        JMeterProperty orgProp = propertyIterator.next();
-        JMeterProperty val = replaceProperty(orgProp, vars);
-        if (!orgProp.equals(val) && !propChanged) {
-          propChanged = true;
-        }
-        newValues.add(val);
-      }
-      if (propChanged) {
-        multiVal.clear();
-        for (JMeterProperty jmp : newValues) {
-          multiVal.addProperty(jmp);
-        }
-      }
-    }
-    return prop;
-  }
-
-  private JMeterProperty replaceSimpleProp(JMeterProperty prop, JMeterVariables vars) {
-    String input = prop.getStringValue();
-    if (input == null) {
-      return prop;
-    }
-    String newImput = replaceString(input, vars);
-    if (newImput.equals(input)) {
-      return prop;
-    } else {
-      return new StringProperty(prop.getName(), newImput);
-    }
+  protected boolean prepareProcess(HTTPSamplerBase sampler) {
+    return true;
   }
 
   /**
@@ -232,53 +145,6 @@ public abstract class CorrelationReplacement<T extends CorrelationContext> exten
    */
   protected abstract String replaceString(String input, JMeterVariables vars);
 
-  private void replaceArgument(Argument arg, JMeterVariables vars) {
-    String input = arg.getValue();
-    if (input == null) {
-      return;
-    }
-    String argName = arg.getName();
-    /*
-      To normalize the replacement on arguments for HTTP requests, we include the argument name and
-      '=' to the input, apply the replacement logic, and remove it afterward. This doesn't applies
-      when the argument has no name (eg: Data Body is a JSON/XML).
-    */
-    String prefix = argName.isEmpty() ? "" : argName + "=";
-    String newInput = replaceString(prefix + input, vars).replace(prefix, "");
-    if (!newInput.equals(input)) {
-      arg.setValue(newInput);
-    }
-    /*
-    In order to comply backward compatibility from <=v2.5 keys (arg name) is also processed by
-     the replacement
-     */
-    String newName = replaceString(argName, vars);
-    if (!newName.equals(argName)) {
-      arg.setName(newName);
-    }
-  }
-
-  private void replaceHeader(Header header, JMeterVariables vars) {
-    String input = header.getValue();
-    if (input == null) {
-      return;
-    }
-    String headName = header.getName();
-    String newInput = replaceString(headName + ": " + input, vars)
-        .replace(headName + ": ", "");
-    if (!newInput.equals(input)) {
-      header.setValue(newInput);
-    }
-    /*
-    In order to comply backward compatibility from <=v2.5 keys (header name) is also processed by
-     the replacement
-     */
-    String newName = replaceString(headName, vars);
-    if (!newName.equals(headName)) {
-      header.setName(newName);
-    }
-  }
-
   @Override
   public String getType() {
     return this.getClass().getCanonicalName();
@@ -309,6 +175,21 @@ public abstract class CorrelationReplacement<T extends CorrelationContext> exten
         ? FUNCTION_REF_PREFIX + s + FUNCTION_REF_SUFFIX : s;
   }
 
+  /*
+   When the values of the variables are used as they are (without a replacement string), the
+   variable holding a value can be found through the values indexed by the extractors in the
+   context, instead of checking every variable generated for the variable name.
+   */
+  boolean canFindVariableByValue(String value) {
+    return replacementString != null && replacementString.isEmpty() && value != null
+        && !value.isEmpty() && context instanceof BaseCorrelationContext
+        && ((BaseCorrelationContext) context).isValueIndexed(variableName);
+  }
+
+  String findVariableByValue(String value, JMeterVariables vars) {
+    return ((BaseCorrelationContext) context).findVariableWithValue(variableName, value, vars);
+  }
+
   String computeStringReplacement(String varName) {
     String rawReplacementString = buildReplacementStringForMultivalued(varName);
     String computed = expressionEvaluator.apply(rawReplacementString);
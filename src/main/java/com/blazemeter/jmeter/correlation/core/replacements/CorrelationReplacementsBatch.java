@@ -0,0 +1,302 @@
+package com.blazemeter.jmeter.correlation.core.replacements;
+
+import com.blazemeter.jmeter.correlation.core.metrics.CorrelationRulesMetrics;
+import com.blazemeter.jmeter.correlation.core.metrics.RuleExecution;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.jmeter.config.Argument;
+import org.apache.jmeter.config.ConfigTestElement;
+import org.apache.jmeter.protocol.http.control.Header;
+import org.apache.jmeter.protocol.http.sampler.HTTPSamplerBase;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.testelement.TestElement;
+import org.apache.jmeter.testelement.property.JMeterProperty;
+import org.apache.jmeter.testelement.property.MultiProperty;
+import org.apache.jmeter.testelement.property.NumberProperty;
+import org.apache.jmeter.testelement.property.PropertyIterator;
+import org.apache.jmeter.testelement.property.StringProperty;
+import org.apache.jmeter.testelement.property.TestElementProperty;
+import org.apache.jmeter.threads.JMeterVariables;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Applies a list of Correlation Replacements over the properties of a sampler, and its
+ * ConfigTestElement children, traversing them only once.
+ *
+ * <p>Each property value is passed through every replacement, in the order of the list, so the
+ * result is the same as processing the sampler with each replacement after the other, but the
+ * properties are only iterated (and copied when they change) once, instead of once per rule.
+ *
+ * <p>Only replacements which don't override {@link CorrelationReplacement#process} can be
+ * batched (check {@link #isBatchable(CorrelationReplacement)}), since the ones that do may apply
+ * any custom logic over the whole sampler.
+ *
+ * <p>When metrics are provided, the time spent by each replacement, and the characters it scans,
+ * are measured only while the replacement is processing a property value, so they are attributed
+ * to the replacement regardless of being interleaved with the rest of the batch.
+ */
+public class CorrelationReplacementsBatch {
+
+  private static final Logger LOG = LoggerFactory.getLogger(CorrelationReplacementsBatch.class);
+  private static final ClassValue<Boolean> BATCHABLE_CLASSES = new ClassValue<Boolean>() {
+    @Override
+    protected Boolean computeValue(Class<?> type) {
+      try {
+        return type.getMethod("process", HTTPSamplerBase.class, List.class, SampleResult.class,
+            JMeterVariables.class).getDeclaringClass() == CorrelationReplacement.class;
+      } catch (NoSuchMethodException e) {
+        return false;
+      }
+    }
+  };
+
+  private final List<CorrelationReplacement<?>> replacements;
+  private final CorrelationRulesMetrics metrics;
+  private final Map<CorrelationReplacement<?>, RuleExecution> executions = new IdentityHashMap<>();
+  private final Set<CorrelationReplacement<?>> failedReplacements =
+      Collections.newSetFromMap(new IdentityHashMap<>());
+  private HTTPSamplerBase sampler;
+  private SampleResult result;
+
+  public CorrelationReplacementsBatch(List<CorrelationReplacement<?>> replacements) {
+    this(replacements, null);
+  }
+
+  /**
+   * Creates a batch which records the executions of the replacements in the given metrics.
+   *
+   * @param replacements the replacements to apply, in order
+   * @param metrics the metrics of the rules the replacements belong to, or null to not measure
+   *                them
+   */
+  public CorrelationReplacementsBatch(List<CorrelationReplacement<?>> replacements,
+      CorrelationRulesMetrics metrics) {
+    this.replacements = replacements;
+    this.metrics = metrics;
+  }
+
+  public static boolean isBatchable(CorrelationReplacement<?> replacement) {
+    return BATCHABLE_CLASSES.get(replacement.getClass());
+  }
+
+  /**
+   * Applies all the replacements over the properties of the sampler and its ConfigTestElement
+   * children.
+   *
+   * <p>If a replacement fails, the error is logged and the replacement is not applied over the
+   * rest of the properties of the sampler, while the rest of the replacements are still applied.
+   *
+   * @param sampler recorded sampler containing the information of the request
+   * @param children list of children added to the sampler
+   * @param result result containing information about request and associated response from
+   *               server
+   * @param vars stored variables shared between requests during recording
+   */
+  public void process(HTTPSamplerBase sampler, List<TestElement> children, SampleResult result,
+      JMeterVariables vars) {
+    this.sampler = sampler;
+    this.result = result;
+    failedReplacements.clear();
+    executions.clear();
+    try {
+      List<CorrelationReplacement<?>> active = new ArrayList<>();
+      for (CorrelationReplacement<?> replacement : replacements) {
+        RuleExecution execution = getExecution(replacement);
+        execution.resume();
+        try {
+          if (replacement.prepareProcess(sampler)) {
+            active.add(replacement);
+          }
+        } finally {
+          execution.pause();
+        }
+      }
+      if (active.isEmpty()) {
+        return;
+      }
+      replaceTestElementProperties(sampler, active, vars);
+      for (TestElement child : children) {
+        if (child instanceof ConfigTestElement) {
+          replaceTestElementProperties(child, active, vars);
+        }
+      }
+    } finally {
+      executions.values().forEach(RuleExecution::finish);
+    }
+  }
+
+  private RuleExecution getExecution(CorrelationReplacement<?> replacement) {
+    if (metrics == null) {
+      return RuleExecution.DISABLED;
+    }
+    return executions.computeIfAbsent(replacement, metrics::newExecution);
+  }
+
+  private void replaceTestElementProperties(TestElement el,
+      List<CorrelationReplacement<?>> active, JMeterVariables vars) {
+    List<JMeterProperty> props = new ArrayList<>();
+    PropertyIterator propertyIterator = el.propertyIterator();
+    boolean propChanged = false;
+    while (propertyIterator.hasNext()) {
+      JMeterProperty orgProp = propertyIterator.next();
+      JMeterProperty val = replaceProperty(orgProp, active, vars);
+      if (val != orgProp) {
+        propChanged = true;
+      }
+      props.add(val);
+    }
+    // Only when some property change
+    if (propChanged) {
+      el.clear();
+      for (JMeterProperty jmp : props) {
+        el.setProperty(jmp);
+      }
+    }
+  }
+
+  private JMeterProperty replaceProperty(JMeterProperty prop,
+      List<CorrelationReplacement<?>> active, JMeterVariables vars) {
+    if (prop instanceof StringProperty) {
+      // Must not convert TestElement.gui_class etc
+      if (!prop.getName().equals(TestElement.GUI_CLASS)
+          && !prop.getName().equals(TestElement.TEST_CLASS)) {
+        return replaceSimpleProp(prop, active, vars);
+      }
+    } else if (prop instanceof NumberProperty) {
+      return replaceSimpleProp(prop, active, vars);
+    } else if (prop instanceof MultiProperty) {
+      if (prop instanceof TestElementProperty) {
+        Object value = prop.getObjectValue();
+        if (value instanceof Argument) {
+          replaceArgument((Argument) value, active, vars);
+          return prop;
+        } else if (value instanceof Header) {
+          replaceHeader((Header) value, active, vars);
+          return prop;
+        }
+      }
+      MultiProperty multiVal = (MultiProperty) prop;
+      PropertyIterator propertyIterator = multiVal.iterator();
+      Collection<JMeterProperty> newValues = new ArrayList<>();
+      boolean propChanged = false;
+      while (propertyIterator.hasNext()) {
+        JMeterProperty orgProp = propertyIterator.next();
+        JMeterProperty val = replaceProperty(orgProp, active, vars);
+        if (val != orgProp) {
+          propChanged = true;
+        }
+        newValues.add(val);
+      }
+      if (propChanged) {
+        multiVal.clear();
+        for (JMeterProperty jmp : newValues) {
+          multiVal.addProperty(jmp);
+        }
+      }
+    }
+    return prop;
+  }
+
+  private JMeterProperty replaceSimpleProp(JMeterProperty prop,
+      List<CorrelationReplacement<?>> active, JMeterVariables vars) {
+    String input = prop.getStringValue();
+    if (input == null) {
+      return prop;
+    }
+    String newInput = input;
+    for (CorrelationReplacement<?> replacement : active) {
+      newInput = replaceString(replacement, newInput, vars);
+    }
+    // a new property is only needed when the value actually changes
+    return newInput.equals(input) ? prop : new StringProperty(prop.getName(), newInput);
+  }
+
+  private void replaceArgument(Argument arg, List<CorrelationReplacement<?>> active,
+      JMeterVariables vars) {
+    for (CorrelationReplacement<?> replacement : active) {
+      String input = arg.getValue();
+      if (input == null) {
+        return;
+      }
+      String argName = arg.getName();
+      /*
+        To normalize the replacement on arguments for HTTP requests, we include the argument name
+        and '=' to the input, apply the replacement logic, and remove it afterward. This doesn't
+        applies when the argument has no name (eg: Data Body is a JSON/XML).
+      */
+      String prefix = argName.isEmpty() ? "" : argName + "=";
+      String newInput = replaceString(replacement, prefix + input, vars).replace(prefix, "");
+      if (!newInput.equals(input)) {
+        arg.setValue(newInput);
+      }
+      /*
+      In order to comply backward compatibility from <=v2.5 keys (arg name) is also processed by
+       the replacement
+       */
+      String newName = replaceString(replacement, argName, vars);
+      if (!newName.equals(argName)) {
+        arg.setName(newName);
+      }
+    }
+  }
+
+  private void replaceHeader(Header header, List<CorrelationReplacement<?>> active,
+      JMeterVariables vars) {
+    for (CorrelationReplacement<?> replacement : active) {
+      String input = header.getValue();
+      if (input == null) {
+        return;
+      }
+      String headName = header.getName();
+      String newInput = replaceString(replacement, headName + ": " + input, vars)
+          .replace(headName + ": ", "");
+      if (!newInput.equals(input)) {
+        header.setValue(newInput);
+      }
+      /*
+      In order to comply backward compatibility from <=v2.5 keys (header name) is also processed
+       by the replacement
+       */
+      String newName = replaceString(replacement, headName, vars);
+      if (!newName.equals(headName)) {
+        header.setName(newName);
+      }
+    }
+  }
+
+  private String replaceString(CorrelationReplacement<?> replacement, String input,
+      JMeterVariables vars) {
+    if (failedReplacements.contains(replacement) || Thread.currentThread().isInterrupted()) {
+      return input;
+    }
+    RuleExecution execution = getExecution(replacement);
+    execution.resume();
+    execution.addScannedCharacters(input.length());
+    try {
+      String ret = replacement.replaceString(input, vars);
+      if (!input.equals(ret)) {
+        execution.markMatched();
+      }
+      return ret;
+    } catch (RuntimeException e) {
+      failedReplacements.add(replacement);
+      LOG.warn("Error applying the following replacement {} in the request {}", replacement,
+          sampler.getName(), e);
+      if (result != null) {
+        LOG.debug("Request URL: {}\nRequest Headers:\n{}\nRequest Body:\n{}\n",
+            result.getUrlAsString(), result.getRequestHeaders(),
+            result.getDataEncodingWithDefault());
+      }
+      return input;
+    } finally {
+      execution.pause();
+    }
+  }
+
+}
@@ -1,7 +1,5 @@
 package com.blazemeter.jmeter.correlation.core.replacements;
 
-import static com.blazemeter.jmeter.correlation.core.automatic.JMeterElementUtils.jsonFindMatches;
-
 import com.blazemeter.jmeter.correlation.core.BaseCorrelationContext;
 import com.blazemeter.jmeter.correlation.core.CorrelationContext;
 import com.blazemeter.jmeter.correlation.core.ParameterDefinition;
@@ -9,8 +7,11 @@ import com.blazemeter.jmeter.correlation.core.analysis.AnalysisReporter;
 import com.blazemeter.jmeter.correlation.core.automatic.JMeterElementUtils;
 import com.blazemeter.jmeter.correlation.gui.CorrelationRuleTestElement;
 import com.google.common.annotations.VisibleForTesting;
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.InvalidPathException;
 import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.Option;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
@@ -19,11 +20,8 @@ import java.util.Objects;
 import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import net.minidev.json.JSONArray;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.jmeter.protocol.http.sampler.HTTPSamplerBase;
-import org.apache.jmeter.samplers.SampleResult;
-import org.apache.jmeter.testelement.TestElement;
 import org.apache.jmeter.threads.JMeterVariables;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -47,11 +45,17 @@ public class JsonCorrelationReplacement<T extends BaseCorrelationContext> extend
 
   private static final String ESCAPE_QUOTE_LEFT = "_CR_L_";
   private static final String ESCAPE_QUOTE_RIGHT = "_CR_R_";
+  private static final Pattern UNQUOTED_VARIABLE_PATTERN =
+      Pattern.compile("[^(\"](\\$\\{.+?\\})(?=[^)\"])");
+  private static final Configuration PATH_LIST_CONFIGURATION = Configuration
+      .defaultConfiguration().addOptions(Option.AS_PATH_LIST);
 
   protected String jsonpath = JSONPATH_DEFAULT_VALUE;
   protected boolean ignoreValue = IGNORE_VALUE_DEFAULT;
 
   private Object currentSampler;
+  private transient JsonPath compiledJsonPath;
+  private transient String compiledJsonPathSource;
 
   public JsonCorrelationReplacement() {
   }
@@ -102,80 +106,110 @@ public class JsonCorrelationReplacement<T extends BaseCorrelationContext> extend
         || variableName == null || variableName.isEmpty()) {
       return input;
     }
+    JsonPath path = getCompiledJsonPath();
+    if (path == null) {
+      return input;
+    }
     // For previous replaced matches with variables, escape the unquoted variables
     String inputProcessed = escapeUnquotedVariablesWithMarks(input);
-    if (JMeterElementUtils.isJson(inputProcessed)) {
-      HashSet<Pair<String, String>> valuesReplaced = new HashSet();
-
-      // Test if the path of the jsonpath match
-      Pair<Class, ArrayList<String>> result = jsonFindMatches(inputProcessed, jsonpath);
-      String updatedInput = inputProcessed;
-      Class resultType = result.getLeft();
-      ArrayList<String> matches = result.getRight();
-      if (matches.size() > 0) {
-        // Ok, match, try to each match get the path and replace
-        for (int varNr = 0; varNr < matches.size(); varNr++) {
-          String valueStr = matches.get(varNr);
-          String varMatched = searchVariable(vars, valueStr, replacementString);
-          String replaceExpression = null;
-          // When ignore value, use the replacement string
-          if (!replacementString.isEmpty() && ignoreValue) {
-            replaceExpression = replacementString;
-          } else if (varMatched != null) {
-            replaceExpression = varMatched;
-          }
-          if (replaceExpression != null) {
-            boolean inArray = resultType == JSONArray.class;
-            String updatedJsonPath = inArray ? jsonpath + "[" + varNr + "]" : jsonpath;
-            Pair<Class, ArrayList<String>> toUpdateMatches = jsonFindMatches(updatedInput,
-                updatedJsonPath);
-            if (toUpdateMatches.getRight() != null) {
-              Class updateResultType = toUpdateMatches.getLeft();
-              boolean originIsUnQuoted = JMeterElementUtils.classIsNumberOrBoolean(
-                  updateResultType);
-              if (originIsUnQuoted) {
-                // When value is needed to put in the json structure without the quotes
-                // this not is allowed by jayway because generate an invalid json with free text
-                // inside, we need to post process to remove the left and the right marks to o that
-                // Remember, jayway put the value as a quoted String,
-                // and is why we need to put marks to recover the format without quotes at the end.
-                replaceExpression = ESCAPE_QUOTE_LEFT + replaceExpression + ESCAPE_QUOTE_RIGHT;
-              }
-              try {
-                updatedInput = JsonPath.parse(updatedInput)
-                    .set(updatedJsonPath, replaceExpression)
-                    .jsonString();
-                // Store the values matched and used in the replacement
-                valuesReplaced.add(Pair.of(valueStr, variableName));
-              } catch (InvalidPathException e) {
-                LOG.debug("JSONPath used to update target value doesn't match in the set: "
-                    + "value:{} jsonpath={}", valueStr, updatedJsonPath);
-              }
-            } else {
-              LOG.debug("JSONPath used to update target value doesn't match in the get: "
-                  + "value:{} jsonpath={}", valueStr, updatedJsonPath);
-            }
-          }
-        }
-        // The json path match, replace the value with the replacement variable
-        if (updatedInput != null && !updatedInput.equals(inputProcessed)) {
-          for (Pair<String, String> valueReplaced : valuesReplaced) {
-            analysis(valueReplaced.getLeft(), valueReplaced.getRight());
-          }
-
-          // Replace the start and end marks used for the values without quotes
-          // This is needed to recover the original format
-          updatedInput = unescapeQuotedVariablesWithMarks(updatedInput);
-          if (AnalysisReporter.canCorrelate()) {
-            return updatedInput;
-          } else {
-            return input;
-          }
+    // The document is parsed only once, all the matches are replaced in it, and then it is
+    // serialized only once, regardless of the number of matches
+    DocumentContext document = JMeterElementUtils.parseJson(inputProcessed);
+    if (document == null) {
+      return input;
+    }
+    HashSet<Pair<String, String>> valuesReplaced = new HashSet<>();
+    for (JsonMatch match : findMatches(document, path)) {
+      String varMatched = searchVariable(vars, match.value, replacementString);
+      String replaceExpression = null;
+      // When ignore value, use the replacement string
+      if (!replacementString.isEmpty() && ignoreValue) {
+        replaceExpression = replacementString;
+      } else if (varMatched != null) {
+        replaceExpression = varMatched;
+      }
+      if (replaceExpression == null) {
+        continue;
+      }
+      if (match.unquoted) {
+        // When value is needed to put in the json structure without the quotes
+        // this not is allowed by jayway because generate an invalid json with free text
+        // inside, we need to post process to remove the left and the right marks to o that
+        // Remember, jayway put the value as a quoted String,
+        // and is why we need to put marks to recover the format without quotes at the end.
+        replaceExpression = ESCAPE_QUOTE_LEFT + replaceExpression + ESCAPE_QUOTE_RIGHT;
+      }
+      try {
+        document.set(match.path, replaceExpression);
+        // Store the values matched and used in the replacement
+        valuesReplaced.add(Pair.of(match.value, variableName));
+      } catch (InvalidPathException e) {
+        LOG.debug("JSONPath used to update target value doesn't match in the set: "
+            + "value:{} jsonpath={}", match.value, match.path);
+      }
+    }
+    if (valuesReplaced.isEmpty()) {
+      return input;
+    }
+    String updatedInput = document.jsonString();
+    // The json path match, replace the value with the replacement variable
+    if (updatedInput == null || updatedInput.equals(inputProcessed)) {
+      return input;
+    }
+    for (Pair<String, String> valueReplaced : valuesReplaced) {
+      analysis(valueReplaced.getLeft(), valueReplaced.getRight());
+    }
+    // Replace the start and end marks used for the values without quotes
+    // This is needed to recover the original format
+    updatedInput = unescapeQuotedVariablesWithMarks(updatedInput);
+    return AnalysisReporter.canCorrelate() ? updatedInput : input;
+  }
+
+  private JsonPath getCompiledJsonPath() {
+    if (!jsonpath.equals(compiledJsonPathSource)) {
+      try {
+        compiledJsonPath = JsonPath.compile(jsonpath);
+      } catch (InvalidPathException e) {
+        LOG.debug("Invalid JSONPath {}", jsonpath, e);
+        compiledJsonPath = null;
+      }
+      compiledJsonPathSource = jsonpath;
+    }
+    return compiledJsonPath;
+  }
 
+  /*
+   Finds the values matched by the JSONPath in the document, along with the definite path of each
+   of them, so each match can be updated without evaluating the JSONPath again.
+   When a definite JSONPath matches an array, each of its items is considered a match.
+   */
+  private List<JsonMatch> findMatches(DocumentContext document, JsonPath path) {
+    List<JsonMatch> ret = new ArrayList<>();
+    Object result;
+    try {
+      result = document.read(path);
+    } catch (InvalidPathException e) {
+      // When no match, no report error, only no return any data
+      return ret;
+    }
+    if (path.isDefinite()) {
+      if (result instanceof List) {
+        List<?> items = (List<?>) result;
+        for (int i = 0; i < items.size(); i++) {
+          ret.add(new JsonMatch(jsonpath + "[" + i + "]", items.get(i)));
         }
+      } else if (JMeterElementUtils.canBeString(result)) {
+        ret.add(new JsonMatch(jsonpath, result));
       }
+      return ret;
     }
-    return input; // When none of previous logic generate a return, return default input
+    List<?> items = (List<?>) result;
+    List<String> paths = JsonPath.using(PATH_LIST_CONFIGURATION).parse(document.json())
+        .read(path);
+    for (int i = 0; i < items.size() && i < paths.size(); i++) {
+      ret.add(new JsonMatch(paths.get(i), items.get(i)));
+    }
+    return ret;
   }
 
   private void analysis(String literalMatched, String currentVariableName) {
@@ -185,6 +219,10 @@ public class JsonCorrelationReplacement<T extends BaseCorrelationContext> extend
   private String searchVariable(JMeterVariables vars, String value, String replacementString) {
     int varNr = 0;
     Function<String, String> expressionProvider = replaceExpressionProvider();
+    if (canFindVariableByValue(value)) {
+      String varName = findVariableByValue(value, vars);
+      return varName != null ? expressionProvider.apply(varName) : null;
+    }
     while (varNr <= context.getVariableCount(variableName)) {
       String varName = varNr == 0 ? variableName : variableName + "#" + varNr;
       String varMatchesCount = vars.get(varName + "_matchNr");
@@ -218,10 +256,7 @@ public class JsonCorrelationReplacement<T extends BaseCorrelationContext> extend
     // Try to escape unquoted variable/function in json
     // this try to allow a json parse without error for json path evaluation
 
-    String regex = "[^(\"](\\$\\{.+?\\})(?=[^)\"])";
-
-    Pattern pattern = Pattern.compile(regex);
-    Matcher matcher = pattern.matcher(json);
+    Matcher matcher = UNQUOTED_VARIABLE_PATTERN.matcher(json);
 
     StringBuffer result = new StringBuffer();
     // Search the variable/function and escape with the particular pre-fix / sub-fix
@@ -264,14 +299,12 @@ public class JsonCorrelationReplacement<T extends BaseCorrelationContext> extend
   }
 
   @Override
-  public void process(HTTPSamplerBase sampler, List<TestElement> children, SampleResult
-      result,
-      JMeterVariables vars) {
+  protected boolean prepareProcess(HTTPSamplerBase sampler) {
     if (jsonpath.isEmpty()) {
-      return;
+      return false;
     }
     currentSampler = sampler;
-    super.process(sampler, children, result, vars);
+    return true;
   }
 
   @Override
@@ -312,4 +345,17 @@ public class JsonCorrelationReplacement<T extends BaseCorrelationContext> extend
   public void setExpressionEvaluator(Function<String, String> expressionEvaluator) {
     this.expressionEvaluator = expressionEvaluator;
   }
+
+  private static class JsonMatch {
+
+    private final String path;
+    private final String value;
+    private final boolean unquoted;
+
+    private JsonMatch(String path, Object value) {
+      this.path = path;
+      this.value = JMeterElementUtils.toJsonString(value);
+      this.unquoted = value != null && JMeterElementUtils.classIsNumberOrBoolean(value.getClass());
+    }
+  }
 }
@@ -1,12 +1,16 @@
 package com.blazemeter.jmeter.correlation.core.replacements;
 
 import com.blazemeter.jmeter.correlation.core.BaseCorrelationContext;
+import com.blazemeter.jmeter.correlation.core.CompiledPatternCache;
 import com.blazemeter.jmeter.correlation.core.CorrelationContext;
 import com.blazemeter.jmeter.correlation.core.ParameterDefinition;
 import com.blazemeter.jmeter.correlation.core.ParameterDefinition.CheckBoxParameterDefinition;
 import com.blazemeter.jmeter.correlation.core.ParameterDefinition.TextParameterDefinition;
+import com.blazemeter.jmeter.correlation.core.RegexEngine;
+import com.blazemeter.jmeter.correlation.core.RegexPattern;
 import com.blazemeter.jmeter.correlation.core.analysis.AnalysisReporter;
 import com.blazemeter.jmeter.correlation.gui.CorrelationRuleTestElement;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.google.common.annotations.VisibleForTesting;
 import java.util.Arrays;
 import java.util.HashSet;
@@ -16,16 +20,8 @@ import java.util.function.Function;
 import java.util.function.Predicate;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.jmeter.protocol.http.sampler.HTTPSamplerBase;
-import org.apache.jmeter.samplers.SampleResult;
-import org.apache.jmeter.testelement.TestElement;
 import org.apache.jmeter.threads.JMeterVariables;
-import org.apache.jmeter.util.JMeterUtils;
 import org.apache.oro.text.regex.MalformedPatternException;
-import org.apache.oro.text.regex.MatchResult;
-import org.apache.oro.text.regex.Pattern;
-import org.apache.oro.text.regex.PatternMatcher;
-import org.apache.oro.text.regex.PatternMatcherInput;
-import org.apache.oro.text.regex.Perl5Compiler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -41,13 +37,19 @@ public class RegexCorrelationReplacement<T extends BaseCorrelationContext> exten
   protected static final String REPLACEMENT_REGEX_PROPERTY_NAME = PROPERTIES_PREFIX + "regex";
   protected static final String REPLACEMENT_REGEX_PROPERTY_DESCRIPTION =
       "Regular expression " + "replacement";
+  protected static final String REPLACEMENT_LINEAR_REGEX_PROPERTY_NAME =
+      PROPERTIES_PREFIX + "linearRegex";
+  protected static final String LINEAR_REGEX_DESCRIPTION = "Linear-time matching";
   private static final Logger LOG = LoggerFactory.getLogger(RegexCorrelationReplacement.class);
   private static final boolean IGNORE_VALUE_DEFAULT = false;
+  private static final boolean LINEAR_REGEX_DEFAULT = false;
 
   protected String regex = REGEX_DEFAULT_VALUE;
   protected boolean ignoreValue = IGNORE_VALUE_DEFAULT;
+  protected boolean linearRegex = LINEAR_REGEX_DEFAULT;
 
   private Object currentSampler;
+  private final transient CompiledPatternCache patternCache = new CompiledPatternCache();
 
   /**
    * Default constructor added in order to satisfy the JSON conversion.
@@ -74,7 +76,8 @@ public class RegexCorrelationReplacement<T extends BaseCorrelationContext> exten
 
   @Override
   public List<String> getParams() {
-    return Arrays.asList(regex, replacementString, Boolean.toString(ignoreValue));
+    return Arrays.asList(regex, replacementString, Boolean.toString(ignoreValue),
+        Boolean.toString(linearRegex));
   }
 
   @Override
@@ -82,6 +85,8 @@ public class RegexCorrelationReplacement<T extends BaseCorrelationContext> exten
     regex = !params.isEmpty() ? params.get(0) : REGEX_DEFAULT_VALUE;
     replacementString = params.size() > 1 ? params.get(1) : REPLACEMENT_STRING_DEFAULT_VALUE;
     ignoreValue = params.size() > 2 ? Boolean.parseBoolean(params.get(2)) : IGNORE_VALUE_DEFAULT;
+    linearRegex = params.size() > 3 ? Boolean.parseBoolean(params.get(3)) : LINEAR_REGEX_DEFAULT;
+    patternCache.invalidate();
   }
 
   @Override
@@ -92,7 +97,9 @@ public class RegexCorrelationReplacement<T extends BaseCorrelationContext> exten
         new TextParameterDefinition(REPLACEMENT_STRING_PROPERTY_NAME, "Replacement string",
             REPLACEMENT_STRING_DEFAULT_VALUE, true),
         new CheckBoxParameterDefinition(REPLACEMENT_IGNORE_VALUE_PROPERTY_NAME, "Ignore Value",
-            IGNORE_VALUE_DEFAULT, true));
+            IGNORE_VALUE_DEFAULT, true),
+        new CheckBoxParameterDefinition(REPLACEMENT_LINEAR_REGEX_PROPERTY_NAME,
+            LINEAR_REGEX_DESCRIPTION, LINEAR_REGEX_DEFAULT, true));
   }
 
   @Override
@@ -106,29 +113,26 @@ public class RegexCorrelationReplacement<T extends BaseCorrelationContext> exten
     testElem.setProperty(REPLACEMENT_REGEX_PROPERTY_NAME, regex);
     testElem.setProperty(REPLACEMENT_STRING_PROPERTY_NAME, replacementString);
     testElem.setProperty(REPLACEMENT_IGNORE_VALUE_PROPERTY_NAME, ignoreValue);
+    testElem.setProperty(REPLACEMENT_LINEAR_REGEX_PROPERTY_NAME, linearRegex);
   }
 
   /**
-   * Process every request sent to the server and apply replacements over specific values. Differs
-   * from the father's class {@link CorrelationReplacement}'s by applying short circuit evaluation
-   * for better performance.
+   * Prepares the replacement to process the sampler. Differs from the father's class
+   * {@link CorrelationReplacement}'s by applying short circuit evaluation for better performance,
+   * skipping the sampler when there is no regex configured.
    *
    * @param sampler recorded sampler containing the information of the request
-   * @param children list of children added to the sampler (if the value matches the one associated
-   * to the Reference Variable, components could be added to help the correlation process)
-   * @param result containing information about the request and associated response from server
-   * @param vars stored variables shared between requests during recording
+   * @return true if the replacement has to be applied over the sampler, false otherwise
    * @see <a href="https://en.wikipedia.org/wiki/Short-circuit_evaluation">Short-circuit
    * evaluation</a>
    */
   @Override
-  public void process(HTTPSamplerBase sampler, List<TestElement> children, SampleResult result,
-      JMeterVariables vars) {
+  protected boolean prepareProcess(HTTPSamplerBase sampler) {
     if (regex.isEmpty()) {
-      return;
+      return false;
     }
     currentSampler = sampler;
-    super.process(sampler, children, result, vars);
+    return true;
   }
 
   /**
@@ -176,28 +180,37 @@ public class RegexCorrelationReplacement<T extends BaseCorrelationContext> exten
       return input;
     }
 
-    PatternMatcher matcher = JMeterUtils.getMatcher();
-    Pattern pattern;
+    RegexPattern pattern;
 
     try {
-      pattern = new Perl5Compiler().compile(regex);
+      pattern = patternCache.getPattern(regex, getRegexEngine());
     } catch (MalformedPatternException e) {
       LOG.warn("Malformed pattern: {}", regex, e);
       throw e;
     }
     HashSet<Pair<String, String>> valuesReplaced = new HashSet();
 
-    PatternMatcherInput patternMatcherInput = new PatternMatcherInput(input);
-    int beginOffset = patternMatcherInput.getBeginOffset();
-    char[] inputBuffer = patternMatcherInput.getBuffer();
+    RegexPattern.Matcher match = pattern.matcher(input);
+    int beginOffset = 0;
     StringBuilder result = new StringBuilder();
     Function<String, String> expressionProvider = replaceExpressionProvider();
     String literalMatched = "";
-    while (matcher.contains(patternMatcherInput, pattern)) {
-      MatchResult match = matcher.getMatch();
+    while (match.find()) {
       boolean hasMatch = false;
       int varNr = 0;
-      while (varNr <= context.getVariableCount(variableName) && !hasMatch) {
+      literalMatched = match.group(1);
+      // When the variables are indexed by value there is no need to check each of them
+      boolean indexed = canFindVariableByValue(literalMatched);
+      if (indexed) {
+        String varName = findVariableByValue(literalMatched, vars);
+        if (varName != null) {
+          result = replaceMatch(result, input, match, beginOffset,
+              expressionProvider.apply(varName));
+          valuesReplaced.add(Pair.of(literalMatched, varName));
+          hasMatch = true;
+        }
+      }
+      while (!indexed && varNr <= context.getVariableCount(variableName) && !hasMatch) {
         /* varNr could be 0 if non MultiValuedExtractor is used
          so this code is to support when yo use MultiValuedReplacement with
          SingleValuedExtractor */
@@ -226,8 +239,7 @@ public class RegexCorrelationReplacement<T extends BaseCorrelationContext> exten
             currentVariableName = varName;
           }
           if (replaceExpression != null) {
-            result = replaceMatch(result, patternMatcherInput, match,
-                beginOffset, inputBuffer, replaceExpression);
+            result = replaceMatch(result, input, match, beginOffset, replaceExpression);
             valuesReplaced.add(Pair.of(literalMatched, currentVariableName));
           }
         } else {
@@ -247,8 +259,8 @@ public class RegexCorrelationReplacement<T extends BaseCorrelationContext> exten
               }
             }
             if (replaceExpression != null) {
-              result = replaceMatch(result, patternMatcherInput, match,
-                  beginOffset, inputBuffer, expressionProvider.apply(replaceExpression));
+              result = replaceMatch(result, input, match, beginOffset,
+                  expressionProvider.apply(replaceExpression));
 
               valuesReplaced.add(Pair.of(literalMatched, currentVariableName));
             }
@@ -258,12 +270,11 @@ public class RegexCorrelationReplacement<T extends BaseCorrelationContext> exten
         varNr++;
       }
       if (!hasMatch) {
-        result.append(inputBuffer, beginOffset,
-            patternMatcherInput.getMatchEndOffset() - beginOffset);
+        result.append(input, beginOffset, match.end(0));
       }
-      beginOffset = patternMatcherInput.getMatchEndOffset();
+      beginOffset = match.end(0);
     }
-    result.append(inputBuffer, beginOffset, input.length() - beginOffset);
+    result.append(input, beginOffset, input.length());
     String replacedInput = result.toString();
     if (replacedInput.equals(input)) {
       return input;
@@ -279,13 +290,11 @@ public class RegexCorrelationReplacement<T extends BaseCorrelationContext> exten
     return replacedInput;
   }
 
-  private StringBuilder replaceMatch(StringBuilder result, PatternMatcherInput patternMatcherInput,
-      MatchResult match, int beginOffset, char[] inputBuffer,
-      String expression) {
-    return result.append(inputBuffer, beginOffset, match.beginOffset(1) - beginOffset)
+  private StringBuilder replaceMatch(StringBuilder result, String input,
+      RegexPattern.Matcher match, int beginOffset, String expression) {
+    return result.append(input, beginOffset, match.start(1))
         .append(expression)
-        .append(inputBuffer, match.endOffset(1),
-            patternMatcherInput.getMatchEndOffset() - match.endOffset(1));
+        .append(input, match.end(1), match.end(0));
   }
 
   /**
@@ -305,30 +314,24 @@ public class RegexCorrelationReplacement<T extends BaseCorrelationContext> exten
   protected String replaceWithRegexAndPredicate(String input, String regex, String expression,
       Predicate<String> matchCondition)
       throws MalformedPatternException {
-    PatternMatcher matcher = JMeterUtils.getMatcher();
-    Pattern pattern = new Perl5Compiler().compile(regex);
-    PatternMatcherInput patternMatcherInput = new PatternMatcherInput(input);
-    int beginOffset = patternMatcherInput.getBeginOffset();
-    char[] inputBuffer = patternMatcherInput.getBuffer();
+    RegexPattern.Matcher match = patternCache.getPattern(regex, getRegexEngine()).matcher(input);
+    int beginOffset = 0;
     StringBuilder result = new StringBuilder();
-    while (matcher.contains(patternMatcherInput, pattern)) {
-      MatchResult match = matcher.getMatch();
+    while (match.find()) {
       if (matchCondition.test(match.group(1))) {
         analysis(match.group(1), this.variableName);
         if (AnalysisReporter.canCorrelate()) {
-          replaceMatch(result, patternMatcherInput, match, beginOffset, inputBuffer,
+          replaceMatch(result, input, match, beginOffset,
               FUNCTION_REF_PREFIX + expression + FUNCTION_REF_SUFFIX);
         } else {
-          result.append(inputBuffer, beginOffset,
-              patternMatcherInput.getMatchEndOffset() - beginOffset);
+          result.append(input, beginOffset, match.end(0));
         }
       } else {
-        result.append(inputBuffer, beginOffset,
-            patternMatcherInput.getMatchEndOffset() - beginOffset);
+        result.append(input, beginOffset, match.end(0));
       }
-      beginOffset = patternMatcherInput.getMatchEndOffset();
+      beginOffset = match.end(0);
     }
-    result.append(inputBuffer, beginOffset, input.length() - beginOffset);
+    result.append(input, beginOffset, input.length());
     return result.toString();
   }
 
@@ -337,6 +340,35 @@ public class RegexCorrelationReplacement<T extends BaseCorrelationContext> exten
     regex = testElem.getPropertyAsString(REPLACEMENT_REGEX_PROPERTY_NAME);
     replacementString = testElem.getPropertyAsString(REPLACEMENT_STRING_PROPERTY_NAME);
     ignoreValue = testElem.getPropertyAsBoolean(REPLACEMENT_IGNORE_VALUE_PROPERTY_NAME);
+    linearRegex = testElem.getPropertyAsBoolean(REPLACEMENT_LINEAR_REGEX_PROPERTY_NAME);
+    patternCache.invalidate();
+  }
+
+  /**
+   * Gets the engine used to evaluate the regular expression while recording. Check
+   * {@link RegexEngine} for the differences between them.
+   *
+   * @return the engine used to evaluate the regular expression
+   */
+  @JsonIgnore
+  public RegexEngine getRegexEngine() {
+    return RegexEngine.fromLinearFlag(linearRegex);
+  }
+
+  public void setLinearRegex(boolean linearRegex) {
+    this.linearRegex = linearRegex;
+    patternCache.invalidate();
+  }
+
+  /**
+   * Gives access to the cache of compiled patterns used by this replacement, which also exposes
+   * the hits and misses of the compiled patterns lookups.
+   *
+   * @return the compiled patterns cache of this replacement
+   */
+  @JsonIgnore
+  public CompiledPatternCache getPatternCache() {
+    return patternCache;
   }
 
   protected void analysis(String literalMatched, String currentVariableName) {
@@ -350,6 +382,7 @@ public class RegexCorrelationReplacement<T extends BaseCorrelationContext> exten
         + ", regex='" + regex + "'"
         + ", replacementString='" + replacementString + "'"
         + ", ignoreValue=" + ignoreValue
+        + ", linearRegex=" + linearRegex
         + '}';
 
   }
@@ -3,7 +3,9 @@ package com.blazemeter.jmeter.correlation.core.suggestions;
 import com.blazemeter.jmeter.correlation.core.CorrelationRule;
 import com.blazemeter.jmeter.correlation.core.RulesGroup;
 import com.blazemeter.jmeter.correlation.core.automatic.CorrelationSuggestion;
+import com.blazemeter.jmeter.correlation.core.automatic.ExtractorsConsolidator;
 import com.blazemeter.jmeter.correlation.core.automatic.JMeterElementUtils;
+import com.blazemeter.jmeter.correlation.core.automatic.PostProcessorsOptimizer;
 import com.blazemeter.jmeter.correlation.core.automatic.WaitingDialog;
 import com.blazemeter.jmeter.correlation.core.suggestions.context.AnalysisContext;
 import com.blazemeter.jmeter.correlation.core.suggestions.method.AnalysisMethod;
@@ -71,6 +73,8 @@ public class SuggestionsApplianceWorker extends SwingWorker<Void, String> implem
 
     historyLogStep.accept("(Save) Before apply suggestions");
     applySuggestions();
+    consolidateExtractors();
+    optimizePostProcessors();
     historyLogStep.accept("(Save) After apply suggestions");
 
     isWorkerRunning = false;
@@ -102,6 +106,24 @@ public class SuggestionsApplianceWorker extends SwingWorker<Void, String> implem
     analysisMethod.runAnalysis(rulesGroups, true);
   }
 
+  private void consolidateExtractors() {
+    ExtractorsConsolidator consolidator = ExtractorsConsolidator.createIfEnabled();
+    if (consolidator == null) {
+      return;
+    }
+    LOG.info("Removed {} redundant extractors",
+        consolidator.consolidate(JMeterElementUtils.getTreeModel()));
+  }
+
+  private void optimizePostProcessors() {
+    PostProcessorsOptimizer optimizer = PostProcessorsOptimizer.createIfEnabled();
+    if (optimizer == null) {
+      return;
+    }
+    LOG.info("{}", optimizer.optimize(JMeterElementUtils.getTreeModel(),
+        JMeterElementUtils.getSampleResults(recordingTracePath)));
+  }
+
   private @NotNull AnalysisContext buildAnalysisContext() {
     AnalysisContext context = new AnalysisContext();
     context.setRecordingTraceFilePath(recordingTracePath);
@@ -1,12 +1,14 @@
 package com.blazemeter.jmeter.correlation.core.suggestions.context;
 
 import com.blazemeter.jmeter.correlation.core.automatic.Appearances;
+import com.blazemeter.jmeter.correlation.core.automatic.AppearancesMapCache;
 import com.blazemeter.jmeter.correlation.core.automatic.Configuration;
 import com.blazemeter.jmeter.correlation.core.automatic.JMeterElementUtils;
 import com.blazemeter.jmeter.correlation.core.automatic.ResultsExtraction;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 import org.apache.jmeter.protocol.http.sampler.HTTPSamplerProxy;
 import org.apache.jmeter.samplers.SampleResult;
 
@@ -48,6 +50,16 @@ public class ComparisonContext implements CorrelationContext {
     return JMeterElementUtils.getSampleResultsFiltered(recordingTraceFilePath);
   }
 
+  /**
+   * This method streams the SampleResult objects from the recording trace file, parsing them while
+   * they are consumed, so the whole trace doesn't need to be loaded in memory. The returned stream
+   * must be closed once consumed.
+   * @return a stream of SampleResult objects.
+   */
+  public Stream<SampleResult> streamRecordingSampleResults() {
+    return JMeterElementUtils.streamSampleResultsFiltered(recordingTraceFilePath);
+  }
+
   /**
    * This method retrieves a list of HTTPSamplerBase objects from the recording.
    * @return a list of HTTPSamplerBase objects.
@@ -104,8 +116,7 @@ public class ComparisonContext implements CorrelationContext {
    * @return a map of parameter names to their appearances.
    */
   public Map<String, List<Appearances>> getRecordingMap() {
-    return new ResultsExtraction(configuration)
-        .extractAppearanceMap(recordingTraceFilePath);
+    return getAppearanceMap(recordingTraceFilePath);
   }
 
   /**
@@ -114,7 +125,19 @@ public class ComparisonContext implements CorrelationContext {
    * @return a map of parameter names to their appearances.
    */
   public Map<String, List<Appearances>> getReplayMap() {
-    return new ResultsExtraction(configuration)
-        .extractAppearanceMap(replayTraceFilePath);
+    return getAppearanceMap(replayTraceFilePath);
+  }
+
+  /*
+   The cache is only used when enabled through JMeter properties, which are checked on each call
+   since they may be changed between iterations of the correlation wizard.
+   */
+  private Map<String, List<Appearances>> getAppearanceMap(String traceFilePath) {
+    AppearancesMapCache cache = AppearancesMapCache.createIfEnabled();
+    if (cache == null) {
+      return new ResultsExtraction(configuration).extractAppearanceMap(traceFilePath);
+    }
+    return cache.getAppearanceMap(traceFilePath, configuration,
+        path -> new ResultsExtraction(configuration).extractAppearanceMap(path));
   }
 }
@@ -0,0 +1,83 @@
+package com.blazemeter.jmeter.correlation.core.suggestions.method;
+
+import com.blazemeter.jmeter.correlation.core.automatic.Appearances;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Order independent fingerprint of the source and value of a list of appearances.
+ *
+ * <p>The fingerprint is the size of the list and the sums of two hashes of the source and value
+ * of each appearance, which don't change with the order of the appearances. This allows telling
+ * apart lists with different sources or values in linear time and constant memory, without
+ * sorting them nor building their string representations. Lists with the same fingerprint are
+ * compared element by element to discard collisions.
+ */
+public final class AppearancesFingerprint {
+
+  private static final long SEED = 0x9E3779B97F4A7C15L;
+
+  private final List<Appearances> appearances;
+  private final long firstHash;
+  private final long secondHash;
+
+  private AppearancesFingerprint(List<Appearances> appearances) {
+    this.appearances = appearances;
+    long first = 0;
+    long second = 0;
+    for (Appearances appearance : appearances) {
+      long hash = 31L * Objects.hashCode(appearance.getSource())
+          + Objects.hashCode(appearance.getValue());
+      first += mix(hash);
+      second += mix(hash + SEED);
+    }
+    firstHash = first;
+    secondHash = second;
+  }
+
+  /**
+   * Calculates the fingerprint of a list of appearances.
+   *
+   * @param appearances the list of appearances
+   * @return the fingerprint of the list
+   */
+  public static AppearancesFingerprint of(List<Appearances> appearances) {
+    return new AppearancesFingerprint(appearances);
+  }
+
+  // SplitMix64 finalizer, to spread the bits of the hash codes before adding them
+  private static long mix(long hash) {
+    long ret = (hash ^ (hash >>> 30)) * 0xBF58476D1CE4E5B9L;
+    ret = (ret ^ (ret >>> 27)) * 0x94D049BB133111EBL;
+    return ret ^ (ret >>> 31);
+  }
+
+  /**
+   * Checks if the fingerprinted list has the same sources and values as another one, in any
+   * order.
+   *
+   * @param other the fingerprint of the other list
+   * @return true if both lists have the same pairs of source and value the same number of times,
+   *     false otherwise
+   */
+  public boolean hasSameValues(AppearancesFingerprint other) {
+    return appearances.size() == other.appearances.size()
+        && firstHash == other.firstHash
+        && secondHash == other.secondHash
+        && countValues(appearances).equals(countValues(other.appearances));
+  }
+
+  private static Map<Map.Entry<String, String>, Integer> countValues(
+      List<Appearances> appearances) {
+    Map<Map.Entry<String, String>, Integer> ret = new HashMap<>();
+    for (Appearances appearance : appearances) {
+      ret.merge(new SimpleImmutableEntry<>(appearance.getSource(), appearance.getValue()), 1,
+          Integer::sum);
+    }
+    return ret;
+  }
+
+}
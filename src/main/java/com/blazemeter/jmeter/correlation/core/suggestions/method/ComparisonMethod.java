@@ -1,6 +1,7 @@
 package com.blazemeter.jmeter.correlation.core.suggestions.method;
 
 import com.blazemeter.jmeter.correlation.core.automatic.Appearances;
+import com.blazemeter.jmeter.correlation.core.automatic.ArgumentValuesIndex;
 import com.blazemeter.jmeter.correlation.core.automatic.Configuration;
 import com.blazemeter.jmeter.correlation.core.automatic.CorrelationSuggestion;
 import com.blazemeter.jmeter.correlation.core.automatic.DynamicElement;
@@ -8,6 +9,8 @@ import com.blazemeter.jmeter.correlation.core.automatic.ExtractionSuggestion;
 import com.blazemeter.jmeter.correlation.core.automatic.ReplacementSuggestion;
 import com.blazemeter.jmeter.correlation.core.automatic.ResponseAnalyzer;
 import com.blazemeter.jmeter.correlation.core.automatic.Sources;
+import com.blazemeter.jmeter.correlation.core.automatic.ValueOccurrenceIndex;
+import com.blazemeter.jmeter.correlation.core.automatic.ValueOccurrenceIndex.ResultOccurrences;
 import com.blazemeter.jmeter.correlation.core.automatic.extraction.StructureType;
 import com.blazemeter.jmeter.correlation.core.automatic.extraction.location.LocationType;
 import com.blazemeter.jmeter.correlation.core.automatic.extraction.method.Extractor;
@@ -22,11 +25,14 @@ import com.helger.commons.annotation.VisibleForTesting;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.jmeter.protocol.http.sampler.HTTPSampleResult;
 import org.apache.jmeter.samplers.SampleResult;
@@ -45,13 +51,11 @@ public class ComparisonMethod implements CorrelationMethod {
   private final Function<SampleResult, String> getLabel = SampleResult::getSampleLabel;
   private final Function<SampleResult, String> resultQueryString
       = (sampleResult) -> ((HTTPSampleResult) sampleResult).getQueryString();
-  private final Map<String, String> valueToReferenceName = new HashMap<>();
+  private final ReplacementValuesIndex replacementValues = new ReplacementValuesIndex();
   private final List<CorrelationSuggestion> suggestions = new ArrayList<>();
   private final List<CorrelationSuggestion> orphanSuggestions = new ArrayList<>();
-  private List<SampleResult> results;
+  private ValueOccurrenceIndex valueOccurrences;
   private ComparisonContext context;
-  private final HashMap<LocationType, StructureType> structureTypeCache =
-      new HashMap<>();
 
   public ComparisonMethod() {
   }
@@ -104,11 +108,14 @@ public class ComparisonMethod implements CorrelationMethod {
    * This method generates correlation suggestions by comparing the parameters of the requests and
    * responses of the recording and replaying. It first checks if the context is an instance of
    * ComparisonContext. If it is not, it logs an error and returns an empty list. Then, it sets the
-   * context and results fields and retrieves the recording and replay maps from the context. If
+   * context field and retrieves the recording and replay maps from the context. If
    * either the recording or replay map is empty, it logs a warning and returns an empty list.
    * Otherwise, it creates a new DynamicElementHandler and generates a list of dynamic elements by
-   * comparing the replay and recording maps. It then loads the dynamic elements into the
-   * suggestions list and returns it.
+   * comparing the replay and recording maps, and indexes the occurrences of their values in the
+   * recording results, streaming the results so the whole recording isn't kept in memory. It then
+   * generates the extraction suggestions of the
+   * dynamic elements in parallel, and loads them into the suggestions list, in the same order as
+   * the dynamic elements, and returns it.
    *
    * @param context the CorrelationContext to use for generating suggestions.
    * @return a list of correlation suggestions.
@@ -121,8 +128,6 @@ public class ComparisonMethod implements CorrelationMethod {
       return new ArrayList<>();
     }
     this.context = (ComparisonContext) context;
-    this.results = this.context.getRecordingSampleResults(); // Load the results once
-
     Map<String, List<Appearances>> recordingMap = this.context.getRecordingMap();
     Map<String, List<Appearances>> replayMap = this.context.getReplayMap();
 
@@ -132,76 +137,146 @@ public class ComparisonMethod implements CorrelationMethod {
     }
     DynamicElementHandler handler = new DynamicElementHandler(this.context);
     List<DynamicElement> dynamicElements = handler.getDynamicElements(recordingMap, replayMap);
-    dynamicElements.forEach(this::loadFromDynamicElements);
+    List<String> values = dynamicElements.stream()
+        .flatMap(e -> getAppearances(e).stream())
+        .map(Appearances::getValue)
+        .collect(Collectors.toList());
+    try (Stream<SampleResult> results = this.context.streamRecordingSampleResults()) {
+      this.valueOccurrences = new ValueOccurrenceIndex(new ResponseAnalyzer(), results::iterator,
+          values);
+    }
+    List<ElementExtraction> extractions = extractFromDynamicElements(dynamicElements);
+    if (extractions == null) {
+      LOG.warn("Suggestions generation was interrupted. Returning empty suggestions.");
+      return new ArrayList<>();
+    }
+    extractions.forEach(this::loadFromDynamicElements);
     return suggestions;
   }
 
   /**
-   * This method loads dynamic elements into the suggestions list. It first creates a new
-   * CorrelationSuggestion from the replay candidate. Then, it populates the suggestion with the
-   * replay candidate's data. If the suggestion has orphan elements (i.e., elements that are not
-   * matched in both the recording and replaying), it adds the suggestion to the orphanSuggestions
-   * list and returns. Otherwise, it adds the suggestion to the suggestions list.
+   * This method generates the extraction suggestions of the dynamic elements. Since the extraction
+   * suggestions of each element only depend on the element itself, they are generated in a
+   * ForkJoinPool with the parallelism set in the Configuration, each with its own caches and its
+   * own map of values to reference names, which are later merged in the original order of the
+   * dynamic elements.
+   * <p>
+   * Each task creates its own ExtractorFactory, ResponseAnalyzer and Extractors (which keep caches
+   * of the parsed responses), and receives the Configuration read before starting the tasks, so
+   * they don't access the context. The only objects shared between the tasks are the
+   * ValueOccurrenceIndex, which is not modified after it is built, and the recorded SampleResults
+   * it references, which the tasks and the Extractors only read. Reading the body of a
+   * StoredSampleResult is synchronized, and the returned array is shared, so it must not be
+   * modified by the Extractors.
    *
-   * @param replayCandidate the DynamicElement to load into the suggestions list.
+   * @param dynamicElements the DynamicElements to generate the extraction suggestions for.
+   * @return the extraction suggestions of each dynamic element, in the same order as the dynamic
+   * elements, or null if the generation was interrupted.
    */
-  private void loadFromDynamicElements(DynamicElement replayCandidate) {
-    CorrelationSuggestion suggestion = new CorrelationSuggestion(replayCandidate.getName(),
-        appearancesToString(replayCandidate.getOriginalAppearance()),
-        appearancesToString(replayCandidate.getOtherAppearance()));
-
-    populateSuggestion(replayCandidate, suggestion);
-    if (hasOrphans(suggestion)) {
-      orphanSuggestions.add(suggestion);
-      return;
+  private List<ElementExtraction> extractFromDynamicElements(
+      List<DynamicElement> dynamicElements) {
+    Configuration configuration = getConfiguration();
+    int parallelism = configuration.getSuggestionsParallelism();
+    if (parallelism < 2 || dynamicElements.size() < 2) {
+      return dynamicElements.stream()
+          .map(e -> extractFromDynamicElement(e, configuration))
+          .collect(Collectors.toList());
+    }
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      return pool.submit(() -> dynamicElements.parallelStream()
+          .map(e -> extractFromDynamicElement(e, configuration))
+          .collect(Collectors.toList())).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      throw cause instanceof RuntimeException ? (RuntimeException) cause
+          : new IllegalStateException("Error while generating extraction suggestions", cause);
+    } finally {
+      pool.shutdownNow();
     }
-    suggestions.add(suggestion);
   }
 
   /**
-   * This method populates a CorrelationSuggestion with extraction and replacement suggestions. It
-   * first adds multivalued extraction suggestions to the CorrelationSuggestion by comparing the
-   * element's appearances with the results and the valueToReferenceName map. Then, it adds
-   * multivalued replacement suggestions to the CorrelationSuggestion in the same way. Finally, it
-   * returns the populated CorrelationSuggestion.
+   * This method creates a new CorrelationSuggestion from the dynamic element and adds to it the
+   * multivalued extraction suggestions of the element. The values mapped to the extraction
+   * parameter names are kept in the returned ElementExtraction, so this method doesn't modify any
+   * shared state and can be invoked concurrently for different elements.
    *
-   * @param element the DynamicElement to use for generating the extraction and replacement
-   * suggestions.
-   * @param suggestion the CorrelationSuggestion to populate with the generated suggestions.
-   * @return the populated CorrelationSuggestion.
+   * @param element the DynamicElement to generate the extraction suggestions for.
+   * @param configuration the Configuration used to generate the extraction suggestions.
+   * @return the CorrelationSuggestion, with its extraction suggestions, and the values that it
+   * extracts.
    */
-  private CorrelationSuggestion populateSuggestion(DynamicElement element,
-      CorrelationSuggestion suggestion) {
-    addMultivaluedExtractor(element, suggestion, results, valueToReferenceName);
-    addMultivaluedReplacement(element, suggestion, valueToReferenceName);
-    return suggestion;
+  private ElementExtraction extractFromDynamicElement(DynamicElement element,
+      Configuration configuration) {
+    CorrelationSuggestion suggestion = new CorrelationSuggestion(element.getName(),
+        appearancesToString(element.getOriginalAppearance()),
+        appearancesToString(element.getOtherAppearance()));
+    Map<String, String> extractedValues = new LinkedHashMap<>();
+    addMultivaluedExtractor(element, suggestion, valueOccurrences, extractedValues,
+        configuration);
+    return new ElementExtraction(element, suggestion, extractedValues);
+  }
+
+  /**
+   * This method loads the extraction of a dynamic element into the suggestions list. It first
+   * registers the values extracted by the element into the replacementValues index. Then, it adds
+   * the multivalued replacement suggestions to the element's CorrelationSuggestion. If the
+   * suggestion has orphan elements (i.e., elements that are not matched in both the recording and
+   * replaying), it adds the suggestion to the orphanSuggestions list and returns. Otherwise, it
+   * adds the suggestion to the suggestions list.
+   *
+   * @param extraction the extraction of the DynamicElement to load into the suggestions list.
+   */
+  private void loadFromDynamicElements(ElementExtraction extraction) {
+    CorrelationSuggestion suggestion = extraction.suggestion;
+    extraction.extractedValues.forEach(replacementValues::register);
+    addMultivaluedReplacement(extraction.element, suggestion, replacementValues);
+    if (hasOrphans(suggestion)) {
+      orphanSuggestions.add(suggestion);
+      return;
+    }
+    suggestions.add(suggestion);
   }
 
   /**
    * This method adds multivalued extraction suggestions to a CorrelationSuggestion. It iterates
-   * over the results and for each result, it adds extraction suggestions for both the original and
-   * other appearances of the element. The extraction suggestions are added by comparing the
+   * over the results that contain any of the element's values (according to the
+   * ValueOccurrenceIndex) and for each result, it adds extraction suggestions for both the original
+   * and other appearances of the element. The extraction suggestions are added by comparing the
    * element's appearances with the results and the valueToReferenceName map.
    *
    * @param element the DynamicElement to use for generating the extraction suggestions.
    * @param suggestion the CorrelationSuggestion to add the extraction suggestions to.
-   * @param results a list of SampleResults to use for generating the extraction suggestions.
+   * @param valueOccurrences the index of the results where each value appears, used to only visit
+   * the results which contain the element's values.
    * @param valueToReferenceName a map of values to reference names to use for generating the
    * extraction suggestions.
+   * @param configuration the Configuration used to generate the extraction suggestions.
    */
   private void addMultivaluedExtractor(DynamicElement element,
-      CorrelationSuggestion suggestion, List<SampleResult> results,
-      Map<String, String> valueToReferenceName) {
-
-    for (SampleResult result : results) {
-      //We use both the "original" and the "other" appearances since the map can come from either
-      //the original recorder or from the failing replay
-      List<Appearances> appearancesList = new ArrayList<>(element.getOriginalAppearance());
-      appearancesList.addAll(element.getOtherAppearance());
-      addExtractorSuggestions(valueToReferenceName, suggestion, result, appearancesList);
+      CorrelationSuggestion suggestion, ValueOccurrenceIndex valueOccurrences,
+      Map<String, String> valueToReferenceName, Configuration configuration) {
+    List<Appearances> appearancesList = getAppearances(element);
+    List<ResultOccurrences> occurrences = valueOccurrences.findOccurrences(
+        appearancesList.stream().map(Appearances::getValue).collect(Collectors.toList()));
+    for (ResultOccurrences occurrence : occurrences) {
+      addExtractorSuggestions(valueToReferenceName, suggestion, occurrence.getResult(),
+          appearancesList, occurrence.getLocations(), configuration);
     }
   }
 
+  private static List<Appearances> getAppearances(DynamicElement element) {
+    //We use both the "original" and the "other" appearances since the map can come from either
+    //the original recorder or from the failing replay
+    List<Appearances> appearancesList = new ArrayList<>(element.getOriginalAppearance());
+    appearancesList.addAll(element.getOtherAppearance());
+    return appearancesList;
+  }
+
   /**
    * This method adds extraction suggestions to a CorrelationSuggestion. It iterates over the
    * appearances and for each appearance, it checks if the number of appearances exceeds the maximum
@@ -219,14 +294,17 @@ public class ComparisonMethod implements CorrelationMethod {
    * @param suggestion the CorrelationSuggestion to add the extraction suggestions to.
    * @param result the SampleResult to use for generating the extraction suggestions.
    * @param appearances a list of Appearances to use for generating the extraction suggestions.
+   * @param locations the locations of the appearances values in the result.
+   * @param configuration the Configuration used to create the Extractors.
    */
   private void addExtractorSuggestions(Map<String, String> valueToReferenceName,
       CorrelationSuggestion suggestion, SampleResult result,
-      List<Appearances> appearances) {
-    structureTypeCache.clear();
+      List<Appearances> appearances, Map<String, List<Pair<LocationType, String>>> locations,
+      Configuration configuration) {
+    HashMap<LocationType, StructureType> structureTypeCache = new HashMap<>();
     // Flowing fields declared beforehand for performance proposes
     StructureType structureType;
-    ExtractorFactory ef = new ExtractorFactory(context.getConfiguration());
+    ExtractorFactory ef = new ExtractorFactory(configuration);
     HashMap<String, Extractor> extractorCache = new HashMap<>();
     ResponseAnalyzer analyzer = new ResponseAnalyzer();
     String name;
@@ -237,8 +315,8 @@ public class ComparisonMethod implements CorrelationMethod {
         continue;
       }
       name = suggestion.getParamName();
-      if (suggestion.getAppearances().size() > getConfiguration().getMaxNumberOfAppearances()
-          && getConfiguration().getMaxNumberOfAppearances() != -1) {
+      if (suggestion.getAppearances().size() > configuration.getMaxNumberOfAppearances()
+          && configuration.getMaxNumberOfAppearances() != -1) {
         LOG.warn("Too many appearances for element  '{}'. Please review the total appearances.",
             name);
         return;
@@ -249,7 +327,7 @@ public class ComparisonMethod implements CorrelationMethod {
         continue;
       }
 
-      Pair<LocationType, String> location = analyzer.identifyArgumentLocation(result,
+      Pair<LocationType, String> location = ArgumentValuesIndex.getFirstLocation(locations,
           appearance.getValue());
       if (location.getLeft() == LocationType.UNKNOWN) {
         // "Couldn't associate a location for the param in the responses.
@@ -367,27 +445,26 @@ public class ComparisonMethod implements CorrelationMethod {
 
   /**
    * This method checks if a given replacement suggestion is already present in the list of
-   * replacement suggestions of a CorrelationSuggestion. It iterates over the existing replacement
-   * suggestions and compares each one to the given replacement suggestion. If a match is found, it
-   * sets the repeated flag to true and breaks the loop. Finally, it returns the value of the
-   * repeated flag.
+   * replacement suggestions of a CorrelationSuggestion for the same element. Replacements are
+   * looked up by their class and parameters in the CorrelationSuggestion, without comparing them
+   * with each one of the existing replacement suggestions.
    *
    * @param suggestion the CorrelationSuggestion containing the list of replacement suggestions to
    * check.
    * @param replacementSuggestion the replacement suggestion to check for in the list.
+   * @param usage the element where the replacement would be applied.
    * @return true if the replacement suggestion is already present in the list, false otherwise.
    */
   private boolean isRepeated(CorrelationSuggestion suggestion,
-      CorrelationReplacement<?> replacementSuggestion) {
-    return suggestion.getExtractionSuggestionsString().contains(replacementSuggestion.toString());
+      CorrelationReplacement<?> replacementSuggestion, TestElement usage) {
+    return suggestion.hasReplacementSuggestion(replacementSuggestion, usage);
   }
 
   /**
    * This method checks if a given extraction suggestion is already present in the list of
-   * extraction suggestions of a CorrelationSuggestion. It iterates over the existing extraction
-   * suggestions and compares each one to the given extraction suggestion. If a match is found, it
-   * sets the repeated flag to true and breaks the loop. Finally, it returns the value of the
-   * repeated flag.
+   * extraction suggestions of a CorrelationSuggestion. Suggestions are looked up by their name,
+   * value, source, origin and the class and parameters of their extractor in the
+   * CorrelationSuggestion, without comparing them with each one of the existing ones.
    *
    * @param suggestion the CorrelationSuggestion containing the list of extraction suggestions to
    * check.
@@ -396,7 +473,7 @@ public class ComparisonMethod implements CorrelationMethod {
    */
   private boolean isRepeated(CorrelationSuggestion suggestion,
       ExtractionSuggestion extractionSuggestion) {
-    return suggestion.getExtractionSuggestionsString().contains(extractionSuggestion.toString());
+    return suggestion.hasExtractionSuggestion(extractionSuggestion);
   }
 
   /**
@@ -405,23 +482,23 @@ public class ComparisonMethod implements CorrelationMethod {
    * appearances are used because the element could be generated from a recording (original) or a
    * replay (other). Then, it adds replacement suggestions to the CorrelationSuggestion for both the
    * original and other appearances. The replacement suggestions are added by comparing the
-   * appearances with the valueToReferenceName map.
+   * appearances with the replacementValues index.
    *
    * @param element the DynamicElement to use for generating the replacement suggestions.
    * @param suggestion the CorrelationSuggestion to add the replacement suggestions to.
-   * @param valueToReferenceName a map of values to reference names to use for generating the
+   * @param replacementValues the index of the extracted values to use for generating the
    * replacement suggestions.
    */
   private void addMultivaluedReplacement(DynamicElement element,
       CorrelationSuggestion suggestion,
-      Map<String, String> valueToReferenceName) {
+      ReplacementValuesIndex replacementValues) {
 
     List<Appearances> originalAppearances = element.getOriginalAppearance();
     List<Appearances> otherAppearances = element.getOtherAppearance();
     // We use the original and the other appearances since the element could be generated
     // from a recording (original) or a replay (other)
-    addReplacementSuggestions(suggestion, valueToReferenceName, originalAppearances);
-    addReplacementSuggestions(suggestion, valueToReferenceName, otherAppearances);
+    addReplacementSuggestions(suggestion, replacementValues, originalAppearances);
+    addReplacementSuggestions(suggestion, replacementValues, otherAppearances);
   }
 
   /**
@@ -435,12 +512,13 @@ public class ComparisonMethod implements CorrelationMethod {
    * usages of the CorrelationSuggestion.
    *
    * @param suggestion the CorrelationSuggestion to add the replacement suggestions to.
-   * @param valueToReferenceName a map of values to reference names.
+   * @param replacementValues the index of the extracted values by their encoded and decoded
+   * forms.
    * @param originalAppearances a list of Appearances to use for generating the replacement
    * suggestions.
    */
   private void addReplacementSuggestions(CorrelationSuggestion suggestion,
-      Map<String, String> valueToReferenceName,
+      ReplacementValuesIndex replacementValues,
       List<Appearances> originalAppearances) {
     String name = suggestion.getParamName();
     for (Appearances appearance : originalAppearances) {
@@ -449,8 +527,8 @@ public class ComparisonMethod implements CorrelationMethod {
           || source.contains(Sources.RESPONSE_BODY_JSON)) {
         continue;
       }
-      ReplacementParameters replacementParameters = getReplacementParameters(valueToReferenceName,
-          appearance.getValue());
+      ReplacementParameters replacementParameters = replacementValues
+          .getReplacementParameters(appearance.getValue());
       if (replacementParameters.getRefName() == null || replacementParameters.getRefName()
           .isEmpty()) {
         continue;
@@ -458,7 +536,7 @@ public class ComparisonMethod implements CorrelationMethod {
       for (TestElement usage : appearance.getList()) {
         CorrelationReplacement<?> replacement = ReplacementContext.getStrategy(source)
             .generateReplacement(usage, appearance, replacementParameters);
-        if (replacement == null || isRepeated(suggestion, replacement)) {
+        if (replacement == null || isRepeated(suggestion, replacement, usage)) {
           continue;
         }
         ReplacementSuggestion replacementSug = new ReplacementSuggestion(replacement, usage);
@@ -471,21 +549,6 @@ public class ComparisonMethod implements CorrelationMethod {
     }
   }
 
-  private static ReplacementParameters getReplacementParameters(
-      Map<String, String> valueToReferenceName,
-      String value) {
-    for (ReplacementString r : ReplacementString.values()) {
-      Optional<String> key = valueToReferenceName.keySet().stream()
-          .filter(k -> r.applyFunction(k).equals(value)).findFirst();
-      if (key.isPresent()) {
-        String refName = valueToReferenceName.get(key.get());
-        refName = refName.contains("#") ? refName.substring(0, refName.indexOf("#")) : refName;
-        return new ReplacementParameters(refName, r);
-      }
-    }
-    return new ReplacementParameters("", ReplacementString.NONE);
-  }
-
   /**
    * This method retrieves the Configuration object from the current ComparisonContext. The
    * Configuration object contains the settings and parameters used for generating correlation
@@ -508,6 +571,20 @@ public class ComparisonMethod implements CorrelationMethod {
     this.context = context;
   }
 
+  private static class ElementExtraction {
+
+    private final DynamicElement element;
+    private final CorrelationSuggestion suggestion;
+    private final Map<String, String> extractedValues;
+
+    private ElementExtraction(DynamicElement element, CorrelationSuggestion suggestion,
+        Map<String, String> extractedValues) {
+      this.element = element;
+      this.suggestion = suggestion;
+      this.extractedValues = extractedValues;
+    }
+  }
+
   public static class ReplacementParameters {
 
     private final String refName;
@@ -17,14 +17,13 @@ import org.slf4j.LoggerFactory;
  * The DynamicElementHandler class is responsible for generating a list of DynamicElement
  * instances by comparing two maps of parameters.
  * It provides methods to check if the values of Appearances in both the original and replay
- * lists are parametrized, sort a list of Appearances and return a string representation
- * of the sorted list, generate a list of DynamicElement by comparing two maps of parameters,
+ * lists are parametrized, generate a list of DynamicElement by comparing two maps of parameters,
  * generate a list of base dynamic elements by comparing two maps of parameters, locate
  * different arguments between two maps of parameters, check if the number of appearances of
  * a parameter in both the original and replay recordings exceeds the maximum allowed
  * appearances defined in the configuration, add dynamic elements to the differences
  * list based on a given condition, check if the parameter is in the list of manually
- * requested parameters, and check if two lists of Appearances are equal after sorting.
+ * requested parameters, and check if two lists of Appearances have the same values in any order.
  */
 public class DynamicElementHandler {
   private static final Logger LOG = LoggerFactory.getLogger(DynamicElementHandler.class);
@@ -80,21 +79,6 @@ public class DynamicElementHandler {
         && appearance.getValue().contains("}");
   }
 
-  /**
-   * This method sorts a list of Appearances and returns a string representation of the sorted list.
-   * It first maps each Appearance to a string in the format "  source:value".
-   * Then, it sorts the strings and joins them with a newline character.
-   *
-   * @param appearances a list of Appearances to sort.
-   * @return a string representation of the sorted list of Appearances.
-   */
-  @VisibleForTesting
-  public static String getSortedAppearances(List<Appearances> appearances) {
-    return appearances.stream()
-        .map(app -> "  " + app.getSource() + ":" + app.getValue())
-        .sorted().collect(Collectors.joining("\n"));
-  }
-
   /**
    * Generates a list of {@link DynamicElement} by comparing two maps of parameters.
    * This method expects that the map comes from either a JMX recording or
@@ -270,14 +254,14 @@ public class DynamicElementHandler {
   }
 
   /**
-   * This method checks if two lists of Appearances are equal after sorting.
-   * It first checks if the sizes of the two lists are equal. If they are not, it returns false.
-   * Then, it sorts the Appearances in each list and compares them.
-   * If the sorted lists are equal, it returns true. Otherwise, it returns false.
+   * This method checks if two lists of Appearances have the same sources and values, regardless
+   * of their order.
+   * It compares the {@link AppearancesFingerprint} of both lists, which is calculated in linear
+   * time, and only compares the values of the lists when the fingerprints match.
    *
    * @param originalRecording a list of Appearances from the original recording.
    * @param replayTrace a list of Appearances from the replay trace.
-   * @return true if the sorted lists are equal, false otherwise.
+   * @return true if both lists have the same values, false otherwise.
    */
   private boolean areEqualsAfterSorting(List<Appearances> originalRecording,
                                         List<Appearances> replayTrace) {
@@ -285,9 +269,7 @@ public class DynamicElementHandler {
       return false;
     }
 
-    String originalAppearances = getSortedAppearances(originalRecording);
-    String replayAppearances = getSortedAppearances(replayTrace);
-
-    return originalAppearances.equals(replayAppearances);
+    return AppearancesFingerprint.of(originalRecording)
+        .hasSameValues(AppearancesFingerprint.of(replayTrace));
   }
 }
@@ -0,0 +1,62 @@
+package com.blazemeter.jmeter.correlation.core.suggestions.method;
+
+import com.blazemeter.jmeter.correlation.core.automatic.replacement.method.ReplacementString;
+import com.blazemeter.jmeter.correlation.core.suggestions.method.ComparisonMethod.ReplacementParameters;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Index of the extracted values by each of their {@link ReplacementString} variants (the value
+ * itself, and its URL decoded and encoded forms), to find the reference name and function to use
+ * to replace a value in a request without encoding all the extracted values for each request
+ * value.
+ *
+ * <p>When several extracted values have the same variant, the one of the first
+ * {@link ReplacementString} is used (eg: a value equal to an extracted one is preferred to one
+ * equal to the URL decoded form of another), and among the same {@link ReplacementString}, the
+ * first registered value is used.
+ */
+public class ReplacementValuesIndex {
+
+  private final Map<String, ReplacementParameters> parametersByVariant = new HashMap<>();
+
+  /**
+   * Registers an extracted value, with the reference name of the variable where it is extracted.
+   *
+   * @param value the extracted value
+   * @param refName the name of the variable, where the text after <code>#</code>, if any, is
+   *                ignored
+   */
+  public void register(String value, String refName) {
+    String baseRefName = refName.contains("#") ? refName.substring(0, refName.indexOf("#"))
+        : refName;
+    for (ReplacementString replacementString : ReplacementString.values()) {
+      String variant;
+      try {
+        variant = replacementString.applyFunction(value);
+      } catch (IllegalArgumentException e) {
+        // values with malformed escape sequences can't be URL decoded
+        continue;
+      }
+      ReplacementParameters existing = parametersByVariant.get(variant);
+      if (existing == null
+          || existing.getReplacementString().ordinal() > replacementString.ordinal()) {
+        parametersByVariant.put(variant,
+            new ReplacementParameters(baseRefName, replacementString));
+      }
+    }
+  }
+
+  /**
+   * Gets the reference name and function to use to replace the given value.
+   *
+   * @param value the value to replace
+   * @return the parameters of the registered value which has the given value as variant, or an
+   *     empty reference name with {@link ReplacementString#NONE} if there is none
+   */
+  public ReplacementParameters getReplacementParameters(String value) {
+    ReplacementParameters ret = parametersByVariant.get(value);
+    return ret != null ? ret : new ReplacementParameters("", ReplacementString.NONE);
+  }
+
+}
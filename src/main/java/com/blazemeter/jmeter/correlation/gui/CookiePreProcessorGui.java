@@ -0,0 +1,73 @@
+package com.blazemeter.jmeter.correlation.gui;
+
+import com.blazemeter.jmeter.correlation.core.proxy.CookiePreProcessor;
+import java.awt.BorderLayout;
+import javax.swing.BorderFactory;
+import org.apache.jmeter.gui.util.VerticalPanel;
+import org.apache.jmeter.processor.gui.AbstractPreProcessorGui;
+import org.apache.jmeter.testelement.TestElement;
+import org.apache.jorphan.gui.JLabeledTextField;
+
+public class CookiePreProcessorGui extends AbstractPreProcessorGui {
+
+  private final JLabeledTextField cookieNameField = new JLabeledTextField("Cookie name:");
+  private final JLabeledTextField cookieValueField = new JLabeledTextField("Cookie value:");
+
+  public CookiePreProcessorGui() {
+    setLayout(new BorderLayout(0, 5));
+    setBorder(makeBorder());
+    add(makeTitlePanel(), BorderLayout.NORTH);
+    VerticalPanel cookiePanel = new VerticalPanel();
+    cookiePanel.setBorder(BorderFactory.createTitledBorder("Cookie"));
+    cookieNameField.setName("cookieName");
+    cookieValueField.setName("cookieValue");
+    cookiePanel.add(cookieNameField);
+    cookiePanel.add(cookieValueField);
+    add(cookiePanel, BorderLayout.CENTER);
+  }
+
+  @Override
+  public String getStaticLabel() {
+    return "bzm - Set Cookie PreProcessor";
+  }
+
+  @Override
+  public String getLabelResource() {
+    return getClass().getCanonicalName();
+  }
+
+  @Override
+  public TestElement createTestElement() {
+    CookiePreProcessor preProcessor = new CookiePreProcessor();
+    modifyTestElement(preProcessor);
+    return preProcessor;
+  }
+
+  @Override
+  public void modifyTestElement(TestElement element) {
+    configureTestElement(element);
+    if (element instanceof CookiePreProcessor) {
+      CookiePreProcessor preProcessor = (CookiePreProcessor) element;
+      preProcessor.setCookieName(cookieNameField.getText());
+      preProcessor.setCookieValue(cookieValueField.getText());
+    }
+  }
+
+  @Override
+  public void configure(TestElement element) {
+    super.configure(element);
+    if (element instanceof CookiePreProcessor) {
+      CookiePreProcessor preProcessor = (CookiePreProcessor) element;
+      cookieNameField.setText(preProcessor.getCookieName());
+      cookieValueField.setText(preProcessor.getCookieValue());
+    }
+  }
+
+  @Override
+  public void clearGui() {
+    super.clearGui();
+    cookieNameField.setText("");
+    cookieValueField.setText("");
+  }
+
+}
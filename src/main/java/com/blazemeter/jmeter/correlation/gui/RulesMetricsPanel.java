@@ -0,0 +1,130 @@
+package com.blazemeter.jmeter.correlation.gui;
+
+import com.blazemeter.jmeter.commons.SwingUtils;
+import com.blazemeter.jmeter.correlation.core.metrics.CorrelationRulesMetrics;
+import com.blazemeter.jmeter.correlation.core.metrics.RulePartMetrics;
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+import javax.swing.JButton;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Displays a summary of the execution metrics of the correlation rules applied while recording,
+ * which can be sorted by any column to find the most expensive rules.
+ */
+public class RulesMetricsPanel extends JPanel {
+
+  private final Supplier<CorrelationRulesMetrics> metricsSupplier;
+  private final RulesMetricsTableModel tableModel = new RulesMetricsTableModel();
+
+  public RulesMetricsPanel(Supplier<CorrelationRulesMetrics> metricsSupplier) {
+    super(new BorderLayout());
+    this.metricsSupplier = metricsSupplier;
+    JTable table = SwingUtils.createComponent("rulesMetricsTable", new JTable(tableModel));
+    table.setAutoCreateRowSorter(true);
+    add(new JScrollPane(table), BorderLayout.CENTER);
+
+    JPanel buttonsPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+    JButton refreshButton = SwingUtils.createComponent("refreshRulesMetricsButton",
+        new JButton("Refresh"));
+    refreshButton.addActionListener(e -> refresh());
+    buttonsPanel.add(refreshButton);
+    JButton resetButton = SwingUtils.createComponent("resetRulesMetricsButton",
+        new JButton("Reset"));
+    resetButton.addActionListener(e -> reset());
+    buttonsPanel.add(resetButton);
+    add(buttonsPanel, BorderLayout.SOUTH);
+  }
+
+  public void refresh() {
+    CorrelationRulesMetrics metrics = metricsSupplier.get();
+    tableModel.setMetrics(metrics != null ? metrics.getMetrics() : Collections.emptyList());
+  }
+
+  private void reset() {
+    CorrelationRulesMetrics metrics = metricsSupplier.get();
+    if (metrics != null) {
+      metrics.reset();
+    }
+    refresh();
+  }
+
+  private static class RulesMetricsTableModel extends AbstractTableModel {
+
+    private final String[] columnNames = {"Rule", "Part", "Type", "Invocations", "Matches",
+        "Stored values", "Total time (ms)", "Avg time (us)", "Max time (us)",
+        "Scanned characters", "Suspended"};
+    private final Class<?>[] columnClasses = {String.class, String.class, String.class,
+        Long.class, Long.class, Long.class, Double.class, Double.class, Double.class, Long.class,
+        Boolean.class};
+    // a column for each range of the latency histogram is added after the fixed columns
+    private final String[] latencyRanges = RulePartMetrics.getLatencyRanges();
+    private List<RulePartMetrics> metrics = Collections.emptyList();
+
+    private void setMetrics(List<RulePartMetrics> metrics) {
+      this.metrics = metrics;
+      fireTableDataChanged();
+    }
+
+    @Override
+    public int getRowCount() {
+      return metrics.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+      return columnNames.length + latencyRanges.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+      return column < columnNames.length ? columnNames[column]
+          : "Latency " + latencyRanges[column - columnNames.length];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int columnIndex) {
+      return columnIndex < columnClasses.length ? columnClasses[columnIndex] : Long.class;
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+      RulePartMetrics row = metrics.get(rowIndex);
+      switch (columnIndex) {
+        case 0:
+          return row.getRule();
+        case 1:
+          return row.getPart();
+        case 2:
+          return row.getType();
+        case 3:
+          return row.getInvocations();
+        case 4:
+          return row.getMatches();
+        case 5:
+          return row.getStoredValues();
+        case 6:
+          return row.getTotalNanos() / 1_000_000.0;
+        case 7:
+          long invocations = row.getInvocations();
+          return invocations == 0 ? 0.0 : row.getTotalNanos() / 1000.0 / invocations;
+        case 8:
+          return row.getMaxNanos() / 1000.0;
+        case 9:
+          return row.getScannedCharacters();
+        case 10:
+          return row.isSuspended();
+        default:
+          return row.getLatencyHistogram()[columnIndex - columnNames.length];
+      }
+    }
+
+  }
+
+}
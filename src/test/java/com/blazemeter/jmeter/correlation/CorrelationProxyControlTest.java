@@ -20,8 +20,8 @@ import com.blazemeter.jmeter.correlation.core.templates.Template.Builder;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import org.apache.jmeter.gui.tree.JMeterTreeNode;
 import org.apache.jmeter.protocol.http.control.HeaderManager;
@@ -254,7 +254,7 @@ public class CorrelationProxyControlTest {
     model = builder.withLocalConfiguration(localConfiguration).build();
     Thread proxy = Thread.currentThread();
     model.startedProxy(proxy);
-    LinkedHashMap<Object, PendingProxy> actualPending = model.getPendingProxies();
+    Map<Long, PendingProxy> actualPending = model.getPendingProxies();
     softly.assertThat(actualPending).isNotEmpty();
     softly.assertThat(actualPending).isEqualTo(proxy);
   }
@@ -1,12 +1,18 @@
 package com.blazemeter.jmeter.correlation.core;
 
 import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+import org.apache.jmeter.threads.JMeterVariables;
 import org.junit.Before;
 import org.junit.Test;
 
 public class BaseCorrelationContextTest {
 
+  private static final String VALUE = "abc123";
+
   BaseCorrelationContext baseCorrelationContext;
+  private final JMeterVariables vars = new JMeterVariables();
 
   @Before
   public void setup() {
@@ -41,4 +47,66 @@ public class BaseCorrelationContextTest {
     baseCorrelationContext.reset();
     assertThat(baseCorrelationContext.getVariableCount("var")).isEqualTo(0);
   }
+
+  @Test
+  public void shouldFindVariableWhenFindVariableWithValueIndexed() {
+    putVariable("var", VALUE);
+    assertThat(baseCorrelationContext.findVariableWithValue("var", VALUE, vars))
+        .isEqualTo("var");
+  }
+
+  @Test
+  public void shouldFindFirstGeneratedVariableWhenFindVariableWithValueInSeveralVariables() {
+    baseCorrelationContext.getNextVariableNr("var");
+    baseCorrelationContext.getNextVariableNr("var");
+    vars.put("var#2_matchNr", "2");
+    putVariable("var#2_2", VALUE);
+    putVariable("var#1", VALUE);
+    putVariable("var#2_1", VALUE);
+    assertThat(baseCorrelationContext.findVariableWithValue("var", VALUE, vars))
+        .isEqualTo("var#1");
+  }
+
+  @Test
+  public void shouldNotFindVariableWhenFindVariableWithValueOverwritten() {
+    putVariable("var", VALUE);
+    putVariable("var", "other");
+    assertThat(baseCorrelationContext.findVariableWithValue("var", VALUE, vars)).isNull();
+  }
+
+  @Test
+  public void shouldFindOtherVariableWhenFindVariableWithValueOverwrittenInFirstOne() {
+    putVariable("var", VALUE);
+    putVariable("var_1", VALUE);
+    putVariable("var", "other");
+    vars.put("var_matchNr", "1");
+    assertThat(baseCorrelationContext.findVariableWithValue("var", VALUE, vars))
+        .isEqualTo("var_1");
+  }
+
+  @Test
+  public void shouldNotBeIndexedWhenVariableIsStoredByNonIndexingExtractor() {
+    putVariable("var", VALUE);
+    baseCorrelationContext.setNonIndexedVariables(Collections.singleton("var"));
+    assertThat(baseCorrelationContext.isValueIndexed("var")).isFalse();
+  }
+
+  @Test
+  public void shouldNotFindVariableWhenFindVariableWithValueBeyondMatchCount() {
+    vars.put("var_matchNr", "1");
+    putVariable("var_2", VALUE);
+    assertThat(baseCorrelationContext.findVariableWithValue("var", VALUE, vars)).isNull();
+  }
+
+  @Test
+  public void shouldClearIndexedValuesWhenReset() {
+    putVariable("var", VALUE);
+    baseCorrelationContext.reset();
+    assertThat(baseCorrelationContext.isValueIndexed("var")).isFalse();
+  }
+
+  private void putVariable(String name, String value) {
+    vars.put(name, value);
+    baseCorrelationContext.indexVariableValue("var", name, value);
+  }
 }
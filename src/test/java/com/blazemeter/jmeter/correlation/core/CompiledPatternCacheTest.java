@@ -0,0 +1,58 @@
+package com.blazemeter.jmeter.correlation.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.apache.oro.text.regex.MalformedPatternException;
+import org.apache.oro.text.regex.Pattern;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CompiledPatternCacheTest {
+
+  private static final String REGEX = "param=\\"(.+?)\\"";
+
+  private CompiledPatternCache cache;
+
+  @Before
+  public void setup() {
+    cache = new CompiledPatternCache();
+  }
+
+  @Test
+  public void shouldReturnSamePatternWhenRegexAlreadyCompiled() throws MalformedPatternException {
+    Pattern pattern = cache.getPattern(REGEX);
+    assertThat(cache.getPattern(REGEX)).isSameAs(pattern);
+  }
+
+  @Test
+  public void shouldCountHitsAndMissesWhenGetPattern() throws MalformedPatternException {
+    cache.getPattern(REGEX);
+    cache.getPattern(REGEX);
+    cache.getPattern(REGEX);
+    assertThat(cache.getMisses()).isEqualTo(1);
+    assertThat(cache.getHits()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldCompileAgainWhenInvalidated() throws MalformedPatternException {
+    Pattern pattern = cache.getPattern(REGEX);
+    cache.invalidate();
+    assertThat(cache.getPattern(REGEX)).isNotSameAs(pattern);
+    assertThat(cache.getMisses()).isEqualTo(2);
+  }
+
+  @Test(expected = MalformedPatternException.class)
+  public void shouldThrowMalformedPatternExceptionWhenRegexIsInvalid()
+      throws MalformedPatternException {
+    cache.getPattern("(unclosed");
+  }
+
+  @Test
+  public void shouldClearCountersWhenResetStatistics() throws MalformedPatternException {
+    cache.getPattern(REGEX);
+    cache.getPattern(REGEX);
+    cache.resetStatistics();
+    assertThat(cache.getHits()).isZero();
+    assertThat(cache.getMisses()).isZero();
+  }
+}
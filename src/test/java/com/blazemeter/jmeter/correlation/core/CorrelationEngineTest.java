@@ -6,6 +6,8 @@ import com.blazemeter.jmeter.correlation.TestUtils;
 import com.blazemeter.jmeter.correlation.core.RulesGroup.Builder;
 import com.blazemeter.jmeter.correlation.core.extractors.RegexCorrelationExtractor;
 import com.blazemeter.jmeter.correlation.core.extractors.ResultField;
+import com.blazemeter.jmeter.correlation.core.metrics.RulePartMetrics;
+import com.blazemeter.jmeter.correlation.core.metrics.RulesCircuitBreaker;
 import com.blazemeter.jmeter.correlation.core.replacements.RegexCorrelationReplacement;
 import com.blazemeter.jmeter.correlation.custom.extension.CustomContext;
 import com.blazemeter.jmeter.correlation.custom.extension.CustomCorrelationReplacement;
@@ -20,6 +22,7 @@ import java.util.stream.Collectors;
 import org.apache.commons.httpclient.HttpStatus;
 import org.apache.http.entity.ContentType;
 import org.apache.jmeter.protocol.http.sampler.HTTPSampler;
+import org.apache.jmeter.protocol.http.sampler.HTTPSamplerBase;
 import org.apache.jmeter.samplers.SampleResult;
 import org.apache.jmeter.testelement.TestElement;
 import org.apache.jmeter.threads.JMeterVariables;
@@ -146,6 +149,70 @@ public class CorrelationEngineTest {
     assertThat(children).isEmpty();
   }
 
+  @Test
+  public void shouldRecordExtractorMetricsWhenProcess() throws IOException {
+    engine.setCorrelationRules(createGroupWithRules(buildSingletonRulesListWithEnable(true)),
+        registry);
+    engine.process(createSampler(), new ArrayList<>(), buildSampleResult(), "");
+    RulePartMetrics extractorMetrics = engine.getMetrics().getMetrics().get(0);
+    assertThat(extractorMetrics)
+        .extracting(RulePartMetrics::getPart, RulePartMetrics::getInvocations,
+            RulePartMetrics::getMatches)
+        .containsExactly("Extractor", 1L, 1L);
+    assertThat(extractorMetrics.getScannedCharacters()).isPositive();
+  }
+
+  @Test
+  public void shouldRecordReplacementMatchWhenProcessReplacesValue() throws IOException {
+    engine.setCorrelationRules(createGroupWithRules(buildSingletonRulesListWithEnable(true)),
+        registry);
+    JMeterVariables vars = new JMeterVariables();
+    vars.put("variable", "123");
+    engine.setVars(vars);
+    engine.process(createSampler(), new ArrayList<>(), buildSampleResult(), "");
+    RulePartMetrics replacementMetrics = engine.getMetrics().getMetrics().get(1);
+    assertThat(replacementMetrics)
+        .extracting(RulePartMetrics::getPart, RulePartMetrics::getInvocations,
+            RulePartMetrics::getMatches)
+        .containsExactly("Replacement", 1L, 1L);
+  }
+
+  @Test
+  public void shouldRecordReplacementMatchWhenProcessWithCustomReplacementProcess()
+      throws IOException {
+    CorrelationRule rule = new CorrelationRule("variable",
+        new RegexCorrelationExtractor<>(REGEX, "1", "1", ResultField.BODY.name(), "false"),
+        new RegexCorrelationReplacement<BaseCorrelationContext>(REGEX) {
+          @Override
+          public void process(HTTPSamplerBase sampler, List<TestElement> children,
+              SampleResult result, JMeterVariables vars) {
+            super.process(sampler, children, result, vars);
+          }
+        });
+    engine.setCorrelationRules(createGroupWithRules(Collections.singletonList(rule)), registry);
+    JMeterVariables vars = new JMeterVariables();
+    vars.put("variable", "123");
+    engine.setVars(vars);
+    engine.process(createSampler(), new ArrayList<>(), buildSampleResult(), "");
+    RulePartMetrics replacementMetrics = engine.getMetrics().getMetrics().get(1);
+    assertThat(replacementMetrics)
+        .extracting(RulePartMetrics::getInvocations, RulePartMetrics::getMatches)
+        .containsExactly(1L, 1L);
+    assertThat(replacementMetrics.getScannedCharacters()).isPositive();
+  }
+
+  @Test
+  public void shouldNotApplyExtractorWhenRuleIsSuspendedByCircuitBreaker() throws IOException {
+    engine.setCorrelationRules(createGroupWithRules(buildSingletonRulesListWithEnable(true)),
+        registry);
+    // a zero budget, exceeded only once, suspends the rule after the first sample
+    engine.setCircuitBreaker(new RulesCircuitBreaker(engine.getMetrics(), 0, 1, null));
+    engine.process(createSampler(), new ArrayList<>(), buildSampleResult(), "");
+    List<TestElement> children = new ArrayList<>();
+    engine.process(createSampler(), children, buildSampleResult(), "");
+    assertThat(children).isEmpty();
+  }
+
   @Test
   public void shouldApplyReplacementWhenProcess() throws IOException {
     engine.setCorrelationRules(createGroupWithRules(buildSingletonRulesListWithEnable(true)),
@@ -158,6 +225,20 @@ public class CorrelationEngineTest {
     assertThat(sampler.getPath()).isEqualTo("Test_SWEACn=${variable}&Test_Path=1");
   }
 
+  @Test
+  public void shouldApplyAllReplacementsWhenProcessWithSeveralRules() throws IOException {
+    engine.setCorrelationRules(createGroupWithRules(Arrays.asList(buildRuleWithEnable(true),
+        new CorrelationRule("path", null,
+            new RegexCorrelationReplacement<>("Test_Path=(\\d+)")))), registry);
+    HTTPSampler sampler = createSampler();
+    JMeterVariables vars = new JMeterVariables();
+    vars.put("variable", "123");
+    vars.put("path", "1");
+    engine.setVars(vars);
+    engine.process(sampler, new ArrayList<>(), buildSampleResult(), "");
+    assertThat(sampler.getPath()).isEqualTo("Test_SWEACn=${variable}&Test_Path=${path}");
+  }
+
   @Test
   public void shouldNotApplyReplacementWhenProcessNotEnabled() throws IOException {
     engine.setCorrelationRules(createGroupWithRules(buildSingletonRulesListWithEnable(true)),
@@ -213,4 +294,25 @@ public class CorrelationEngineTest {
 
     assertThat(expectedRules).isEqualTo(engine.getCorrelationRules());
   }
+
+  @Test
+  public void shouldProduceSameChildrenWhenPrefilterEnabled() throws IOException {
+    List<TestElement> children = processWithPrefilter(false);
+    List<TestElement> prefilteredChildren = processWithPrefilter(true);
+    assertThat(prefilteredChildren.stream().map(TestElement::getName)
+        .collect(Collectors.toList()))
+        .isEqualTo(children.stream().map(TestElement::getName).collect(Collectors.toList()));
+  }
+
+  private List<TestElement> processWithPrefilter(boolean prefilterEnabled) throws IOException {
+    engine = new CorrelationEngine();
+    engine.setEnabled(true);
+    engine.setPrefilterEnabled(prefilterEnabled);
+    engine.setCorrelationRules(createGroupWithRules(Arrays.asList(buildRuleWithEnable(true),
+        new CorrelationRule("missing", createRegexExtractor("NotInResponse=(.*?)&"), null))),
+        registry);
+    List<TestElement> children = new ArrayList<>();
+    engine.process(createSampler(), children, buildSampleResult(), "");
+    return children;
+  }
 }
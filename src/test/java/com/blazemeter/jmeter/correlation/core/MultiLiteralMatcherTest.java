@@ -0,0 +1,48 @@
+package com.blazemeter.jmeter.correlation.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+public class MultiLiteralMatcherTest {
+
+  private final MultiLiteralMatcher matcher = new MultiLiteralMatcher(
+      Arrays.asList("he", "she", "his", "hers"));
+
+  @Test
+  public void shouldFindPresentLiteralsWhenTextContainsThem() {
+    BitSet expected = new BitSet();
+    expected.set(0);
+    expected.set(1);
+    expected.set(3);
+    assertThat(matcher.findPresent("ushers")).isEqualTo(expected);
+  }
+
+  @Test
+  public void shouldFindNoLiteralsWhenTextDoesNotContainThem() {
+    assertThat(matcher.findPresent("nothing to see").isEmpty()).isTrue();
+  }
+
+  @Test
+  public void shouldReportEveryAppearanceWhenFindAll() {
+    List<String> matches = new ArrayList<>();
+    matcher.findAll("ushers his",
+        (index, offset) -> matches.add(matcher.getLiteral(index) + "@" + offset));
+    assertThat(matches).containsExactly("she@1", "he@2", "hers@2", "his@7");
+  }
+
+  @Test
+  public void shouldFindNoLiteralsWhenTextIsNull() {
+    assertThat(matcher.findPresent(null).isEmpty()).isTrue();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldThrowIllegalArgumentExceptionWhenLiteralIsEmpty() {
+    new MultiLiteralMatcher(Collections.singletonList(""));
+  }
+}
@@ -0,0 +1,55 @@
+package com.blazemeter.jmeter.correlation.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.oro.text.regex.MalformedPatternException;
+import org.junit.Test;
+
+public class RegexEngineTest {
+
+  private static final String INPUT = "id=\"123\", name=\"test\", id=\"456\"";
+  private static final String REGEX = "id=\"(\\d+)\"";
+
+  @Test
+  public void shouldFindSameMatchesWhenUsingLinearEngine() throws MalformedPatternException {
+    assertThat(findMatches(RegexEngine.LINEAR.compile(REGEX)))
+        .isEqualTo(findMatches(RegexEngine.ORO.compile(REGEX)));
+  }
+
+  private static List<String> findMatches(RegexPattern pattern) {
+    List<String> ret = new ArrayList<>();
+    RegexPattern.Matcher matcher = pattern.matcher(INPUT);
+    while (matcher.find()) {
+      ret.add(matcher.group(1) + "@" + matcher.start(1) + "-" + matcher.end(1));
+    }
+    return ret;
+  }
+
+  @Test
+  public void shouldUseLinearEngineWhenRegexIsSupported() throws MalformedPatternException {
+    assertThat(RegexEngine.LINEAR.compile(REGEX).getEngine()).isEqualTo(RegexEngine.LINEAR);
+  }
+
+  @Test
+  public void shouldFallbackToOroWhenRegexUsesBackReferences() throws MalformedPatternException {
+    assertThat(RegexEngine.LINEAR.compile("(['\"])(.+?)\\1").getEngine())
+        .isEqualTo(RegexEngine.ORO);
+  }
+
+  @Test
+  public void shouldReturnNullWhenGroupIsNotDefinedByLinearRegex()
+      throws MalformedPatternException {
+    RegexPattern.Matcher matcher = RegexEngine.LINEAR.compile(REGEX).matcher(INPUT);
+    matcher.find();
+    assertThat(matcher.group(2)).isNull();
+  }
+
+  @Test(expected = MalformedPatternException.class)
+  public void shouldThrowMalformedPatternExceptionWhenLinearRegexIsInvalid()
+      throws MalformedPatternException {
+    RegexEngine.LINEAR.compile("(unclosed");
+  }
+
+}
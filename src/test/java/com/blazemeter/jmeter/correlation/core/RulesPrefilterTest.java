@@ -0,0 +1,92 @@
+package com.blazemeter.jmeter.correlation.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.blazemeter.jmeter.correlation.core.extractors.JsonCorrelationExtractor;
+import com.blazemeter.jmeter.correlation.core.extractors.RegexCorrelationExtractor;
+import com.blazemeter.jmeter.correlation.core.extractors.ResultField;
+import java.util.Arrays;
+import java.util.Collections;
+import org.apache.jmeter.samplers.SampleResult;
+import org.junit.Test;
+
+public class RulesPrefilterTest {
+
+  private static final String RESPONSE_BODY = "<input name=\"token\" value=\"abc\">";
+
+  private static CorrelationRule buildRegexRule(String regex, boolean multiValued) {
+    return new CorrelationRule("var",
+        new RegexCorrelationExtractor<>(regex, "1", "1", ResultField.BODY.name(),
+            Boolean.toString(multiValued)), null);
+  }
+
+  private static SampleResult buildResult(String body) {
+    SampleResult result = new SampleResult();
+    result.setResponseData(body, "UTF-8");
+    return result;
+  }
+
+  @Test
+  public void shouldGetLongestLiteralOutsideGroupsWhenRegexHasLiterals() {
+    assertThat(RulesPrefilter.findRegexRequiredLiteral("name=\"token\" value=\"(.+?)\""))
+        .isEqualTo("name=\"token\" value=\"");
+  }
+
+  @Test
+  public void shouldIgnoreOptionalLiteralsWhenRegexHasQuantifiers() {
+    assertThat(RulesPrefilter.findRegexRequiredLiteral("ab?cd")).isEqualTo("cd");
+  }
+
+  @Test
+  public void shouldGetNoLiteralWhenRegexHasAlternations() {
+    assertThat(RulesPrefilter.findRegexRequiredLiteral("token=(.+?)|id=(.+?)")).isNull();
+  }
+
+  @Test
+  public void shouldGetNoLiteralWhenRegexHasInlineModifiers() {
+    assertThat(RulesPrefilter.findRegexRequiredLiteral("(?i)token=(.+?)")).isNull();
+  }
+
+  @Test
+  public void shouldGetLongestKeyWhenJsonPathHasSimpleKeys() {
+    assertThat(RulesPrefilter.findJsonPathRequiredKey("$.data['access_token']"))
+        .isEqualTo("access_token");
+  }
+
+  @Test
+  public void shouldGetNoKeyWhenJsonPathHasFilters() {
+    assertThat(RulesPrefilter.findJsonPathRequiredKey("$.items[?(@.id == 1)]")).isNull();
+  }
+
+  @Test
+  public void shouldSkipExtractorWhenResponseDoesNotContainItsLiteral() {
+    CorrelationRule rule = buildRegexRule("name=\"session\" value=\"(.+?)\"", false);
+    RulesPrefilter prefilter = new RulesPrefilter(Collections.singletonList(rule));
+    assertThat(prefilter.findSkippableExtractors(buildResult(RESPONSE_BODY)))
+        .containsExactly(rule.getCorrelationExtractor());
+  }
+
+  @Test
+  public void shouldNotSkipExtractorWhenResponseContainsItsLiteral() {
+    CorrelationRule rule = buildRegexRule("name=\"token\" value=\"(.+?)\"", false);
+    RulesPrefilter prefilter = new RulesPrefilter(Collections.singletonList(rule));
+    assertThat(prefilter.findSkippableExtractors(buildResult(RESPONSE_BODY))).isEmpty();
+  }
+
+  @Test
+  public void shouldNotIndexExtractorWhenMultiValued() {
+    RulesPrefilter prefilter = new RulesPrefilter(
+        Collections.singletonList(buildRegexRule("name=\"session\" value=\"(.+?)\"", true)));
+    assertThat(prefilter.isEmpty()).isTrue();
+  }
+
+  @Test
+  public void shouldIndexLiteralsOnceWhenSharedByExtractors() {
+    RulesPrefilter prefilter = new RulesPrefilter(Arrays.asList(
+        buildRegexRule("token=(.+?)&", false),
+        new CorrelationRule("other", new JsonCorrelationExtractor<>("$.token"), null),
+        buildRegexRule("token=([^&]+)", false)));
+    assertThat(prefilter.getIndexedLiterals(ResultField.BODY))
+        .containsExactly("token=", "token");
+  }
+}
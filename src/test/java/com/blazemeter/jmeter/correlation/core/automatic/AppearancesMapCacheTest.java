@@ -0,0 +1,181 @@
+package com.blazemeter.jmeter.correlation.core.automatic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+import org.apache.jmeter.protocol.http.sampler.HTTPSamplerProxy;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class AppearancesMapCacheTest {
+
+  private static final String KEY = "_csrf";
+  private static final String VALUE = "a1b2c3d4";
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private AppearancesMapCache cache;
+  private File trace;
+  private Configuration configuration;
+  private AtomicInteger extractions;
+
+  @Before
+  public void setup() throws IOException {
+    cache = new AppearancesMapCache(tempFolder.newFolder("cache").toPath());
+    trace = tempFolder.newFile("recording.jtl");
+    writeTrace("<testResults/>");
+    configuration = new Configuration();
+    extractions = new AtomicInteger();
+  }
+
+  private void writeTrace(String content) throws IOException {
+    Files.write(trace.toPath(), content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void shouldNotExtractAgainWhenSameTraceAndConfiguration() {
+    getAppearanceMap();
+    Map<String, List<Appearances>> cached = getAppearanceMap();
+    assertThat(extractions.get()).isEqualTo(1);
+    assertThat(cached.get(KEY))
+        .extracting(Appearances::getSource)
+        .containsExactly(Sources.REQUEST_ARGUMENTS, Sources.REQUEST_QUERY);
+  }
+
+  private Map<String, List<Appearances>> getAppearanceMap() {
+    return cache.getAppearanceMap(trace.getPath(), configuration, this::extract);
+  }
+
+  private Map<String, List<Appearances>> extract(String filepath) {
+    extractions.incrementAndGet();
+    HTTPSamplerProxy sampler = new HTTPSamplerProxy();
+    sampler.setName("sampler1");
+    AppearancesMap ret = new AppearancesMap();
+    ret.addAppearance(KEY, buildAppearance(sampler, Sources.REQUEST_ARGUMENTS));
+    ret.addAppearance(KEY, buildAppearance(sampler, Sources.REQUEST_QUERY));
+    return ret;
+  }
+
+  private static Appearances buildAppearance(HTTPSamplerProxy sampler, String source) {
+    Appearances ret = new Appearances(VALUE, KEY, sampler);
+    ret.setSource(source);
+    return ret;
+  }
+
+  @Test
+  public void shouldShareUsagesWhenLoadedFromCache() {
+    getAppearanceMap();
+    List<Appearances> appearances = getAppearanceMap().get(KEY);
+    assertThat(appearances.get(0).getList().get(0))
+        .isSameAs(appearances.get(1).getList().get(0));
+  }
+
+  @Test
+  public void shouldExtractAgainWhenTraceChanges() throws IOException {
+    getAppearanceMap();
+    writeTrace("<testResults version=\"1.2\"/>");
+    getAppearanceMap();
+    assertThat(extractions.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldExtractAgainWhenConfigurationChanges() {
+    getAppearanceMap();
+    configuration.setMaxNumberOfAppearances(10);
+    getAppearanceMap();
+    assertThat(extractions.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldExtractAgainWhenCachedMapIsCorrupted() throws IOException {
+    getAppearanceMap();
+    for (File file : getCacheFiles()) {
+      Files.write(file.toPath(), "corrupted".getBytes(StandardCharsets.UTF_8));
+    }
+    Map<String, List<Appearances>> appearances = getAppearanceMap();
+    assertThat(extractions.get()).isEqualTo(2);
+    assertThat(appearances.get(KEY)).hasSize(2);
+  }
+
+  @Test
+  public void shouldNotDeserializeUnexpectedClassesWhenCachedMapIsTampered() throws IOException {
+    getAppearanceMap();
+    for (File file : getCacheFiles()) {
+      try (ObjectOutputStream output = new ObjectOutputStream(
+          new GZIPOutputStream(Files.newOutputStream(file.toPath())))) {
+        output.writeInt(1);
+        output.writeInt(1);
+        output.writeObject(new UnexpectedObject());
+      }
+    }
+    UnexpectedObject.deserialized = false;
+    getAppearanceMap();
+    assertThat(UnexpectedObject.deserialized).isFalse();
+    assertThat(extractions.get()).isEqualTo(2);
+  }
+
+  private File[] getCacheFiles() {
+    return new File(tempFolder.getRoot(), "cache").listFiles();
+  }
+
+  @Test
+  public void shouldRemoveLeastRecentlyUsedMapWhenCacheExceedsMaxSize() throws IOException {
+    cache = new AppearancesMapCache(tempFolder.getRoot().toPath().resolve("cache"), 1, 0);
+    getAppearanceMap();
+    writeTrace("<testResults version=\"1.2\"/>");
+    getAppearanceMap();
+    writeTrace("<testResults/>");
+    getAppearanceMap();
+    assertThat(getCacheFiles()).hasSize(1);
+    assertThat(extractions.get()).isEqualTo(3);
+  }
+
+  @Test
+  public void shouldRemoveMapWhenNotUsedForLongerThanMaxAge() throws IOException {
+    cache = new AppearancesMapCache(tempFolder.getRoot().toPath().resolve("cache"), 0,
+        TimeUnit.DAYS.toMillis(1));
+    getAppearanceMap();
+    for (File file : getCacheFiles()) {
+      Files.setLastModifiedTime(file.toPath(),
+          FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(2)));
+    }
+    writeTrace("<testResults version=\"1.2\"/>");
+    getAppearanceMap();
+    assertThat(getCacheFiles()).hasSize(1);
+  }
+
+  @Test
+  public void shouldExtractWhenTraceCannotBeRead() {
+    Path missingTrace = tempFolder.getRoot().toPath().resolve("missing.jtl");
+    cache.getAppearanceMap(missingTrace.toString(), configuration, this::extract);
+    assertThat(extractions.get()).isEqualTo(1);
+  }
+
+  private static class UnexpectedObject implements Serializable {
+
+    private static boolean deserialized;
+
+    private void readObject(ObjectInputStream input) throws IOException, ClassNotFoundException {
+      input.defaultReadObject();
+      deserialized = true;
+    }
+
+  }
+
+}
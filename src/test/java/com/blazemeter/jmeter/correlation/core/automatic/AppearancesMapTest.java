@@ -0,0 +1,82 @@
+package com.blazemeter.jmeter.correlation.core.automatic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.apache.jmeter.protocol.http.sampler.HTTPSamplerProxy;
+import org.apache.jmeter.testelement.TestElement;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AppearancesMapTest {
+
+  private static final String KEY = "_csrf";
+  private static final String VALUE = "a1b2c3d4";
+
+  private AppearancesMap map;
+  private JMeterElementUtils utils;
+
+  @Before
+  public void setup() {
+    map = new AppearancesMap();
+    utils = new JMeterElementUtils(new Configuration());
+  }
+
+  @Test
+  public void shouldGetAppearancesWithValueWhenAdded() {
+    Appearances appearance = buildAppearance(VALUE, "sampler1");
+    map.addAppearance(KEY, appearance);
+    map.addAppearance(KEY, buildAppearance("other", "sampler2"));
+    assertThat(map.getAppearancesWithValue(KEY, VALUE))
+        .isEqualTo(Collections.singletonList(appearance));
+  }
+
+  private static Appearances buildAppearance(String value, String samplerName) {
+    Appearances appearance = new Appearances(value, KEY, buildSampler(samplerName));
+    appearance.setSource(Sources.REQUEST_ARGUMENTS);
+    return appearance;
+  }
+
+  private static TestElement buildSampler(String name) {
+    HTTPSamplerProxy sampler = new HTTPSamplerProxy();
+    sampler.setName(name);
+    return sampler;
+  }
+
+  @Test
+  public void shouldGetAppearancesWithValueWhenListIsModifiedDirectly() {
+    List<Appearances> appearances = new ArrayList<>();
+    map.put(KEY, appearances);
+    map.getAppearancesWithValue(KEY, VALUE);
+    Appearances appearance = buildAppearance(VALUE, "sampler1");
+    appearances.add(appearance);
+    assertThat(map.getAppearancesWithValue(KEY, VALUE))
+        .isEqualTo(Collections.singletonList(appearance));
+  }
+
+  @Test
+  public void shouldAddUsageWhenAddToMapWithSameValueAndSourceFromOtherSampler() {
+    utils.addToMap(map, KEY, VALUE, buildSampler("sampler1"), Sources.REQUEST_ARGUMENTS);
+    utils.addToMap(map, KEY, VALUE, buildSampler("sampler2"), Sources.REQUEST_ARGUMENTS);
+    assertThat(map.get(KEY)).hasSize(1);
+    assertThat(map.get(KEY).get(0).getList()).hasSize(2);
+  }
+
+  @Test
+  public void shouldNotAddUsageWhenAddToMapWithSameValueFromSameSampler() {
+    utils.addToMap(map, KEY, VALUE, buildSampler("sampler1"), Sources.REQUEST_ARGUMENTS);
+    utils.addToMap(map, KEY, VALUE, buildSampler("sampler1"), Sources.REQUEST_QUERY);
+    assertThat(map.get(KEY)).hasSize(1);
+    assertThat(map.get(KEY).get(0).getList()).hasSize(1);
+  }
+
+  @Test
+  public void shouldAddAppearanceWhenAddToMapWithSameValueFromOtherSource() {
+    utils.addToMap(map, KEY, VALUE, buildSampler("sampler1"), Sources.REQUEST_ARGUMENTS);
+    utils.addToMap(map, KEY, VALUE, buildSampler("sampler2"), Sources.REQUEST_QUERY);
+    assertThat(map.get(KEY)).hasSize(2);
+  }
+
+}
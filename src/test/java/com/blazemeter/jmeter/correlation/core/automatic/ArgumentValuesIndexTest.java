@@ -0,0 +1,58 @@
+package com.blazemeter.jmeter.correlation.core.automatic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.blazemeter.jmeter.correlation.core.automatic.extraction.location.LocationType;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.jmeter.samplers.SampleResult;
+import org.junit.Test;
+
+public class ArgumentValuesIndexTest {
+
+  private final ResponseAnalyzer analyzer = new ResponseAnalyzer();
+
+  private static SampleResult buildResult(String headers, String body) {
+    SampleResult result = new SampleResult();
+    result.setResponseHeaders(headers);
+    result.setResponseData(body, "UTF-8");
+    return result;
+  }
+
+  @Test
+  public void shouldFindSameLocationsAsResponseAnalyzerWhenValuesInResponse() {
+    SampleResult result = buildResult("HTTP/1.1 200 OK\nX-Token: abc123\n",
+        "{\"name\":\"Hello+World\",\"token\":\"abc123\",\"path\":\"a/b\"}");
+    List<String> values = Arrays.asList("abc123", "Hello World", "a%2Fb", "missing");
+    Map<String, List<Pair<LocationType, String>>> locations = analyzer
+        .indexArgumentValues(values).findLocations(result);
+    for (String value : values) {
+      assertThat(ArgumentValuesIndex.getFirstLocation(locations, value))
+          .isEqualTo(analyzer.identifyArgumentLocation(result, value));
+    }
+  }
+
+  @Test
+  public void shouldFindEveryLocationWhenValueInHeadersAndBody() {
+    SampleResult result = buildResult("X-Token: abc123\n", "token=abc123");
+    Map<String, List<Pair<LocationType, String>>> locations = analyzer
+        .indexArgumentValues(Collections.singletonList("abc123")).findLocations(result);
+    assertThat(locations.get("abc123")).containsExactly(
+        Pair.of(LocationType.HEADER, "abc123"),
+        Pair.of(LocationType.COOKIE, "abc123"),
+        Pair.of(LocationType.BODY, "abc123"));
+  }
+
+  @Test
+  public void shouldIgnoreInvalidDecodingWhenValueHasInvalidEscape() {
+    SampleResult result = buildResult("", "param=%25zz");
+    Map<String, List<Pair<LocationType, String>>> locations = analyzer
+        .indexArgumentValues(Collections.singletonList("%zz")).findLocations(result);
+    assertThat(ArgumentValuesIndex.getFirstLocation(locations, "%zz"))
+        .isEqualTo(Pair.of(LocationType.BODY, "%25zz"));
+  }
+
+}
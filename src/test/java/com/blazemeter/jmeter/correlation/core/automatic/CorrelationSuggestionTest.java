@@ -0,0 +1,80 @@
+package com.blazemeter.jmeter.correlation.core.automatic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.blazemeter.jmeter.correlation.core.extractors.RegexCorrelationExtractor;
+import com.blazemeter.jmeter.correlation.core.replacements.RegexCorrelationReplacement;
+import org.apache.jmeter.protocol.http.sampler.HTTPSamplerProxy;
+import org.apache.jmeter.samplers.SampleResult;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CorrelationSuggestionTest {
+
+  private static final String PARAM_NAME = "token";
+  private static final String VALUE = "a1b2c3d4";
+  private static final String REGEX = "token=([^&]+)";
+
+  private CorrelationSuggestion suggestion;
+  private SampleResult result;
+  private HTTPSamplerProxy usage;
+
+  @Before
+  public void setup() {
+    suggestion = new CorrelationSuggestion(PARAM_NAME);
+    result = new SampleResult();
+    result.setSampleLabel("login");
+    usage = new HTTPSamplerProxy();
+    usage.setName("home");
+  }
+
+  @Test
+  public void shouldHaveExtractionSuggestionWhenEquivalentOneWasAdded() {
+    suggestion.addExtractionSuggestion(buildExtractionSuggestion(result));
+    assertThat(suggestion.hasExtractionSuggestion(buildExtractionSuggestion(result))).isTrue();
+  }
+
+  private static ExtractionSuggestion buildExtractionSuggestion(SampleResult result) {
+    ExtractionSuggestion ret = new ExtractionSuggestion(
+        new RegexCorrelationExtractor<>(REGEX), result);
+    ret.setName(PARAM_NAME);
+    ret.setValue(VALUE);
+    ret.setSource("RAW_TEXT");
+    return ret;
+  }
+
+  @Test
+  public void shouldNotHaveExtractionSuggestionWhenAddedFromOtherResult() {
+    suggestion.addExtractionSuggestion(buildExtractionSuggestion(result));
+    SampleResult other = new SampleResult();
+    other.setSampleLabel("logout");
+    assertThat(suggestion.hasExtractionSuggestion(buildExtractionSuggestion(other))).isFalse();
+  }
+
+  @Test
+  public void shouldHaveReplacementSuggestionWhenEquivalentOneWasAddedForSameUsage() {
+    suggestion.addReplacementSuggestion(
+        new ReplacementSuggestion(new RegexCorrelationReplacement<>(REGEX), usage));
+    assertThat(suggestion.hasReplacementSuggestion(new RegexCorrelationReplacement<>(REGEX),
+        usage)).isTrue();
+  }
+
+  @Test
+  public void shouldNotHaveReplacementSuggestionWhenAddedForOtherUsage() {
+    suggestion.addReplacementSuggestion(
+        new ReplacementSuggestion(new RegexCorrelationReplacement<>(REGEX), usage));
+    HTTPSamplerProxy other = new HTTPSamplerProxy();
+    other.setName("home");
+    assertThat(suggestion.hasReplacementSuggestion(new RegexCorrelationReplacement<>(REGEX),
+        other)).isFalse();
+  }
+
+  @Test
+  public void shouldNotHaveReplacementSuggestionWhenParamsAreDifferent() {
+    suggestion.addReplacementSuggestion(
+        new ReplacementSuggestion(new RegexCorrelationReplacement<>(REGEX), usage));
+    assertThat(suggestion.hasReplacementSuggestion(
+        new RegexCorrelationReplacement<>("id=([^&]+)"), usage)).isFalse();
+  }
+
+}
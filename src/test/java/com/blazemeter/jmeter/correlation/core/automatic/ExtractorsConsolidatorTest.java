@@ -0,0 +1,204 @@
+package com.blazemeter.jmeter.correlation.core.automatic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.blazemeter.jmeter.correlation.JMeterTestUtils;
+import com.blazemeter.jmeter.correlation.core.extractors.RegexCorrelationExtractor;
+import com.blazemeter.jmeter.correlation.core.extractors.ResultField;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.jmeter.config.Arguments;
+import org.apache.jmeter.control.ForeachController;
+import org.apache.jmeter.control.LoopController;
+import org.apache.jmeter.extractor.RegexExtractor;
+import org.apache.jmeter.gui.tree.JMeterTreeNode;
+import org.apache.jmeter.protocol.http.sampler.HTTPSamplerProxy;
+import org.apache.jmeter.testelement.TestPlan;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ExtractorsConsolidatorTest {
+
+  private static final String VARIABLE_NAME = "token";
+  private static final String VARIABLE_REFERENCE = "${" + VARIABLE_NAME + "}";
+  private static final String ARGUMENT_NAME = "auth";
+
+  private JMeterTreeNode root;
+
+  @BeforeClass
+  public static void setupClass() {
+    JMeterTestUtils.setupJmeterEnv();
+  }
+
+  @Before
+  public void setup() {
+    root = new JMeterTreeNode(new TestPlan(), null);
+  }
+
+  private JMeterTreeNode addSampler(String name, String argumentValue) {
+    HTTPSamplerProxy sampler = new HTTPSamplerProxy();
+    sampler.setName(name);
+    sampler.setDomain("test.com");
+    sampler.setPath("/" + name);
+    sampler.setMethod("GET");
+    if (argumentValue != null) {
+      sampler.addArgument(ARGUMENT_NAME, argumentValue);
+    }
+    JMeterTreeNode ret = new JMeterTreeNode(sampler, null);
+    root.add(ret);
+    return ret;
+  }
+
+  private void addSamplerWithExtractor(String name) {
+    addExtractor(addSampler(name, null));
+  }
+
+  private void addExtractor(JMeterTreeNode samplerNode) {
+    samplerNode.add(new JMeterTreeNode(new RegexCorrelationExtractor<>("token=\"(.+?)\"", 1,
+        ResultField.BODY).createPostProcessors(VARIABLE_NAME, 1).get(0), null));
+  }
+
+  private int consolidate() {
+    return new ExtractorsConsolidator().consolidate(root, JMeterTreeNode::removeFromParent);
+  }
+
+  private List<String> findSamplersWithExtractors() {
+    List<String> ret = new ArrayList<>();
+    for (int i = 0; i < root.getChildCount(); i++) {
+      JMeterTreeNode samplerNode = (JMeterTreeNode) root.getChildAt(i);
+      if (samplerNode.getChildCount() > 0) {
+        ret.add(samplerNode.getName());
+      }
+    }
+    return ret;
+  }
+
+  @Test
+  public void shouldKeepOnlyLastExtractorWhenValueIsExtractedBeforeUsage() {
+    addSamplerWithExtractor("first");
+    addSamplerWithExtractor("second");
+    addSampler("usage", VARIABLE_REFERENCE);
+    consolidate();
+    assertThat(findSamplersWithExtractors()).containsExactly("second");
+  }
+
+  @Test
+  public void shouldKeepLastExtractorBeforeEachUsageWhenVariableIsUsedSeveralTimes() {
+    addSamplerWithExtractor("first");
+    addSampler("firstUsage", VARIABLE_REFERENCE);
+    addSamplerWithExtractor("second");
+    addSamplerWithExtractor("third");
+    addSampler("secondUsage", VARIABLE_REFERENCE);
+    consolidate();
+    assertThat(findSamplersWithExtractors()).containsExactly("first", "third");
+  }
+
+  @Test
+  public void shouldRemoveExtractorOfUsageSamplerWhenSamplerUsesVariable() {
+    addSamplerWithExtractor("first");
+    addExtractor(addSampler("usage", VARIABLE_REFERENCE));
+    consolidate();
+    assertThat(findSamplersWithExtractors()).containsExactly("first");
+  }
+
+  @Test
+  public void shouldRemoveExtractorsWhenVariableIsNotUsed() {
+    addSamplerWithExtractor("first");
+    addSamplerWithExtractor("second");
+    assertThat(consolidate()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldKeepAllExtractorsWhenVariableIsUsedOutOfSamplers() {
+    addSamplerWithExtractor("first");
+    addSamplerWithExtractor("second");
+    Arguments arguments = new Arguments();
+    arguments.addArgument("copy", VARIABLE_REFERENCE);
+    root.add(new JMeterTreeNode(arguments, null));
+    assertThat(consolidate()).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldIgnoreLongerNamesContainingVariableName() {
+    addSamplerWithExtractor("first");
+    addSamplerWithExtractor("second");
+    addSampler("literal", "${" + VARIABLE_NAME + "Id} " + VARIABLE_NAME + "s");
+    addSampler("usage", VARIABLE_REFERENCE);
+    consolidate();
+    assertThat(findSamplersWithExtractors()).containsExactly("second");
+  }
+
+  @Test
+  public void shouldKeepAllExtractorsWhenVariableNameAppearsOutOfVariableReference() {
+    addSamplerWithExtractor("first");
+    addSamplerWithExtractor("second");
+    addSampler("literal", VARIABLE_NAME);
+    addSampler("usage", VARIABLE_REFERENCE);
+    assertThat(consolidate()).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldKeepAllExtractorsWhenVariableIsUsedByForEachController() {
+    addSamplerWithExtractor("first");
+    addSamplerWithExtractor("second");
+    ForeachController forEach = new ForeachController();
+    forEach.setInputVal(VARIABLE_NAME);
+    forEach.setReturnVal("item");
+    root.add(new JMeterTreeNode(forEach, null));
+    assertThat(consolidate()).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldKeepAllExtractorsWhenVariableIsScopeOfAnotherExtractor() {
+    addSamplerWithExtractor("first");
+    addSamplerWithExtractor("second");
+    JMeterTreeNode samplerNode = addSampler("usage", null);
+    RegexExtractor scopedExtractor = new RegexExtractor();
+    scopedExtractor.setName("Custom extractor");
+    scopedExtractor.setRefName("other");
+    scopedExtractor.setScopeVariable(VARIABLE_NAME);
+    samplerNode.add(new JMeterTreeNode(scopedExtractor, null));
+    assertThat(consolidate()).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldKeepAllExtractorsWhenVariableIsUsedInFunctionWithBuiltName() {
+    addSamplerWithExtractor("first");
+    addSamplerWithExtractor("second");
+    addSampler("usage", "${__V(" + VARIABLE_NAME + "_${index})}");
+    assertThat(consolidate()).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldKeepAllExtractorsWhenExtractorIsInsideLoopController() {
+    addSamplerWithExtractor("first");
+    LoopController loop = new LoopController();
+    JMeterTreeNode loopNode = new JMeterTreeNode(loop, null);
+    root.add(loopNode);
+    HTTPSamplerProxy sampler = new HTTPSamplerProxy();
+    sampler.setName("looped");
+    JMeterTreeNode loopedSampler = new JMeterTreeNode(sampler, null);
+    loopNode.add(loopedSampler);
+    addExtractor(loopedSampler);
+    addSampler("usage", VARIABLE_REFERENCE);
+    assertThat(consolidate()).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldConsiderUsageWhenVariableMatchIsReferenced() {
+    addSamplerWithExtractor("first");
+    addSampler("usage", "${" + VARIABLE_NAME + "_1}");
+    consolidate();
+    assertThat(findSamplersWithExtractors()).containsExactly("first");
+  }
+
+  @Test
+  public void shouldKeepAllExtractorsWhenVariableIsUsedInScript() {
+    addSamplerWithExtractor("first");
+    addSamplerWithExtractor("second");
+    addSampler("usage", "vars.get(\"" + VARIABLE_NAME + "\")");
+    assertThat(consolidate()).isEqualTo(0);
+  }
+
+}
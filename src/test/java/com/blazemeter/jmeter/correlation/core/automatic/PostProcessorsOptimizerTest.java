@@ -0,0 +1,205 @@
+package com.blazemeter.jmeter.correlation.core.automatic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.blazemeter.jmeter.correlation.JMeterTestUtils;
+import com.blazemeter.jmeter.correlation.core.automatic.PostProcessorsOptimizationReport.Optimization;
+import com.blazemeter.jmeter.correlation.core.extractors.RegexCorrelationExtractor;
+import com.blazemeter.jmeter.correlation.core.extractors.ResultField;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.apache.jmeter.extractor.BoundaryExtractor;
+import org.apache.jmeter.extractor.RegexExtractor;
+import org.apache.jmeter.gui.tree.JMeterTreeNode;
+import org.apache.jmeter.protocol.http.sampler.HTTPSampleResult;
+import org.apache.jmeter.protocol.http.sampler.HTTPSamplerProxy;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.testelement.TestElement;
+import org.apache.jmeter.testelement.TestPlan;
+import org.assertj.core.groups.Tuple;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class PostProcessorsOptimizerTest {
+
+  private static final String SAMPLER_NAME = "/login-1";
+  private static final String VARIABLE_NAME = "token";
+  private static final String LITERAL_REGEX = "token=\"(.+?)\"";
+
+  private final List<JMeterTreeNode> changedNodes = new ArrayList<>();
+  private JMeterTreeNode root;
+  private HTTPSamplerProxy sampler;
+  private JMeterTreeNode extractorNode;
+
+  @BeforeClass
+  public static void setupClass() {
+    JMeterTestUtils.setupJmeterEnv();
+  }
+
+  @Before
+  public void setup() {
+    root = new JMeterTreeNode(new TestPlan(), null);
+    sampler = buildSampler(SAMPLER_NAME);
+    JMeterTreeNode samplerNode = new JMeterTreeNode(sampler, null);
+    root.add(samplerNode);
+    extractorNode = new JMeterTreeNode(buildExtractor(LITERAL_REGEX, 1), null);
+    samplerNode.add(extractorNode);
+  }
+
+  private static HTTPSamplerProxy buildSampler(String name) {
+    HTTPSamplerProxy ret = new HTTPSamplerProxy();
+    ret.setName(name);
+    ret.setDomain("test.com");
+    ret.setPath(name);
+    ret.setMethod("GET");
+    return ret;
+  }
+
+  private static RegexExtractor buildExtractor(String regex, int matchNr) {
+    return (RegexExtractor) new RegexCorrelationExtractor<>(regex, matchNr, ResultField.BODY)
+        .createPostProcessors(VARIABLE_NAME, 1).get(0);
+  }
+
+  private PostProcessorsOptimizationReport optimize(List<SampleResult> results) {
+    return new PostProcessorsOptimizer().optimize(root, results, changedNodes::add);
+  }
+
+  @Test
+  public void shouldUseMainSampleScopeWhenSamplerHasNoSubSamples() {
+    optimize(buildRecordedResults());
+    assertThat(((BoundaryExtractor) extractorNode.getTestElement()).isScopeParent()).isTrue();
+  }
+
+  @Test
+  public void shouldKeepAllScopeWhenSamplerFollowsRedirects() {
+    sampler.setFollowRedirects(true);
+    optimize(buildRecordedResults());
+    assertThat(((BoundaryExtractor) extractorNode.getTestElement()).isScopeAll()).isTrue();
+  }
+
+  @Test
+  public void shouldReplaceWithBoundaryExtractorWhenRegexHasLiteralBoundaries() {
+    optimize(buildRecordedResults());
+    BoundaryExtractor extractor = (BoundaryExtractor) extractorNode.getTestElement();
+    assertThat(Tuple.tuple(extractor.getName(), extractor.getRefName(),
+        extractor.getLeftBoundary(), extractor.getRightBoundary(), extractor.getMatchNumber(),
+        extractor.getDefaultValue()))
+        .isEqualTo(Tuple.tuple("Boundary - " + VARIABLE_NAME, VARIABLE_NAME, "token=\"", "\"",
+            1, VARIABLE_NAME + "_NOT_FOUND"));
+  }
+
+  @Test
+  public void shouldKeepRegexExtractorWhenNoRecordedResult() {
+    optimize(Collections.emptyList());
+    assertThat(extractorNode.getTestElement()).isInstanceOf(RegexExtractor.class);
+  }
+
+  @Test
+  public void shouldKeepRegexExtractorWhenRegexHasCharacterClasses() {
+    extractorNode.setUserObject(buildExtractor("token=\\s\"(.+?)\"", 1));
+    optimize(Collections.emptyList());
+    assertThat(extractorNode.getTestElement()).isInstanceOf(RegexExtractor.class);
+  }
+
+  @Test
+  public void shouldKeepRegexExtractorWhenBoundaryExtractsDifferentRecordedValue() {
+    optimize(Collections.singletonList(buildResult("token=\"\" token=\"abc\"")));
+    assertThat(extractorNode.getTestElement()).isInstanceOf(RegexExtractor.class);
+  }
+
+  private static List<SampleResult> buildRecordedResults() {
+    return Collections.singletonList(buildResult("token=\"abc\" token=\"def\""));
+  }
+
+  private static SampleResult buildResult(String body) {
+    HTTPSampleResult ret = new HTTPSampleResult();
+    ret.setSampleLabel(SAMPLER_NAME);
+    ret.setResponseData(body, SampleResult.DEFAULT_HTTP_ENCODING);
+    return ret;
+  }
+
+  @Test
+  public void shouldUseConcreteMatchWhenOnlyOneMatchIsUsed() {
+    extractorNode.setUserObject(buildExtractor(LITERAL_REGEX, -1));
+    addConsumerSampler("${" + VARIABLE_NAME + "_2}");
+    optimize(buildRecordedResults());
+    BoundaryExtractor extractor = (BoundaryExtractor) extractorNode.getTestElement();
+    assertThat(Tuple.tuple(extractor.getRefName(), extractor.getMatchNumber()))
+        .isEqualTo(Tuple.tuple(VARIABLE_NAME + "_2", 2));
+  }
+
+  private void addConsumerSampler(String argumentValue) {
+    HTTPSamplerProxy consumer = buildSampler("/home-2");
+    consumer.addArgument("auth", argumentValue);
+    root.add(new JMeterTreeNode(consumer, null));
+  }
+
+  @Test
+  public void shouldKeepAllMatchesWhenMatchesCountIsUsed() {
+    extractorNode.setUserObject(buildExtractor(LITERAL_REGEX, -1));
+    addConsumerSampler("${" + VARIABLE_NAME + "_2}${" + VARIABLE_NAME + "_matchNr}");
+    optimize(buildRecordedResults());
+    assertThat(((BoundaryExtractor) extractorNode.getTestElement()).getMatchNumber())
+        .isEqualTo(-1);
+  }
+
+  @Test
+  public void shouldKeepAllMatchesWhenSeveralMatchesAreUsed() {
+    extractorNode.setUserObject(buildExtractor(LITERAL_REGEX, -1));
+    addConsumerSampler("${" + VARIABLE_NAME + "_1}${" + VARIABLE_NAME + "_2}");
+    optimize(buildRecordedResults());
+    assertThat(((BoundaryExtractor) extractorNode.getTestElement()).getMatchNumber())
+        .isEqualTo(-1);
+  }
+
+  @Test
+  public void shouldKeepAllMatchesWhenMatchIsUsedDynamically() {
+    extractorNode.setUserObject(buildExtractor(LITERAL_REGEX, -1));
+    addConsumerSampler("${" + VARIABLE_NAME + "_1}${__V(" + VARIABLE_NAME + "_${i})}");
+    optimize(buildRecordedResults());
+    assertThat(((BoundaryExtractor) extractorNode.getTestElement()).getMatchNumber())
+        .isEqualTo(-1);
+  }
+
+  @Test
+  public void shouldKeepAllMatchesWhenMatchIsUsedWithDynamicSuffix() {
+    extractorNode.setUserObject(buildExtractor(LITERAL_REGEX, -1));
+    addConsumerSampler("${__V(" + VARIABLE_NAME + "_1${i})}");
+    optimize(buildRecordedResults());
+    assertThat(((BoundaryExtractor) extractorNode.getTestElement()).getMatchNumber())
+        .isEqualTo(-1);
+  }
+
+  @Test
+  public void shouldNotifyChangedNodeWhenOptimized() {
+    optimize(Collections.emptyList());
+    assertThat(changedNodes).containsExactly(extractorNode);
+  }
+
+  @Test
+  public void shouldNotOptimizeWhenPostProcessorIsNotGenerated() {
+    TestElement extractor = buildExtractor(LITERAL_REGEX, 1);
+    extractor.setName("Custom extractor");
+    extractorNode.setUserObject(extractor);
+    PostProcessorsOptimizationReport report = optimize(Collections.emptyList());
+    assertThat(report.getAnalyzedPostProcessors()).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldMeasureOptimizationWhenRecordedResultIsAvailable() {
+    PostProcessorsOptimizationReport report = optimize(
+        Collections.singletonList(buildResult("token=\"abc\"")));
+    assertThat(report.getOptimizations())
+        .extracting(Optimization::isMeasured)
+        .containsExactly(true);
+  }
+
+  @Test
+  public void shouldNotMeasureOptimizationWhenNoRecordedResult() {
+    PostProcessorsOptimizationReport report = optimize(Collections.emptyList());
+    assertThat(report.getEstimatedSavedNanosPerIteration()).isEqualTo(0);
+  }
+
+}
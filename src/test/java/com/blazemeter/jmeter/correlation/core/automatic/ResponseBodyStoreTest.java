@@ -0,0 +1,125 @@
+package com.blazemeter.jmeter.correlation.core.automatic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import org.apache.jmeter.protocol.http.sampler.HTTPSampleResult;
+import org.apache.jmeter.samplers.SampleResult;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ResponseBodyStoreTest {
+
+  private static final int SEGMENT_SIZE = 8;
+  private static final String BODY = "{\"token\":\"abc123\"}";
+  private static final long GC_TIMEOUT_MILLIS = 10000;
+
+  private ResponseBodyStore store;
+
+  @Before
+  public void setUp() throws IOException {
+    store = new ResponseBodyStore(SEGMENT_SIZE);
+  }
+
+  @After
+  public void tearDown() {
+    store.close();
+  }
+
+  @Test
+  public void shouldReadAppendedBodiesWhenSpanningSeveralSegments() {
+    byte[] first = BODY.getBytes(StandardCharsets.UTF_8);
+    byte[] second = "second body".getBytes(StandardCharsets.UTF_8);
+    long firstOffset = store.append(first);
+    long secondOffset = store.append(second);
+    assertThat(store.read(firstOffset, first.length)).isEqualTo(first);
+    assertThat(store.read(secondOffset, second.length)).isEqualTo(second);
+  }
+
+  @Test
+  public void shouldRemoveFileWhenClosed() {
+    store.append(BODY.getBytes(StandardCharsets.UTF_8));
+    store.close();
+    assertThat(store.getFile()).doesNotExist();
+  }
+
+  @Test
+  public void shouldReadBodyFromStoreWhenWrapSampleResult() {
+    HTTPSampleResult result = new HTTPSampleResult();
+    result.setSampleLabel("login");
+    result.setResponseData(BODY, StandardCharsets.UTF_8.name());
+    SampleResult stored = StoredSampleResult.wrap(result, store);
+    assertThat(stored).isInstanceOf(StoredSampleResult.class);
+    assertThat(stored.getSampleLabel()).isEqualTo("login");
+    assertThat(stored.getResponseDataAsString()).isEqualTo(BODY);
+    assertThat(store.getSize()).isEqualTo(BODY.length());
+  }
+
+  @Test
+  public void shouldKeepBodyOfResultWhenStoreClosed() {
+    SampleResult stored = StoredSampleResult.wrap(buildResult(), store);
+    store.close();
+    assertThat(stored.getResponseDataAsString()).isEqualTo(BODY);
+  }
+
+  @Test
+  public void shouldKeepFileWhileResultsInUseWhenStoreClosed() {
+    SampleResult stored = StoredSampleResult.wrap(buildResult(), store);
+    store.close();
+    assertThat(store.getFile()).exists();
+    assertThat(stored.getResponseDataAsString()).isEqualTo(BODY);
+  }
+
+  @Test
+  public void shouldRemoveFileWhenResultsOfClosedStoreAreCollected() throws InterruptedException {
+    StoredSampleResult.wrap(buildResult(), store);
+    store.close();
+    long deadline = System.currentTimeMillis() + GC_TIMEOUT_MILLIS;
+    while (store.getFile().exists() && System.currentTimeMillis() < deadline) {
+      System.gc();
+      Thread.sleep(50);
+    }
+    assertThat(store.getFile()).doesNotExist();
+  }
+
+  private static HTTPSampleResult buildResult() {
+    HTTPSampleResult ret = new HTTPSampleResult();
+    ret.setSampleLabel("login");
+    ret.setResponseData(BODY, StandardCharsets.UTF_8.name());
+    return ret;
+  }
+
+  @Test
+  public void shouldNotCopyBodyAgainWhenGetResponseDataTwice() {
+    SampleResult stored = StoredSampleResult.wrap(buildResult(), store);
+    assertThat(stored.getResponseData()).isSameAs(stored.getResponseData());
+  }
+
+  @Test
+  public void shouldSerializeBodyWhenSerializeStoredResult()
+      throws IOException, ClassNotFoundException {
+    SampleResult stored = StoredSampleResult.wrap(buildResult(), store);
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (ObjectOutputStream objectOutput = new ObjectOutputStream(output)) {
+      objectOutput.writeObject(stored);
+    }
+    try (ObjectInputStream objectInput = new ObjectInputStream(
+        new ByteArrayInputStream(output.toByteArray()))) {
+      SampleResult deserialized = (SampleResult) objectInput.readObject();
+      assertThat(deserialized.getResponseDataAsString()).isEqualTo(BODY);
+    }
+  }
+
+  @Test
+  public void shouldKeepSameResultWhenWrapWithoutStore() {
+    HTTPSampleResult result = new HTTPSampleResult();
+    assertThat(StoredSampleResult.wrap(result, null)).isSameAs(result);
+  }
+
+}
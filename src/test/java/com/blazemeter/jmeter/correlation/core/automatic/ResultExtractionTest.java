@@ -118,7 +118,7 @@ public class ResultExtractionTest {
       throws MalformedURLException {
     List<SampleResult> results = new ArrayList<>();
     results.add(new SampleResultBuilder(resource.getRight()).build());
-    when(fileParser.loadFromFile(any(), anyBoolean())).thenReturn(results);
+    when(fileParser.streamFromFile(any(), anyBoolean())).thenReturn(results.stream());
     resultExtraction.setResultFileParser(fileParser);
   }
 
@@ -262,7 +262,7 @@ public class ResultExtractionTest {
       throws MalformedURLException {
     List<SampleResult> results = new ArrayList<>();
     results.add(new SampleResultBuilder("").setQueryString(resource.getRight()).build());
-    when(fileParser.loadFromFile(any(), anyBoolean())).thenReturn(results);
+    when(fileParser.streamFromFile(any(), anyBoolean())).thenReturn(results.stream());
     resultExtraction.setResultFileParser(fileParser);
   }
 
@@ -345,7 +345,7 @@ public class ResultExtractionTest {
 
     List<SampleResult> results = new ArrayList<>();
     results.add(new SampleResultBuilder("").setHttpMethod("POST").setQueryString(resource.getRight()).build());
-    when(fileParser.loadFromFile(any(), anyBoolean())).thenReturn(results);
+    when(fileParser.streamFromFile(any(), anyBoolean())).thenReturn(results.stream());
     resultExtraction.setResultFileParser(fileParser);
 
     appearanceMap = resultExtraction.extractAppearanceMap(resource.getLeft());
@@ -0,0 +1,98 @@
+package com.blazemeter.jmeter.correlation.core.automatic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.blazemeter.jmeter.correlation.TestUtils;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.apache.jmeter.samplers.SampleResult;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import us.abstracta.jmeter.javadsl.core.engines.JmeterEnvironment;
+
+public class ResultFileParserTest {
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+  private final ResultFileParser parser = new ResultFileParser(new Configuration());
+  private File traceFile;
+
+  @Before
+  public void setUp() throws IOException {
+    new JmeterEnvironment();
+    traceFile = new File(TestUtils
+        .getFolderPath("/recordings/recordingTrace/recordingForMendix.jtl", getClass()));
+  }
+
+  @Test
+  public void shouldStreamSameResultsAsLoadedWhenStreamFromFile() {
+    List<String> loaded = getLabels(parser.loadFromFile(traceFile, true).stream());
+    try (Stream<SampleResult> results = parser.streamFromFile(traceFile, true)) {
+      assertThat(getLabels(results)).isNotEmpty().isEqualTo(loaded);
+    }
+  }
+
+  @Test
+  public void shouldStopStreamingWhenStreamClosedBeforeEnd() {
+    List<String> firstLabels;
+    try (Stream<SampleResult> results = parser.streamFromFile(traceFile, false)) {
+      firstLabels = getLabels(results.limit(1));
+    }
+    assertThat(firstLabels).hasSize(1);
+  }
+
+  @Test
+  public void shouldThrowExceptionWhenStreamFromCorruptedFile() throws IOException {
+    File corruptedFile = tempFolder.newFile("corrupted.jtl");
+    List<String> lines = Files.readAllLines(traceFile.toPath(), StandardCharsets.UTF_8);
+    Files.write(corruptedFile.toPath(), lines.subList(0, lines.size() / 2),
+        StandardCharsets.UTF_8);
+    try (Stream<SampleResult> results = parser.streamFromFile(corruptedFile, false)) {
+      assertThatThrownBy(() -> getLabels(results))
+          .isInstanceOfAny(IllegalStateException.class, UncheckedIOException.class);
+    }
+  }
+
+  @Test
+  public void shouldThrowExceptionWhenHasNextReachesTruncatedPartOfFile() throws IOException {
+    File truncatedFile = tempFolder.newFile("truncated.jtl");
+    byte[] content = Files.readAllBytes(traceFile.toPath());
+    Files.write(truncatedFile.toPath(), Arrays.copyOf(content, content.length / 2));
+    try (StreamingResultsReader reader = new StreamingResultsReader(truncatedFile, false,
+        new Configuration())) {
+      assertThatThrownBy(() -> {
+        while (reader.hasNext()) {
+          reader.next();
+        }
+      }).isInstanceOfAny(IllegalStateException.class, UncheckedIOException.class);
+    }
+  }
+
+  @Test
+  public void shouldThrowExceptionWhenHasNextOnCorruptedFile() throws IOException {
+    File corruptedFile = tempFolder.newFile("corrupted.jtl");
+    Files.write(corruptedFile.toPath(), Arrays.asList("<?xml version=\"1.0\"?>",
+        "<testResults><httpSample lb=\"login\"><corrupted></testResults>"),
+        StandardCharsets.UTF_8);
+    try (StreamingResultsReader reader = new StreamingResultsReader(corruptedFile, false,
+        new Configuration())) {
+      assertThatThrownBy(reader::hasNext)
+          .isInstanceOfAny(IllegalStateException.class, UncheckedIOException.class);
+    }
+  }
+
+  private static List<String> getLabels(Stream<SampleResult> results) {
+    return results.map(SampleResult::getSampleLabel).collect(Collectors.toList());
+  }
+
+}
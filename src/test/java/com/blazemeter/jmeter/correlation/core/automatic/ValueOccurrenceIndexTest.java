@@ -0,0 +1,59 @@
+package com.blazemeter.jmeter.correlation.core.automatic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.blazemeter.jmeter.correlation.core.automatic.ValueOccurrenceIndex.ResultOccurrences;
+import com.blazemeter.jmeter.correlation.core.automatic.extraction.location.LocationType;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.jmeter.samplers.SampleResult;
+import org.junit.Test;
+
+public class ValueOccurrenceIndexTest {
+
+  private static final String TOKEN = "abc123";
+  private static final String SESSION = "xyz789";
+
+  private final List<SampleResult> results = Arrays.asList(
+      buildResult("token=" + TOKEN),
+      buildResult("nothing here"),
+      buildResult("session=" + SESSION + "&token=" + TOKEN));
+  private final ValueOccurrenceIndex index = new ValueOccurrenceIndex(new ResponseAnalyzer(),
+      results, Arrays.asList(TOKEN, SESSION, "missing"));
+
+  private static SampleResult buildResult(String body) {
+    SampleResult result = new SampleResult();
+    result.setResponseData(body, "UTF-8");
+    return result;
+  }
+
+  @Test
+  public void shouldGetOnlyResultsContainingValueWhenGetOccurrences() {
+    assertThat(getResultIndexes(index.getOccurrences(TOKEN))).containsExactly(0, 2);
+  }
+
+  @Test
+  public void shouldGetEmptyWhenGetOccurrencesOfMissingValue() {
+    assertThat(index.getOccurrences("missing")).isEmpty();
+  }
+
+  @Test
+  public void shouldMergeLocationsOfAllValuesWhenFindOccurrences() {
+    List<ResultOccurrences> occurrences = index.findOccurrences(Arrays.asList(SESSION, TOKEN));
+    assertThat(getResultIndexes(occurrences)).containsExactly(0, 2);
+    assertThat(occurrences.get(1).getResult()).isSameAs(results.get(2));
+    assertThat(occurrences.get(1).getLocations().get(SESSION))
+        .isEqualTo(Collections.singletonList(Pair.of(LocationType.BODY, SESSION)));
+    assertThat(occurrences.get(1).getLocations()).containsKeys(SESSION, TOKEN);
+  }
+
+  private static List<Integer> getResultIndexes(List<ResultOccurrences> occurrences) {
+    return occurrences.stream()
+        .map(ResultOccurrences::getResultIndex)
+        .collect(Collectors.toList());
+  }
+
+}
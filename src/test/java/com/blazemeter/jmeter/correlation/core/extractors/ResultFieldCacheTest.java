@@ -0,0 +1,68 @@
+package com.blazemeter.jmeter.correlation.core.extractors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.nio.charset.StandardCharsets;
+import org.apache.jmeter.samplers.SampleResult;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ResultFieldCacheTest {
+
+  private static final String RESPONSE_BODY = "<p>Test&amp;Response</p>";
+
+  private SampleResult result;
+
+  @Before
+  public void setup() {
+    result = spy(buildResult());
+  }
+
+  private static SampleResult buildResult() {
+    SampleResult result = new SampleResult();
+    result.setResponseData(RESPONSE_BODY, StandardCharsets.UTF_8.name());
+    return result;
+  }
+
+  @After
+  public void tearDown() {
+    ResultFieldCache.release();
+  }
+
+  @Test
+  public void shouldDecodeFieldOnceWhenCacheIsOpen() {
+    ResultFieldCache.open(result);
+    ResultField.BODY_UNESCAPED.getField(result);
+    ResultField.BODY_UNESCAPED.getField(result);
+    verify(result, times(1)).getResponseDataAsString();
+  }
+
+  @Test
+  public void shouldGetSameFieldWhenCacheIsOpen() {
+    ResultFieldCache.open(result);
+    assertThat(ResultField.BODY_UNESCAPED.getField(result))
+        .isEqualTo("<p>Test&Response</p>");
+  }
+
+  @Test
+  public void shouldDecodeFieldEachTimeWhenCacheIsReleased() {
+    ResultFieldCache.open(result);
+    ResultField.BODY.getField(result);
+    ResultFieldCache.release();
+    ResultField.BODY.getField(result);
+    verify(result, times(2)).getResponseDataAsString();
+  }
+
+  @Test
+  public void shouldNotUseCachedFieldWhenResultIsNotTheCachedOne() {
+    ResultFieldCache.open(buildResult());
+    ResultField.BODY.getField(result);
+    ResultField.BODY.getField(result);
+    verify(result, times(2)).getResponseDataAsString();
+  }
+
+}
@@ -0,0 +1,132 @@
+package com.blazemeter.jmeter.correlation.core.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import com.blazemeter.jmeter.correlation.core.CorrelationRule;
+import com.blazemeter.jmeter.correlation.core.extractors.RegexCorrelationExtractor;
+import com.blazemeter.jmeter.correlation.core.replacements.RegexCorrelationReplacement;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CorrelationRulesMetricsTest {
+
+  private static final String RULE_NAME = "token";
+  private static final String MBEANS_QUERY =
+      "com.blazemeter.jmeter.correlation:type=CorrelationRuleMetrics,*";
+
+  private CorrelationRulesMetrics metrics;
+  private RegexCorrelationExtractor<?> extractor;
+  private RegexCorrelationReplacement<?> replacement;
+
+  @Before
+  public void setup() {
+    extractor = new RegexCorrelationExtractor<>("token=(.+?)&");
+    replacement = new RegexCorrelationReplacement<>("token=(.+?)&");
+    metrics = new CorrelationRulesMetrics();
+    metrics.setRules(Collections.singletonList(
+        new CorrelationRule(RULE_NAME, extractor, replacement)));
+  }
+
+  @After
+  public void teardown() {
+    metrics.unregisterMBeans();
+  }
+
+  @Test
+  public void shouldCreateMetricsForEachRulePartWhenSetRules() {
+    assertThat(metrics.getMetrics())
+        .extracting(RulePartMetrics::getRule, RulePartMetrics::getPart, RulePartMetrics::getType)
+        .containsExactly(
+            tuple(RULE_NAME, "Extractor", "RegexCorrelationExtractor"),
+            tuple(RULE_NAME, "Replacement", "RegexCorrelationReplacement"));
+  }
+
+  @Test
+  public void shouldRecordScannedCharactersAndStoredValuesWhenExecutionIsRunning() {
+    RuleExecution execution = metrics.newExecution(extractor);
+    execution.resume();
+    RuleExecution.recordScannedCharacters(10);
+    RuleExecution.recordStoredValue();
+    execution.finish();
+    RulePartMetrics extractorMetrics = metrics.getMetrics().get(0);
+    assertThat(extractorMetrics)
+        .extracting(RulePartMetrics::getInvocations, RulePartMetrics::getMatches,
+            RulePartMetrics::getStoredValues, RulePartMetrics::getScannedCharacters)
+        .containsExactly(1L, 1L, 1L, 10L);
+  }
+
+  @Test
+  public void shouldNotRecordScannedCharactersWhenExecutionIsPaused() {
+    RuleExecution execution = metrics.newExecution(extractor);
+    execution.resume();
+    execution.pause();
+    RuleExecution.recordScannedCharacters(10);
+    execution.finish();
+    assertThat(metrics.getMetrics().get(0))
+        .extracting(RulePartMetrics::getInvocations, RulePartMetrics::getMatches,
+            RulePartMetrics::getScannedCharacters)
+        .containsExactly(1L, 0L, 0L);
+  }
+
+  @Test
+  public void shouldReturnDisabledExecutionWhenRulePartIsNotMeasured() {
+    assertThat(metrics.newExecution(new RegexCorrelationExtractor<>()))
+        .isSameAs(RuleExecution.DISABLED);
+  }
+
+  @Test
+  public void shouldCountInvocationInLatencyRangeWhenRecord() {
+    RulePartMetrics partMetrics = metrics.getMetrics().get(0);
+    partMetrics.record(2_000_000L, 0, 0, false);
+    assertThat(partMetrics.getLatencyHistogram()).containsExactly(0, 0, 0, 1, 0, 0, 0);
+  }
+
+  @Test
+  public void shouldClearMetricsWhenReset() {
+    RulePartMetrics partMetrics = metrics.getMetrics().get(0);
+    partMetrics.record(2_000_000L, 10, 1, true);
+    metrics.reset();
+    assertThat(partMetrics)
+        .extracting(RulePartMetrics::getInvocations, RulePartMetrics::getTotalNanos,
+            RulePartMetrics::getMaxNanos, RulePartMetrics::getScannedCharacters)
+        .containsExactly(0L, 0L, 0L, 0L);
+  }
+
+  @Test
+  public void shouldWriteRowPerRulePartWhenWriteCsv() throws IOException {
+    metrics.getMetrics().get(1).record(3_000_000L, 100, 0, true);
+    StringWriter writer = new StringWriter();
+    metrics.writeCsv(writer);
+    assertThat(writer.toString().split(System.lineSeparator())).containsExactly(
+        "Rule,Part,Type,Invocations,Matches,Stored values,Total time (ms),Average time (us),"
+            + "Max time (us),Scanned characters,Suspended,Latency <10us,Latency <100us,"
+            + "Latency <1ms,Latency <10ms,Latency <100ms,Latency <1s,Latency >=1s",
+        "token,Extractor,RegexCorrelationExtractor,0,0,0,0,0,0,0,false,0,0,0,0,0,0,0",
+        "token,Replacement,RegexCorrelationReplacement,1,1,0,3,3000,3000,100,false,0,0,0,1,0,0,0");
+  }
+
+  @Test
+  public void shouldRegisterMBeanPerRulePartWhenRegisterMBeans()
+      throws MalformedObjectNameException {
+    metrics.registerMBeans();
+    assertThat(ManagementFactory.getPlatformMBeanServer()
+        .queryNames(new ObjectName(MBEANS_QUERY), null)).hasSize(2);
+  }
+
+  @Test
+  public void shouldUnregisterMBeansWhenUnregisterMBeans() throws MalformedObjectNameException {
+    metrics.registerMBeans();
+    metrics.unregisterMBeans();
+    assertThat(ManagementFactory.getPlatformMBeanServer()
+        .queryNames(new ObjectName(MBEANS_QUERY), null)).isEmpty();
+  }
+
+}
@@ -0,0 +1,104 @@
+package com.blazemeter.jmeter.correlation.core.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.blazemeter.jmeter.correlation.core.CorrelationRule;
+import com.blazemeter.jmeter.correlation.core.analysis.AnalysisReporter;
+import com.blazemeter.jmeter.correlation.core.extractors.RegexCorrelationExtractor;
+import com.blazemeter.jmeter.correlation.core.replacements.RegexCorrelationReplacement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RulesCircuitBreakerTest {
+
+  private static final long TIME_BUDGET_MILLIS = 10;
+  private static final long OVER_BUDGET_NANOS = 20_000_000L;
+  private static final long UNDER_BUDGET_NANOS = 1_000_000L;
+
+  private final List<String> suspensions = new ArrayList<>();
+  private CorrelationRule rule;
+  private RulePartMetrics extractorMetrics;
+  private RulePartMetrics replacementMetrics;
+  private RulesCircuitBreaker circuitBreaker;
+
+  @Before
+  public void setup() {
+    rule = new CorrelationRule("token", new RegexCorrelationExtractor<>("token=(.+?)&"),
+        new RegexCorrelationReplacement<>("token=(.+?)&"));
+    CorrelationRulesMetrics metrics = new CorrelationRulesMetrics();
+    metrics.setRules(Collections.singletonList(rule));
+    extractorMetrics = metrics.getMetrics(rule.getCorrelationExtractor());
+    replacementMetrics = metrics.getMetrics(rule.getCorrelationReplacement());
+    circuitBreaker = new RulesCircuitBreaker(metrics, TIME_BUDGET_MILLIS, 2, suspensions::add);
+    circuitBreaker.setRules(Collections.singletonList(rule));
+    AnalysisReporter.clearSuspendedRules();
+  }
+
+  @After
+  public void teardown() {
+    AnalysisReporter.clearSuspendedRules();
+  }
+
+  private void processSample(long extractorNanos, long replacementNanos) {
+    circuitBreaker.startSample();
+    extractorMetrics.record(extractorNanos, 0, 0, false);
+    replacementMetrics.record(replacementNanos, 0, 0, false);
+    circuitBreaker.finishSample("sample");
+  }
+
+  @Test
+  public void shouldNotSuspendRuleWhenBudgetIsExceededLessThanMaxTimes() {
+    processSample(OVER_BUDGET_NANOS, 0);
+    assertThat(circuitBreaker.isSuspended(rule)).isFalse();
+  }
+
+  @Test
+  public void shouldSuspendRuleWhenBudgetIsExceededMaxTimes() {
+    processSample(OVER_BUDGET_NANOS, 0);
+    processSample(0, OVER_BUDGET_NANOS);
+    assertThat(circuitBreaker.isSuspended(rule)).isTrue();
+  }
+
+  @Test
+  public void shouldNotSuspendRuleWhenSampleTimeIsUnderBudget() {
+    processSample(UNDER_BUDGET_NANOS, UNDER_BUDGET_NANOS);
+    processSample(UNDER_BUDGET_NANOS, UNDER_BUDGET_NANOS);
+    assertThat(circuitBreaker.isSuspended(rule)).isFalse();
+  }
+
+  @Test
+  public void shouldSumExtractorAndReplacementTimeWhenCheckingBudget() {
+    long halfBudgetNanos = OVER_BUDGET_NANOS / 2 + 1;
+    processSample(halfBudgetNanos, halfBudgetNanos);
+    processSample(halfBudgetNanos, halfBudgetNanos);
+    assertThat(circuitBreaker.isSuspended(rule)).isTrue();
+  }
+
+  @Test
+  public void shouldNotifyAndReportRuleWhenSuspended() {
+    processSample(OVER_BUDGET_NANOS, 0);
+    processSample(OVER_BUDGET_NANOS, 0);
+    assertThat(suspensions).hasSize(1);
+    assertThat(AnalysisReporter.getSuspendedRules()).isEqualTo(suspensions);
+  }
+
+  @Test
+  public void shouldMarkRulePartsAsSuspendedWhenRuleIsSuspended() {
+    processSample(OVER_BUDGET_NANOS, 0);
+    processSample(OVER_BUDGET_NANOS, 0);
+    assertThat(extractorMetrics.isSuspended() && replacementMetrics.isSuspended()).isTrue();
+  }
+
+  @Test
+  public void shouldResumeRuleWhenReset() {
+    processSample(OVER_BUDGET_NANOS, 0);
+    processSample(OVER_BUDGET_NANOS, 0);
+    circuitBreaker.reset();
+    assertThat(circuitBreaker.isSuspended(rule)).isFalse();
+  }
+
+}
@@ -0,0 +1,72 @@
+package com.blazemeter.jmeter.correlation.core.proxy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.blazemeter.jmeter.correlation.JMeterTestUtils;
+import org.apache.jmeter.protocol.http.control.Cookie;
+import org.apache.jmeter.protocol.http.control.CookieManager;
+import org.apache.jmeter.protocol.http.sampler.HTTPSamplerProxy;
+import org.apache.jmeter.threads.JMeterContextService;
+import org.assertj.core.groups.Tuple;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class CookiePreProcessorTest {
+
+  private static final String COOKIE_NAME = "session";
+  private static final String COOKIE_VALUE = "a1b2c3d4";
+
+  private HTTPSamplerProxy sampler;
+  private CookieManager cookieManager;
+
+  @BeforeClass
+  public static void setupClass() {
+    JMeterTestUtils.setupJmeterEnv();
+  }
+
+  @Before
+  public void setup() {
+    sampler = new HTTPSamplerProxy();
+    sampler.setProtocol("https");
+    sampler.setDomain("test.com");
+    sampler.setPath("/login");
+    cookieManager = new CookieManager();
+    sampler.setCookieManager(cookieManager);
+    JMeterContextService.getContext().setCurrentSampler(sampler);
+  }
+
+  @After
+  public void teardown() {
+    JMeterContextService.getContext().setCurrentSampler(null);
+  }
+
+  @Test
+  public void shouldAddCookieForSamplerDomainWhenProcess() {
+    new CookiePreProcessor(COOKIE_NAME, COOKIE_VALUE).process();
+    Cookie cookie = cookieManager.get(0);
+    assertThat(Tuple.tuple(cookie.getName(), cookie.getValue(), cookie.getDomain(),
+        cookie.getSecure()))
+        .isEqualTo(Tuple.tuple(COOKIE_NAME, COOKIE_VALUE, "test.com", true));
+  }
+
+  @Test
+  public void shouldAddCookieForPathDomainWhenSamplerPathIsAbsoluteUrl() {
+    sampler.setPath("http://other.com/login");
+    new CookiePreProcessor(COOKIE_NAME, COOKIE_VALUE).process();
+    Cookie cookie = cookieManager.get(0);
+    assertThat(Tuple.tuple(cookie.getDomain(), cookie.getSecure()))
+        .isEqualTo(Tuple.tuple("other.com", false));
+  }
+
+  @Test
+  public void shouldNotFailWhenSamplerHasNoCookieManager() {
+    HTTPSamplerProxy other = new HTTPSamplerProxy();
+    other.setDomain("test.com");
+    JMeterContextService.getContext().setCurrentSampler(other);
+    new CookiePreProcessor(COOKIE_NAME, COOKIE_VALUE).process();
+    assertThat(cookieManager.getCookieCount()).isZero();
+  }
+
+}
@@ -0,0 +1,120 @@
+package com.blazemeter.jmeter.correlation.core.proxy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class PendingProxiesBufferTest {
+
+  private static final long PENDING_TIMEOUT_MILLIS = 1000;
+
+  private long nowNanos;
+  private final PendingProxiesBuffer buffer = new PendingProxiesBuffer();
+  private final PendingProxiesBuffer timedBuffer = new PendingProxiesBuffer(PENDING_TIMEOUT_MILLIS,
+      () -> nowNanos);
+
+  @Test
+  public void shouldNotPollWhenHeadIsNotComplete() {
+    buffer.register(null);
+    PendingProxy second = buffer.register(null);
+    buffer.complete(second);
+    assertThat(buffer.pollCompleted()).isNull();
+  }
+
+  @Test
+  public void shouldPollInRegistrationOrderWhenCompletedInReverseOrder() {
+    PendingProxy first = buffer.register(null);
+    PendingProxy second = buffer.register(null);
+    buffer.complete(second);
+    buffer.complete(first);
+    assertThat(pollAll()).containsExactly(first, second);
+  }
+
+  @Test
+  public void shouldSkipDiscardedProxiesWhenPoll() {
+    PendingProxy first = buffer.register(null);
+    PendingProxy second = buffer.register(null);
+    PendingProxy third = buffer.register(null);
+    buffer.complete(third);
+    buffer.discard(second);
+    buffer.complete(first);
+    assertThat(pollAll()).containsExactly(first, third);
+    assertThat(buffer.isEmpty()).isTrue();
+  }
+
+  @Test
+  public void shouldDrainOnlyCompletedProxiesWhenHeadIsNotComplete() {
+    buffer.register(null);
+    PendingProxy second = buffer.register(null);
+    buffer.complete(second);
+    assertThat(buffer.drainCompleted()).containsExactly(second);
+    assertThat(buffer.isEmpty()).isTrue();
+  }
+
+  @Test
+  public void shouldPollNewProxiesWhenCleared() {
+    buffer.register(null);
+    buffer.clear();
+    PendingProxy proxy = buffer.register(null);
+    buffer.complete(proxy);
+    assertThat(buffer.pollCompleted()).isSameAs(proxy);
+  }
+
+  @Test
+  public void shouldPollNextProxiesWhenHeadIsPendingForLongerThanTimeout() {
+    timedBuffer.register(null);
+    PendingProxy second = timedBuffer.register(null);
+    timedBuffer.complete(second);
+    nowNanos += TimeUnit.MILLISECONDS.toNanos(PENDING_TIMEOUT_MILLIS);
+    assertThat(timedBuffer.pollCompleted()).isSameAs(second);
+  }
+
+  @Test
+  public void shouldPollSkippedProxyWhenItCompletesAfterTimeout() {
+    PendingProxy first = timedBuffer.register(null);
+    nowNanos += TimeUnit.MILLISECONDS.toNanos(PENDING_TIMEOUT_MILLIS);
+    timedBuffer.pollCompleted();
+    timedBuffer.complete(first);
+    assertThat(timedBuffer.pollCompleted()).isSameAs(first);
+    assertThat(timedBuffer.isEmpty()).isTrue();
+  }
+
+  @Test
+  public void shouldNotPollWhenHeadIsPendingForLessThanTimeout() {
+    timedBuffer.register(null);
+    PendingProxy second = timedBuffer.register(null);
+    timedBuffer.complete(second);
+    nowNanos += TimeUnit.MILLISECONDS.toNanos(PENDING_TIMEOUT_MILLIS - 1);
+    assertThat(timedBuffer.pollCompleted()).isNull();
+  }
+
+  @Test
+  public void shouldGetRemainingTimeWhenGetMillisUntilHeadTimeout() {
+    timedBuffer.register(null);
+    nowNanos += TimeUnit.MILLISECONDS.toNanos(400);
+    assertThat(timedBuffer.getMillisUntilHeadTimeout()).isEqualTo(PENDING_TIMEOUT_MILLIS - 400);
+  }
+
+  @Test
+  public void shouldForgetSkippedProxyWhenDiscarded() {
+    PendingProxy first = timedBuffer.register(null);
+    nowNanos += TimeUnit.MILLISECONDS.toNanos(PENDING_TIMEOUT_MILLIS);
+    timedBuffer.pollCompleted();
+    timedBuffer.discard(first);
+    assertThat(timedBuffer.isEmpty()).isTrue();
+  }
+
+  private List<PendingProxy> pollAll() {
+    List<PendingProxy> ret = new ArrayList<>();
+    PendingProxy proxy = buffer.pollCompleted();
+    while (proxy != null) {
+      ret.add(proxy);
+      proxy = buffer.pollCompleted();
+    }
+    return ret;
+  }
+
+}
@@ -0,0 +1,52 @@
+package com.blazemeter.jmeter.correlation.core.proxy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.After;
+import org.junit.Test;
+
+public class ProxyDeliveryWorkerTest {
+
+  private static final long STOP_TIMEOUT_MILLIS = 5000;
+
+  private final List<Thread> deliveryThreads = new CopyOnWriteArrayList<>();
+  private final ProxyDeliveryWorker worker = new ProxyDeliveryWorker(
+      () -> deliveryThreads.add(Thread.currentThread()));
+
+  @After
+  public void tearDown() {
+    worker.stop(STOP_TIMEOUT_MILLIS);
+  }
+
+  @Test
+  public void shouldDeliverInRequestingThreadWhenNotStarted() {
+    worker.requestDelivery();
+    assertThat(deliveryThreads).containsExactly(Thread.currentThread());
+  }
+
+  @Test
+  public void shouldDeliverInWorkerThreadWhenStarted() {
+    worker.start();
+    worker.requestDelivery();
+    worker.stop(STOP_TIMEOUT_MILLIS);
+    assertThat(deliveryThreads).isNotEmpty()
+        .doesNotContain(Thread.currentThread());
+  }
+
+  @Test
+  public void shouldDeliverPendingWhenStop() {
+    worker.start();
+    worker.stop(STOP_TIMEOUT_MILLIS);
+    assertThat(deliveryThreads).hasSize(1);
+  }
+
+  @Test
+  public void shouldDeliverInRequestingThreadWhenStopped() {
+    worker.start();
+    worker.stop(STOP_TIMEOUT_MILLIS);
+    worker.requestDelivery();
+    assertThat(deliveryThreads.get(deliveryThreads.size() - 1)).isEqualTo(Thread.currentThread());
+  }
+}
@@ -0,0 +1,94 @@
+package com.blazemeter.jmeter.correlation.core.replacements;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.blazemeter.jmeter.correlation.core.BaseCorrelationContext;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.apache.jmeter.protocol.http.sampler.HTTPSampler;
+import org.apache.jmeter.protocol.http.sampler.HTTPSamplerBase;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.testelement.TestElement;
+import org.apache.jmeter.testelement.property.JMeterProperty;
+import org.apache.jmeter.threads.JMeterVariables;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CorrelationReplacementsBatchTest {
+
+  private HTTPSampler sampler;
+  private JMeterVariables vars;
+
+  @Before
+  public void setup() {
+    sampler = new HTTPSampler();
+    sampler.setMethod("GET");
+    sampler.setPath("/Test_SWEACn=123&Test_Path=1");
+    vars = new JMeterVariables();
+    vars.put("sweacn", "123");
+    vars.put("path", "1");
+  }
+
+  @Test
+  public void shouldApplyAllReplacementsWhenProcess() {
+    buildBatch(buildReplacement("Test_SWEACn=(\\d+)", "sweacn"),
+        buildReplacement("Test_Path=(\\d+)", "path"))
+        .process(sampler, Collections.emptyList(), null, vars);
+    assertThat(sampler.getPath()).isEqualTo("/Test_SWEACn=${sweacn}&Test_Path=${path}");
+  }
+
+  private CorrelationReplacementsBatch buildBatch(CorrelationReplacement<?>... replacements) {
+    return new CorrelationReplacementsBatch(Arrays.asList(replacements));
+  }
+
+  private RegexCorrelationReplacement<BaseCorrelationContext> buildReplacement(String regex,
+      String variableName) {
+    RegexCorrelationReplacement<BaseCorrelationContext> replacement =
+        new RegexCorrelationReplacement<>(regex);
+    replacement.setVariableName(variableName);
+    replacement.setContext(new BaseCorrelationContext());
+    return replacement;
+  }
+
+  @Test
+  public void shouldKeepUnchangedPropertiesWhenProcess() {
+    JMeterProperty method = sampler.getProperty(HTTPSamplerBase.METHOD);
+    buildBatch(buildReplacement("Test_Path=(\\d+)", "path"))
+        .process(sampler, Collections.emptyList(), null, vars);
+    assertThat(sampler.getProperty(HTTPSamplerBase.METHOD)).isSameAs(method);
+  }
+
+  @Test
+  public void shouldApplyRemainingReplacementsWhenOneFails() {
+    RegexCorrelationReplacement<BaseCorrelationContext> failing =
+        new RegexCorrelationReplacement<BaseCorrelationContext>("Test_SWEACn=(\\d+)") {
+          @Override
+          public String replaceString(String input, JMeterVariables vars) {
+            throw new IllegalStateException("Test failure");
+          }
+        };
+    buildBatch(failing, buildReplacement("Test_Path=(\\d+)", "path"))
+        .process(sampler, Collections.emptyList(), null, vars);
+    assertThat(sampler.getPath()).isEqualTo("/Test_SWEACn=123&Test_Path=${path}");
+  }
+
+  @Test
+  public void shouldBeBatchableWhenReplacementDoesNotOverrideProcess() {
+    assertThat(CorrelationReplacementsBatch.isBatchable(new RegexCorrelationReplacement<>()))
+        .isTrue();
+  }
+
+  @Test
+  public void shouldNotBeBatchableWhenReplacementOverridesProcess() {
+    CorrelationReplacement<?> replacement =
+        new RegexCorrelationReplacement<BaseCorrelationContext>() {
+          @Override
+          public void process(HTTPSamplerBase sampler, List<TestElement> children,
+              SampleResult result, JMeterVariables vars) {
+          }
+        };
+    assertThat(CorrelationReplacementsBatch.isBatchable(replacement)).isFalse();
+  }
+
+}
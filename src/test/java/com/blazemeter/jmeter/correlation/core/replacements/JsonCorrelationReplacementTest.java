@@ -346,6 +346,22 @@ public class JsonCorrelationReplacementTest {
     assertThat(getFirstArgumentValue()).isEqualTo(EXPECTED_REPLACED_JSON);
   }
 
+  @Test
+  public void shouldReplaceEachMatchWhenJsonPathIsIndefinite() {
+    vars.put(REFERENCE_NAME + "_matchNr", "2");
+    vars.put(REFERENCE_NAME + "_1", "111");
+    vars.put(REFERENCE_NAME + "_2", "222");
+    replacer = new JsonCorrelationReplacement<>("$..id");
+    replacer.setVariableName(REFERENCE_NAME);
+    replacer.setContext(replaceContext);
+
+    String json = "{\"a\": {\"id\": \"111\"}, \"b\": [{\"id\": \"222\"}, {\"id\": 333}]}";
+
+    assertThat(replacer.replaceString(json, vars)).isEqualTo(
+        "{\"a\":{\"id\":\"${" + REFERENCE_NAME + "_1}\"},\"b\":[{\"id\":\"${"
+            + REFERENCE_NAME + "_2}\"},{\"id\":333}]}");
+  }
+
   private String escapeJsonValue(String value) {
     return value.replaceAll("\"", "\\\\\"");
   }
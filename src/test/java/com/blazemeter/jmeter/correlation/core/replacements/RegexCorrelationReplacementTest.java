@@ -7,6 +7,7 @@ import static org.mockito.Mockito.when;
 
 import com.blazemeter.jmeter.correlation.core.BaseCorrelationContext;
 import com.blazemeter.jmeter.correlation.core.extractors.ResultField;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.function.Function;
 import org.apache.jmeter.config.Arguments;
@@ -307,4 +308,29 @@ public class RegexCorrelationReplacementTest {
         createRegexExtractor(PARAM_NAME + "=" + PARAM_VALUE + "&")), null, vars);
     assertThat(sampler.getArguments().getArgument(0).getValue()).isEqualTo(argumentValue);
   }
+
+  @Test
+  public void shouldCompileRegexOnlyOnceWhenProcessingSeveralProperties() {
+    sampler.addArgument(PARAM_NAME, PARAM_VALUE);
+    replacer.process(sampler, Collections.emptyList(), null, vars);
+    replacer.process(sampler, Collections.emptyList(), null, vars);
+    assertThat(replacer.getPatternCache().getMisses()).isEqualTo(1);
+    assertThat(replacer.getPatternCache().getHits()).isGreaterThan(0);
+  }
+
+  @Test
+  public void shouldCompileRegexAgainWhenParamsAreUpdated() {
+    replacer.process(sampler, Collections.emptyList(), null, vars);
+    replacer.setParams(Arrays.asList(REQUEST_REGEX, "", "false"));
+    replacer.process(sampler, Collections.emptyList(), null, vars);
+    assertThat(replacer.getPatternCache().getMisses()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldReplaceValueInRequestPathWhenUsingLinearRegex() {
+    replacer.setLinearRegex(true);
+    replacer.process(sampler, Collections.emptyList(), null, vars);
+    assertThat(sampler.getPath())
+        .isEqualTo("/" + PARAM_NAME + "=${" + REFERENCE_NAME + "}&Test_Path=1");
+  }
 }
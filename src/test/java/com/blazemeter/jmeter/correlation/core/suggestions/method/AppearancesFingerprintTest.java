@@ -0,0 +1,61 @@
+package com.blazemeter.jmeter.correlation.core.suggestions.method;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.blazemeter.jmeter.correlation.core.automatic.Appearances;
+import com.blazemeter.jmeter.correlation.core.automatic.Sources;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.jmeter.protocol.http.sampler.HTTPSamplerProxy;
+import org.junit.Test;
+
+public class AppearancesFingerprintTest {
+
+  private static final String FIRST_VALUE = "value1";
+  private static final String SECOND_VALUE = "value2";
+
+  @Test
+  public void shouldHaveSameValuesWhenListsHaveSameAppearancesInOtherOrder() {
+    List<Appearances> original = Arrays.asList(
+        buildAppearance(FIRST_VALUE, Sources.REQUEST_ARGUMENTS),
+        buildAppearance(SECOND_VALUE, Sources.REQUEST_QUERY),
+        buildAppearance(FIRST_VALUE, Sources.REQUEST_ARGUMENTS));
+    List<Appearances> replay = Arrays.asList(
+        buildAppearance(SECOND_VALUE, Sources.REQUEST_QUERY),
+        buildAppearance(FIRST_VALUE, Sources.REQUEST_ARGUMENTS),
+        buildAppearance(FIRST_VALUE, Sources.REQUEST_ARGUMENTS));
+    assertThat(AppearancesFingerprint.of(original)
+        .hasSameValues(AppearancesFingerprint.of(replay))).isTrue();
+  }
+
+  private static Appearances buildAppearance(String value, String source) {
+    Appearances ret = new Appearances(value, "param", new HTTPSamplerProxy());
+    ret.setSource(source);
+    return ret;
+  }
+
+  @Test
+  public void shouldNotHaveSameValuesWhenValuesAreRepeatedDifferentTimes() {
+    List<Appearances> original = Arrays.asList(
+        buildAppearance(FIRST_VALUE, Sources.REQUEST_ARGUMENTS),
+        buildAppearance(FIRST_VALUE, Sources.REQUEST_ARGUMENTS),
+        buildAppearance(SECOND_VALUE, Sources.REQUEST_ARGUMENTS));
+    List<Appearances> replay = Arrays.asList(
+        buildAppearance(FIRST_VALUE, Sources.REQUEST_ARGUMENTS),
+        buildAppearance(SECOND_VALUE, Sources.REQUEST_ARGUMENTS),
+        buildAppearance(SECOND_VALUE, Sources.REQUEST_ARGUMENTS));
+    assertThat(AppearancesFingerprint.of(original)
+        .hasSameValues(AppearancesFingerprint.of(replay))).isFalse();
+  }
+
+  @Test
+  public void shouldNotHaveSameValuesWhenSourcesAreDifferent() {
+    List<Appearances> original = Arrays.asList(
+        buildAppearance(FIRST_VALUE, Sources.REQUEST_ARGUMENTS));
+    List<Appearances> replay = Arrays.asList(
+        buildAppearance(FIRST_VALUE, Sources.REQUEST_QUERY));
+    assertThat(AppearancesFingerprint.of(original)
+        .hasSameValues(AppearancesFingerprint.of(replay))).isFalse();
+  }
+
+}
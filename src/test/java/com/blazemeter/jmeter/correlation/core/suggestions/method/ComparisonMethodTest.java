@@ -12,8 +12,10 @@ import com.blazemeter.jmeter.correlation.core.automatic.Configuration;
 import com.blazemeter.jmeter.correlation.core.automatic.CorrelationSuggestion;
 import com.blazemeter.jmeter.correlation.core.automatic.FileManagementUtils;
 import com.blazemeter.jmeter.correlation.core.automatic.ReplacementSuggestion;
+import com.blazemeter.jmeter.correlation.core.automatic.ResponseBodyStore;
 import com.blazemeter.jmeter.correlation.core.automatic.ResultFileParser;
 import com.blazemeter.jmeter.correlation.core.automatic.ResultsExtraction;
+import com.blazemeter.jmeter.correlation.core.automatic.StoredSampleResult;
 import com.blazemeter.jmeter.correlation.core.replacements.CorrelationReplacement;
 import com.blazemeter.jmeter.correlation.core.replacements.JsonCorrelationReplacement;
 import com.blazemeter.jmeter.correlation.core.replacements.RegexCorrelationReplacement;
@@ -103,6 +105,61 @@ public class ComparisonMethodTest extends ReplacementTest {
     softly.assertThat(suggestions.size()).isEqualTo(24);
   }
 
+  @Test
+  public void shouldGenerateSameSuggestionsWhenGenerateSuggestionsInParallel()
+      throws IOException {
+    String path = TestUtils.getFolderPath("/xmlObjects", getClass());
+    mockGetRecordingMap(path);
+    mockGetReplayMap(path);
+
+    Configuration configuration = new Configuration();
+    mockGetRecordingResults(configuration);
+    when(context.getConfiguration()).thenReturn(configuration);
+
+    configuration.setSuggestionsParallelism(1);
+    List<String> sequential = suggestionsToString(
+        new ComparisonMethod().generateSuggestions(context));
+    configuration.setSuggestionsParallelism(4);
+    List<String> parallel = suggestionsToString(
+        new ComparisonMethod().generateSuggestions(context));
+    softly.assertThat(parallel).isEqualTo(sequential);
+  }
+
+  @Test
+  public void shouldGenerateSameSuggestionsWhenGenerateSuggestionsInParallelFromStoredResults()
+      throws IOException {
+    String path = TestUtils.getFolderPath("/xmlObjects", getClass());
+    mockGetRecordingMap(path);
+    mockGetReplayMap(path);
+
+    Configuration configuration = new Configuration();
+    List<SampleResult> results = mockGetRecordingResults(configuration);
+    when(context.getConfiguration()).thenReturn(configuration);
+
+    configuration.setSuggestionsParallelism(1);
+    List<String> sequential = suggestionsToString(
+        new ComparisonMethod().generateSuggestions(context));
+    try (ResponseBodyStore store = new ResponseBodyStore()) {
+      List<SampleResult> storedResults = results.stream()
+          .map(r -> StoredSampleResult.wrap(r, store))
+          .collect(Collectors.toList());
+      when(context.streamRecordingSampleResults()).thenAnswer(i -> storedResults.stream());
+      configuration.setSuggestionsParallelism(4);
+      // the same stored results are shared by the tasks of each run and by consecutive runs
+      for (int i = 0; i < 3; i++) {
+        softly.assertThat(suggestionsToString(new ComparisonMethod().generateSuggestions(context)))
+            .isEqualTo(sequential);
+      }
+    }
+  }
+
+  private static List<String> suggestionsToString(List<CorrelationSuggestion> suggestions) {
+    return suggestions.stream()
+        .map(s -> s.toString() + s.getExtractionSuggestionsString()
+            + s.getReplacementSuggestions())
+        .collect(Collectors.toList());
+  }
+
   private void mockGetReplayMap(String path) {
     loadAndMockIfPresent(path, "replayMapSerialization.xml", context.getReplayMap());
   }
@@ -118,12 +175,14 @@ public class ComparisonMethodTest extends ReplacementTest {
     loadAndMockIfPresent(path, "recordingMapSerialization.xml", context.getRecordingMap());
   }
 
-  private void mockGetRecordingResults(Configuration configuration) throws IOException {
+  private List<SampleResult> mockGetRecordingResults(Configuration configuration)
+      throws IOException {
     String path = TestUtils
         .getFolderPath("/recordings/recordingTrace/recordingForMendix.jtl", getClass());
     List<SampleResult> results = new ResultFileParser(configuration)
         .loadFromFile(new File(path), true);
-    when(context.getRecordingSampleResults()).thenReturn(results);
+    when(context.streamRecordingSampleResults()).thenAnswer(i -> results.stream());
+    return results;
   }
 
   private Optional<Object> loadMap(String path, String filename) {
@@ -176,7 +235,7 @@ public class ComparisonMethodTest extends ReplacementTest {
     List<SampleResult> results = new ResultFileParser(configuration)
         .loadFromFile(new File(path), true);
     ResultsExtraction resultsExtraction = new ResultsExtraction(configuration);
-    when(context.getRecordingSampleResults()).thenReturn(results);
+    when(context.streamRecordingSampleResults()).thenAnswer(i -> results.stream());
     when(context.getRecordingMap()).thenReturn(resultsExtraction.extractAppearanceMap(TestUtils
         .getFolderPath("/recordings/recordingTrace/recording-encode-decode.jtl", getClass())
         .toString()));
@@ -5,6 +5,7 @@ import com.blazemeter.jmeter.correlation.core.automatic.Appearances;
 import com.blazemeter.jmeter.correlation.core.automatic.Configuration;
 import com.blazemeter.jmeter.correlation.core.automatic.DynamicElement;
 import com.blazemeter.jmeter.correlation.core.suggestions.context.ComparisonContext;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -74,4 +75,23 @@ public class DynamicElementHandlerTest {
     softly.assertThat(dynamicElements.get(0).getName()).isEqualTo(SECOND_PARAM_NAME);
     softly.assertThat(dynamicElements.get(1).getName()).isEqualTo(FIRST_PARAM_NAME);
   }
-}
\ No newline at end of file
+
+  @Test
+  public void shouldReturnApparentlyEqualElementWhenValuesAreEqualInOtherOrder() {
+    Map<String, List<Appearances>> originalMap = new HashMap<>();
+    Map<String, List<Appearances>> replayMap = new HashMap<>();
+    HTTPSampler build = new JMeterTestUtils.HttpSamplerBuilder("GET", "test.com", "/").build();
+    originalMap.put(FIRST_PARAM_NAME, Arrays.asList(
+        new Appearances(FIRST_VALUE, FIRST_PARAM_NAME, build),
+        new Appearances(SECOND_VALUE, FIRST_PARAM_NAME, build)));
+    replayMap.put(FIRST_PARAM_NAME, Arrays.asList(
+        new Appearances(SECOND_VALUE, FIRST_PARAM_NAME, build),
+        new Appearances(FIRST_VALUE, FIRST_PARAM_NAME, build)));
+
+    List<DynamicElement> dynamicElements =
+        dynamicElementHandler.getDynamicElements(originalMap, replayMap);
+
+    softly.assertThat(dynamicElements).hasSize(1);
+    softly.assertThat(dynamicElements.get(0).getOtherAppearance()).isEmpty();
+  }
+}
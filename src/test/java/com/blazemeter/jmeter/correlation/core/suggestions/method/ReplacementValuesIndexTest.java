@@ -0,0 +1,71 @@
+package com.blazemeter.jmeter.correlation.core.suggestions.method;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.blazemeter.jmeter.correlation.core.automatic.replacement.method.ReplacementString;
+import com.blazemeter.jmeter.correlation.core.suggestions.method.ComparisonMethod.ReplacementParameters;
+import org.assertj.core.groups.Tuple;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ReplacementValuesIndexTest {
+
+  private static final String DECODED_VALUE = "a b/c";
+  private static final String ENCODED_VALUE = "a+b%2Fc";
+  private static final String REF_NAME = "token";
+
+  private ReplacementValuesIndex index;
+
+  @Before
+  public void setup() {
+    index = new ReplacementValuesIndex();
+  }
+
+  @Test
+  public void shouldGetNoneReplacementWhenValueIsRegistered() {
+    index.register(DECODED_VALUE, REF_NAME + "#1");
+    assertThat(toTuple(index.getReplacementParameters(DECODED_VALUE)))
+        .isEqualTo(Tuple.tuple(REF_NAME, ReplacementString.NONE));
+  }
+
+  private static Tuple toTuple(ReplacementParameters parameters) {
+    return Tuple.tuple(parameters.getRefName(), parameters.getReplacementString());
+  }
+
+  @Test
+  public void shouldGetEncodeReplacementWhenDecodedValueIsRegistered() {
+    index.register(DECODED_VALUE, REF_NAME);
+    assertThat(toTuple(index.getReplacementParameters(ENCODED_VALUE)))
+        .isEqualTo(Tuple.tuple(REF_NAME, ReplacementString.URL_ENCODE));
+  }
+
+  @Test
+  public void shouldGetDecodeReplacementWhenEncodedValueIsRegistered() {
+    index.register(ENCODED_VALUE, REF_NAME);
+    assertThat(toTuple(index.getReplacementParameters(DECODED_VALUE)))
+        .isEqualTo(Tuple.tuple(REF_NAME, ReplacementString.URL_DECODE));
+  }
+
+  @Test
+  public void shouldPreferNoneReplacementWhenRegisteredAfterEncodedValue() {
+    index.register(DECODED_VALUE, "decoded");
+    index.register(ENCODED_VALUE, REF_NAME);
+    assertThat(toTuple(index.getReplacementParameters(ENCODED_VALUE)))
+        .isEqualTo(Tuple.tuple(REF_NAME, ReplacementString.NONE));
+  }
+
+  @Test
+  public void shouldKeepFirstReferenceNameWhenValueIsRegisteredTwice() {
+    index.register(DECODED_VALUE, REF_NAME);
+    index.register(DECODED_VALUE, "other");
+    assertThat(index.getReplacementParameters(DECODED_VALUE).getRefName()).isEqualTo(REF_NAME);
+  }
+
+  @Test
+  public void shouldGetEmptyReferenceNameWhenValueIsNotRegistered() {
+    index.register("100%", REF_NAME);
+    assertThat(toTuple(index.getReplacementParameters(DECODED_VALUE)))
+        .isEqualTo(Tuple.tuple("", ReplacementString.NONE));
+  }
+
+}
@@ -52,7 +52,7 @@ public class RuleTableRowTest {
     rule.setExtractorFromRulePart(DEFAULT_EXTRACTOR);
     assertThat(getExtractorValues())
         .isNotEqualTo(originalValues)
-        .isEqualTo(Arrays.asList("param=\"(.+?)\"", "1", "1", "BODY", "false"));
+        .isEqualTo(Arrays.asList("param=\"(.+?)\"", "1", "1", "BODY", "false", "false"));
   }
 
   private List<String> getExtractorValues() {
@@ -65,7 +65,7 @@ public class RuleTableRowTest {
     rule.setReplacementFromRulePart(DEFAULT_REPLACEMENT);
     assertThat(getReplacementValues())
         .isNotEqualTo(originalValues)
-        .isEqualTo(Arrays.asList("param=\"(.+?)\"", "", "false"));
+        .isEqualTo(Arrays.asList("param=\"(.+?)\"", "", "false", "false"));
   }
 
   private List<String> getReplacementValues() {